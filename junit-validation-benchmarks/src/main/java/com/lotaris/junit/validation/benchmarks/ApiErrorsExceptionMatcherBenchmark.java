@@ -0,0 +1,61 @@
+package com.lotaris.junit.validation.benchmarks;
+
+import com.lotaris.jee.validation.ApiErrorsException;
+import com.lotaris.junit.validation.matchers.ApiErrorsExceptionMatcher;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.StringDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation of {@link ApiErrorsExceptionMatcher}, including the matching of the wrapped response.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiErrorsExceptionMatcherBenchmark {
+
+	@Param({"1", "100", "10000"})
+	public int size;
+
+	private ApiErrorsExceptionMatcher matcher;
+	private ApiErrorsException matchingException;
+	private ApiErrorsException wrongStatusException;
+
+	@Setup
+	public void setUp() {
+
+		matcher = new ApiErrorsExceptionMatcher(Fixtures.HTTP_STATUS_CODE);
+		for (int i = 0; i < size; i++) {
+			matcher.withError(Fixtures.code(i), "json", Fixtures.location(i), Fixtures.message(i));
+		}
+		matcher.compile();
+
+		matchingException = Fixtures.exception(Fixtures.response(Fixtures.HTTP_STATUS_CODE, Fixtures.errors(size)));
+		wrongStatusException = Fixtures.exception(Fixtures.response(400, Fixtures.errors(size)));
+	}
+
+	@Benchmark
+	public boolean matches() {
+		return matcher.matches(matchingException);
+	}
+
+	@Benchmark
+	public String describeMismatch() {
+		final StringDescription description = new StringDescription();
+		matcher.describeMismatch(wrongStatusException, description);
+		return description.toString();
+	}
+}
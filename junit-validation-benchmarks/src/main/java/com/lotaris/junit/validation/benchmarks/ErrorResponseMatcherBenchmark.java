@@ -0,0 +1,77 @@
+package com.lotaris.junit.validation.benchmarks;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.junit.validation.matchers.ApiErrorResponseObjectMatcher;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.StringDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation and mismatch description of {@link ApiErrorResponseObjectMatcher} for responses of
+ * increasing size, with expectations declared in a different order than the actual errors.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorResponseMatcherBenchmark {
+
+	@Param({"1", "100", "10000", "100000"})
+	public int size;
+
+	/**
+	 * Whether the expectations have a literal message (bucket lookup) or accept any message (maximum
+	 * matching).
+	 */
+	@Param({"true", "false"})
+	public boolean literalMessages;
+
+	private ApiErrorResponseObjectMatcher matcher;
+	private ApiErrorResponse matchingResponse;
+	private ApiErrorResponse mismatchingResponse;
+
+	@Setup
+	public void setUp() {
+
+		matcher = Fixtures.matcher(size, literalMessages);
+		matcher.compile();
+
+		final List<ApiError> errors = Fixtures.errors(size);
+		matchingResponse = Fixtures.response(Fixtures.HTTP_STATUS_CODE, errors);
+
+		// the last expected error is missing and an unexpected one is present
+		errors.set(size - 1, Fixtures.error(Fixtures.code(size - 1), "json", "/unexpected", "Unexpected error"));
+		mismatchingResponse = Fixtures.response(Fixtures.HTTP_STATUS_CODE, errors);
+	}
+
+	@Benchmark
+	public boolean matches() {
+		return matcher.matches(matchingResponse);
+	}
+
+	@Benchmark
+	public boolean mismatches() {
+		return matcher.matches(mismatchingResponse);
+	}
+
+	@Benchmark
+	public String describeMismatch() {
+		final StringDescription description = new StringDescription();
+		matcher.describeMismatch(mismatchingResponse, description);
+		return description.toString();
+	}
+}
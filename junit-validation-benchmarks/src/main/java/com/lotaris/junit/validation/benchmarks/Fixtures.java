@@ -0,0 +1,182 @@
+package com.lotaris.junit.validation.benchmarks;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.jee.validation.ApiErrorsException;
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IErrorLocationType;
+import com.lotaris.junit.validation.ErrorCodeRegistry;
+import com.lotaris.junit.validation.matchers.ApiErrorResponseObjectMatcher;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+
+/**
+ * Builds the API error responses used by the benchmarks.
+ *
+ * <p>The objects are plain instances (not mocks, whose invocation logs would distort the
+ * measurements): they are instantiated without a constructor and their fields are filled by name and
+ * type, so that the benchmarks do not depend on the constructors of a given jee-validation version.
+ * The getters are checked after filling.</p>
+ */
+final class Fixtures {
+
+	static final int HTTP_STATUS_CODE = 422;
+	static final int DISTINCT_CODES = 50;
+
+	private static final Objenesis OBJENESIS = new ObjenesisStd(true);
+
+	/**
+	 * Returns errors with distinct locations: code <tt>1000 + i % 50</tt>, location type "json",
+	 * location <tt>/items/i/name</tt> and message <tt>Item i is invalid</tt>.
+	 */
+	static List<ApiError> errors(int count) {
+		final List<ApiError> errors = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			errors.add(error(code(i), "json", location(i), message(i)));
+		}
+		return errors;
+	}
+
+	/**
+	 * Returns a matcher expecting exactly the errors returned by {@link #errors(int)}, declared in a
+	 * shuffled order.
+	 *
+	 * @param count the number of errors
+	 * @param literalMessages whether the expectations have a literal message (or accept any message)
+	 */
+	static ApiErrorResponseObjectMatcher matcher(int count, boolean literalMessages) {
+
+		final List<Integer> order = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			order.add(i);
+		}
+		Collections.shuffle(order, new Random(42));
+
+		final ApiErrorResponseObjectMatcher matcher = new ApiErrorResponseObjectMatcher(HTTP_STATUS_CODE);
+		for (int i : order) {
+			if (literalMessages) {
+				matcher.withError(code(i), "json", location(i), message(i));
+			} else {
+				matcher.withError(code(i), "json", location(i));
+			}
+		}
+
+		return matcher;
+	}
+
+	static ApiError error(int code, String locationType, String location, String message) {
+
+		final ApiError error = instantiate(ApiError.class);
+		for (Field field : fields(ApiError.class)) {
+			final String name = field.getName().toLowerCase();
+			if (name.contains("locationtype")) {
+				set(error, field, locationType, ErrorCodeRegistry.errorLocationType(locationType));
+			} else if (name.contains("location")) {
+				set(error, field, location, null);
+			} else if (name.contains("code")) {
+				set(error, field, code, ErrorCodeRegistry.errorCode(code, HTTP_STATUS_CODE));
+			} else if (name.contains("message")) {
+				set(error, field, message, null);
+			}
+		}
+
+		if (!Objects.equals(error.getNumericCode(), code) || !Objects.equals(error.getLocationTypeAsString(), locationType)
+				|| !Objects.equals(error.getLocation(), location) || !Objects.equals(error.getMessage(), message)) {
+			throw new IllegalStateException("Could not build an ApiError fixture with this version of jee-validation");
+		}
+
+		return error;
+	}
+
+	static ApiErrorResponse response(int httpStatusCode, List<ApiError> errors) {
+
+		final ApiErrorResponse response = instantiate(ApiErrorResponse.class);
+		for (Field field : fields(ApiErrorResponse.class)) {
+			if (field.getName().toLowerCase().contains("status")) {
+				set(response, field, httpStatusCode, null);
+			} else if (List.class.isAssignableFrom(field.getType())) {
+				set(response, field, new ArrayList<>(errors), null);
+			}
+		}
+
+		if (!Objects.equals(response.getHttpStatusCode(), httpStatusCode) || response.getErrors().size() != errors.size()) {
+			throw new IllegalStateException("Could not build an ApiErrorResponse fixture with this version of jee-validation");
+		}
+
+		return response;
+	}
+
+	static ApiErrorsException exception(ApiErrorResponse response) {
+
+		final ApiErrorsException exception = instantiate(ApiErrorsException.class);
+		for (Field field : fields(ApiErrorsException.class)) {
+			if (field.getType().isAssignableFrom(ApiErrorResponse.class)) {
+				set(exception, field, response, null);
+			}
+		}
+
+		if (exception.getErrorResponse() != response) {
+			throw new IllegalStateException("Could not build an ApiErrorsException fixture with this version of jee-validation");
+		}
+
+		return exception;
+	}
+
+	static int code(int i) {
+		return 1000 + i % DISTINCT_CODES;
+	}
+
+	static String location(int i) {
+		return "/items/" + i + "/name";
+	}
+
+	static String message(int i) {
+		return "Item " + i + " is invalid";
+	}
+
+	private static <T> T instantiate(Class<T> type) {
+		return type.cast(OBJENESIS.newInstance(type));
+	}
+
+	private static List<Field> fields(Class<?> type) {
+		final List<Field> fields = new ArrayList<>();
+		for (Class<?> current = type; current != null && current != Object.class && current != Throwable.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * Sets the field to the plain value if its type accepts it, or to the typed value otherwise (e.g.
+	 * an {@link IErrorCode} or {@link IErrorLocationType} instead of a number or string).
+	 */
+	private static void set(Object target, Field field, Object value, Object typedValue) {
+		try {
+			final Class<?> type = field.getType();
+			if (type == int.class && value instanceof Integer || type.isInstance(value)) {
+				field.set(target, value);
+			} else if (typedValue != null && type.isInstance(typedValue)) {
+				field.set(target, typedValue);
+			}
+		} catch (IllegalAccessException iae) {
+			throw new IllegalStateException("Could not set field " + field, iae);
+		}
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private Fixtures() {
+	}
+	//</editor-fold>
+}
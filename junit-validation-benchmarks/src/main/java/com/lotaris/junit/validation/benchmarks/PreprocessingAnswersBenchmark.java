@@ -0,0 +1,85 @@
+package com.lotaris.junit.validation.benchmarks;
+
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+import com.lotaris.junit.validation.FakePreprocessingConfig;
+import com.lotaris.junit.validation.PreprossessingAnswers;
+import com.lotaris.junit.validation.ValidationContextRecorder;
+import com.lotaris.junit.validation.ValidationUtils;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.mockito.invocation.InvocationOnMock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link PreprossessingAnswers.PreprossessingWithErrorAnswer} itself, called with a plain
+ * invocation rather than through a mock.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PreprocessingAnswersBenchmark {
+
+	private ValidationContextRecorder recorder;
+	private PreprossessingAnswers.PreprossessingWithErrorAnswer answer;
+	private InvocationOnMock invocation;
+
+	@Setup
+	public void setUp() throws NoSuchMethodException {
+		recorder = new ValidationContextRecorder();
+		answer = new PreprossessingAnswers.PreprossessingWithErrorAnswer(ValidationUtils.errorCode(1001), "Name is required");
+		invocation = new Invocation(IPreprocessor.class.getMethod("process", Object.class, IPreprocessingConfig.class), new Object(), new FakePreprocessingConfig(recorder.getContext()));
+	}
+
+	@Benchmark
+	public Boolean answerWithError() throws Throwable {
+		recorder.reset();
+		return answer.answer(invocation);
+	}
+
+	/**
+	 * Invocation of <tt>IPreprocessor.process</tt> with fixed arguments.
+	 */
+	private static class Invocation implements InvocationOnMock {
+
+		private final Method method;
+		private final Object[] arguments;
+
+		public Invocation(Method method, Object... arguments) {
+			this.method = method;
+			this.arguments = arguments;
+		}
+
+		@Override
+		public Object getMock() {
+			return null;
+		}
+
+		@Override
+		public Method getMethod() {
+			return method;
+		}
+
+		@Override
+		public Object[] getArguments() {
+			return arguments;
+		}
+
+		@Override
+		public Object callRealMethod() throws Throwable {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
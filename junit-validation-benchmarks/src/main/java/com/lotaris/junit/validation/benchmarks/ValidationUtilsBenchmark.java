@@ -0,0 +1,106 @@
+package com.lotaris.junit.validation.benchmarks;
+
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+import com.lotaris.junit.validation.FakePreprocessingConfig;
+import com.lotaris.junit.validation.FakePreprocessor;
+import com.lotaris.junit.validation.ValidationContextRecorder;
+import com.lotaris.junit.validation.ValidationUtils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Setup cost of the {@link ValidationUtils} stubbing helpers, on Mockito mocks and on
+ * {@link FakePreprocessor}s, and cost of the helpers used in assertions.
+ *
+ * <p>Stubbed mocks are not invoked here: their invocation log would grow for the whole
+ * measurement.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationUtilsBenchmark {
+
+	private ValidationContextRecorder recorder;
+	private FakePreprocessingConfig config;
+	private FakePreprocessor runningValidators;
+	private int code;
+
+	@Setup
+	public void setUp() {
+
+		recorder = new ValidationContextRecorder();
+		config = new FakePreprocessingConfig(recorder.getContext()).validateWith(new IValidator<Object>() {
+			@Override
+			public void collectErrors(Object object, IValidationContext context) {
+				context.addError("/name", null, ValidationUtils.errorCode(1001), "Name is required");
+			}
+		});
+
+		runningValidators = FakePreprocessor.runningValidators();
+	}
+
+	@Benchmark
+	public IPreprocessor runValidatorsOnMock() {
+		final IPreprocessor chain = mock(IPreprocessor.class);
+		ValidationUtils.runValidatorsInPreprocessingChain(chain);
+		return chain;
+	}
+
+	@Benchmark
+	public IPreprocessor runValidatorsOnFake() {
+		final IPreprocessor chain = new FakePreprocessor();
+		ValidationUtils.runValidatorsInPreprocessingChain(chain);
+		return chain;
+	}
+
+	@Benchmark
+	public IPreprocessor failValidationsOnMock() {
+		final IPreprocessor chain = mock(IPreprocessor.class);
+		ValidationUtils.failPreprocessingChainValidations(chain);
+		return chain;
+	}
+
+	@Benchmark
+	public IPreprocessor failValidationsOnFake() {
+		final IPreprocessor chain = new FakePreprocessor();
+		ValidationUtils.failPreprocessingChainValidations(chain);
+		return chain;
+	}
+
+	@Benchmark
+	public int processWithFake() {
+		recorder.reset();
+		runningValidators.reset();
+		runningValidators.willRunValidators().process(this, config);
+		return recorder.getErrorCount();
+	}
+
+	@Benchmark
+	public IErrorCode errorCode() {
+		return ValidationUtils.errorCode(1000 + (code++ & 1023));
+	}
+
+	@Benchmark
+	public int verifyNoErrorAddedOnRecorder() {
+		recorder.reset();
+		ValidationUtils.verifyNoErrorAdded(recorder.getContext());
+		return recorder.getErrorCount();
+	}
+}
@@ -0,0 +1,76 @@
+package com.lotaris.junit.validation;
+
+/**
+ * Complexity classes that the running time of a validation can be fitted to, from the best to the
+ * worst.
+ *
+ * @see ScalingAnalysis
+ */
+public enum Complexity {
+
+	CONSTANT("O(1)") {
+		@Override
+		public double evaluate(double n) {
+			return 1;
+		}
+	},
+	LOG_N("O(log n)") {
+		@Override
+		public double evaluate(double n) {
+			return Math.log(Math.max(n, 2));
+		}
+	},
+	LINEAR("O(n)") {
+		@Override
+		public double evaluate(double n) {
+			return n;
+		}
+	},
+	N_LOG_N("O(n log n)") {
+		@Override
+		public double evaluate(double n) {
+			return n * Math.log(Math.max(n, 2));
+		}
+	},
+	QUADRATIC("O(n^2)") {
+		@Override
+		public double evaluate(double n) {
+			return n * n;
+		}
+	},
+	CUBIC("O(n^3)") {
+		@Override
+		public double evaluate(double n) {
+			return n * n * n;
+		}
+	};
+
+	private final String notation;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private Complexity(String notation) {
+		this.notation = notation;
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns the growth function of this class at the specified size, without constant factor.
+	 */
+	public abstract double evaluate(double n);
+
+	/**
+	 * Indicates whether this class grows faster than another one.
+	 */
+	public boolean isWorseThan(Complexity other) {
+		return ordinal() > other.ordinal();
+	}
+
+	public String getNotation() {
+		return notation;
+	}
+
+	@Override
+	public String toString() {
+		return notation;
+	}
+}
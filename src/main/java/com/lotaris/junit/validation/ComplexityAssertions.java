@@ -0,0 +1,60 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+
+/**
+ * Assertions on how the running time of validators grows with the size of their input, with the
+ * default settings of {@link ScalingAnalysis}.
+ *
+ * <pre>
+ * ComplexityAssertions.assertScalesLinearly(new OrderValidator(), new ScalingAnalysis.InputGenerator&lt;Order&gt;() {
+ *	public Order generate(int size) {
+ *		return orderWithLines(size);
+ *	}
+ * });
+ * </pre>
+ */
+public final class ComplexityAssertions {
+
+	/**
+	 * Asserts that the time of a validation grows at most linearly with the size of the input.
+	 *
+	 * @param validator the validator to measure
+	 * @param generator the generator of inputs
+	 * @throws AssertionError if the time grows faster
+	 */
+	public static <T> void assertScalesLinearly(IValidator<T> validator, ScalingAnalysis.InputGenerator<? extends T> generator) {
+		assertScalesAtMost(Complexity.LINEAR, validator, generator);
+	}
+
+	/**
+	 * Asserts that the time of a validation grows at most as fast as a complexity class.
+	 *
+	 * @param complexity the declared complexity
+	 * @param validator the validator to measure
+	 * @param generator the generator of inputs
+	 * @throws AssertionError if the time grows faster
+	 */
+	public static <T> void assertScalesAtMost(Complexity complexity, IValidator<T> validator, ScalingAnalysis.InputGenerator<? extends T> generator) {
+		ScalingAnalysis.forValidator(validator).run(generator).assertScalesAtMost(complexity);
+	}
+
+	/**
+	 * Asserts that the time taken by the validators of a preprocessing configuration grows at most as
+	 * fast as a complexity class.
+	 *
+	 * @param complexity the declared complexity
+	 * @param config the configuration (e.g. a {@link FakePreprocessingConfig})
+	 * @param generator the generator of inputs
+	 * @throws AssertionError if the time grows faster
+	 */
+	public static void assertScalesAtMost(Complexity complexity, IPreprocessingConfig config, ScalingAnalysis.InputGenerator<?> generator) {
+		ScalingAnalysis.forConfig(config).run(generator).assertScalesAtMost(complexity);
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private ComplexityAssertions() {
+	}
+	//</editor-fold>
+}
@@ -0,0 +1,115 @@
+package com.lotaris.junit.validation;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts error codes without boxing them. Counting a code only allocates the first time the table
+ * has to grow.
+ */
+final class ErrorCodeFrequency {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] keys;
+	private long[] counts;
+	private boolean[] used;
+	private int size;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public ErrorCodeFrequency() {
+		keys = new int[INITIAL_CAPACITY];
+		counts = new long[INITIAL_CAPACITY];
+		used = new boolean[INITIAL_CAPACITY];
+	}
+	//</editor-fold>
+
+	/**
+	 * Counts an error code.
+	 *
+	 * @param code the code ({@link ValidationContextRecorder#NO_CODE} for an error without code)
+	 */
+	public void increment(int code) {
+		add(code, 1);
+	}
+
+	public void add(int code, long count) {
+		int slot = find(code);
+		if (!used[slot]) {
+			if ((size + 1) * 2 > keys.length) {
+				grow();
+				slot = find(code);
+			}
+			used[slot] = true;
+			keys[slot] = code;
+			size++;
+		}
+		counts[slot] += count;
+	}
+
+	public void add(ErrorCodeFrequency other) {
+		for (int i = 0; i < other.keys.length; i++) {
+			if (other.used[i]) {
+				add(other.keys[i], other.counts[i]);
+			}
+		}
+	}
+
+	public long get(int code) {
+		final int slot = find(code);
+		return used[slot] ? counts[slot] : 0;
+	}
+
+	/**
+	 * Returns the counts by code, sorted by code. Errors without code are counted under a null key.
+	 */
+	public Map<Integer, Long> toMap() {
+		final Map<Integer, Long> map = new TreeMap<>(new NullFirstComparator());
+		for (int i = 0; i < keys.length; i++) {
+			if (used[i]) {
+				map.put(keys[i] != ValidationContextRecorder.NO_CODE ? keys[i] : null, counts[i]);
+			}
+		}
+		return map;
+	}
+
+	private int find(int key) {
+		final int mask = keys.length - 1;
+		final int h = key * 0x9E3779B9;
+		int i = (h ^ (h >>> 16)) & mask;
+		while (used[i] && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void grow() {
+		final int[] oldKeys = keys;
+		final long[] oldCounts = counts;
+		final boolean[] oldUsed = used;
+
+		keys = new int[oldKeys.length * 2];
+		counts = new long[oldKeys.length * 2];
+		used = new boolean[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				final int slot = find(oldKeys[i]);
+				used[slot] = true;
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+	private static class NullFirstComparator implements Comparator<Integer> {
+
+		@Override
+		public int compare(Integer o1, Integer o2) {
+			if (o1 == null || o2 == null) {
+				return o1 == null ? (o2 == null ? 0 : -1) : 1;
+			}
+			return o1.compareTo(o2);
+		}
+	}
+}
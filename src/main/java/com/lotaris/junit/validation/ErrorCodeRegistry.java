@@ -0,0 +1,187 @@
+package com.lotaris.junit.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonicalizing registry of the error codes and error location types used in tests.
+ *
+ * <p>Error codes are kept in an open-addressing table keyed by the primitive code and default HTTP
+ * status code, so that looking up an already known code neither allocates nor locks. Each distinct
+ * code is represented by a single {@link InternedErrorCode} instance, which can be compared by
+ * identity or used as a key.</p>
+ *
+ * <p>The default HTTP status code of codes obtained with {@link #errorCode(int)} is 422 unless
+ * changed with {@link #setDefaultHttpStatusCode(int)}.</p>
+ */
+public final class ErrorCodeRegistry {
+
+	private static final int DEFAULT_HTTP_STATUS_CODE = 422;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final Object LOCK = new Object();
+	private static volatile InternedErrorCode[] table = new InternedErrorCode[INITIAL_CAPACITY];
+	private static int size;
+	private static volatile int defaultHttpStatusCode = DEFAULT_HTTP_STATUS_CODE;
+
+	private static final ConcurrentMap<String, InternedErrorLocationType> LOCATION_TYPES = new ConcurrentHashMap<>();
+	// the map cannot hold a null key
+	private static final InternedErrorLocationType NULL_LOCATION_TYPE = new InternedErrorLocationType(null);
+
+	/**
+	 * Returns the canonical error code with the specified code and the current default HTTP status
+	 * code.
+	 *
+	 * @param code the numeric code
+	 * @return the canonical error code
+	 */
+	public static InternedErrorCode errorCode(int code) {
+		return errorCode(code, defaultHttpStatusCode);
+	}
+
+	/**
+	 * Returns the canonical error code with the specified code and default HTTP status code.
+	 *
+	 * @param code the numeric code
+	 * @param httpStatusCode the default HTTP status code
+	 * @return the canonical error code
+	 */
+	public static InternedErrorCode errorCode(int code, int httpStatusCode) {
+
+		// lock-free lookup; entries only have final fields, so a racy read is either null or complete
+		final InternedErrorCode found = find(table, code, httpStatusCode);
+		if (found != null) {
+			return found;
+		}
+
+		synchronized (LOCK) {
+
+			InternedErrorCode[] current = table;
+			final InternedErrorCode existing = find(current, code, httpStatusCode);
+			if (existing != null) {
+				return existing;
+			}
+
+			// keep the load factor under 1/2
+			if ((size + 1) * 2 > current.length) {
+				current = resize(current);
+			}
+
+			final InternedErrorCode errorCode = new InternedErrorCode(code, httpStatusCode);
+			current[slot(current, code, httpStatusCode)] = errorCode;
+			size++;
+			table = current;
+
+			return errorCode;
+		}
+	}
+
+	/**
+	 * Returns the canonical error location type with the specified name.
+	 *
+	 * @param locationType the location type (e.g. "json"), or null
+	 * @return the canonical error location type (whose location type is null if null was given)
+	 */
+	public static InternedErrorLocationType errorLocationType(String locationType) {
+		if (locationType == null) {
+			return NULL_LOCATION_TYPE;
+		}
+
+		final InternedErrorLocationType found = LOCATION_TYPES.get(locationType);
+		if (found != null) {
+			return found;
+		}
+
+		final InternedErrorLocationType created = new InternedErrorLocationType(locationType);
+		final InternedErrorLocationType existing = LOCATION_TYPES.putIfAbsent(locationType, created);
+		return existing != null ? existing : created;
+	}
+
+	/**
+	 * Indicates whether an error code with the specified code has been obtained from this registry
+	 * (with any default HTTP status code).
+	 *
+	 * @param code the numeric code
+	 * @return true if the code is known
+	 */
+	public static boolean isRegistered(int code) {
+		for (InternedErrorCode errorCode : table) {
+			if (errorCode != null && errorCode.getCode() == code) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns all error codes obtained from this registry so far.
+	 *
+	 * @return a snapshot of the registered error codes
+	 */
+	public static List<InternedErrorCode> getRegisteredErrorCodes() {
+		final List<InternedErrorCode> errorCodes = new ArrayList<>();
+		for (InternedErrorCode errorCode : table) {
+			if (errorCode != null) {
+				errorCodes.add(errorCode);
+			}
+		}
+		return errorCodes;
+	}
+
+	public static int getDefaultHttpStatusCode() {
+		return defaultHttpStatusCode;
+	}
+
+	/**
+	 * Sets the default HTTP status code of the error codes obtained with {@link #errorCode(int)}
+	 * from now on. Codes that have already been obtained are not affected.
+	 *
+	 * @param httpStatusCode the default HTTP status code (422 initially)
+	 */
+	public static void setDefaultHttpStatusCode(int httpStatusCode) {
+		defaultHttpStatusCode = httpStatusCode;
+	}
+
+	private static InternedErrorCode find(InternedErrorCode[] entries, int code, int httpStatusCode) {
+		final int mask = entries.length - 1;
+		for (int i = hash(code, httpStatusCode) & mask;; i = (i + 1) & mask) {
+			final InternedErrorCode entry = entries[i];
+			if (entry == null) {
+				return null;
+			} else if (entry.getCode() == code && entry.getDefaultHttpStatusCode() == httpStatusCode) {
+				return entry;
+			}
+		}
+	}
+
+	private static int slot(InternedErrorCode[] entries, int code, int httpStatusCode) {
+		final int mask = entries.length - 1;
+		int i = hash(code, httpStatusCode) & mask;
+		while (entries[i] != null) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private static InternedErrorCode[] resize(InternedErrorCode[] entries) {
+		final InternedErrorCode[] resized = new InternedErrorCode[entries.length * 2];
+		for (InternedErrorCode entry : entries) {
+			if (entry != null) {
+				resized[slot(resized, entry.getCode(), entry.getDefaultHttpStatusCode())] = entry;
+			}
+		}
+		return resized;
+	}
+
+	private static int hash(int code, int httpStatusCode) {
+		final int h = (code * 31 + httpStatusCode) * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private ErrorCodeRegistry() {
+	}
+	//</editor-fold>
+}
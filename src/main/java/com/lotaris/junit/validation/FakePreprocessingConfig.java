@@ -0,0 +1,111 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plain Java preprocessing configuration for tests that drive a preprocessing chain (or a
+ * {@link FakePreprocessor}) directly.
+ *
+ * <pre>
+ * IPreprocessingConfig config = new FakePreprocessingConfig(context)
+ *		.validateWith(new UserValidator())
+ *		.withGroups(Default.class)
+ *		.validatingPatch();
+ * </pre>
+ */
+public class FakePreprocessingConfig implements IPreprocessingConfig {
+
+	private final IValidationContext validationContext;
+	private final List<IValidator<?>> validators;
+	private Class<?>[] validationGroups;
+	private boolean patchValidation;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	/**
+	 * Constructs a configuration without validators, validation groups or patch validation.
+	 *
+	 * @param validationContext the validation context returned to the preprocessors
+	 */
+	public FakePreprocessingConfig(IValidationContext validationContext) {
+		this.validationContext = validationContext;
+		this.validators = new ArrayList<>();
+		this.validationGroups = new Class<?>[0];
+	}
+	//</editor-fold>
+
+	/**
+	 * Adds validators to this configuration.
+	 *
+	 * @param validators the validators to add
+	 * @return this configuration
+	 */
+	public FakePreprocessingConfig validateWith(IValidator<?>... validators) {
+		this.validators.addAll(Arrays.asList(validators));
+		return this;
+	}
+
+	/**
+	 * Sets the validation groups of this configuration.
+	 *
+	 * @param validationGroups the validation groups
+	 * @return this configuration
+	 */
+	public FakePreprocessingConfig withGroups(Class<?>... validationGroups) {
+		this.validationGroups = validationGroups != null ? validationGroups : new Class<?>[0];
+		return this;
+	}
+
+	/**
+	 * Enables patch validation.
+	 *
+	 * @return this configuration
+	 */
+	public FakePreprocessingConfig validatingPatch() {
+		return withPatchValidation(true);
+	}
+
+	/**
+	 * Enables or disables patch validation.
+	 *
+	 * @param patchValidation whether patch validation is enabled
+	 * @return this configuration
+	 */
+	public FakePreprocessingConfig withPatchValidation(boolean patchValidation) {
+		this.patchValidation = patchValidation;
+		return this;
+	}
+
+	@Override
+	public IValidationContext getValidationContext() {
+		return validationContext;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public List<IValidator> getValidators() {
+		// the interface is declared with the raw type
+		return Collections.<IValidator>unmodifiableList(validators);
+	}
+
+	@Override
+	public Class<?>[] getValidationGroups() {
+		return validationGroups;
+	}
+
+	@Override
+	public boolean isPatchValidationEnabled() {
+		return patchValidation;
+	}
+
+	@Override
+	public String toString() {
+		return "Preprocessing configuration with patch validation " + (patchValidation ? "enabled" : "not enabled")
+				+ ", validation groups " + Arrays.toString(validationGroups) + " and validators " + validators;
+	}
+}
@@ -0,0 +1,176 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+import java.util.ArrayList;
+import java.util.List;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+/**
+ * Plain Java preprocessing chain for tests, to be used instead of a Mockito mock of
+ * {@link IPreprocessor}. It records the objects and configurations it processes and applies a
+ * configurable behaviour, without any proxy creation or stubbing.
+ *
+ * <p>The {@link ValidationUtils} methods that stub or verify a preprocessing chain recognize a fake
+ * preprocessor, so switching a test to it only requires changing the declaration of the chain:</p>
+ *
+ * <pre>
+ * IPreprocessor preprocessingChain = new FakePreprocessor(); // instead of mock(IPreprocessor.class)
+ * ValidationUtils.runValidatorsInPreprocessingChain(preprocessingChain);
+ * </pre>
+ */
+public class FakePreprocessor implements IPreprocessor {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	/**
+	 * Returns a fake preprocessing chain that runs all the validators of the configuration.
+	 */
+	public static FakePreprocessor runningValidators() {
+		return new FakePreprocessor(PreprocessingBehaviours.runValidators());
+	}
+
+	/**
+	 * Returns a fake preprocessing chain that performs an action on a validation state object.
+	 */
+	public static <T> FakePreprocessor usingValidationState(Class<? extends T> stateClass, ValidationUtils.IValidationStateAction<T> stateAction) {
+		return new FakePreprocessor(PreprocessingBehaviours.useValidationState(stateClass, stateAction));
+	}
+
+	/**
+	 * Returns a fake preprocessing chain that adds the specified error to the validation context.
+	 */
+	public static FakePreprocessor failingWith(IErrorCode errorCode, String message) {
+		return new FakePreprocessor(PreprocessingBehaviours.addError(null, errorCode, message));
+	}
+	//</editor-fold>
+
+	private volatile IPreprocessor behaviour;
+	private final List<Object> processedObjects;
+	private final List<IPreprocessingConfig> processedConfigs;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	/**
+	 * Constructs a fake preprocessing chain that processes successfully without doing anything.
+	 */
+	public FakePreprocessor() {
+		this(PreprocessingBehaviours.succeed());
+	}
+
+	/**
+	 * Constructs a fake preprocessing chain with a custom behaviour.
+	 *
+	 * @param behaviour what to do when processing an object
+	 */
+	public FakePreprocessor(IPreprocessor behaviour) {
+		this.behaviour = behaviour;
+		this.processedObjects = new ArrayList<>();
+		this.processedConfigs = new ArrayList<>();
+	}
+	//</editor-fold>
+
+	@Override
+	public boolean process(Object object, IPreprocessingConfig config) {
+		synchronized (this) {
+			processedObjects.add(object);
+			processedConfigs.add(config);
+		}
+		return behaviour.process(object, config);
+	}
+
+	/**
+	 * Changes what this chain does when processing an object.
+	 *
+	 * @param behaviour the new behaviour
+	 * @return this chain
+	 */
+	public FakePreprocessor willDo(IPreprocessor behaviour) {
+		this.behaviour = behaviour;
+		return this;
+	}
+
+	/**
+	 * Makes this chain run all the validators of the configuration.
+	 *
+	 * @return this chain
+	 */
+	public FakePreprocessor willRunValidators() {
+		return willDo(PreprocessingBehaviours.runValidators());
+	}
+
+	/**
+	 * Makes this chain perform an action on a validation state object.
+	 *
+	 * @return this chain
+	 */
+	public <T> FakePreprocessor willUseValidationState(Class<? extends T> stateClass, ValidationUtils.IValidationStateAction<T> stateAction) {
+		return willDo(PreprocessingBehaviours.useValidationState(stateClass, stateAction));
+	}
+
+	/**
+	 * Makes this chain add an error to the validation context.
+	 *
+	 * @param location the location of the error (may be null)
+	 * @param errorCode the error code
+	 * @param message the error message
+	 * @return this chain
+	 */
+	public FakePreprocessor willAddError(String location, IErrorCode errorCode, String message) {
+		return willDo(PreprocessingBehaviours.addError(location, errorCode, message));
+	}
+
+	public synchronized int getInvocationCount() {
+		return processedConfigs.size();
+	}
+
+	public synchronized List<Object> getProcessedObjects() {
+		return new ArrayList<>(processedObjects);
+	}
+
+	public synchronized List<IPreprocessingConfig> getProcessedConfigs() {
+		return new ArrayList<>(processedConfigs);
+	}
+
+	/**
+	 * Forgets the recorded invocations and restores the default behaviour (successful processing).
+	 */
+	public synchronized void reset() {
+		processedObjects.clear();
+		processedConfigs.clear();
+		behaviour = PreprocessingBehaviours.succeed();
+	}
+
+	/**
+	 * Asserts that exactly one processed configuration matches the specified matcher, like
+	 * <tt>verify(chain, times(1)).process(anyObject(), argThat(configMatcher))</tt> on a mock.
+	 *
+	 * @param configMatcher the matcher for the preprocessing configuration
+	 * @throws AssertionError if no or several configurations match
+	 */
+	public void verifyProcessedOnce(Matcher<? super IPreprocessingConfig> configMatcher) {
+
+		final List<IPreprocessingConfig> configs = getProcessedConfigs();
+
+		int matching = 0;
+		for (IPreprocessingConfig config : configs) {
+			if (configMatcher.matches(config)) {
+				matching++;
+			}
+		}
+
+		if (matching != 1) {
+			final StringDescription description = new StringDescription();
+			description.appendText("Expected preprocessing chain to be processed once with ").appendDescriptionOf(configMatcher);
+			description.appendText("\n     but: it was processed " + matching + " times with such a configuration");
+			if (configs.size() == 1) {
+				description.appendText(" (");
+				configMatcher.describeMismatch(configs.get(0), description);
+				description.appendText(")");
+			} else {
+				description.appendText(" and " + configs.size() + " times in total");
+			}
+			throw new AssertionError(description.toString());
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package com.lotaris.junit.validation;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Java Flight Recorder events emitted by the matchers and the preprocessing chain helpers, to see in
+ * a recording of a slow test suite which validators and assertions take the time:
+ *
+ * <ul>
+ * <li><tt>com.lotaris.junit.validation.ValidatorExecuted</tt>: a validator run by a preprocessing
+ * chain (validator class, number of errors added when the context is recorded, duration);</li>
+ * <li><tt>com.lotaris.junit.validation.ErrorResponseMatched</tt>: an error response checked against
+ * a plan (expected and actual status codes and error counts, outcome, duration);</li>
+ * <li><tt>com.lotaris.junit.validation.PreprocessingStubbed</tt>: a behaviour given to a
+ * preprocessing chain (behaviour, chain class).</li>
+ * </ul>
+ *
+ * <p>The library targets Java 7, so the events are defined at runtime with the
+ * <tt>jdk.jfr.EventFactory</tt> of Java 11 or later, through reflection. Whether each event is
+ * enabled is cached in a volatile field updated when a recording starts or stops: when nothing is
+ * recording (or on runtimes without JFR), emitting an event costs a field read and allocates
+ * nothing.</p>
+ */
+public final class FlightRecorderEvents {
+
+	private static final String PREFIX = "com.lotaris.junit.validation.";
+
+	private static final EventDefinition VALIDATOR_EXECUTED = new EventDefinition("ValidatorExecuted", "Validator Executed",
+			new String[]{"validatorClass", "errorCount"}, new Class<?>[]{String.class, int.class});
+
+	private static final EventDefinition ERROR_RESPONSE_MATCHED = new EventDefinition("ErrorResponseMatched", "Error Response Matched",
+			new String[]{"expectedHttpStatusCode", "actualHttpStatusCode", "expectedErrorCount", "actualErrorCount", "matched"},
+			new Class<?>[]{int.class, int.class, int.class, int.class, boolean.class});
+
+	private static final EventDefinition PREPROCESSING_STUBBED = new EventDefinition("PreprocessingStubbed", "Preprocessing Stubbed",
+			new String[]{"behaviour", "chainClass"}, new Class<?>[]{String.class, String.class});
+
+	private static final boolean AVAILABLE = register(VALIDATOR_EXECUTED, ERROR_RESPONSE_MATCHED, PREPROCESSING_STUBBED);
+
+	/**
+	 * Indicates whether the runtime supports the events (Java 11 or later with JFR).
+	 */
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	/**
+	 * Starts a <tt>ValidatorExecuted</tt> event.
+	 *
+	 * @return the event to commit, or null if the event is not recorded
+	 */
+	public static Object beginValidatorExecuted() {
+		return VALIDATOR_EXECUTED.begin();
+	}
+
+	/**
+	 * Commits a <tt>ValidatorExecuted</tt> event.
+	 *
+	 * @param event the event returned by {@link #beginValidatorExecuted()} (nothing is done if null)
+	 * @param validator the validator that ran
+	 * @param errorCount the number of errors it added, or -1 if unknown
+	 */
+	public static void commitValidatorExecuted(Object event, Object validator, int errorCount) {
+		if (event != null) {
+			VALIDATOR_EXECUTED.commit(event, validator.getClass().getName(), errorCount);
+		}
+	}
+
+	/**
+	 * Starts an <tt>ErrorResponseMatched</tt> event.
+	 *
+	 * @return the event to commit, or null if the event is not recorded
+	 */
+	public static Object beginErrorResponseMatched() {
+		return ERROR_RESPONSE_MATCHED.begin();
+	}
+
+	/**
+	 * Commits an <tt>ErrorResponseMatched</tt> event. Unknown status codes and counts are -1.
+	 *
+	 * @param event the event returned by {@link #beginErrorResponseMatched()} (nothing is done if
+	 * null)
+	 */
+	public static void commitErrorResponseMatched(Object event, int expectedHttpStatusCode, int actualHttpStatusCode, int expectedErrorCount, int actualErrorCount, boolean matched) {
+		if (event != null) {
+			ERROR_RESPONSE_MATCHED.commit(event, expectedHttpStatusCode, actualHttpStatusCode, expectedErrorCount, actualErrorCount, matched);
+		}
+	}
+
+	/**
+	 * Emits a <tt>PreprocessingStubbed</tt> event.
+	 *
+	 * @param behaviour the name of the behaviour given to the chain
+	 * @param preprocessingChain the chain
+	 */
+	public static void preprocessingStubbed(String behaviour, Object preprocessingChain) {
+		final Object event = PREPROCESSING_STUBBED.begin();
+		if (event != null) {
+			PREPROCESSING_STUBBED.commit(event, behaviour, preprocessingChain.getClass().getName());
+		}
+	}
+
+	/**
+	 * Defines the events and listens to recordings, if the runtime has JFR.
+	 *
+	 * @return true if the events are defined
+	 */
+	private static boolean register(final EventDefinition... definitions) {
+		try {
+			for (EventDefinition definition : definitions) {
+				definition.define();
+			}
+
+			// refresh the enabled flags whenever a recording changes state
+			final Class<?> listenerType = Class.forName("jdk.jfr.FlightRecorderListener");
+			final Object listener = Proxy.newProxyInstance(FlightRecorderEvents.class.getClassLoader(), new Class<?>[]{listenerType}, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					switch (method.getName()) {
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return "Listener of " + Arrays.toString(definitions);
+						default:
+							for (EventDefinition definition : definitions) {
+								definition.refresh();
+							}
+							return null;
+					}
+				}
+			});
+			Class.forName("jdk.jfr.FlightRecorder").getMethod("addListener", listenerType).invoke(null, listener);
+
+			for (EventDefinition definition : definitions) {
+				definition.refresh();
+			}
+			return true;
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * An event type defined at runtime.
+	 */
+	private static final class EventDefinition {
+
+		private final String name;
+		private final String label;
+		private final String[] fieldNames;
+		private final Class<?>[] fieldTypes;
+		private volatile boolean enabled;
+		private Object factory;
+		private Object eventType;
+		private Method newEvent;
+		private Method isEnabled;
+		private Method begin;
+		private Method end;
+		private Method shouldCommit;
+		private Method set;
+		private Method commit;
+
+		public EventDefinition(String name, String label, String[] fieldNames, Class<?>[] fieldTypes) {
+			this.name = PREFIX + name;
+			this.label = label;
+			this.fieldNames = fieldNames;
+			this.fieldTypes = fieldTypes;
+		}
+
+		public void define() throws ReflectiveOperationException {
+
+			final Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+			final Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+			final Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+			final Constructor<?> valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class);
+
+			final List<Object> annotations = new ArrayList<>();
+			annotations.add(annotationElement.newInstance(Class.forName("jdk.jfr.Name"), name));
+			annotations.add(annotationElement.newInstance(Class.forName("jdk.jfr.Label"), label));
+			annotations.add(annotationElement.newInstance(Class.forName("jdk.jfr.Category"), new String[]{"Validation", "Tests"}));
+
+			final List<Object> fields = new ArrayList<>();
+			for (int i = 0; i < fieldNames.length; i++) {
+				fields.add(valueDescriptor.newInstance(fieldTypes[i], fieldNames[i]));
+			}
+
+			final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+			factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+			eventType = factoryClass.getMethod("getEventType").invoke(factory);
+			newEvent = factoryClass.getMethod("newEvent");
+			isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+
+			final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			begin = eventClass.getMethod("begin");
+			end = eventClass.getMethod("end");
+			shouldCommit = eventClass.getMethod("shouldCommit");
+			set = eventClass.getMethod("set", int.class, Object.class);
+			commit = eventClass.getMethod("commit");
+		}
+
+		public void refresh() {
+			try {
+				enabled = (Boolean) isEnabled.invoke(eventType);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				enabled = false;
+			}
+		}
+
+		/**
+		 * @return a started event, or null if this event is not recorded
+		 */
+		public Object begin() {
+			if (!enabled) {
+				return null;
+			}
+
+			try {
+				final Object event = newEvent.invoke(factory);
+				begin.invoke(event);
+				return event;
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				enabled = false;
+				return null;
+			}
+		}
+
+		public void commit(Object event, Object... values) {
+			try {
+				end.invoke(event);
+				if ((Boolean) shouldCommit.invoke(event)) {
+					for (int i = 0; i < values.length; i++) {
+						set.invoke(event, i, values[i]);
+					}
+					commit.invoke(event);
+				}
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				enabled = false;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private FlightRecorderEvents() {
+	}
+	//</editor-fold>
+}
@@ -0,0 +1,209 @@
+package com.lotaris.junit.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates inputs for a {@link ValidatorFuzzer}, and smaller variants of an input that failed so
+ * that the failure can be reported with the simplest input possible.
+ *
+ * <p>Generators must be deterministic: the same random source and size always give the same input,
+ * so that a run can be reproduced from its seed. They may be called by several threads at once.</p>
+ *
+ * @param <T> the type of the generated inputs
+ */
+public abstract class FuzzGenerator<T> {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	/**
+	 * Generates strings of up to <tt>size</tt> characters, mostly ASCII with some non-ASCII and
+	 * supplementary characters. Edge cases are null, empty, blank and very long strings.
+	 */
+	public static FuzzGenerator<String> strings() {
+		return new StringGenerator();
+	}
+
+	/**
+	 * Generates integers between <tt>-size</tt> and <tt>size</tt>. Edge cases are null, zero, -1 and
+	 * the extreme values.
+	 */
+	public static FuzzGenerator<Integer> integers() {
+		return new IntegerGenerator();
+	}
+
+	/**
+	 * Generates lists of up to <tt>size</tt> elements. Edge cases are null, an empty list and a list
+	 * with a null element.
+	 */
+	public static <E> FuzzGenerator<List<E>> listsOf(FuzzGenerator<E> elements) {
+		return new ListGenerator<>(elements);
+	}
+	//</editor-fold>
+
+	/**
+	 * Generates an input.
+	 *
+	 * @param random the random source of this input
+	 * @param size the size hint: small inputs for small sizes (e.g. the length of strings and lists)
+	 * @return the input
+	 */
+	public abstract T generate(Random random, int size);
+
+	/**
+	 * Returns inputs that are checked before the random ones (null, empty or extreme values).
+	 *
+	 * @return the edge cases, none by default
+	 */
+	public List<T> edgeCases() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Returns simpler variants of an input, simplest first. When an input fails, the first variant
+	 * that still fails replaces it, until no variant fails anymore.
+	 *
+	 * @param input a failing input
+	 * @return the variants, none by default
+	 */
+	public List<T> shrink(T input) {
+		return Collections.emptyList();
+	}
+
+	private static final class StringGenerator extends FuzzGenerator<String> {
+
+		private static final String SPECIAL = "/ \t\n\"'<>&%\\{}\u00e9\u00fc\u4e2d\u0000";
+
+		@Override
+		public String generate(Random random, int size) {
+			final int length = random.nextInt(size + 1);
+			final StringBuilder builder = new StringBuilder(length);
+			for (int i = 0; i < length; i++) {
+				final int kind = random.nextInt(20);
+				if (kind == 0) {
+					builder.append(SPECIAL.charAt(random.nextInt(SPECIAL.length())));
+				} else if (kind == 1) {
+					builder.appendCodePoint(0x1F600 + random.nextInt(64));
+				} else {
+					builder.append((char) (' ' + random.nextInt(95)));
+				}
+			}
+			return builder.toString();
+		}
+
+		@Override
+		public List<String> edgeCases() {
+			final StringBuilder longString = new StringBuilder();
+			for (int i = 0; i < 10000; i++) {
+				longString.append('x');
+			}
+			return Arrays.asList(null, "", " ", "\t\n", longString.toString());
+		}
+
+		@Override
+		public List<String> shrink(String input) {
+			final List<String> variants = new ArrayList<>();
+			if (input == null || input.isEmpty()) {
+				return variants;
+			}
+
+			variants.add("");
+			if (input.length() > 1) {
+				variants.add(input.substring(0, input.length() / 2));
+				variants.add(input.substring(input.length() / 2));
+			}
+			for (int i = 0; i < input.length() && i < 32; i++) {
+				variants.add(input.substring(0, i) + input.substring(i + 1));
+			}
+			return variants;
+		}
+	}
+
+	private static final class IntegerGenerator extends FuzzGenerator<Integer> {
+
+		@Override
+		public Integer generate(Random random, int size) {
+			return random.nextInt(2 * size + 1) - size;
+		}
+
+		@Override
+		public List<Integer> edgeCases() {
+			return Arrays.asList(null, 0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public List<Integer> shrink(Integer input) {
+			final List<Integer> variants = new ArrayList<>();
+			if (input == null || input == 0) {
+				return variants;
+			}
+
+			variants.add(0);
+			if (input / 2 != 0) {
+				variants.add(input / 2);
+			}
+			if (input < 0 && input != Integer.MIN_VALUE) {
+				variants.add(-input);
+			}
+			return variants;
+		}
+	}
+
+	private static final class ListGenerator<E> extends FuzzGenerator<List<E>> {
+
+		private final FuzzGenerator<E> elements;
+
+		public ListGenerator(FuzzGenerator<E> elements) {
+			this.elements = elements;
+		}
+
+		@Override
+		public List<E> generate(Random random, int size) {
+			final int length = random.nextInt(size + 1);
+			final List<E> list = new ArrayList<>(length);
+			for (int i = 0; i < length; i++) {
+				list.add(elements.generate(random, size));
+			}
+			return list;
+		}
+
+		@Override
+		public List<List<E>> edgeCases() {
+			final List<List<E>> cases = new ArrayList<>();
+			cases.add(null);
+			cases.add(new ArrayList<E>());
+			cases.add(new ArrayList<>(Collections.<E>singletonList(null)));
+			return cases;
+		}
+
+		@Override
+		public List<List<E>> shrink(List<E> input) {
+			final List<List<E>> variants = new ArrayList<>();
+			if (input == null || input.isEmpty()) {
+				return variants;
+			}
+
+			// fewer elements first, then simpler elements
+			variants.add(new ArrayList<E>());
+			if (input.size() > 1) {
+				variants.add(new ArrayList<>(input.subList(0, input.size() / 2)));
+				variants.add(new ArrayList<>(input.subList(input.size() / 2, input.size())));
+			}
+			for (int i = 0; i < input.size() && i < 32; i++) {
+				final List<E> variant = new ArrayList<>(input);
+				variant.remove(i);
+				variants.add(variant);
+			}
+			for (int i = 0; i < input.size() && i < 32; i++) {
+				for (E element : elements.shrink(input.get(i))) {
+					final List<E> variant = new ArrayList<>(input);
+					variant.set(i, element);
+					variants.add(variant);
+				}
+			}
+			return variants;
+		}
+	}
+}
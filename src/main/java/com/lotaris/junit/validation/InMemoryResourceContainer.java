@@ -0,0 +1,462 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.jee.validation.ApiErrorsException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+
+/**
+ * In-process stand-in for a JAX-RS runtime: dispatches {@link ResourceRequest}s to the methods of
+ * resource instances, without a network, serialization or JAX-RS implementation, so that resources
+ * and their preprocessing chains can be driven directly from tests (see {@link ResourceLoadHarness}).
+ *
+ * <pre>
+ * InMemoryResourceContainer container = new InMemoryResourceContainer()
+ *		.withInjected(IPreprocessor.class, preprocessor)
+ *		.deploy(new UserResource());
+ *
+ * ResourceResponse response = container.handle(ResourceRequest.post("/users", user));
+ * assertThat(response.getErrorResponse(), isApiErrorResponseObject(422).withError(1001, "json", "/name"));
+ * </pre>
+ *
+ * <p>Requests are matched with the <tt>@Path</tt> templates of the resource classes and methods
+ * (including <tt>{name: regex}</tt> parameters, most literal template first) and with the
+ * annotations of the methods annotated with <tt>@HttpMethod</tt> (<tt>@GET</tt>, <tt>@POST</tt>,
+ * etc.). Parameters annotated with <tt>@PathParam</tt>, <tt>@QueryParam</tt> or
+ * <tt>@HeaderParam</tt> (with <tt>@DefaultValue</tt>) are converted from strings as JAX-RS would;
+ * the parameter without annotation receives the entity of the request; parameters with other
+ * annotations (e.g. <tt>@Context</tt>) receive null.</p>
+ *
+ * <p>An <tt>ApiErrorsException</tt> becomes a response with the status code and the
+ * <tt>ApiErrorResponse</tt> of the exception, unless an exception mapper is registered for it. A
+ * <tt>WebApplicationException</tt> becomes its response. Other exceptions go to the registered
+ * mapper of their closest class, or become a 500 response. Returned <tt>Response</tt>s are read
+ * through their abstract methods, so the resources themselves may need a JAX-RS implementation on
+ * the test classpath to build them.</p>
+ *
+ * <p>Deploy the resources and register the mappers before handling requests; a container can
+ * then handle requests from any number of threads.</p>
+ */
+public final class InMemoryResourceContainer {
+
+	private static final Pattern TEMPLATE_PARAMETER = Pattern.compile("\\{\\s*([^:}\\s]+)\\s*(?::\\s*(.*?)\\s*)?\\}");
+
+	private final List<Object> resources;
+	private final Map<Class<?>, Object> injected;
+	private volatile Route[] routes;
+	private volatile Map<Class<?>, ExceptionMapper<?>> mappers;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public InMemoryResourceContainer() {
+		resources = new ArrayList<>();
+		injected = new LinkedHashMap<>();
+		routes = new Route[0];
+		mappers = Collections.emptyMap();
+	}
+	//</editor-fold>
+
+	/**
+	 * Deploys a resource instance, after injecting the objects registered with
+	 * {@link #withInjected(Class, Object)}.
+	 *
+	 * @param resource an instance of a class annotated with <tt>@Path</tt>
+	 * @return this container
+	 * @throws IllegalArgumentException if the class is not a resource or a parameter cannot be bound
+	 */
+	public synchronized InMemoryResourceContainer deploy(Object resource) {
+
+		final Path classPath = resource.getClass().getAnnotation(Path.class);
+		if (classPath == null) {
+			throw new IllegalArgumentException(resource.getClass().getName() + " is not annotated with @Path");
+		}
+
+		final List<Route> deployed = new ArrayList<>(Arrays.asList(routes));
+		for (Method method : resource.getClass().getMethods()) {
+			final String httpMethod = httpMethod(method);
+			if (httpMethod != null) {
+				final Path methodPath = method.getAnnotation(Path.class);
+				deployed.add(new Route(resource, method, httpMethod, classPath.value() + "/" + (methodPath != null ? methodPath.value() : "")));
+			}
+		}
+
+		Collections.sort(deployed, new Comparator<Route>() {
+			@Override
+			public int compare(Route o1, Route o2) {
+				final int byLiterals = Integer.compare(o2.literalCharacters, o1.literalCharacters);
+				return byLiterals != 0 ? byLiterals : Integer.compare(o2.parameterNames.length, o1.parameterNames.length);
+			}
+		});
+
+		for (Map.Entry<Class<?>, Object> entry : injected.entrySet()) {
+			inject(resource, entry.getKey(), entry.getValue());
+		}
+
+		resources.add(resource);
+		routes = deployed.toArray(new Route[deployed.size()]);
+		return this;
+	}
+
+	/**
+	 * Sets the fields of the specified type that are null (e.g. <tt>@Inject IPreprocessor</tt>
+	 * fields) to a value, in the resources already deployed and in those deployed later.
+	 *
+	 * @param type the declared type of the fields
+	 * @param value the value to inject
+	 * @return this container
+	 */
+	public synchronized <T> InMemoryResourceContainer withInjected(Class<T> type, T value) {
+		injected.put(type, value);
+		for (Object resource : resources) {
+			inject(resource, type, value);
+		}
+		return this;
+	}
+
+	/**
+	 * Registers the mapper of an exception class and its subclasses.
+	 *
+	 * @param exceptionClass the class of the exceptions handled by the mapper
+	 * @param mapper the mapper
+	 * @return this container
+	 */
+	public synchronized <E extends Throwable> InMemoryResourceContainer withExceptionMapper(Class<E> exceptionClass, ExceptionMapper<? super E> mapper) {
+		final Map<Class<?>, ExceptionMapper<?>> registered = new LinkedHashMap<>(mappers);
+		registered.put(exceptionClass, mapper);
+		mappers = registered;
+		return this;
+	}
+
+	/**
+	 * Dispatches a request to the matching resource method.
+	 *
+	 * @param request the request
+	 * @return the response: 404 if no resource matches the path (or a path or query parameter cannot
+	 * be converted), 405 if no method of the matching resources handles the HTTP method, 400 if a
+	 * header cannot be converted
+	 */
+	public ResourceResponse handle(ResourceRequest request) {
+
+		final String path = normalize(request.getPath());
+		boolean pathMatched = false;
+
+		for (Route route : routes) {
+			final Matcher matcher = route.pattern.matcher(path);
+			if (!matcher.matches()) {
+				continue;
+			}
+
+			pathMatched = true;
+			if (route.httpMethod.equals(request.getMethod())) {
+				return route.invoke(request, matcher, this);
+			}
+		}
+
+		return new ResourceResponse(pathMatched ? 405 : 404, null, null);
+	}
+
+	private ResourceResponse map(Throwable exception) {
+
+		for (Class<?> type = exception.getClass(); type != null; type = type.getSuperclass()) {
+			final ExceptionMapper<?> mapper = mappers.get(type);
+			if (mapper != null) {
+				return toResourceResponse(toResponse(mapper, exception));
+			}
+		}
+
+		if (exception instanceof ApiErrorsException) {
+			final ApiErrorResponse errorResponse = ((ApiErrorsException) exception).getErrorResponse();
+			return new ResourceResponse(errorResponse != null ? errorResponse.getHttpStatusCode() : 500, errorResponse, null);
+		} else if (exception instanceof WebApplicationException && ((WebApplicationException) exception).getResponse() != null) {
+			return toResourceResponse(((WebApplicationException) exception).getResponse());
+		}
+
+		return new ResourceResponse(500, null, exception);
+	}
+
+	/**
+	 * Maps an exception with a mapper registered for its class or one of its superclasses.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E extends Throwable> Response toResponse(ExceptionMapper<E> mapper, Throwable exception) {
+		return mapper.toResponse((E) exception);
+	}
+
+	private static ResourceResponse toResourceResponse(Object returned) {
+		if (returned instanceof Response) {
+			final Response response = (Response) returned;
+			return new ResourceResponse(response.getStatus(), response.getEntity(), null);
+		}
+		return new ResourceResponse(returned != null ? 200 : 204, returned, null);
+	}
+
+	private static void inject(Object resource, Class<?> type, Object value) {
+		for (Class<?> current = resource.getClass(); current != null && current != Object.class; current = current.getSuperclass()) {
+			for (Field field : current.getDeclaredFields()) {
+				if (field.getType() != type || Modifier.isStatic(field.getModifiers())) {
+					continue;
+				}
+
+				try {
+					field.setAccessible(true);
+					if (field.get(resource) == null) {
+						field.set(resource, value);
+					}
+				} catch (IllegalAccessException iae) {
+					throw new IllegalStateException("Cannot inject " + type.getName() + " into " + field, iae);
+				}
+			}
+		}
+	}
+
+	private static String httpMethod(Method method) {
+		for (Annotation annotation : method.getAnnotations()) {
+			final HttpMethod httpMethod = annotation.annotationType().getAnnotation(HttpMethod.class);
+			if (httpMethod != null) {
+				return httpMethod.value();
+			}
+		}
+		return null;
+	}
+
+	private static String normalize(String path) {
+		final StringBuilder builder = new StringBuilder(path.length() + 1);
+		for (String segment : path.split("/")) {
+			if (!segment.isEmpty()) {
+				builder.append('/').append(segment);
+			}
+		}
+		return builder.length() > 0 ? builder.toString() : "/";
+	}
+
+	/**
+	 * Resource method and the template of its path.
+	 */
+	private static final class Route {
+
+		private final Object resource;
+		private final Method method;
+		private final String httpMethod;
+		private final Pattern pattern;
+		private final String[] parameterNames;
+		private final int literalCharacters;
+		private final Binding[] bindings;
+
+		public Route(Object resource, Method method, String httpMethod, String template) {
+			this.resource = resource;
+			this.method = method;
+			this.httpMethod = httpMethod;
+
+			final String normalized = normalize(template);
+			final StringBuilder regex = new StringBuilder();
+			final List<String> names = new ArrayList<>();
+			int literals = 0;
+			int end = 0;
+			for (Matcher matcher = TEMPLATE_PARAMETER.matcher(normalized); matcher.find(); end = matcher.end()) {
+				literals += matcher.start() - end;
+				regex.append(Pattern.quote(normalized.substring(end, matcher.start())));
+				regex.append("(?<p").append(names.size()).append(">").append(matcher.group(2) != null ? matcher.group(2) : "[^/]+").append(")");
+				names.add(matcher.group(1));
+			}
+			literals += normalized.length() - end;
+			regex.append(Pattern.quote(normalized.substring(end)));
+
+			this.pattern = Pattern.compile(regex.toString());
+			this.parameterNames = names.toArray(new String[names.size()]);
+			this.literalCharacters = literals;
+
+			final Class<?>[] types = method.getParameterTypes();
+			final Annotation[][] annotations = method.getParameterAnnotations();
+			this.bindings = new Binding[types.length];
+			for (int i = 0; i < types.length; i++) {
+				bindings[i] = new Binding(types[i], annotations[i], method, names);
+			}
+		}
+
+		public ResourceResponse invoke(ResourceRequest request, Matcher matcher, InMemoryResourceContainer container) {
+
+			final Object[] arguments = new Object[bindings.length];
+			for (int i = 0; i < bindings.length; i++) {
+				try {
+					arguments[i] = bindings[i].bind(request, matcher);
+				} catch (IllegalArgumentException iae) {
+					return new ResourceResponse(bindings[i].source == Binding.Source.HEADER ? 400 : 404, null, iae);
+				}
+			}
+
+			try {
+				return toResourceResponse(method.invoke(resource, arguments));
+			} catch (InvocationTargetException ite) {
+				return container.map(ite.getCause());
+			} catch (IllegalAccessException iae) {
+				throw new IllegalStateException("Cannot invoke " + method, iae);
+			}
+		}
+	}
+
+	/**
+	 * Source and conversion of the argument of a resource method parameter.
+	 */
+	private static final class Binding {
+
+		private enum Source {
+
+			PATH, QUERY, HEADER, ENTITY, NONE
+		}
+
+		private final Source source;
+		private final String name;
+		private final String group;
+		private final String defaultValue;
+		private final boolean primitive;
+		private final Class<?> type;
+		private final Method factory;
+		private final Constructor<?> constructor;
+
+		public Binding(Class<?> type, Annotation[] annotations, Method method, List<String> pathParameterNames) {
+
+			Source annotatedSource = annotations.length > 0 ? Source.NONE : Source.ENTITY;
+			String annotatedName = null;
+			String annotatedDefault = null;
+			for (Annotation annotation : annotations) {
+				if (annotation instanceof PathParam) {
+					annotatedSource = Source.PATH;
+					annotatedName = ((PathParam) annotation).value();
+				} else if (annotation instanceof QueryParam) {
+					annotatedSource = Source.QUERY;
+					annotatedName = ((QueryParam) annotation).value();
+				} else if (annotation instanceof HeaderParam) {
+					annotatedSource = Source.HEADER;
+					annotatedName = ((HeaderParam) annotation).value();
+				} else if (annotation instanceof DefaultValue) {
+					annotatedDefault = ((DefaultValue) annotation).value();
+				}
+			}
+
+			this.source = annotatedSource;
+			this.name = annotatedName;
+			this.group = source == Source.PATH ? "p" + pathParameterNames.indexOf(name) : null;
+			this.defaultValue = annotatedDefault;
+			this.primitive = type.isPrimitive();
+			this.type = primitive ? wrapper(type) : type;
+
+			if (source == Source.PATH && !pathParameterNames.contains(name)) {
+				throw new IllegalArgumentException("Path parameter " + name + " of " + method + " is not in the template of its path");
+			}
+
+			Method foundFactory = null;
+			Constructor<?> foundConstructor = null;
+			if (name != null && this.type != String.class && this.type != Character.class) {
+				foundFactory = findFactory(this.type, "valueOf");
+				if (foundFactory == null) {
+					foundFactory = findFactory(this.type, "fromString");
+				}
+				if (foundFactory == null) {
+					try {
+						foundConstructor = this.type.getConstructor(String.class);
+					} catch (NoSuchMethodException nsme) {
+						throw new IllegalArgumentException("Parameter " + name + " of " + method + " has type " + type.getName()
+								+ ", which has no valueOf(String), fromString(String) or String constructor", nsme);
+					}
+				}
+			}
+
+			this.factory = foundFactory;
+			this.constructor = foundConstructor;
+		}
+
+		public Object bind(ResourceRequest request, Matcher matcher) {
+
+			final String value;
+			switch (source) {
+				case ENTITY:
+					return request.getEntity();
+				case NONE:
+					return null;
+				case PATH:
+					value = matcher.group(group);
+					break;
+				case QUERY:
+					value = request.getQueryParam(name);
+					break;
+				default:
+					value = request.getHeader(name);
+					break;
+			}
+
+			return convert(value != null ? value : defaultValue);
+		}
+
+		private Object convert(String value) {
+
+			if (value == null) {
+				return !primitive ? null : type == Boolean.class ? Boolean.FALSE : type == Character.class ? Character.valueOf('\0') : Number.class.isAssignableFrom(type) ? convert("0") : null;
+			} else if (type == String.class) {
+				return value;
+			} else if (type == Character.class) {
+				if (value.length() != 1) {
+					throw new IllegalArgumentException("Not a character: " + value);
+				}
+				return value.charAt(0);
+			}
+
+			try {
+				return factory != null ? factory.invoke(null, value) : constructor.newInstance(value);
+			} catch (InvocationTargetException ite) {
+				throw new IllegalArgumentException("Cannot convert " + value + " to " + type.getName(), ite.getCause());
+			} catch (ReflectiveOperationException roe) {
+				throw new IllegalStateException("Cannot convert " + value + " to " + type.getName(), roe);
+			}
+		}
+
+		private static Method findFactory(Class<?> type, String name) {
+			try {
+				final Method method = type.getMethod(name, String.class);
+				return Modifier.isStatic(method.getModifiers()) && type.isAssignableFrom(method.getReturnType()) ? method : null;
+			} catch (NoSuchMethodException nsme) {
+				return null;
+			}
+		}
+
+		private static Class<?> wrapper(Class<?> primitive) {
+			if (primitive == int.class) {
+				return Integer.class;
+			} else if (primitive == long.class) {
+				return Long.class;
+			} else if (primitive == boolean.class) {
+				return Boolean.class;
+			} else if (primitive == double.class) {
+				return Double.class;
+			} else if (primitive == float.class) {
+				return Float.class;
+			} else if (primitive == short.class) {
+				return Short.class;
+			} else if (primitive == byte.class) {
+				return Byte.class;
+			} else {
+				return Character.class;
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IErrorCode;
+
+/**
+ * Canonical error code obtained from the {@link ErrorCodeRegistry}. Two instances are equal if
+ * they have the same code and default HTTP status code, in which case they are also the same
+ * instance when obtained from the registry.
+ */
+public final class InternedErrorCode implements IErrorCode {
+
+	private final int code;
+	private final int defaultHttpStatusCode;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	InternedErrorCode(int code, int defaultHttpStatusCode) {
+		this.code = code;
+		this.defaultHttpStatusCode = defaultHttpStatusCode;
+	}
+	//</editor-fold>
+
+	@Override
+	public int getCode() {
+		return code;
+	}
+
+	@Override
+	public int getDefaultHttpStatusCode() {
+		return defaultHttpStatusCode;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * code + defaultHttpStatusCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof InternedErrorCode)) {
+			return false;
+		}
+
+		final InternedErrorCode other = (InternedErrorCode) obj;
+		return code == other.code && defaultHttpStatusCode == other.defaultHttpStatusCode;
+	}
+
+	@Override
+	public String toString() {
+		return "Error code " + code + " (HTTP " + defaultHttpStatusCode + ")";
+	}
+}
@@ -0,0 +1,46 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IErrorLocationType;
+import java.util.Objects;
+
+/**
+ * Canonical error location type obtained from the {@link ErrorCodeRegistry}. Two instances are
+ * equal if they have the same location type, in which case they are also the same instance when
+ * obtained from the registry. The location type may be null.
+ */
+public final class InternedErrorLocationType implements IErrorLocationType {
+
+	private final String locationType;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	InternedErrorLocationType(String locationType) {
+		this.locationType = locationType;
+	}
+	//</editor-fold>
+
+	@Override
+	public String getLocationType() {
+		return locationType;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(locationType);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof InternedErrorLocationType)) {
+			return false;
+		}
+
+		return Objects.equals(locationType, ((InternedErrorLocationType) obj).locationType);
+	}
+
+	@Override
+	public String toString() {
+		return "Error locationType " + locationType;
+	}
+}
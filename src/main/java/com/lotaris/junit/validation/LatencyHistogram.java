@@ -0,0 +1,149 @@
+package com.lotaris.junit.validation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histogram of latencies in nanoseconds, with a relative precision of about 1.5%.
+ *
+ * <p>Values below 128 have their own bucket; larger values are grouped in 64 buckets per power of
+ * two. The buckets are allocated once, so recording a value never allocates. A histogram is meant to
+ * be filled by one thread; histograms of several threads are combined with {@link #add(LatencyHistogram)}.</p>
+ */
+public final class LatencyHistogram {
+
+	private static final int LINEAR_BUCKETS = 128;
+	private static final int SUB_BUCKETS = 64;
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int BUCKET_COUNT = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final long[] counts;
+	private long count;
+	private long total;
+	private long min;
+	private long max;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public LatencyHistogram() {
+		counts = new long[BUCKET_COUNT];
+		min = Long.MAX_VALUE;
+	}
+	//</editor-fold>
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos the latency in nanoseconds (negative values are recorded as 0)
+	 */
+	public void record(long nanos) {
+		final long value = Math.max(nanos, 0);
+		counts[bucket(value)]++;
+		count++;
+		total += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds the latencies recorded by another histogram to this one.
+	 *
+	 * @param other the other histogram
+	 * @return this histogram
+	 */
+	public LatencyHistogram add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		total += other.total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = 0;
+		}
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getTotalNanos() {
+		return total;
+	}
+
+	public long getMinNanos() {
+		return count > 0 ? min : 0;
+	}
+
+	public long getMaxNanos() {
+		return max;
+	}
+
+	public double getMeanNanos() {
+		return count > 0 ? (double) total / count : 0;
+	}
+
+	/**
+	 * Returns the latency below which the specified fraction of the recorded latencies fall.
+	 *
+	 * @param percentile the percentile, between 0 and 100 (e.g. 99.9)
+	 * @return the latency in nanoseconds (the highest value of its bucket, at most the maximum), or 0
+	 * if nothing was recorded
+	 */
+	public long getPercentileNanos(double percentile) {
+
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100, got " + percentile);
+		} else if (count == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(Math.max(highestValue(i), min), max);
+			}
+		}
+
+		return max;
+	}
+
+	public long getPercentile(double percentile, TimeUnit unit) {
+		return unit.convert(getPercentileNanos(percentile), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d values, mean %.1f us, p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+				count, getMeanNanos() / 1000, getPercentileNanos(50) / 1000d, getPercentileNanos(99) / 1000d, getPercentileNanos(99.9) / 1000d, max / 1000d);
+	}
+
+	private static int bucket(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+
+		// keep the 7 most significant bits: 64 sub-buckets per power of two
+		final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	private static long highestValue(int bucket) {
+		if (bucket < LINEAR_BUCKETS) {
+			return bucket;
+		}
+
+		final int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+		final long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,201 @@
+package com.lotaris.junit.validation;
+
+/**
+ * Measurements of a {@link PatchValidationHarness} run: the work done by a full validation and by a
+ * patch validation of the same resource.
+ *
+ * <p>The work of a validation is the number of validator invocations plus the number of
+ * <tt>validateObject*</tt> calls, averaged over the measured runs. A patch touching a few properties
+ * should only validate those: its work should be a proportional share of the work of a full
+ * validation.</p>
+ */
+public final class PatchCostReport {
+
+	private final int validatorCount;
+	private final Measure full;
+	private final Measure patch;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	PatchCostReport(int validatorCount, Measure full, Measure patch) {
+		this.validatorCount = validatorCount;
+		this.full = full;
+		this.patch = patch;
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns the measurements with patch validation disabled.
+	 */
+	public Measure getFull() {
+		return full;
+	}
+
+	/**
+	 * Returns the measurements with patch validation enabled.
+	 */
+	public Measure getPatch() {
+		return patch;
+	}
+
+	/**
+	 * Returns the work of a patch validation divided by the work of a full validation.
+	 */
+	public double getWorkRatio() {
+		return full.getWork() > 0 ? patch.getWork() / full.getWork() : 0;
+	}
+
+	/**
+	 * Returns the median latency of a patch validation divided by the median latency of a full
+	 * validation.
+	 */
+	public double getTimeRatio() {
+		final long fullMedian = full.getLatencies().getPercentileNanos(50);
+		return fullMedian > 0 ? (double) patch.getLatencies().getPercentileNanos(50) / fullMedian : 0;
+	}
+
+	/**
+	 * Asserts that a patch validation does strictly less work than a full validation.
+	 *
+	 * @throws AssertionError if it does not
+	 */
+	public void assertPatchDoesLessWork() {
+		if (patch.getWork() >= full.getWork()) {
+			throw new AssertionError("Expected patch validation to do less work than full validation\n" + this);
+		}
+	}
+
+	/**
+	 * Asserts that the work of a patch touching some of the properties of a resource is at most
+	 * their share of the work of a full validation. Each validator of the configuration is invoked
+	 * once even for a patch, so these invocations are allowed on top of the share.
+	 *
+	 * @param touchedProperties the number of properties set by the patch
+	 * @param totalProperties the number of properties of the resource
+	 * @throws AssertionError if the patch does more work
+	 */
+	public void assertProportionalWork(int touchedProperties, int totalProperties) {
+		if (touchedProperties < 0 || totalProperties < 1 || touchedProperties > totalProperties) {
+			throw new IllegalArgumentException("Expected 0 <= touched properties <= total properties, got " + touchedProperties + " and " + totalProperties);
+		}
+
+		final double maxWork = full.getWork() * touchedProperties / totalProperties + validatorCount;
+		if (patch.getWork() > maxWork) {
+			throw new AssertionError(String.format("Expected patch validation touching %d of %d properties to do at most %.1f units of work, got %.1f%n%s",
+					touchedProperties, totalProperties, maxWork, patch.getWork(), this));
+		}
+	}
+
+	/**
+	 * Asserts that the work of a patch validation is at most a fraction of the work of a full
+	 * validation.
+	 *
+	 * @param maxRatio the largest allowed ratio
+	 * @throws AssertionError if the ratio is larger
+	 */
+	public void assertWorkRatioAtMost(double maxRatio) {
+		if (getWorkRatio() > maxRatio) {
+			throw new AssertionError(String.format("Expected patch validation to do at most %.2f times the work of full validation, got %.2f%n%s", maxRatio, getWorkRatio(), this));
+		}
+	}
+
+	/**
+	 * Asserts that the median latency of a patch validation is at most a fraction of the median
+	 * latency of a full validation.
+	 *
+	 * @param maxRatio the largest allowed ratio
+	 * @throws AssertionError if the ratio is larger
+	 */
+	public void assertTimeRatioAtMost(double maxRatio) {
+		if (getTimeRatio() > maxRatio) {
+			throw new AssertionError(String.format("Expected patch validation to take at most %.2f times as long as full validation, got %.2f%n%s", maxRatio, getTimeRatio(), this));
+		}
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%-6s %8s %12s %14s %10s %8s %10s %10s%n", "mode", "runs", "invocations", "validateObject", "work", "errors", "p50 us", "p99 us"));
+		for (Measure measure : new Measure[]{full, patch}) {
+			builder.append(String.format("%-6s %8d %12.1f %14.1f %10.1f %8.1f %10.1f %10.1f%n", measure.isPatchValidation() ? "patch" : "full", measure.getRuns(),
+					measure.getValidatorInvocations(), measure.getValidatorUses(), measure.getWork(), measure.getErrors(),
+					measure.getLatencies().getPercentileNanos(50) / 1000d, measure.getLatencies().getPercentileNanos(99) / 1000d));
+		}
+		builder.append(String.format("work ratio %.2f, time ratio %.2f", getWorkRatio(), getTimeRatio()));
+
+		return builder.toString();
+	}
+
+	/**
+	 * Measurements of the validations done in one mode, counts averaged per validation.
+	 */
+	public static final class Measure {
+
+		private final boolean patchValidation;
+		private final int runs;
+		private final long validatorInvocations;
+		private final long validatorUses;
+		private final long errors;
+		private final LatencyHistogram latencies;
+
+		//<editor-fold defaultstate="collapsed" desc="Constructors">
+		Measure(boolean patchValidation, int runs, long validatorInvocations, long validatorUses, long errors, LatencyHistogram latencies) {
+			this.patchValidation = patchValidation;
+			this.runs = runs;
+			this.validatorInvocations = validatorInvocations;
+			this.validatorUses = validatorUses;
+			this.errors = errors;
+			this.latencies = latencies;
+		}
+		//</editor-fold>
+
+		public boolean isPatchValidation() {
+			return patchValidation;
+		}
+
+		public int getRuns() {
+			return runs;
+		}
+
+		/**
+		 * Returns the number of invocations of the validators of the configuration per validation.
+		 */
+		public double getValidatorInvocations() {
+			return (double) validatorInvocations / runs;
+		}
+
+		/**
+		 * Returns the number of <tt>validateObject*</tt> calls per validation.
+		 */
+		public double getValidatorUses() {
+			return (double) validatorUses / runs;
+		}
+
+		/**
+		 * Returns the number of validator invocations and <tt>validateObject*</tt> calls per
+		 * validation.
+		 */
+		public double getWork() {
+			return (double) (validatorInvocations + validatorUses) / runs;
+		}
+
+		/**
+		 * Returns the number of errors added per validation.
+		 */
+		public double getErrors() {
+			return (double) errors / runs;
+		}
+
+		/**
+		 * Returns the latencies of whole validations (the chain processing the object).
+		 */
+		public LatencyHistogram getLatencies() {
+			return latencies;
+		}
+
+		@Override
+		public String toString() {
+			return (patchValidation ? "patch" : "full") + " validation: " + getWork() + " units of work, " + latencies;
+		}
+	}
+}
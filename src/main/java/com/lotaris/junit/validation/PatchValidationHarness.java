@@ -0,0 +1,224 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the same object through a preprocessing chain with patch validation disabled, then enabled,
+ * and measures the work done in each mode: invocations of the validators of the configuration,
+ * calls to the <tt>validateObject*</tt> methods of the validation context, errors added and
+ * latency of a whole validation.
+ *
+ * <pre>
+ * PatchCostReport report = PatchValidationHarness.forValidators(new UserValidator())
+ *		.withObject(user)
+ *		.withPatch(userPatchSettingOnlyTheName)
+ *		.run();
+ *
+ * report.assertProportionalWork(1, 12);
+ * report.assertTimeRatioAtMost(0.5);
+ * </pre>
+ *
+ * <p>By default the chain runs the validators of the configuration (as
+ * {@link FakePreprocessor#runningValidators()} does); use {@link #forChain(IPreprocessor, IValidator...)}
+ * to measure an actual preprocessing chain. The validation context is recorded by a
+ * {@link ValidationContextRecorder} that runs nested validators, and is cleared in constant time
+ * between validations. Validators that learn about patch validation from a state object of the
+ * context get it through {@link #withPatchState(Object, Class)}.</p>
+ */
+public final class PatchValidationHarness<T> {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	/**
+	 * Returns a harness running the specified validators, in order.
+	 */
+	@SafeVarargs
+	public static <T> PatchValidationHarness<T> forValidators(IValidator<? super T>... validators) {
+		return new PatchValidationHarness<>(PreprocessingBehaviours.runValidators(), validators);
+	}
+
+	/**
+	 * Returns a harness giving the specified validators to a preprocessing chain.
+	 *
+	 * @param preprocessingChain the chain to measure; it is given a {@link FakePreprocessingConfig}
+	 * with the validators, patch validation enabled or not
+	 * @param validators the validators of the configuration
+	 * @return the harness
+	 */
+	@SafeVarargs
+	public static <T> PatchValidationHarness<T> forChain(IPreprocessor preprocessingChain, IValidator<? super T>... validators) {
+		return new PatchValidationHarness<>(preprocessingChain, validators);
+	}
+	//</editor-fold>
+
+	private final IPreprocessor preprocessingChain;
+	private final List<CountingValidator> validators;
+	private final ValidatorRun fullRun;
+	private final ValidatorRun patchRun;
+	private T object;
+	private T patch;
+	private int warmupRuns;
+	private int runs;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private PatchValidationHarness(IPreprocessor preprocessingChain, IValidator<?>... validators) {
+		this.preprocessingChain = preprocessingChain;
+		this.validators = new ArrayList<>(validators.length);
+		for (IValidator<Object> validator : ValidatorRun.of(Arrays.asList(validators)).getValidators()) {
+			this.validators.add(new CountingValidator(validator));
+		}
+
+		// both modes run the same validators, the patch mode with its own states as well
+		this.fullRun = ValidatorRun.of(this.validators);
+		this.fullRun.setRunningNestedValidators(true);
+		this.patchRun = ValidatorRun.of(this.validators);
+		this.patchRun.setRunningNestedValidators(true);
+		this.warmupRuns = 1000;
+		this.runs = 10000;
+	}
+	//</editor-fold>
+
+	/**
+	 * Sets the object validated in both modes (unless a separate patch is given).
+	 */
+	public PatchValidationHarness<T> withObject(T object) {
+		this.object = object;
+		return this;
+	}
+
+	/**
+	 * Sets the object validated with patch validation enabled, e.g. the same resource with only the
+	 * patched properties set. By default, the object of {@link #withObject(Object)} is used.
+	 */
+	public PatchValidationHarness<T> withPatch(T patch) {
+		this.patch = patch;
+		return this;
+	}
+
+	/**
+	 * Adds a state object to the validation context in both modes, as <tt>addState</tt> would.
+	 */
+	public <S> PatchValidationHarness<T> withState(S state, Class<? extends S> stateClass) {
+		fullRun.addState(state, stateClass);
+		patchRun.addState(state, stateClass);
+		return this;
+	}
+
+	/**
+	 * Adds a state object to the validation context only when patch validation is enabled.
+	 */
+	public <S> PatchValidationHarness<T> withPatchState(S state, Class<? extends S> stateClass) {
+		patchRun.addState(state, stateClass);
+		return this;
+	}
+
+	/**
+	 * Sets the number of validations in each mode before the measured ones.
+	 */
+	public PatchValidationHarness<T> withWarmupRuns(int warmupRuns) {
+		if (warmupRuns < 0) {
+			throw new IllegalArgumentException("Warmup runs cannot be negative, got " + warmupRuns);
+		}
+		this.warmupRuns = warmupRuns;
+		return this;
+	}
+
+	/**
+	 * Sets the number of measured validations in each mode.
+	 */
+	public PatchValidationHarness<T> withRuns(int runs) {
+		if (runs < 1) {
+			throw new IllegalArgumentException("At least one run is required, got " + runs);
+		}
+		this.runs = runs;
+		return this;
+	}
+
+	/**
+	 * Validates the object with patch validation disabled, then the patch with patch validation
+	 * enabled, each the configured number of times.
+	 *
+	 * @return the report
+	 * @throws IllegalStateException if no object was given
+	 */
+	public PatchCostReport run() {
+
+		if (object == null) {
+			throw new IllegalStateException("No object: call withObject first");
+		}
+
+		final PatchCostReport.Measure full = measure(object, false);
+		final PatchCostReport.Measure patched = measure(patch != null ? patch : object, true);
+
+		return new PatchCostReport(validators.size(), full, patched);
+	}
+
+	private PatchCostReport.Measure measure(T validated, boolean patchValidation) {
+
+		final ValidationContextRecorder recorder = (patchValidation ? patchRun : fullRun).newRecorder();
+		final FakePreprocessingConfig config = new FakePreprocessingConfig(recorder.getContext())
+				.validateWith(validators.toArray(new IValidator<?>[validators.size()]))
+				.withPatchValidation(patchValidation);
+
+		for (int i = 0; i < warmupRuns; i++) {
+			recorder.clearRecords();
+			preprocessingChain.process(validated, config);
+		}
+
+		final LatencyHistogram latencies = new LatencyHistogram();
+		long validatorInvocations = 0;
+		long validatorUses = 0;
+		long errors = 0;
+		for (int i = 0; i < runs; i++) {
+			recorder.clearRecords();
+			resetCounts();
+
+			final long start = System.nanoTime();
+			preprocessingChain.process(validated, config);
+			latencies.record(System.nanoTime() - start);
+
+			validatorInvocations += getInvocationCount();
+			validatorUses += recorder.getValidatorUseCount();
+			errors += recorder.getErrorCount();
+		}
+
+		return new PatchCostReport.Measure(patchValidation, runs, validatorInvocations, validatorUses, errors, latencies);
+	}
+
+	private void resetCounts() {
+		for (CountingValidator validator : validators) {
+			validator.invocations = 0;
+		}
+	}
+
+	private long getInvocationCount() {
+		long count = 0;
+		for (CountingValidator validator : validators) {
+			count += validator.invocations;
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the invocations of the validator it decorates. The harness runs on one thread.
+	 */
+	private static final class CountingValidator implements IValidator<Object> {
+
+		private final IValidator<Object> delegate;
+		private int invocations;
+
+		public CountingValidator(IValidator<Object> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void collectErrors(Object object, IValidationContext context) {
+			invocations++;
+			delegate.collectErrors(object, context);
+		}
+	}
+}
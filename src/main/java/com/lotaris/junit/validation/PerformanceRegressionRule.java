@@ -0,0 +1,327 @@
+package com.lotaris.junit.validation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Measures validation scenarios after a warmup and fails the test when a scenario is slower than
+ * its baseline by more than a tolerance.
+ *
+ * <p>Baselines are the average time of one scenario run in nanoseconds, stored by scenario name in a
+ * properties file (<tt>src/test/resources/performance-baselines.properties</tt> by default, next to
+ * <tt>rox.yml</tt>). A scenario without baseline is measured and recorded. Set the
+ * <tt>junit-validation.baselines.update</tt> system property to <tt>true</tt> to replace the
+ * baselines with the new measurements. Baselines depend on the machine: record them where the tests
+ * usually run.</p>
+ *
+ * <pre>
+ * &#64;Rule
+ * public PerformanceRegressionRule performance = new PerformanceRegressionRule().withTolerance(0.2);
+ *
+ * &#64;Test
+ * public void userValidationDoesNotRegress() {
+ *	performance.measure(new Runnable() {
+ *		public void run() {
+ *			validator.collectErrors(user, recorder.getContext());
+ *			recorder.reset();
+ *		}
+ *	});
+ * }
+ * </pre>
+ *
+ * <p>The measurement is split in rounds; the score is the median of the average time per run of
+ * each round, which keeps an occasional garbage collection or JIT compilation from failing the
+ * test.</p>
+ */
+public class PerformanceRegressionRule implements TestRule {
+
+	/**
+	 * System property that makes the rule replace the baselines with the new measurements.
+	 */
+	public static final String UPDATE_PROPERTY = "junit-validation.baselines.update";
+
+	/**
+	 * Default baseline file, relative to the working directory of the tests (the project directory
+	 * with Maven).
+	 */
+	public static final String DEFAULT_BASELINE_FILE = "src/test/resources/performance-baselines.properties";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final int ROUNDS = 10;
+	private static final Map<File, Baselines> BASELINES = new HashMap<>();
+
+	private File baselineFile;
+	private double tolerance;
+	private int warmupIterations;
+	private int iterations;
+	private boolean update;
+	private Description description;
+	private volatile Object sink;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public PerformanceRegressionRule() {
+		baselineFile = new File(DEFAULT_BASELINE_FILE);
+		tolerance = 0.25;
+		warmupIterations = 10000;
+		iterations = 10000;
+		update = Boolean.getBoolean(UPDATE_PROPERTY);
+	}
+	//</editor-fold>
+
+	public PerformanceRegressionRule withBaselineFile(File baselineFile) {
+		this.baselineFile = baselineFile;
+		return this;
+	}
+
+	/**
+	 * Sets how much slower than its baseline a scenario may be.
+	 *
+	 * @param tolerance the tolerance, as a fraction of the baseline (e.g. 0.2 for 20%)
+	 * @return this rule
+	 */
+	public PerformanceRegressionRule withTolerance(double tolerance) {
+		if (tolerance < 0) {
+			throw new IllegalArgumentException("Tolerance must be positive, got " + tolerance);
+		}
+		this.tolerance = tolerance;
+		return this;
+	}
+
+	public PerformanceRegressionRule withWarmupIterations(int warmupIterations) {
+		if (warmupIterations < 0) {
+			throw new IllegalArgumentException("Warmup iterations must be positive, got " + warmupIterations);
+		}
+		this.warmupIterations = warmupIterations;
+		return this;
+	}
+
+	public PerformanceRegressionRule withIterations(int iterations) {
+		if (iterations < ROUNDS) {
+			throw new IllegalArgumentException("At least " + ROUNDS + " iterations are required, got " + iterations);
+		}
+		this.iterations = iterations;
+		return this;
+	}
+
+	/**
+	 * Makes the rule replace the baselines with the new measurements instead of checking them.
+	 */
+	public PerformanceRegressionRule updatingBaselines() {
+		this.update = true;
+		return this;
+	}
+
+	@Override
+	public Statement apply(final Statement base, final Description description) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				PerformanceRegressionRule.this.description = description;
+				try {
+					base.evaluate();
+				} catch (Throwable t) {
+					// a failure to save must not hide the failure of the test
+					try {
+						baselines().save();
+					} catch (IllegalStateException ise) {
+						t.addSuppressed(ise);
+					}
+					throw t;
+				} finally {
+					PerformanceRegressionRule.this.description = null;
+				}
+
+				baselines().save();
+			}
+		};
+	}
+
+	/**
+	 * Measures a scenario named after the current test (<tt>TestClass.testMethod</tt>).
+	 *
+	 * @param scenario the scenario
+	 * @return the average time of one run, in nanoseconds
+	 * @throws AssertionError if the scenario regressed
+	 */
+	public double measure(Runnable scenario) {
+		return measure(currentTestName(), scenario);
+	}
+
+	public double measure(Callable<?> scenario) {
+		return measure(currentTestName(), scenario);
+	}
+
+	public double measure(String scenarioName, final Runnable scenario) {
+		return measure(scenarioName, new Callable<Object>() {
+			@Override
+			public Object call() {
+				scenario.run();
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Measures a scenario and compares it to its baseline. The result of each run is kept so that it
+	 * cannot be optimized away.
+	 *
+	 * @param scenarioName the name of the scenario in the baseline file
+	 * @param scenario the scenario
+	 * @return the average time of one run, in nanoseconds
+	 * @throws AssertionError if the scenario regressed
+	 */
+	public double measure(String scenarioName, Callable<?> scenario) {
+
+		try {
+			for (int i = 0; i < warmupIterations; i++) {
+				sink = scenario.call();
+			}
+
+			final int roundIterations = iterations / ROUNDS;
+			final double[] rounds = new double[ROUNDS];
+			for (int r = 0; r < ROUNDS; r++) {
+				final long start = System.nanoTime();
+				for (int i = 0; i < roundIterations; i++) {
+					sink = scenario.call();
+				}
+				rounds[r] = (double) (System.nanoTime() - start) / roundIterations;
+			}
+
+			Arrays.sort(rounds);
+			final double score = (rounds[ROUNDS / 2 - 1] + rounds[ROUNDS / 2]) / 2;
+			check(scenarioName, score);
+			return score;
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("Scenario " + scenarioName + " failed", e);
+		}
+	}
+
+	private void check(String scenarioName, double score) {
+
+		final Baselines baselines = baselines();
+		final Double baseline = baselines.get(scenarioName);
+		if (baseline == null || update) {
+			baselines.put(scenarioName, score);
+		} else if (score > baseline * (1 + tolerance)) {
+			throw new AssertionError(String.format("Scenario %s regressed: %s per run, baseline is %s (%+.1f%%, tolerance is %.0f%%); set -D%s=true to accept the new baseline",
+					scenarioName, format(score), format(baseline), (score / baseline - 1) * 100, tolerance * 100, UPDATE_PROPERTY));
+		}
+	}
+
+	private String currentTestName() {
+		if (description == null) {
+			throw new IllegalStateException("No test is running: use the rule with @Rule or name the scenario");
+		}
+		return description.getClassName() + "." + description.getMethodName();
+	}
+
+	private Baselines baselines() {
+		synchronized (BASELINES) {
+			final File file = baselineFile.getAbsoluteFile();
+			Baselines baselines = BASELINES.get(file);
+			if (baselines == null) {
+				baselines = new Baselines(file);
+				BASELINES.put(file, baselines);
+			}
+			return baselines;
+		}
+	}
+
+	private static String format(double nanos) {
+		return nanos >= 1000 ? String.format("%.3f us", nanos / 1000) : String.format("%.1f ns", nanos);
+	}
+
+	/**
+	 * Baselines of a file, shared by all the rules of the test JVM that use it.
+	 */
+	private static final class Baselines {
+
+		private final File file;
+		private final Map<String, Double> values;
+		private boolean modified;
+
+		public Baselines(File file) {
+			this.file = file;
+			this.values = new TreeMap<>();
+
+			if (file.exists()) {
+				final Properties properties = new Properties();
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8))) {
+					properties.load(reader);
+				} catch (IOException ioe) {
+					throw new IllegalStateException("Could not read performance baselines from " + file, ioe);
+				}
+
+				for (String name : properties.stringPropertyNames()) {
+					values.put(name, Double.valueOf(properties.getProperty(name)));
+				}
+			}
+		}
+
+		public synchronized Double get(String scenarioName) {
+			return values.get(scenarioName);
+		}
+
+		public synchronized void put(String scenarioName, double nanos) {
+			values.put(scenarioName, nanos);
+			modified = true;
+		}
+
+		/**
+		 * Writes the baselines sorted by name, so that the file can be reviewed in diffs.
+		 */
+		public synchronized void save() {
+
+			if (!modified) {
+				return;
+			}
+
+			final File parent = file.getParentFile();
+			if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+				throw new IllegalStateException("Could not create directory " + parent);
+			}
+
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8))) {
+				writer.write("# Average time of one run of each scenario, in nanoseconds (see PerformanceRegressionRule)\n");
+				for (Map.Entry<String, Double> entry : values.entrySet()) {
+					writer.write(escapeKey(entry.getKey()) + "=" + String.format(Locale.ROOT, "%.1f", entry.getValue()) + "\n");
+				}
+			} catch (IOException ioe) {
+				throw new IllegalStateException("Could not write performance baselines to " + file, ioe);
+			}
+
+			modified = false;
+		}
+
+		private static String escapeKey(String key) {
+			final StringBuilder builder = new StringBuilder(key.length());
+			for (char c : key.toCharArray()) {
+				if (c == '=' || c == ':' || c == ' ' || c == '#' || c == '!' || c == '\\') {
+					builder.append('\\');
+				}
+				builder.append(c);
+			}
+			return builder.toString();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import com.lotaris.jee.validation.preprocessing.IPreprocessor;
+
+/**
+ * The behaviours a preprocessing chain can be given in tests, shared by the Mockito answers of
+ * {@link ValidationUtils} and by {@link FakePreprocessor}.
+ */
+final class PreprocessingBehaviours {
+
+	/**
+	 * Processes successfully without doing anything.
+	 */
+	static IPreprocessor succeed() {
+		return new IPreprocessor() {
+			@Override
+			public boolean process(Object object, IPreprocessingConfig config) {
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Runs all the validators of the preprocessing configuration on the processed object.
+	 */
+	static IPreprocessor runValidators() {
+		return new IPreprocessor() {
+			@Override
+			public boolean process(Object object, IPreprocessingConfig config) {
+				for (Object validatorObject : config.getValidators()) {
+					final IValidator<Object> validator = erase(validatorObject);
+					final Object event = FlightRecorderEvents.beginValidatorExecuted();
+					if (event == null) {
+						validator.collectErrors(object, config.getValidationContext());
+					} else {
+						runRecorded(event, validator, validator, object, config.getValidationContext());
+					}
+				}
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Runs all the validators of the preprocessing configuration on the processed object, recording
+	 * the latency of each one.
+	 */
+	static IPreprocessor runTimedValidators(final ValidatorTimings timings) {
+		return new IPreprocessor() {
+			@Override
+			public boolean process(Object object, IPreprocessingConfig config) {
+				for (Object validatorObject : config.getValidators()) {
+					final IValidator<Object> validator = erase(validatorObject);
+					final Object event = FlightRecorderEvents.beginValidatorExecuted();
+					if (event == null) {
+						timings.timed(validator).collectErrors(object, config.getValidationContext());
+					} else {
+						runRecorded(event, validator, timings.timed(validator), object, config.getValidationContext());
+					}
+				}
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Runs a validator while a <tt>ValidatorExecuted</tt> event is being recorded, counting the errors
+	 * it adds if the context is recorded by a {@link ValidationContextRecorder}.
+	 */
+	private static void runRecorded(Object event, IValidator<?> validator, IValidator<Object> run, Object object, IValidationContext context) {
+		final ValidationContextRecorder recorder = ValidationContextRecorder.of(context);
+		final int errorsBefore = recorder != null ? recorder.getErrorCount() : 0;
+		run.collectErrors(object, context);
+		FlightRecorderEvents.commitValidatorExecuted(event, validator, recorder != null ? recorder.getErrorCount() - errorsBefore : -1);
+	}
+
+	/**
+	 * Returns a validator of the preprocessing configuration as a validator of any object, since the
+	 * configuration only gives it the objects it processes.
+	 */
+	@SuppressWarnings("unchecked")
+	private static IValidator<Object> erase(Object validator) {
+		return (IValidator<Object>) validator;
+	}
+
+	/**
+	 * Performs an action on a validation state object of the validation context.
+	 */
+	static <T> IPreprocessor useValidationState(final Class<? extends T> stateClass, final ValidationUtils.IValidationStateAction<T> stateAction) {
+		return new IPreprocessor() {
+			@Override
+			public boolean process(Object object, IPreprocessingConfig config) {
+				final IValidationContext context = config.getValidationContext();
+				stateAction.performAction(context.getState(stateClass));
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Adds an error to the validation context.
+	 */
+	static IPreprocessor addError(final String location, final IErrorCode errorCode, final String message) {
+		return new IPreprocessor() {
+			@Override
+			public boolean process(Object object, IPreprocessingConfig config) {
+				config.getValidationContext().addError(location, null, errorCode, message);
+				return true;
+			}
+		};
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private PreprocessingBehaviours() {
+	}
+	//</editor-fold>
+}
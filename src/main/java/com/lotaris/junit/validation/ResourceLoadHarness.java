@@ -0,0 +1,321 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.junit.validation.matchers.ApiErrorResponseObjectMatcher;
+import com.lotaris.junit.validation.matchers.ErrorResponsePlan;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.StringDescription;
+
+/**
+ * Drives the resources of an {@link InMemoryResourceContainer} with a mix of valid and invalid
+ * requests from several threads, checks every response and measures the latency of valid and
+ * invalid requests separately, since invalid requests usually stop in the preprocessing chain.
+ *
+ * <pre>
+ * ResourceLoadReport report = ResourceLoadHarness.forContainer(container)
+ *		.withValidRequest(ResourceRequest.post("/users", validUser), 9)
+ *		.withInvalidRequest(ResourceRequest.post("/users", userWithoutName), isApiErrorResponseObject(422).withError(1001, "json", "/name"), 1)
+ *		.withThreads(8)
+ *		.withRequestsPerThread(100000)
+ *		.run();
+ *
+ * report.assertNoFailure();
+ * report.getInvalid().assertPercentileAtMost(99.9, 2, TimeUnit.MILLISECONDS);
+ * </pre>
+ *
+ * <p>A valid request fails if its response has a status code of 400 or more. An invalid request
+ * fails unless its response has an <tt>ApiErrorResponse</tt> matching its matcher, compiled once and
+ * checked with the allocation-free {@link ErrorResponsePlan#matches(ApiErrorResponse)}; only
+ * failures are described. Each thread sends the requests in the order of a schedule interleaving
+ * them by weight (starting at a different position), after warmup requests that are neither
+ * measured nor checked, and records latencies in its own {@link LatencyHistogram}s.</p>
+ */
+public final class ResourceLoadHarness {
+
+	private static final int MAX_EXAMPLES = 10;
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static ResourceLoadHarness forContainer(InMemoryResourceContainer container) {
+		return new ResourceLoadHarness(container);
+	}
+	//</editor-fold>
+
+	private final InMemoryResourceContainer container;
+	private final List<Scenario> scenarios;
+	private int threads;
+	private int requestsPerThread;
+	private int warmupRequestsPerThread;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ResourceLoadHarness(InMemoryResourceContainer container) {
+		this.container = container;
+		this.scenarios = new ArrayList<>();
+		this.threads = Runtime.getRuntime().availableProcessors();
+		this.requestsPerThread = 10000;
+		this.warmupRequestsPerThread = 1000;
+	}
+	//</editor-fold>
+
+	/**
+	 * Adds a request expected to succeed to the mix.
+	 *
+	 * @param request the request
+	 * @param weight the number of times the request is sent for each pass over the mix
+	 * @return this harness
+	 */
+	public ResourceLoadHarness withValidRequest(ResourceRequest request, int weight) {
+		scenarios.add(new Scenario(request, null, weight));
+		return this;
+	}
+
+	public ResourceLoadHarness withValidRequest(ResourceRequest request) {
+		return withValidRequest(request, 1);
+	}
+
+	/**
+	 * Adds a request expected to fail with an error response to the mix.
+	 *
+	 * @param request the request
+	 * @param matcher the expected error response
+	 * @param weight the number of times the request is sent for each pass over the mix
+	 * @return this harness
+	 */
+	public ResourceLoadHarness withInvalidRequest(ResourceRequest request, ApiErrorResponseObjectMatcher matcher, int weight) {
+		scenarios.add(new Scenario(request, matcher, weight));
+		return this;
+	}
+
+	public ResourceLoadHarness withInvalidRequest(ResourceRequest request, ApiErrorResponseObjectMatcher matcher) {
+		return withInvalidRequest(request, matcher, 1);
+	}
+
+	public ResourceLoadHarness withThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required, got " + threads);
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	public ResourceLoadHarness withRequestsPerThread(int requestsPerThread) {
+		this.requestsPerThread = requestsPerThread;
+		return this;
+	}
+
+	/**
+	 * Sends the specified number of requests from each thread first without measuring or checking
+	 * them.
+	 */
+	public ResourceLoadHarness withWarmupRequestsPerThread(int warmupRequestsPerThread) {
+		this.warmupRequestsPerThread = warmupRequestsPerThread;
+		return this;
+	}
+
+	/**
+	 * Sends the requests from all threads at once and returns the measurements.
+	 *
+	 * @return the report
+	 * @throws IllegalStateException if no requests were given
+	 */
+	public ResourceLoadReport run() {
+
+		if (scenarios.isEmpty()) {
+			throw new IllegalStateException("No requests: call withValidRequest or withInvalidRequest first");
+		}
+
+		final Scenario[] schedule = schedule();
+		final CountDownLatch ready = new CountDownLatch(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threads);
+		final Worker[] workers = new Worker[threads];
+		final AtomicInteger exampleCount = new AtomicInteger();
+		final ConcurrentLinkedQueue<String> examples = new ConcurrentLinkedQueue<>();
+
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (int t = 0; t < threads; t++) {
+				final Worker worker = new Worker(schedule, t * schedule.length / threads, exampleCount, examples);
+				workers[t] = worker;
+				pool.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							try {
+								worker.send(warmupRequestsPerThread, false);
+							} finally {
+								ready.countDown();
+							}
+							start.await();
+							worker.send(requestsPerThread, true);
+						} catch (InterruptedException ie) {
+							Thread.currentThread().interrupt();
+						} finally {
+							done.countDown();
+						}
+					}
+				});
+			}
+
+			ready.await();
+			final long begin = System.nanoTime();
+			start.countDown();
+			done.await();
+			final long elapsed = System.nanoTime() - begin;
+
+			final ResourceLoadReport.Kind valid = merge(workers, true, elapsed);
+			final ResourceLoadReport.Kind invalid = merge(workers, false, elapsed);
+			return new ResourceLoadReport(threads, elapsed, valid, invalid, new ArrayList<>(examples));
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while sending requests", ie);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Interleaves the requests by weight (smooth weighted round-robin): a request of weight 9 and a
+	 * request of weight 1 give 9 valid requests with the invalid one in the middle, rather than a
+	 * burst of each.
+	 */
+	private Scenario[] schedule() {
+
+		int total = 0;
+		for (Scenario scenario : scenarios) {
+			total += scenario.weight;
+		}
+
+		final Scenario[] schedule = new Scenario[total];
+		final int[] current = new int[scenarios.size()];
+		for (int i = 0; i < total; i++) {
+			int selected = 0;
+			for (int s = 0; s < current.length; s++) {
+				current[s] += scenarios.get(s).weight;
+				if (current[s] > current[selected]) {
+					selected = s;
+				}
+			}
+			current[selected] -= total;
+			schedule[i] = scenarios.get(selected);
+		}
+
+		return schedule;
+	}
+
+	private static ResourceLoadReport.Kind merge(Worker[] workers, boolean valid, long elapsedNanos) {
+		final LatencyHistogram latencies = new LatencyHistogram();
+		long failures = 0;
+		for (Worker worker : workers) {
+			latencies.add(valid ? worker.validLatencies : worker.invalidLatencies);
+			failures += valid ? worker.validFailures : worker.invalidFailures;
+		}
+		return new ResourceLoadReport.Kind(valid ? "valid" : "invalid", latencies, failures, elapsedNanos);
+	}
+
+	/**
+	 * Request of the mix and its expected error response, if any.
+	 */
+	private static final class Scenario {
+
+		private final ResourceRequest request;
+		private final ApiErrorResponseObjectMatcher matcher;
+		private final ErrorResponsePlan plan;
+		private final int weight;
+
+		public Scenario(ResourceRequest request, ApiErrorResponseObjectMatcher matcher, int weight) {
+			if (weight < 1) {
+				throw new IllegalArgumentException("Weight must be at least 1, got " + weight);
+			}
+			this.request = request;
+			this.matcher = matcher;
+			this.plan = matcher != null ? matcher.compile() : null;
+			this.weight = weight;
+		}
+
+		public boolean isValid() {
+			return plan == null;
+		}
+
+		public boolean check(ResourceResponse response) {
+			if (plan == null) {
+				return response.isSuccessful();
+			}
+			final ApiErrorResponse errorResponse = response.getErrorResponse();
+			return errorResponse != null && plan.matches(errorResponse);
+		}
+
+		public String describeFailure(ResourceResponse response) {
+			final StringBuilder builder = new StringBuilder().append(request).append(": ");
+			if (plan == null || response.getErrorResponse() == null) {
+				return builder.append(plan == null ? "expected a successful response" : "expected an error response").append(" but got ").append(response).toString();
+			}
+
+			final StringDescription description = new StringDescription();
+			matcher.describeMismatch(response.getErrorResponse(), description);
+			return builder.append(description).toString();
+		}
+	}
+
+	/**
+	 * Requests sent by one thread and their measurements.
+	 */
+	private final class Worker {
+
+		private final Scenario[] schedule;
+		private final AtomicInteger exampleCount;
+		private final ConcurrentLinkedQueue<String> examples;
+		private final LatencyHistogram validLatencies;
+		private final LatencyHistogram invalidLatencies;
+		private int next;
+		private long validFailures;
+		private long invalidFailures;
+
+		public Worker(Scenario[] schedule, int offset, AtomicInteger exampleCount, ConcurrentLinkedQueue<String> examples) {
+			this.schedule = schedule;
+			this.next = offset;
+			this.exampleCount = exampleCount;
+			this.examples = examples;
+			this.validLatencies = new LatencyHistogram();
+			this.invalidLatencies = new LatencyHistogram();
+		}
+
+		public void send(int count, boolean measured) {
+			for (int i = 0; i < count; i++) {
+				final Scenario scenario = schedule[next];
+				next = next + 1 < schedule.length ? next + 1 : 0;
+
+				final long begin = System.nanoTime();
+				ResourceResponse response;
+				try {
+					response = container.handle(scenario.request);
+				} catch (RuntimeException re) {
+					response = new ResourceResponse(500, null, re);
+				}
+				final long latency = System.nanoTime() - begin;
+
+				if (!measured) {
+					continue;
+				}
+
+				(scenario.isValid() ? validLatencies : invalidLatencies).record(latency);
+				if (!scenario.check(response)) {
+					if (scenario.isValid()) {
+						validFailures++;
+					} else {
+						invalidFailures++;
+					}
+
+					if (exampleCount.getAndIncrement() < MAX_EXAMPLES) {
+						examples.add(scenario.describeFailure(response));
+					}
+				}
+			}
+		}
+	}
+}
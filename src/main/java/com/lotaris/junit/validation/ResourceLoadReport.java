@@ -0,0 +1,169 @@
+package com.lotaris.junit.validation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of a {@link ResourceLoadHarness} run: the throughput, latency percentiles and failed
+ * checks of valid and invalid requests, and the first failures.
+ */
+public final class ResourceLoadReport {
+
+	private final int threads;
+	private final long elapsedNanos;
+	private final Kind valid;
+	private final Kind invalid;
+	private final List<String> examples;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	ResourceLoadReport(int threads, long elapsedNanos, Kind valid, Kind invalid, List<String> examples) {
+		this.threads = threads;
+		this.elapsedNanos = elapsedNanos;
+		this.valid = valid;
+		this.invalid = invalid;
+		this.examples = Collections.unmodifiableList(examples);
+	}
+	//</editor-fold>
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public long getRequests() {
+		return valid.getRequests() + invalid.getRequests();
+	}
+
+	public double getRequestsPerSecond() {
+		return elapsedNanos > 0 ? getRequests() * 1e9 / elapsedNanos : 0;
+	}
+
+	/**
+	 * Returns the measurements of the requests expected to succeed.
+	 */
+	public Kind getValid() {
+		return valid;
+	}
+
+	/**
+	 * Returns the measurements of the requests expected to fail with an error response.
+	 */
+	public Kind getInvalid() {
+		return invalid;
+	}
+
+	/**
+	 * Returns the first failed checks (at most 10).
+	 */
+	public List<String> getExamples() {
+		return examples;
+	}
+
+	/**
+	 * Fails if a valid request got an error or an invalid request did not get the expected error
+	 * response.
+	 *
+	 * @throws AssertionError with the measurements and the first failures
+	 */
+	public void assertNoFailure() {
+		if (valid.getFailures() > 0 || invalid.getFailures() > 0) {
+			throw new AssertionError("Responses do not meet their expectations\n" + this);
+		}
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%d threads, %d requests, %.0f requests/s%n", threads, getRequests(), getRequestsPerSecond()));
+		builder.append(String.format("%8s %10s %12s %10s %10s %10s %10s %10s%n", "", "requests", "requests/s", "p50 (us)", "p99 (us)", "p999 (us)", "max (us)", "failures"));
+		for (Kind kind : new Kind[]{valid, invalid}) {
+			final LatencyHistogram latencies = kind.getLatencies();
+			builder.append(String.format("%8s %10d %12.0f %10.1f %10.1f %10.1f %10.1f %10d%n", kind.getName(), kind.getRequests(), kind.getRequestsPerSecond(),
+					latencies.getPercentileNanos(50) / 1000d, latencies.getPercentileNanos(99) / 1000d, latencies.getPercentileNanos(99.9) / 1000d,
+					latencies.getMaxNanos() / 1000d, kind.getFailures()));
+		}
+
+		for (String example : examples) {
+			builder.append(String.format("  %s%n", example));
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Measurements of the valid or of the invalid requests.
+	 */
+	public static final class Kind {
+
+		private final String name;
+		private final LatencyHistogram latencies;
+		private final long failures;
+		private final long elapsedNanos;
+
+		Kind(String name, LatencyHistogram latencies, long failures, long elapsedNanos) {
+			this.name = name;
+			this.latencies = latencies;
+			this.failures = failures;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Returns "valid" or "invalid".
+		 */
+		public String getName() {
+			return name;
+		}
+
+		public long getRequests() {
+			return latencies.getCount();
+		}
+
+		public double getRequestsPerSecond() {
+			return elapsedNanos > 0 ? getRequests() * 1e9 / elapsedNanos : 0;
+		}
+
+		public LatencyHistogram getLatencies() {
+			return latencies;
+		}
+
+		public long getP50Nanos() {
+			return latencies.getPercentileNanos(50);
+		}
+
+		public long getP99Nanos() {
+			return latencies.getPercentileNanos(99);
+		}
+
+		public long getP999Nanos() {
+			return latencies.getPercentileNanos(99.9);
+		}
+
+		/**
+		 * Returns the number of responses that did not meet their expectations.
+		 */
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * Fails if the latency at a percentile exceeds a budget.
+		 *
+		 * @param percentile the percentile, between 0 and 100 (e.g. 99.9)
+		 * @param max the budget
+		 * @param unit the unit of the budget
+		 * @throws AssertionError with the latencies of these requests
+		 */
+		public void assertPercentileAtMost(double percentile, long max, TimeUnit unit) {
+			final long actual = latencies.getPercentileNanos(percentile);
+			if (actual > unit.toNanos(max)) {
+				throw new AssertionError(String.format("p%s latency of %s requests is %.1f us, expected at most %d %s (%s)",
+						percentile, name, actual / 1000d, max, unit.toString().toLowerCase(), latencies));
+			}
+		}
+	}
+}
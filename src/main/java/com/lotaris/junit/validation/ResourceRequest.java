@@ -0,0 +1,119 @@
+package com.lotaris.junit.validation;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request handled by an {@link InMemoryResourceContainer}: an HTTP method, a path, query parameters,
+ * headers and an entity already deserialized (the object the resource method receives).
+ *
+ * <pre>
+ * ResourceRequest request = ResourceRequest.post("/users", user).withQueryParam("notify", "true");
+ * </pre>
+ *
+ * <p>Requests are immutable: they can be shared by all the threads of a {@link ResourceLoadHarness}.
+ * The entity is shared as well, so resources must not modify it.</p>
+ */
+public final class ResourceRequest {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static ResourceRequest get(String path) {
+		return new ResourceRequest("GET", path, null);
+	}
+
+	public static ResourceRequest delete(String path) {
+		return new ResourceRequest("DELETE", path, null);
+	}
+
+	public static ResourceRequest post(String path, Object entity) {
+		return new ResourceRequest("POST", path, entity);
+	}
+
+	public static ResourceRequest put(String path, Object entity) {
+		return new ResourceRequest("PUT", path, entity);
+	}
+
+	/**
+	 * Returns a request with any HTTP method (e.g. <tt>PATCH</tt>, as declared by an annotation
+	 * annotated with <tt>@HttpMethod("PATCH")</tt>).
+	 */
+	public static ResourceRequest request(String method, String path, Object entity) {
+		return new ResourceRequest(method, path, entity);
+	}
+	//</editor-fold>
+
+	private final String method;
+	private final String path;
+	private final Object entity;
+	private final Map<String, String> queryParams;
+	private final Map<String, String> headers;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ResourceRequest(String method, String path, Object entity) {
+		this(method, path, entity, Collections.<String, String>emptyMap(), Collections.<String, String>emptyMap());
+	}
+
+	private ResourceRequest(String method, String path, Object entity, Map<String, String> queryParams, Map<String, String> headers) {
+		if (method == null || path == null) {
+			throw new IllegalArgumentException("Method and path are required");
+		}
+		this.method = method.toUpperCase();
+		this.path = path;
+		this.entity = entity;
+		this.queryParams = queryParams;
+		this.headers = headers;
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns a copy of this request with an additional query parameter.
+	 */
+	public ResourceRequest withQueryParam(String name, String value) {
+		return new ResourceRequest(method, path, entity, with(queryParams, name, value), headers);
+	}
+
+	/**
+	 * Returns a copy of this request with an additional header (names are case-insensitive).
+	 */
+	public ResourceRequest withHeader(String name, String value) {
+		return new ResourceRequest(method, path, entity, queryParams, with(headers, name.toLowerCase(), value));
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public Object getEntity() {
+		return entity;
+	}
+
+	public String getQueryParam(String name) {
+		return queryParams.get(name);
+	}
+
+	public String getHeader(String name) {
+		return headers.get(name.toLowerCase());
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder(method).append(" ").append(path);
+		boolean first = true;
+		for (Map.Entry<String, String> param : queryParams.entrySet()) {
+			builder.append(first ? "?" : "&").append(param.getKey()).append("=").append(param.getValue());
+			first = false;
+		}
+		return builder.toString();
+	}
+
+	private static Map<String, String> with(Map<String, String> map, String name, String value) {
+		final Map<String, String> copy = new LinkedHashMap<>(map);
+		copy.put(name, value);
+		return Collections.unmodifiableMap(copy);
+	}
+}
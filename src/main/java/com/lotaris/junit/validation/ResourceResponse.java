@@ -0,0 +1,62 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+
+/**
+ * Outcome of a request handled by an {@link InMemoryResourceContainer}: a status code and the entity
+ * returned by the resource or by the mapping of its exception, not serialized.
+ */
+public final class ResourceResponse {
+
+	private final int status;
+	private final Object entity;
+	private final Throwable exception;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	ResourceResponse(int status, Object entity, Throwable exception) {
+		this.status = status;
+		this.entity = entity;
+		this.exception = exception;
+	}
+	//</editor-fold>
+
+	public int getStatus() {
+		return status;
+	}
+
+	public Object getEntity() {
+		return entity;
+	}
+
+	/**
+	 * Returns the API error response of this response: the entity if it is one (e.g. the response of
+	 * an <tt>ApiErrorsException</tt>).
+	 *
+	 * @return the error response, or null if the entity is not an error response
+	 */
+	public ApiErrorResponse getErrorResponse() {
+		return entity instanceof ApiErrorResponse ? (ApiErrorResponse) entity : null;
+	}
+
+	/**
+	 * Returns the exception thrown by the resource if no exception mapper handled it (the status is
+	 * then 500), or the conversion failure of a parameter of the request.
+	 *
+	 * @return the exception, or null
+	 */
+	public Throwable getException() {
+		return exception;
+	}
+
+	/**
+	 * Indicates whether the status code is below 400.
+	 */
+	public boolean isSuccessful() {
+		return status < 400;
+	}
+
+	@Override
+	public String toString() {
+		return "status " + status + (exception != null ? " (" + exception + ")" : entity != null ? " with " + entity : "");
+	}
+}
@@ -0,0 +1,234 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the running time of a validator (or of the validators of a preprocessing
+ * configuration) grows with the size of its input, to catch validators of large lists that are
+ * accidentally quadratic before they meet a large payload in production.
+ *
+ * <pre>
+ * ScalingAnalysis.forValidator(new OrderValidator())
+ *		.run(new ScalingAnalysis.InputGenerator&lt;Order&gt;() {
+ *			public Order generate(int size) {
+ *				return orderWithLines(size);
+ *			}
+ *		})
+ *		.assertScalesAtMost(Complexity.LINEAR);
+ * </pre>
+ *
+ * <p>An input is generated for each size (1000, 3000, 10000, 30000 and 100000 elements by default),
+ * and validated repeatedly into a {@link ValidationContextRecorder} that runs nested validators, so
+ * that the validators given to <tt>validateObjects</tt> and <tt>validateObjectOrList</tt> are part
+ * of the measure. Generating the input is not measured. Once a validation takes (or, from the
+ * growth measured so far, would take) longer than the maximum time per run, larger sizes are
+ * skipped: a quadratic validator does not need to be run on 100k elements to be caught.</p>
+ *
+ * @see ComplexityAssertions
+ */
+public final class ScalingAnalysis<T> {
+
+	private static final int[] DEFAULT_SIZES = {1000, 3000, 10000, 30000, 100000};
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static <T> ScalingAnalysis<T> forValidator(IValidator<T> validator) {
+		return new ScalingAnalysis<>(ValidatorRun.of(validator));
+	}
+
+	/**
+	 * Returns an analysis running the validators of a preprocessing configuration, in order, into
+	 * the same validation context.
+	 *
+	 * @param config the configuration (e.g. a {@link FakePreprocessingConfig})
+	 * @return the analysis
+	 */
+	public static ScalingAnalysis<Object> forConfig(IPreprocessingConfig config) {
+		return new ScalingAnalysis<>(ValidatorRun.of(config));
+	}
+	//</editor-fold>
+
+	/**
+	 * Generates an input of a given size, e.g. a resource with a list of that many elements.
+	 */
+	public interface InputGenerator<T> {
+
+		T generate(int size);
+	}
+
+	private final ValidatorRun validatorRun;
+	private int[] sizes;
+	private int minRuns;
+	private long minTimePerSizeNanos;
+	private long maxTimePerRunNanos;
+	private double tolerance;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ScalingAnalysis(ValidatorRun validatorRun) {
+		this.validatorRun = validatorRun;
+		this.validatorRun.setRunningNestedValidators(true);
+		this.sizes = DEFAULT_SIZES;
+		this.minRuns = 5;
+		this.minTimePerSizeNanos = TimeUnit.MILLISECONDS.toNanos(100);
+		this.maxTimePerRunNanos = TimeUnit.SECONDS.toNanos(2);
+		this.tolerance = 0.25;
+	}
+	//</editor-fold>
+
+	/**
+	 * Sets the sizes of the generated inputs, in increasing order. At least two sizes are required,
+	 * a ratio of 100 between the smallest and the largest gives a reliable estimate.
+	 *
+	 * @param sizes the sizes
+	 * @return this analysis
+	 */
+	public ScalingAnalysis<T> withSizes(int... sizes) {
+		if (sizes.length < 2) {
+			throw new IllegalArgumentException("At least two sizes are required, got " + sizes.length);
+		}
+		for (int i = 0; i < sizes.length; i++) {
+			if (sizes[i] < 1 || (i > 0 && sizes[i] <= sizes[i - 1])) {
+				throw new IllegalArgumentException("Sizes must be positive and increasing, got " + Arrays.toString(sizes));
+			}
+		}
+		this.sizes = sizes.clone();
+		return this;
+	}
+
+	/**
+	 * Sets how long each size is measured: the input is validated at least <tt>minRuns</tt> times and
+	 * until the specified time has elapsed.
+	 */
+	public ScalingAnalysis<T> withMinimumMeasure(int minRuns, long minTimePerSize, TimeUnit unit) {
+		if (minRuns < 1) {
+			throw new IllegalArgumentException("At least one run is required, got " + minRuns);
+		}
+		this.minRuns = minRuns;
+		this.minTimePerSizeNanos = unit.toNanos(minTimePerSize);
+		return this;
+	}
+
+	/**
+	 * Sets the time of a single validation after which larger sizes are skipped.
+	 */
+	public ScalingAnalysis<T> withMaxTimePerRun(long maxTimePerRun, TimeUnit unit) {
+		this.maxTimePerRunNanos = unit.toNanos(maxTimePerRun);
+		return this;
+	}
+
+	/**
+	 * Sets by how much the measured growth exponent may exceed the exponent of the declared
+	 * complexity class (0.25 by default).
+	 */
+	public ScalingAnalysis<T> withTolerance(double tolerance) {
+		if (tolerance < 0) {
+			throw new IllegalArgumentException("Tolerance cannot be negative, got " + tolerance);
+		}
+		this.tolerance = tolerance;
+		return this;
+	}
+
+	/**
+	 * Only runs the top-level validators: the validators passed to the <tt>validateObject*</tt>
+	 * methods are recorded but not run.
+	 */
+	public ScalingAnalysis<T> withoutNestedValidators() {
+		validatorRun.setRunningNestedValidators(false);
+		return this;
+	}
+
+	/**
+	 * Adds a state object to the validation context, as <tt>addState</tt> would.
+	 */
+	public <S> ScalingAnalysis<T> withState(S state, Class<? extends S> stateClass) {
+		validatorRun.addState(state, stateClass);
+		return this;
+	}
+
+	/**
+	 * Measures the median time of a validation for each size.
+	 *
+	 * @param generator the generator of inputs
+	 * @return the report
+	 * @throws IllegalStateException if fewer than two sizes could be measured
+	 */
+	public ScalingReport run(InputGenerator<? extends T> generator) {
+
+		final ValidationContextRecorder recorder = validatorRun.newRecorder();
+		final List<Integer> measuredSizes = new ArrayList<>();
+		final List<Long> medians = new ArrayList<>();
+		final List<Integer> skippedSizes = new ArrayList<>();
+
+		// warm up with the smallest input so that the first size is not measured in the interpreter
+		final T warmupInput = generator.generate(sizes[0]);
+		final long warmupEnd = System.nanoTime() + minTimePerSizeNanos;
+		for (int i = 0; i < minRuns || System.nanoTime() < warmupEnd; i++) {
+			validatorRun.validate(warmupInput, recorder);
+		}
+
+		boolean tooSlow = false;
+		for (int size : sizes) {
+			if (tooSlow || projectedNanos(measuredSizes, medians, size) > maxTimePerRunNanos) {
+				tooSlow = true;
+				skippedSizes.add(size);
+				continue;
+			}
+
+			final T input = generator.generate(size);
+			final LatencyHistogram latencies = new LatencyHistogram();
+			final long end = System.nanoTime() + minTimePerSizeNanos;
+			for (int i = 0; i < minRuns || System.nanoTime() < end; i++) {
+				final long start = System.nanoTime();
+				validatorRun.validate(input, recorder);
+				final long elapsed = System.nanoTime() - start;
+				latencies.record(elapsed);
+
+				if (elapsed > maxTimePerRunNanos) {
+					tooSlow = true;
+					break;
+				}
+			}
+
+			measuredSizes.add(size);
+			medians.add(latencies.getPercentileNanos(50));
+		}
+
+		if (measuredSizes.size() < 2) {
+			throw new IllegalStateException("Validating an input of size " + measuredSizes.get(0) + " took more than "
+					+ TimeUnit.NANOSECONDS.toMillis(maxTimePerRunNanos) + " ms: cannot measure scaling with fewer than two sizes");
+		}
+
+		final int[] measured = new int[measuredSizes.size()];
+		final long[] mediansNanos = new long[measured.length];
+		for (int i = 0; i < measured.length; i++) {
+			measured[i] = measuredSizes.get(i);
+			mediansNanos[i] = medians.get(i);
+		}
+
+		return new ScalingReport(measured, mediansNanos, skippedSizes, tolerance);
+	}
+
+	/**
+	 * Projects the time of a validation of the specified size from the growth between the last two
+	 * measured sizes.
+	 *
+	 * @return the projected time, or 0 if fewer than two sizes were measured
+	 */
+	private static double projectedNanos(List<Integer> measuredSizes, List<Long> medians, int size) {
+
+		final int count = measuredSizes.size();
+		if (count < 2) {
+			return 0;
+		}
+
+		final double lastSize = measuredSizes.get(count - 1);
+		final double lastNanos = Math.max(medians.get(count - 1), 1);
+		final double exponent = Math.log(lastNanos / Math.max(medians.get(count - 2), 1)) / Math.log(lastSize / measuredSizes.get(count - 2));
+
+		return lastNanos * Math.pow(size / lastSize, Math.max(exponent, 1));
+	}
+}
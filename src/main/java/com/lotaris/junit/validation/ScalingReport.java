@@ -0,0 +1,186 @@
+package com.lotaris.junit.validation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measurements of a {@link ScalingAnalysis} run: the median time of a validation for each input
+ * size, and how it grows.
+ *
+ * <p>The growth is summarized by its exponent: the slope of the logarithm of the time against the
+ * logarithm of the size, fitted by least squares (1 for linear growth, 2 for quadratic growth).
+ * Constant costs make small sizes look cheaper than they are, so the exponent of a linear validation
+ * is often slightly below 1. A complexity class is met if the measured exponent is at most the
+ * exponent of the class over the same sizes (1.1 to 1.2 for <tt>n log n</tt>) plus a tolerance. The
+ * class fitting the times best (least relative root mean square error of <tt>t = c f(n)</tt>) is also
+ * reported, but it is not used by the assertions: on a small range of sizes, neighbouring classes
+ * fit almost equally well.</p>
+ */
+public final class ScalingReport {
+
+	private final int[] sizes;
+	private final long[] medianNanos;
+	private final List<Integer> skippedSizes;
+	private final double tolerance;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	ScalingReport(int[] sizes, long[] medianNanos, List<Integer> skippedSizes, double tolerance) {
+		this.sizes = sizes;
+		this.medianNanos = medianNanos;
+		this.skippedSizes = Collections.unmodifiableList(skippedSizes);
+		this.tolerance = tolerance;
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns the measured sizes, in increasing order.
+	 */
+	public int[] getSizes() {
+		return sizes.clone();
+	}
+
+	/**
+	 * Returns the median time of a validation of each measured size.
+	 */
+	public long[] getMedianNanos() {
+		return medianNanos.clone();
+	}
+
+	/**
+	 * Returns the sizes that were not measured because a validation of a smaller size took too long.
+	 */
+	public List<Integer> getSkippedSizes() {
+		return skippedSizes;
+	}
+
+	/**
+	 * Returns the measured growth exponent of the validation time.
+	 */
+	public double getExponent() {
+		final double[] times = new double[sizes.length];
+		for (int i = 0; i < sizes.length; i++) {
+			times[i] = Math.max(medianNanos[i], 1);
+		}
+		return slope(times);
+	}
+
+	/**
+	 * Returns the growth exponent of a complexity class over the measured sizes.
+	 */
+	public double getExponent(Complexity complexity) {
+		final double[] values = new double[sizes.length];
+		for (int i = 0; i < sizes.length; i++) {
+			values[i] = complexity.evaluate(sizes[i]);
+		}
+		return slope(values);
+	}
+
+	/**
+	 * Returns the root mean square error of the best fit of the times to <tt>c f(n)</tt>, relative to
+	 * the mean time.
+	 */
+	public double getRelativeError(Complexity complexity) {
+
+		double dot = 0;
+		double squares = 0;
+		double mean = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			final double f = complexity.evaluate(sizes[i]);
+			dot += medianNanos[i] * f;
+			squares += f * f;
+			mean += medianNanos[i];
+		}
+		mean /= sizes.length;
+
+		final double coefficient = dot / squares;
+		double error = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			final double residual = medianNanos[i] - coefficient * complexity.evaluate(sizes[i]);
+			error += residual * residual;
+		}
+
+		return mean > 0 ? Math.sqrt(error / sizes.length) / mean : 0;
+	}
+
+	/**
+	 * Returns the complexity class that fits the measured times best.
+	 */
+	public Complexity getBestFit() {
+		Complexity best = null;
+		double bestError = Double.MAX_VALUE;
+		for (Complexity complexity : Complexity.values()) {
+			final double error = getRelativeError(complexity);
+			if (error < bestError) {
+				best = complexity;
+				bestError = error;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Indicates whether the validation time grows at most as fast as a complexity class.
+	 */
+	public boolean scalesAtMost(Complexity complexity) {
+		return getExponent() <= getExponent(complexity) + tolerance;
+	}
+
+	/**
+	 * Asserts that the validation time grows at most as fast as a complexity class.
+	 *
+	 * @param complexity the declared complexity
+	 * @throws AssertionError if the time grows faster
+	 */
+	public void assertScalesAtMost(Complexity complexity) {
+		if (!scalesAtMost(complexity)) {
+			throw new AssertionError(String.format("Expected validation time to scale at most as %s (exponent %.2f + %.2f), got exponent %.2f%n%s",
+					complexity, getExponent(complexity), tolerance, getExponent(), this));
+		}
+	}
+
+	public void assertScalesLinearly() {
+		assertScalesAtMost(Complexity.LINEAR);
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%10s %14s %14s%n", "size", "median us", "ns/element"));
+		for (int i = 0; i < sizes.length; i++) {
+			builder.append(String.format("%10d %14.1f %14.2f%n", sizes[i], medianNanos[i] / 1000d, (double) medianNanos[i] / sizes[i]));
+		}
+		for (Integer skipped : skippedSizes) {
+			builder.append(String.format("%10d %14s %14s%n", skipped, "skipped", "-"));
+		}
+		builder.append(String.format("growth exponent %.2f, best fit %s", getExponent(), getBestFit()));
+
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the least squares slope of the logarithms of the values against the logarithms of the
+	 * sizes.
+	 */
+	private double slope(double[] values) {
+
+		double meanX = 0;
+		double meanY = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			meanX += Math.log(sizes[i]);
+			meanY += Math.log(values[i]);
+		}
+		meanX /= sizes.length;
+		meanY /= sizes.length;
+
+		double covariance = 0;
+		double variance = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			final double dx = Math.log(sizes[i]) - meanX;
+			covariance += dx * (Math.log(values[i]) - meanY);
+			variance += dx * dx;
+		}
+
+		return covariance / variance;
+	}
+}
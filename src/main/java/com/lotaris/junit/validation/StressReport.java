@@ -0,0 +1,184 @@
+package com.lotaris.junit.validation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of a {@link ValidatorStressHarness} run: for each level of concurrency, the throughput
+ * and the validations whose errors differed from the single-threaded reference.
+ */
+public final class StressReport {
+
+	private final boolean virtualThreads;
+	private final List<Level> levels;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	StressReport(boolean virtualThreads, List<Level> levels) {
+		this.virtualThreads = virtualThreads;
+		this.levels = Collections.unmodifiableList(levels);
+	}
+	//</editor-fold>
+
+	public boolean isUsingVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public List<Level> getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Returns the results of the level with the specified number of threads.
+	 *
+	 * @param threads the number of threads requested for the level (see
+	 * {@link Level#getRequestedThreads()})
+	 * @return the level, or null if it was not run
+	 */
+	public Level getLevel(int threads) {
+		for (Level level : levels) {
+			if (level.getRequestedThreads() == threads) {
+				return level;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the throughput of a level relative to the single-threaded level.
+	 *
+	 * @param threads the number of threads of the level
+	 * @return the speedup
+	 * @throws IllegalArgumentException if the level or the single-threaded level was not run
+	 */
+	public double getSpeedup(int threads) {
+		final Level single = getLevel(1);
+		final Level level = getLevel(threads);
+		if (single == null || level == null) {
+			throw new IllegalArgumentException("The speedup of " + threads + " threads requires runs with 1 and " + threads + " threads");
+		}
+		return level.getValidationsPerSecond() / single.getValidationsPerSecond();
+	}
+
+	/**
+	 * Fails if a thread got different errors than the reference or an exception at any level.
+	 *
+	 * @throws AssertionError with the counts of each level and the first examples
+	 */
+	public void assertNoMismatch() {
+		for (Level level : levels) {
+			if (level.getMismatches() > 0 || level.getExceptions() > 0) {
+				throw new AssertionError("Concurrent validations differ from the single-threaded reference\n" + this);
+			}
+		}
+	}
+
+	/**
+	 * Fails if a level is not at least the specified number of times faster than a single thread,
+	 * which shows lock contention (or a shared bottleneck) in the validators.
+	 *
+	 * @param threads the number of threads of the level
+	 * @param minimumSpeedup the minimum speedup
+	 * @throws AssertionError with the throughput of each level
+	 */
+	public void assertSpeedupAtLeast(int threads, double minimumSpeedup) {
+		final double speedup = getSpeedup(threads);
+		if (speedup < minimumSpeedup) {
+			throw new AssertionError(String.format("Speedup with %d threads is %.2fx, expected at least %.2fx%n%s", threads, speedup, minimumSpeedup, this));
+		}
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%s threads%n", virtualThreads ? "Virtual" : "Platform"));
+		builder.append(String.format("%8s %8s %12s %14s %8s %12s %12s%n", "tasks", "threads", "validations", "validations/s", "speedup", "mismatches", "exceptions"));
+
+		final Level single = getLevel(1);
+		for (Level level : levels) {
+			builder.append(String.format("%8d %8d %12d %14.0f %8s %12d %12d%n", level.getRequestedThreads(), level.getThreads(), level.getValidations(), level.getValidationsPerSecond(),
+					single != null ? String.format("%.2fx", level.getValidationsPerSecond() / single.getValidationsPerSecond()) : "-", level.getMismatches(), level.getExceptions()));
+		}
+
+		for (Level level : levels) {
+			for (String example : level.getExamples()) {
+				builder.append(String.format("  [%d tasks] %s%n", level.getRequestedThreads(), example));
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Results of one level of concurrency.
+	 */
+	public static final class Level {
+
+		private final int requestedThreads;
+		private final int threads;
+		private final long validations;
+		private final long elapsedNanos;
+		private final long mismatches;
+		private final long exceptions;
+		private final List<String> examples;
+
+		Level(int requestedThreads, int threads, long validations, long elapsedNanos, long mismatches, long exceptions, List<String> examples) {
+			this.requestedThreads = requestedThreads;
+			this.threads = threads;
+			this.validations = validations;
+			this.elapsedNanos = elapsedNanos;
+			this.mismatches = mismatches;
+			this.exceptions = exceptions;
+			this.examples = Collections.unmodifiableList(examples);
+		}
+
+		/**
+		 * Returns the number of concurrent tasks requested for this level, each validating the
+		 * inputs on its own thread if possible.
+		 */
+		public int getRequestedThreads() {
+			return requestedThreads;
+		}
+
+		/**
+		 * Returns the number of threads that actually ran the tasks: fewer than requested when
+		 * platform threads are multiplexed (see {@link ValidatorStressHarness#MAX_PLATFORM_THREADS}).
+		 */
+		public int getThreads() {
+			return threads;
+		}
+
+		public long getValidations() {
+			return validations;
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		public double getValidationsPerSecond() {
+			return elapsedNanos > 0 ? validations * 1e9 / elapsedNanos : 0;
+		}
+
+		/**
+		 * Returns the number of validations whose errors differed from the reference.
+		 */
+		public long getMismatches() {
+			return mismatches;
+		}
+
+		/**
+		 * Returns the number of validations that threw an exception or an error.
+		 */
+		public long getExceptions() {
+			return exceptions;
+		}
+
+		/**
+		 * Returns the first mismatches and exceptions (at most 10 per level).
+		 */
+		public List<String> getExamples() {
+			return examples;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.lotaris.junit.validation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measurements of a {@link ValidatorThroughputHarness} run: overall throughput and, for each
+ * validator, its latencies and the frequency of the error codes it added.
+ */
+public final class ThroughputReport {
+
+	private final int threads;
+	private final long inputs;
+	private final long elapsedNanos;
+	private final List<ValidatorStats> validatorStats;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	ThroughputReport(int threads, long inputs, long elapsedNanos, List<ValidatorStats> validatorStats) {
+		this.threads = threads;
+		this.inputs = inputs;
+		this.elapsedNanos = elapsedNanos;
+		this.validatorStats = Collections.unmodifiableList(validatorStats);
+	}
+	//</editor-fold>
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Returns the number of measured inputs (warmup inputs excluded).
+	 */
+	public long getInputs() {
+		return inputs;
+	}
+
+	/**
+	 * Returns the wall-clock time of the run, warmup included.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of inputs validated by all validators per second of wall-clock time, with all
+	 * threads.
+	 */
+	public double getInputsPerSecond() {
+		return elapsedNanos > 0 ? inputs * 1e9 / elapsedNanos : 0;
+	}
+
+	public List<ValidatorStats> getValidatorStats() {
+		return validatorStats;
+	}
+
+	public ValidatorStats getStats(int validatorIndex) {
+		return validatorStats.get(validatorIndex);
+	}
+
+	/**
+	 * Returns the statistics of the first validator with the specified name.
+	 *
+	 * @param validatorName the simple class name of the validator
+	 * @return the statistics, or null if there is no such validator
+	 */
+	public ValidatorStats getStats(String validatorName) {
+		for (ValidatorStats stats : validatorStats) {
+			if (stats.getValidatorName().equals(validatorName)) {
+				return stats;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%d inputs in %.3f s with %d threads (%.0f inputs/s)%n", inputs, elapsedNanos / 1e9, threads, getInputsPerSecond()));
+		builder.append(String.format("%-32s %12s %14s %10s %10s %10s %10s  %s%n", "validator", "validations", "validations/s", "p50 us", "p99 us", "p99.9 us", "max us", "error codes"));
+		for (ValidatorStats stats : validatorStats) {
+			final LatencyHistogram latencies = stats.getLatencies();
+			builder.append(String.format("%-32s %12d %14.0f %10.1f %10.1f %10.1f %10.1f  %s%n", stats.getValidatorName(), latencies.getCount(), stats.getValidationsPerSecond(),
+					latencies.getPercentileNanos(50) / 1000d, latencies.getPercentileNanos(99) / 1000d, latencies.getPercentileNanos(99.9) / 1000d, latencies.getMaxNanos() / 1000d,
+					stats.getErrorCodeFrequency()));
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Measurements of one validator.
+	 */
+	public static final class ValidatorStats {
+
+		private final String validatorName;
+		private final LatencyHistogram latencies;
+		private final Map<Integer, Long> errorCodeFrequency;
+		private final long inputsWithErrors;
+
+		//<editor-fold defaultstate="collapsed" desc="Constructors">
+		ValidatorStats(String validatorName, LatencyHistogram latencies, Map<Integer, Long> errorCodeFrequency, long inputsWithErrors) {
+			this.validatorName = validatorName;
+			this.latencies = latencies;
+			this.errorCodeFrequency = Collections.unmodifiableMap(errorCodeFrequency);
+			this.inputsWithErrors = inputsWithErrors;
+		}
+		//</editor-fold>
+
+		public String getValidatorName() {
+			return validatorName;
+		}
+
+		public LatencyHistogram getLatencies() {
+			return latencies;
+		}
+
+		/**
+		 * Returns the number of validations per second of time spent in this validator, i.e. its
+		 * throughput on a single thread.
+		 */
+		public double getValidationsPerSecond() {
+			return latencies.getTotalNanos() > 0 ? latencies.getCount() * 1e9 / latencies.getTotalNanos() : 0;
+		}
+
+		/**
+		 * Returns the number of errors added by this validator, by code (sorted, errors without code
+		 * under a null key).
+		 */
+		public Map<Integer, Long> getErrorCodeFrequency() {
+			return errorCodeFrequency;
+		}
+
+		/**
+		 * Returns the number of inputs for which this validator added at least one error.
+		 */
+		public long getInputsWithErrors() {
+			return inputsWithErrors;
+		}
+
+		@Override
+		public String toString() {
+			return validatorName + ": " + latencies + ", errors " + errorCodeFrequency;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validator that records the latency of each validation of the validator it decorates, and
+ * asserts that these latencies stay within a budget.
+ *
+ * <pre>
+ * TimedValidator&lt;User&gt; timed = TimedValidator.measure(new UserValidator(), user, 1000);
+ * timed.assertPercentileUnder(99, 200, TimeUnit.MICROSECONDS);
+ * </pre>
+ *
+ * <p>Latencies are recorded in a {@link LatencyHistogram}; recording a latency does not allocate.
+ * A timed validator can be used by several threads.</p>
+ *
+ * @see ValidationUtils#timeValidatorsInPreprocessingChain(com.lotaris.jee.validation.preprocessing.IPreprocessor)
+ */
+public class TimedValidator<T> implements IValidator<T> {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static <T> TimedValidator<T> timed(IValidator<T> validator) {
+		return new TimedValidator<>(validator);
+	}
+
+	/**
+	 * Validates an object the specified number of times, each time in a new recorded validation
+	 * context, and returns the timed validator holding the latencies.
+	 *
+	 * @param validator the validator to measure
+	 * @param object the object to validate
+	 * @param runs the number of validations
+	 * @return the timed validator
+	 */
+	public static <T> TimedValidator<T> measure(IValidator<T> validator, T object, int runs) {
+		final TimedValidator<T> timed = new TimedValidator<>(validator);
+		final ValidationContextRecorder recorder = new ValidationContextRecorder();
+		for (int i = 0; i < runs; i++) {
+			recorder.clearRecords();
+			timed.collectErrors(object, recorder.getContext());
+		}
+		return timed;
+	}
+	//</editor-fold>
+
+	private final IValidator<T> delegate;
+	private final LatencyHistogram latencies;
+
+	public TimedValidator(IValidator<T> delegate) {
+		this.delegate = delegate;
+		this.latencies = new LatencyHistogram();
+	}
+
+	@Override
+	public void collectErrors(T object, IValidationContext context) {
+		final long start = System.nanoTime();
+		try {
+			delegate.collectErrors(object, context);
+		} finally {
+			final long latency = System.nanoTime() - start;
+			synchronized (latencies) {
+				latencies.record(latency);
+			}
+		}
+	}
+
+	public IValidator<T> getDelegate() {
+		return delegate;
+	}
+
+	public String getName() {
+		final Class<?> type = delegate.getClass();
+		return type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+	}
+
+	/**
+	 * Returns a copy of the latencies recorded so far.
+	 */
+	public LatencyHistogram getLatencies() {
+		synchronized (latencies) {
+			return new LatencyHistogram().add(latencies);
+		}
+	}
+
+	public long getRunCount() {
+		synchronized (latencies) {
+			return latencies.getCount();
+		}
+	}
+
+	public void reset() {
+		synchronized (latencies) {
+			latencies.reset();
+		}
+	}
+
+	/**
+	 * Asserts that the specified percentile of the recorded latencies is under a budget.
+	 *
+	 * @param percentile the percentile, between 0 and 100 (e.g. 99)
+	 * @param budget the maximum latency
+	 * @param unit the unit of the budget
+	 * @throws AssertionError if the validator has not run or if the percentile exceeds the budget
+	 */
+	public void assertPercentileUnder(double percentile, long budget, TimeUnit unit) {
+		assertPercentileUnder(percentile, budget, unit, 1);
+	}
+
+	/**
+	 * Asserts that the validator has run at least the specified number of times and that the
+	 * specified percentile of the recorded latencies is under a budget.
+	 *
+	 * @param percentile the percentile, between 0 and 100 (e.g. 99)
+	 * @param budget the maximum latency
+	 * @param unit the unit of the budget
+	 * @param minimumRuns the minimum number of validations for the percentile to be meaningful
+	 * @throws AssertionError if the validator has not run enough or if the percentile exceeds the
+	 * budget
+	 */
+	public void assertPercentileUnder(double percentile, long budget, TimeUnit unit, long minimumRuns) {
+
+		final LatencyHistogram snapshot = getLatencies();
+		if (snapshot.getCount() < minimumRuns) {
+			throw new AssertionError("Validator " + getName() + " ran " + snapshot.getCount() + " times, expected at least " + minimumRuns + " runs to check its p" + format(percentile) + " latency");
+		}
+
+		final long actual = snapshot.getPercentileNanos(percentile);
+		if (actual > unit.toNanos(budget)) {
+			throw new AssertionError("Validator " + getName() + " p" + format(percentile) + " latency is " + formatNanos(actual) + " over " + snapshot.getCount()
+					+ " runs, budget is " + formatNanos(unit.toNanos(budget)) + " (" + snapshot + ")");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "timed " + getName() + ": " + getLatencies();
+	}
+
+	private static String format(double percentile) {
+		return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+	}
+
+	private static String formatNanos(long nanos) {
+		return nanos >= 1000000 ? String.format("%.1f ms", nanos / 1e6) : String.format("%.1f us", nanos / 1e3);
+	}
+}
@@ -0,0 +1,671 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IErrorLocationType;
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.SingleObjectOrList;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the errors added to, and the validators used through, a validation context, to be used
+ * instead of a Mockito mock of {@link IValidationContext}.
+ *
+ * <p>Errors are stored in primitive columns: the code, an interned location type and message, and
+ * the node of the location in a trie of location paths. Counters per code and per location are kept
+ * up to date as errors are added, so that questions like "how many errors with code X" or "is there
+ * an error at location Y" are answered without scanning the recorded errors, however many there
+ * are.</p>
+ *
+ * <p>The recorded context is a {@link Proxy} of {@link IValidationContext}, which does not require
+ * any bytecode generation. It supports the <tt>addError*</tt>, <tt>validateObject*</tt>,
+ * <tt>hasErrors</tt> and state methods; other methods return a neutral value. By default, the
+ * validators passed to <tt>validateObject</tt>, <tt>validateObjectOrList</tt> and
+ * <tt>validateObjects</tt> are only recorded; use {@link #runningNestedValidators()} to also run
+ * them at the nested location.</p>
+ *
+ * <p>A recorder is meant to be used by one thread at a time. {@link #reset()} clears it in constant
+ * time so that it can be reused. Interned strings and locations are kept across resets, up to
+ * {@value #MAX_INTERNED} of each; beyond that, they are dropped at the next reset, so that a
+ * recorder reused for many distinct messages (e.g. "Item 123 is invalid") does not grow
+ * forever.</p>
+ *
+ * <pre>
+ * ValidationContextRecorder recorder = new ValidationContextRecorder();
+ * validator.collectErrors(user, recorder.getContext());
+ * assertEquals(1, recorder.getErrorCount(1001));
+ * </pre>
+ */
+public class ValidationContextRecorder {
+
+	static final int NO_CODE = Integer.MIN_VALUE;
+	private static final int NONE = -1;
+	private static final int ROOT = 0;
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Number of interned strings, or of location nodes, beyond which they are dropped when the
+	 * records are cleared.
+	 */
+	static final int MAX_INTERNED = 4096;
+
+	private final IValidationContext context;
+	private boolean runNestedValidators;
+
+	// recorded errors, one column per property
+	private int errorCount;
+	private int[] codes;
+	private int[] locationNodes;
+	private int[] locationTypeIds;
+	private int[] messageIds;
+
+	// counters, reset by incrementing the epoch
+	private int epoch;
+	private final IntCounter codeCounts;
+	private int[] nodeCounts;
+	private int[] nodeEpochs;
+	private int validateObjectCount;
+	private int validateObjectOrListCount;
+	private int validateObjectsCount;
+
+	// interned strings and location trie (kept across resets, up to MAX_INTERNED)
+	private List<String> strings;
+	private Map<String, Integer> stringIds;
+	private int nodeCount;
+	private int[] nodeParents;
+	private String[] nodeSegments;
+	private String[] nodePaths;
+	private Map<Long, Integer> nodeChildren;
+
+	private int currentNode;
+	private final Map<Class<?>, Object> states;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public ValidationContextRecorder() {
+		context = (IValidationContext) Proxy.newProxyInstance(IValidationContext.class.getClassLoader(), new Class<?>[]{IValidationContext.class}, new Handler());
+
+		codes = new int[INITIAL_CAPACITY];
+		locationNodes = new int[INITIAL_CAPACITY];
+		locationTypeIds = new int[INITIAL_CAPACITY];
+		messageIds = new int[INITIAL_CAPACITY];
+
+		codeCounts = new IntCounter();
+		clearInterned();
+
+		states = new HashMap<>();
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns the recorder of the specified validation context.
+	 *
+	 * @param context a validation context
+	 * @return its recorder, or null if the context was not created by a recorder
+	 */
+	public static ValidationContextRecorder of(IValidationContext context) {
+		if (context != null && Proxy.isProxyClass(context.getClass())) {
+			final InvocationHandler handler = Proxy.getInvocationHandler(context);
+			if (handler instanceof Handler) {
+				return ((Handler) handler).getRecorder();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Makes the recorded context run the validators passed to <tt>validateObject</tt>,
+	 * <tt>validateObjectOrList</tt> and <tt>validateObjects</tt>, with the nested location as current
+	 * location (followed by the index of each element of a list).
+	 *
+	 * @return this recorder
+	 */
+	public ValidationContextRecorder runningNestedValidators() {
+		runNestedValidators = true;
+		return this;
+	}
+
+	/**
+	 * Returns the recorded validation context.
+	 *
+	 * @return the validation context to give to the code under test
+	 */
+	public IValidationContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Adds a state object to the recorded context, as <tt>addState</tt> would.
+	 *
+	 * @param state the state object
+	 * @param stateClass the class under which it is registered
+	 * @return this recorder
+	 */
+	public <T> ValidationContextRecorder withState(T state, Class<? extends T> stateClass) {
+		states.put(stateClass, state);
+		return this;
+	}
+
+	/**
+	 * Forgets all recorded errors, validator uses and state objects, in constant time (except for
+	 * the state objects).
+	 */
+	public void reset() {
+		clearRecords();
+		if (!states.isEmpty()) {
+			states.clear();
+		}
+	}
+
+	/**
+	 * Resets this recorder, forgets its interned strings and locations and stops running nested
+	 * validators, as if it had just been created (used to reuse pooled recorders).
+	 */
+	void restoreDefaults() {
+		reset();
+		clearInterned();
+		runNestedValidators = false;
+	}
+
+	/**
+	 * Forgets all recorded errors and validator uses, but keeps the state objects. The interned
+	 * strings and locations are dropped if there are more than {@link #MAX_INTERNED} of them.
+	 */
+	void clearRecords() {
+		errorCount = 0;
+		epoch++;
+		validateObjectCount = 0;
+		validateObjectOrListCount = 0;
+		validateObjectsCount = 0;
+		currentNode = ROOT;
+
+		if (strings.size() > MAX_INTERNED || nodeCount > MAX_INTERNED) {
+			clearInterned();
+		}
+	}
+
+	/**
+	 * Replaces the interned strings and the location trie with empty ones. No recorded error may
+	 * refer to them anymore.
+	 */
+	private void clearInterned() {
+		strings = new ArrayList<>();
+		stringIds = new HashMap<>();
+		nodeChildren = new HashMap<>();
+		nodeParents = new int[INITIAL_CAPACITY];
+		nodeSegments = new String[INITIAL_CAPACITY];
+		nodePaths = new String[INITIAL_CAPACITY];
+		nodeCounts = new int[INITIAL_CAPACITY];
+		nodeEpochs = new int[INITIAL_CAPACITY];
+		nodeParents[ROOT] = NONE;
+		nodeEpochs[ROOT] = epoch - 1;
+		nodeCount = 1;
+	}
+
+	/**
+	 * Returns the number of interned strings and location nodes, which are kept across resets.
+	 */
+	int getInternedCount() {
+		return strings.size() + nodeCount - 1;
+	}
+
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * Returns the number of recorded errors with the specified code.
+	 *
+	 * @param code the error code
+	 * @return the number of errors
+	 */
+	public int getErrorCount(int code) {
+		return codeCounts.get(code, epoch);
+	}
+
+	/**
+	 * Returns the number of recorded errors at the specified location.
+	 *
+	 * @param location the location (e.g. "/items/0/name")
+	 * @return the number of errors
+	 */
+	public int getErrorCountAt(String location) {
+		final int node = findNode(location);
+		return node != NONE && nodeEpochs[node] == epoch ? nodeCounts[node] : 0;
+	}
+
+	/**
+	 * Returns the distinct codes of the recorded errors.
+	 *
+	 * @return the error codes, in no particular order
+	 */
+	public int[] getErrorCodes() {
+		return codeCounts.keys(epoch);
+	}
+
+	/**
+	 * Returns the code of the recorded error at the specified index.
+	 *
+	 * @param index the index of the error (in the order errors were added)
+	 * @return the code, or null if the error had no code
+	 */
+	public Integer getErrorCode(int index) {
+		checkIndex(index);
+		return codes[index] != NO_CODE ? codes[index] : null;
+	}
+
+	/**
+	 * Returns the code of the recorded error at the specified index without boxing it.
+	 *
+	 * @return the code, or {@link #NO_CODE} if the error had no code
+	 */
+	int getRawErrorCode(int index) {
+		checkIndex(index);
+		return codes[index];
+	}
+
+	public String getErrorLocation(int index) {
+		checkIndex(index);
+		return locationNodes[index] != NONE ? getPath(locationNodes[index]) : null;
+	}
+
+	public String getErrorLocationType(int index) {
+		checkIndex(index);
+		return locationTypeIds[index] != NONE ? strings.get(locationTypeIds[index]) : null;
+	}
+
+	public String getErrorMessage(int index) {
+		checkIndex(index);
+		return messageIds[index] != NONE ? strings.get(messageIds[index]) : null;
+	}
+
+	public int getValidateObjectCount() {
+		return validateObjectCount;
+	}
+
+	public int getValidateObjectOrListCount() {
+		return validateObjectOrListCount;
+	}
+
+	public int getValidateObjectsCount() {
+		return validateObjectsCount;
+	}
+
+	/**
+	 * Returns the number of times a validator was used through any of the <tt>validateObject*</tt>
+	 * methods.
+	 */
+	public int getValidatorUseCount() {
+		return validateObjectCount + validateObjectOrListCount + validateObjectsCount;
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder builder = new StringBuilder();
+		builder.append("recorded validation context with ").append(errorCount).append(" errors");
+
+		for (int i = 0; i < errorCount; i++) {
+			builder.append(i == 0 ? " (" : ", ");
+			builder.append("<code=").append(getErrorCode(i));
+			if (locationTypeIds[i] != NONE) {
+				builder.append(", locationType=").append(getErrorLocationType(i));
+			}
+			if (locationNodes[i] != NONE) {
+				builder.append(", location=").append(getErrorLocation(i));
+			}
+			builder.append(", message=").append(getErrorMessage(i)).append(">");
+		}
+
+		if (errorCount > 0) {
+			builder.append(")");
+		}
+
+		return builder.append(" and ").append(getValidatorUseCount()).append(" validator uses").toString();
+	}
+
+	void recordError(String location, boolean relative, IErrorLocationType locationType, IErrorCode code, String message, Object[] messageArgs) {
+
+		if (errorCount == codes.length) {
+			final int capacity = codes.length * 2;
+			codes = Arrays.copyOf(codes, capacity);
+			locationNodes = Arrays.copyOf(locationNodes, capacity);
+			locationTypeIds = Arrays.copyOf(locationTypeIds, capacity);
+			messageIds = Arrays.copyOf(messageIds, capacity);
+		}
+
+		final int node = relative ? currentNode : (location != null ? resolve(currentNode, location) : currentNode);
+		final String formattedMessage = message != null && messageArgs != null && messageArgs.length > 0 ? String.format(message, messageArgs) : message;
+
+		codes[errorCount] = code != null ? code.getCode() : NO_CODE;
+		locationNodes[errorCount] = node != ROOT ? node : NONE;
+		locationTypeIds[errorCount] = locationType != null ? intern(locationType.getLocationType()) : NONE;
+		messageIds[errorCount] = formattedMessage != null ? intern(formattedMessage) : NONE;
+		errorCount++;
+
+		if (code != null) {
+			codeCounts.increment(code.getCode(), epoch);
+		}
+
+		if (nodeEpochs[node] != epoch) {
+			nodeEpochs[node] = epoch;
+			nodeCounts[node] = 0;
+		}
+		nodeCounts[node]++;
+	}
+
+	void recordValidation(Object object, String location, IValidator<?> validator, boolean list) {
+
+		if (list) {
+			validateObjectsCount++;
+		} else {
+			validateObjectCount++;
+		}
+
+		runNestedValidator(object, location, validator);
+	}
+
+	/**
+	 * Records a use of <tt>validateObjectOrList</tt>, whose argument is a single object or a list.
+	 */
+	void recordObjectOrListValidation(Object objectOrList, String location, IValidator<?> validator) {
+
+		validateObjectOrListCount++;
+
+		if (objectOrList instanceof SingleObjectOrList) {
+			final SingleObjectOrList<?> wrapper = (SingleObjectOrList<?>) objectOrList;
+			runNestedValidator(wrapper.isList() ? wrapper.getList() : wrapper.getSingleObject(), location, validator);
+		} else {
+			runNestedValidator(objectOrList, location, validator);
+		}
+	}
+
+	/**
+	 * Runs a nested validator on an object, or on each element of a collection, if nested
+	 * validators are run.
+	 */
+	@SuppressWarnings("unchecked")
+	private void runNestedValidator(Object object, String location, IValidator<?> validator) {
+
+		if (!runNestedValidators || validator == null || object == null) {
+			return;
+		}
+
+		final IValidator<Object> nested = (IValidator<Object>) validator;
+		final int parent = currentNode;
+		final int node = location != null ? resolve(parent, location) : parent;
+		try {
+			if (object instanceof Collection) {
+				int i = 0;
+				for (Object element : (Collection<?>) object) {
+					currentNode = resolve(node, Integer.toString(i++));
+					nested.collectErrors(element, context);
+				}
+			} else {
+				currentNode = node;
+				nested.collectErrors(object, context);
+			}
+		} finally {
+			currentNode = parent;
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= errorCount) {
+			throw new IndexOutOfBoundsException("Error " + index + " does not exist (" + errorCount + " errors recorded)");
+		}
+	}
+
+	private int intern(String string) {
+		final Integer id = stringIds.get(string);
+		if (id != null) {
+			return id;
+		}
+
+		final int newId = strings.size();
+		strings.add(string);
+		stringIds.put(string, newId);
+		return newId;
+	}
+
+	/**
+	 * Returns the trie node of the specified location relative to the specified node, creating the
+	 * missing nodes. Segments are separated by slashes; the empty first segment of an absolute
+	 * location is kept for top-level locations (so that "/name" and "name" are different).
+	 */
+	private int resolve(int base, String location) {
+		int node = base;
+		int start = 0;
+		if (base != ROOT && location.startsWith("/")) {
+			start = 1;
+		}
+
+		while (true) {
+			final int end = location.indexOf('/', start);
+			node = child(node, end >= 0 ? location.substring(start, end) : location.substring(start));
+			if (end < 0) {
+				return node;
+			}
+			start = end + 1;
+		}
+	}
+
+	private int findNode(String location) {
+		if (location == null) {
+			return ROOT;
+		}
+
+		int node = ROOT;
+		int start = 0;
+		while (true) {
+			final int end = location.indexOf('/', start);
+			final Integer segmentId = stringIds.get(end >= 0 ? location.substring(start, end) : location.substring(start));
+			final Integer child = segmentId != null ? nodeChildren.get(childKey(node, segmentId)) : null;
+			if (child == null) {
+				return NONE;
+			} else if (end < 0) {
+				return child;
+			}
+			node = child;
+			start = end + 1;
+		}
+	}
+
+	private int child(int parent, String segment) {
+
+		final Long key = childKey(parent, intern(segment));
+		final Integer existing = nodeChildren.get(key);
+		if (existing != null) {
+			return existing;
+		}
+
+		if (nodeCount == nodeParents.length) {
+			final int capacity = nodeParents.length * 2;
+			nodeParents = Arrays.copyOf(nodeParents, capacity);
+			nodeSegments = Arrays.copyOf(nodeSegments, capacity);
+			nodePaths = Arrays.copyOf(nodePaths, capacity);
+			nodeCounts = Arrays.copyOf(nodeCounts, capacity);
+			nodeEpochs = Arrays.copyOf(nodeEpochs, capacity);
+		}
+
+		final int node = nodeCount++;
+		nodeParents[node] = parent;
+		nodeSegments[node] = segment;
+		nodeEpochs[node] = epoch - 1;
+		nodeChildren.put(key, node);
+		return node;
+	}
+
+	private static Long childKey(int parent, int segmentId) {
+		return ((long) parent << 32) | (segmentId & 0xFFFFFFFFL);
+	}
+
+	private String getPath(int node) {
+		if (nodePaths[node] == null) {
+			final int parent = nodeParents[node];
+			nodePaths[node] = parent == ROOT ? nodeSegments[node] : getPath(parent) + "/" + nodeSegments[node];
+		}
+		return nodePaths[node];
+	}
+
+	/**
+	 * Dispatches the calls to the recorded validation context.
+	 */
+	private class Handler implements InvocationHandler {
+
+		public ValidationContextRecorder getRecorder() {
+			return ValidationContextRecorder.this;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			final String name = method.getName();
+			final int argCount = args != null ? args.length : 0;
+
+			switch (name) {
+				case "addError":
+					if (argCount >= 4) {
+						recordError((String) args[0], false, (IErrorLocationType) args[1], (IErrorCode) args[2], (String) args[3], argCount > 4 ? (Object[]) args[4] : null);
+					}
+					break;
+				case "addErrorAtCurrentLocation":
+					if (argCount >= 2) {
+						recordError(null, true, null, (IErrorCode) args[0], (String) args[1], argCount > 2 ? (Object[]) args[2] : null);
+					}
+					break;
+				case "validateObject":
+					recordValidation(args[0], (String) args[1], (IValidator<?>) args[2], false);
+					break;
+				case "validateObjects":
+					recordValidation(args[0], (String) args[1], (IValidator<?>) args[2], true);
+					break;
+				case "validateObjectOrList":
+					recordObjectOrListValidation(args[0], (String) args[1], (IValidator<?>) args[2]);
+					break;
+				case "hasErrors":
+					if (argCount == 0) {
+						return errorCount > 0;
+					} else if (args[0] instanceof IErrorCode) {
+						return getErrorCount(((IErrorCode) args[0]).getCode()) > 0;
+					} else if (args[0] instanceof String) {
+						return getErrorCountAt((String) args[0]) > 0;
+					}
+					return errorCount > 0;
+				case "getState":
+					return states.get((Class<?>) args[0]);
+				case "addState":
+					states.put((Class<?>) args[1], args[0]);
+					break;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return ValidationContextRecorder.this.toString();
+				default:
+					return defaultValue(method.getReturnType(), proxy);
+			}
+
+			return defaultValue(method.getReturnType(), proxy);
+		}
+
+		private Object defaultValue(Class<?> type, Object proxy) {
+			if (type.isInstance(proxy)) {
+				return proxy;
+			} else if (type.isPrimitive() && type != void.class) {
+				// the zero value of any primitive type (false, '\0', 0, 0L, 0f...)
+				return Array.get(Array.newInstance(type, 1), 0);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Open-addressing map from primitive int keys to counts, cleared by changing the epoch.
+	 */
+	private static final class IntCounter {
+
+		private int[] keys = new int[INITIAL_CAPACITY];
+		private int[] counts = new int[INITIAL_CAPACITY];
+		private int[] epochs = new int[INITIAL_CAPACITY];
+		private boolean[] used = new boolean[INITIAL_CAPACITY];
+		private int size;
+
+		public int get(int key, int epoch) {
+			final int slot = find(key);
+			return used[slot] && epochs[slot] == epoch ? counts[slot] : 0;
+		}
+
+		public void increment(int key, int epoch) {
+			int slot = find(key);
+			if (!used[slot]) {
+				if ((size + 1) * 2 > keys.length) {
+					grow();
+					slot = find(key);
+				}
+				used[slot] = true;
+				keys[slot] = key;
+				epochs[slot] = epoch - 1;
+				size++;
+			}
+
+			if (epochs[slot] != epoch) {
+				epochs[slot] = epoch;
+				counts[slot] = 0;
+			}
+			counts[slot]++;
+		}
+
+		public int[] keys(int epoch) {
+			final int[] result = new int[size];
+			int n = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (used[i] && epochs[i] == epoch && counts[i] > 0) {
+					result[n++] = keys[i];
+				}
+			}
+			return Arrays.copyOf(result, n);
+		}
+
+		private int find(int key) {
+			final int mask = keys.length - 1;
+			final int h = key * 0x9E3779B9;
+			int i = (h ^ (h >>> 16)) & mask;
+			while (used[i] && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+
+		private void grow() {
+			final int[] oldKeys = keys;
+			final int[] oldCounts = counts;
+			final int[] oldEpochs = epochs;
+			final boolean[] oldUsed = used;
+
+			keys = new int[oldKeys.length * 2];
+			counts = new int[oldKeys.length * 2];
+			epochs = new int[oldKeys.length * 2];
+			used = new boolean[oldKeys.length * 2];
+
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldUsed[i]) {
+					final int slot = find(oldKeys[i]);
+					used[slot] = true;
+					keys[slot] = oldKeys[i];
+					counts[slot] = oldCounts[i];
+					epochs[slot] = oldEpochs[i];
+				}
+			}
+		}
+	}
+}
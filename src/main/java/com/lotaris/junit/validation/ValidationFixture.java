@@ -0,0 +1,82 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A preprocessing chain and a validation context for one test, leased from a
+ * {@link ValidationFixturePool}. The chain is a {@link FakePreprocessor} and the context is recorded
+ * by a {@link ValidationContextRecorder}, so they work with all the stubbing and verification
+ * methods of {@link ValidationUtils}.
+ *
+ * <p>A fixture is used by one test at a time. When it is returned to its pool, the chain forgets its
+ * invocations and behaviour, and the recorder forgets its errors, validator uses, states and
+ * options; both objects are reused as they are.</p>
+ */
+public final class ValidationFixture {
+
+	private final ValidationFixturePool pool;
+	private final FakePreprocessor preprocessingChain;
+	private final ValidationContextRecorder recorder;
+	private final AtomicBoolean leased;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	ValidationFixture(ValidationFixturePool pool) {
+		this.pool = pool;
+		this.preprocessingChain = new FakePreprocessor();
+		this.recorder = new ValidationContextRecorder();
+		this.leased = new AtomicBoolean();
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns the preprocessing chain to inject in the code under test (instead of
+	 * <tt>mock(IPreprocessor.class)</tt>).
+	 */
+	public FakePreprocessor getPreprocessingChain() {
+		return preprocessingChain;
+	}
+
+	/**
+	 * Returns the validation context to give to the code under test (instead of
+	 * <tt>mock(IValidationContext.class)</tt>).
+	 */
+	public IValidationContext getContext() {
+		return recorder.getContext();
+	}
+
+	public ValidationContextRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Returns a preprocessing configuration with the validation context of this fixture.
+	 */
+	public FakePreprocessingConfig newConfig() {
+		return new FakePreprocessingConfig(recorder.getContext());
+	}
+
+	/**
+	 * Returns this fixture to its pool, resetting it: the recorder also forgets the messages and
+	 * locations it interned, so that pooled fixtures do not grow.
+	 *
+	 * @throws IllegalStateException if the fixture has already been returned
+	 */
+	public void release() {
+		if (!leased.compareAndSet(true, false)) {
+			throw new IllegalStateException("Validation fixture has already been released");
+		}
+		preprocessingChain.reset();
+		recorder.restoreDefaults();
+		pool.offer(this);
+	}
+
+	/**
+	 * Marks this fixture as used by a test.
+	 */
+	void lease() {
+		if (!leased.compareAndSet(false, true)) {
+			throw new IllegalStateException("Validation fixture is already leased");
+		}
+	}
+}
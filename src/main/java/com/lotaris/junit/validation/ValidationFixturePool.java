@@ -0,0 +1,69 @@
+package com.lotaris.junit.validation;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of {@link ValidationFixture}s, so that the preprocessing chains and validation contexts of a
+ * test suite are built once per JVM and reused by all tests instead of being mocked and stubbed
+ * again for each test.
+ *
+ * <p>Fixtures are kept in a lock-free queue: tests running in parallel each lease their own
+ * fixture, and a new fixture is only built when all the existing ones are in use. Use
+ * {@link ValidationFixtureRule} to lease and release fixtures around each test.</p>
+ */
+public final class ValidationFixturePool {
+
+	private static final ValidationFixturePool SHARED = new ValidationFixturePool();
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	/**
+	 * Returns the pool shared by all the tests of the JVM.
+	 */
+	public static ValidationFixturePool shared() {
+		return SHARED;
+	}
+	//</editor-fold>
+
+	private final ConcurrentLinkedQueue<ValidationFixture> idle;
+	private final AtomicInteger created;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public ValidationFixturePool() {
+		idle = new ConcurrentLinkedQueue<>();
+		created = new AtomicInteger();
+	}
+	//</editor-fold>
+
+	/**
+	 * Leases a fixture, building one if none is idle. Return it with
+	 * {@link ValidationFixture#release()} when the test is done.
+	 *
+	 * @return a reset fixture, used by no other test
+	 */
+	public ValidationFixture acquire() {
+		ValidationFixture fixture = idle.poll();
+		if (fixture == null) {
+			fixture = new ValidationFixture(this);
+			created.incrementAndGet();
+		}
+		fixture.lease();
+		return fixture;
+	}
+
+	/**
+	 * Returns the number of fixtures built by this pool, which is the largest number of tests that
+	 * used one at the same time.
+	 */
+	public int getCreatedCount() {
+		return created.get();
+	}
+
+	public int getIdleCount() {
+		return idle.size();
+	}
+
+	void offer(ValidationFixture fixture) {
+		idle.offer(fixture);
+	}
+}
@@ -0,0 +1,82 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Leases a {@link ValidationFixture} from a pool for each test and returns it afterwards, reset.
+ *
+ * <pre>
+ * &#64;Rule
+ * public ValidationFixtureRule fixture = new ValidationFixtureRule();
+ *
+ * &#64;Test
+ * public void createUserFailsWithoutName() {
+ *	resource.preprocessingChain = fixture.getPreprocessingChain();
+ *	ValidationUtils.failPreprocessingChainValidations(fixture.getPreprocessingChain());
+ *	...
+ * }
+ * </pre>
+ *
+ * <p>The rule uses the pool shared by the JVM by default, so tests running in parallel (in the same
+ * or in different classes) each get their own fixture, and fixtures are built only once.</p>
+ */
+public class ValidationFixtureRule implements TestRule {
+
+	private final ValidationFixturePool pool;
+	private volatile ValidationFixture fixture;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public ValidationFixtureRule() {
+		this(ValidationFixturePool.shared());
+	}
+
+	public ValidationFixtureRule(ValidationFixturePool pool) {
+		this.pool = pool;
+	}
+	//</editor-fold>
+
+	@Override
+	public Statement apply(final Statement base, Description description) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				fixture = pool.acquire();
+				try {
+					base.evaluate();
+				} finally {
+					final ValidationFixture used = fixture;
+					fixture = null;
+					used.release();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns the fixture of the current test.
+	 *
+	 * @throws IllegalStateException if no test is running
+	 */
+	public ValidationFixture getFixture() {
+		final ValidationFixture current = fixture;
+		if (current == null) {
+			throw new IllegalStateException("No test is running: use the rule with @Rule");
+		}
+		return current;
+	}
+
+	public FakePreprocessor getPreprocessingChain() {
+		return getFixture().getPreprocessingChain();
+	}
+
+	public IValidationContext getContext() {
+		return getFixture().getContext();
+	}
+
+	public ValidationContextRecorder getRecorder() {
+		return getFixture().getRecorder();
+	}
+}
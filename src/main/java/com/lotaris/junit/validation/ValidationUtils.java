@@ -32,18 +32,7 @@ public class ValidationUtils {
 	 * @param stateAction the action to perform
 	 */
 	public static <T> void useValidationState(IPreprocessor preprocessingChain, final Class<? extends T> stateClass, final IValidationStateAction<T> stateAction) {
-		when(preprocessingChain.process(anyObject(), any(IPreprocessingConfig.class))).thenAnswer(new Answer<Boolean>() {
-			@Override
-			public Boolean answer(InvocationOnMock invocation) throws Throwable {
-
-				IPreprocessingConfig config = (IPreprocessingConfig) invocation.getArguments()[1];
-				IValidationContext context = config.getValidationContext();
-
-				stateAction.performAction(context.getState(stateClass));
-
-				return true;
-			}
-		});
+		stubPreprocessingChain(preprocessingChain, "useValidationState", PreprocessingBehaviours.useValidationState(stateClass, stateAction));
 	}
 
 	/**
@@ -72,16 +61,21 @@ public class ValidationUtils {
 	@Deprecated
 	@SuppressWarnings("unchecked")
 	public static void runValidatorsInPreprocessingChain(IPreprocessor preprocessingChain) {
-		when(preprocessingChain.process(anyObject(), any(IPreprocessingConfig.class))).thenAnswer(new Answer<Boolean>() {
-			@Override
-			public Boolean answer(InvocationOnMock invocation) throws Throwable {
-				IPreprocessingConfig config = (IPreprocessingConfig) invocation.getArguments()[1];
-				for (IValidator validator : config.getValidators()) {
-					validator.collectErrors(invocation.getArguments()[0], config.getValidationContext());
-				}
-				return true;
-			}
-		});
+		stubPreprocessingChain(preprocessingChain, "runValidators", PreprocessingBehaviours.runValidators());
+	}
+
+	/**
+	 * Runs all the validators of the preprocessing chain, recording the latency of each validator.
+	 * Validate objects through the chain as many times as needed, then assert on the returned
+	 * timings.
+	 *
+	 * @param preprocessingChain whose validators will be run and timed
+	 * @return the latencies of the validators, filled as the chain processes objects
+	 */
+	public static ValidatorTimings timeValidatorsInPreprocessingChain(IPreprocessor preprocessingChain) {
+		final ValidatorTimings timings = new ValidatorTimings();
+		stubPreprocessingChain(preprocessingChain, "timeValidators", PreprocessingBehaviours.runTimedValidators(timings));
+		return timings;
 	}
 
 	/**
@@ -94,7 +88,7 @@ public class ValidationUtils {
 	 * expected)
 	 */
 	public static void assertValidationConfigurationInPreprocessingChain(IPreprocessor preprocessingChain, final boolean expectedPatchValidation, final Class[] expectedValidationGroups, final IValidator... expectedValidators) {
-		verify(preprocessingChain, times(1)).process(anyObject(), argThat(new BaseMatcher<IPreprocessingConfig>() {
+		verifyPreprocessingChainProcessedOnce(preprocessingChain, new BaseMatcher<IPreprocessingConfig>() {
 			private boolean patchValidationMatches;
 			private boolean validationGroupsMatch;
 			private boolean validatorsMatch;
@@ -157,7 +151,7 @@ public class ValidationUtils {
 					description.appendText(" and no validators");
 				}
 			}
-		}));
+		});
 	}
 
 	/**
@@ -175,7 +169,7 @@ public class ValidationUtils {
 	@Deprecated
 	@SuppressWarnings("unchecked")
 	public static void assertValidatorsInPreprocessingChain(IPreprocessor preprocessingChain, final Class<? extends IValidator>... validators) {
-		verify(preprocessingChain, times(1)).process(anyObject(), argThat(new BaseMatcher<IPreprocessingConfig>() {
+		verifyPreprocessingChainProcessedOnce(preprocessingChain, new BaseMatcher<IPreprocessingConfig>() {
 			@Override
 			public boolean matches(Object item) {
 				final IPreprocessingConfig config = (IPreprocessingConfig) item;
@@ -197,7 +191,7 @@ public class ValidationUtils {
 					description.appendText(" " + className.getName());
 				}
 			}
-		}));
+		});
 	}
 
 	/**
@@ -206,39 +200,81 @@ public class ValidationUtils {
 	 * @param preprocessingChain the preprocessing chail to make fail.
 	 */
 	public static void failPreprocessingChainValidations(IPreprocessor preprocessingChain) {
-		when(preprocessingChain.process(anyObject(), any(IPreprocessingConfig.class))).thenAnswer(new Answer() {
+		stubPreprocessingChain(preprocessingChain, "failValidations", PreprocessingBehaviours.addError("bug", errorCode(123), "a bug message"));
+	}
+
+	/**
+	 * Gives a behaviour to a preprocessing chain, either by configuring it if it is a
+	 * {@link FakePreprocessor} or by stubbing it if it is a Mockito mock.
+	 *
+	 * @param preprocessingChain the preprocessing chain
+	 * @param behaviourName the name of the behaviour, for the <tt>PreprocessingStubbed</tt> event
+	 * @param behaviour what the chain should do when processing an object
+	 */
+	private static void stubPreprocessingChain(IPreprocessor preprocessingChain, String behaviourName, final IPreprocessor behaviour) {
+		FlightRecorderEvents.preprocessingStubbed(behaviourName, preprocessingChain);
+
+		if (preprocessingChain instanceof FakePreprocessor) {
+			((FakePreprocessor) preprocessingChain).willDo(behaviour);
+			return;
+		}
+
+		when(preprocessingChain.process(anyObject(), any(IPreprocessingConfig.class))).thenAnswer(new Answer<Boolean>() {
 			@Override
-			public Object answer(InvocationOnMock invocation) throws Throwable {
-				Object[] args = invocation.getArguments();
-				IPreprocessingConfig config = (IPreprocessingConfig) args[1];
-				IValidationContext context = config.getValidationContext();
-				context.addError("bug", null, errorCode(123), "a bug message");
-				return true;
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				return behaviour.process(invocation.getArguments()[0], (IPreprocessingConfig) invocation.getArguments()[1]);
 			}
 		});
 	}
 
+	/**
+	 * Verifies that a preprocessing chain (a {@link FakePreprocessor} or a Mockito mock) has been
+	 * called once with a matching configuration.
+	 *
+	 * @param preprocessingChain the preprocessing chain
+	 * @param configMatcher the matcher for the preprocessing configuration
+	 */
+	private static void verifyPreprocessingChainProcessedOnce(IPreprocessor preprocessingChain, Matcher<IPreprocessingConfig> configMatcher) {
+		if (preprocessingChain instanceof FakePreprocessor) {
+			((FakePreprocessor) preprocessingChain).verifyProcessedOnce(configMatcher);
+		} else {
+			verify(preprocessingChain, times(1)).process(anyObject(), argThat(configMatcher));
+		}
+	}
+
+	/**
+	 * Returns the canonical error location type with the specified name.
+	 *
+	 * @param type the location type
+	 * @return the canonical location type (always the same instance for the same name)
+	 * @see ErrorCodeRegistry#errorLocationType(java.lang.String)
+	 */
 	public static IErrorLocationType errorLocationType(final String type) {
-		return new IErrorLocationType() {
-			@Override
-			public String getLocationType() {
-				return type;
-			}
-		};
+		return ErrorCodeRegistry.errorLocationType(type);
 	}
 
+	/**
+	 * Returns the canonical error code with the specified code and the registry's default HTTP status
+	 * code (422 unless configured otherwise).
+	 *
+	 * @param code the numeric code
+	 * @return the canonical error code (always the same instance for the same code and status)
+	 * @see ErrorCodeRegistry#errorCode(int)
+	 */
 	public static IErrorCode errorCode(final int code) {
-		return new IErrorCode() {
-			@Override
-			public int getCode() {
-				return code;
-			}
+		return ErrorCodeRegistry.errorCode(code);
+	}
 
-			@Override
-			public int getDefaultHttpStatusCode() {
-				return 422;
-			}
-		};
+	/**
+	 * Returns the canonical error code with the specified code and default HTTP status code.
+	 *
+	 * @param code the numeric code
+	 * @param httpStatusCode the default HTTP status code
+	 * @return the canonical error code (always the same instance for the same code and status)
+	 * @see ErrorCodeRegistry#errorCode(int, int)
+	 */
+	public static IErrorCode errorCode(final int code, final int httpStatusCode) {
+		return ErrorCodeRegistry.errorCode(code, httpStatusCode);
 	}
 
 	public static Matcher<IErrorCode> isErrorCode(final int code) {
@@ -273,10 +309,31 @@ public class ValidationUtils {
 		return isErrorLocationType("json");
 	}
 
+	/**
+	 * Returns a new recorder of validation errors and validator uses, whose context can be used
+	 * instead of a mock of {@link IValidationContext}.
+	 *
+	 * @return a new recorder
+	 * @see ValidationContextRecorder#getContext()
+	 */
+	public static ValidationContextRecorder recordValidationContext() {
+		return new ValidationContextRecorder();
+	}
+
 	/**
 	 * Checks that no error message has been added to the context.
+	 *
+	 * @param context the validation context (a Mockito mock or a recorded context)
 	 */
 	public static void verifyNoErrorAdded(IValidationContext context) {
+		final ValidationContextRecorder recorder = ValidationContextRecorder.of(context);
+		if (recorder != null) {
+			if (recorder.getErrorCount() != 0) {
+				throw new AssertionError("Expected no error to be added but was: " + recorder);
+			}
+			return;
+		}
+
 		verify(context, never()).addError(anyString(), any(IErrorLocationType.class), any(IErrorCode.class), anyString());
 		verify(context, never()).addErrorAtCurrentLocation(any(IErrorCode.class), anyString());
 	}
@@ -285,10 +342,18 @@ public class ValidationUtils {
 	 * Checks that no validator was used on any object with any of the <tt>validateObject*</tt>
 	 * methods.
 	 *
-	 * @param context the validation context
+	 * @param context the validation context (a Mockito mock or a recorded context)
 	 */
 	@SuppressWarnings("unchecked")
 	public static void verifyNoValidatorUsed(IValidationContext context) {
+		final ValidationContextRecorder recorder = ValidationContextRecorder.of(context);
+		if (recorder != null) {
+			if (recorder.getValidatorUseCount() != 0) {
+				throw new AssertionError("Expected no validator to be used but was: " + recorder);
+			}
+			return;
+		}
+
 		verify(context, never()).validateObject(anyObject(), anyString(), any(IValidator.class));
 		verify(context, never()).validateObjectOrList(any(SingleObjectOrList.class), anyString(), any(IValidator.class));
 		verify(context, never()).validateObjects(any(List.class), anyString(), any(IValidator.class));
@@ -0,0 +1,589 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a validator on generated inputs and checks invariants on each run: by default that the
+ * validator never throws, and optionally that every error has one of the codes of the API, that
+ * error locations are well-formed, or any custom {@link Invariant}.
+ *
+ * <pre>
+ * ValidatorFuzzer.fuzz(new UserValidator(), userGenerator)
+ *		.checking(ValidatorFuzzer.&lt;User&gt;neverThrows(), ValidatorFuzzer.&lt;User&gt;wellFormedLocations())
+ *		.withRuns(1000000)
+ *		.assertNoViolation();
+ * </pre>
+ *
+ * <p>The edge cases of the generator are checked first, then random inputs of growing size. Each
+ * run has its own random source derived from the seed and the run number, so the inputs do not
+ * depend on the number of threads or on scheduling: a failure is reproduced by running again with
+ * the reported seed (set the <tt>junit-validation.fuzz.seed</tt> system property or call
+ * {@link #withSeed(long)}). When several runs fail, the one with the lowest number is reported.</p>
+ *
+ * <p>A failing input is shrunk with {@link FuzzGenerator#shrink(Object)}: all variants are checked
+ * in parallel and the first one (in the order given by the generator) that violates the same
+ * invariant replaces the input, until no variant does.</p>
+ *
+ * <p>Each thread validates into its own {@link ValidationContextRecorder}, running nested
+ * validators.</p>
+ */
+public final class ValidatorFuzzer<T> {
+
+	/**
+	 * System property giving the seed of the runs (a random seed is used otherwise).
+	 */
+	public static final String SEED_PROPERTY = "junit-validation.fuzz.seed";
+
+	private static final int CHUNK_SIZE = 64;
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static <T> ValidatorFuzzer<T> fuzz(IValidator<T> validator, FuzzGenerator<? extends T> generator) {
+		return new ValidatorFuzzer<>(validator, generator);
+	}
+
+	/**
+	 * Fails when the validator throws an exception.
+	 */
+	public static <T> Invariant<T> neverThrows() {
+		return new Invariant<T>() {
+			@Override
+			public String check(T input, ValidationContextRecorder recorder, Throwable thrown) {
+				return thrown != null ? "validator threw " + thrown : null;
+			}
+
+			@Override
+			public String toString() {
+				return "never throws";
+			}
+		};
+	}
+
+	/**
+	 * Fails when an error has no code or a code that is not one of the constants of the specified
+	 * enum (e.g. the error codes of the API).
+	 */
+	public static <T, E extends Enum<E> & IErrorCode> Invariant<T> everyErrorHasCodeOf(Class<E> codes) {
+		return everyErrorHasCode(codes.getEnumConstants(), "every error has a code of " + codes.getSimpleName());
+	}
+
+	/**
+	 * Fails when an error has no code or a code other than the specified ones.
+	 */
+	public static <T> Invariant<T> everyErrorHasCodeIn(IErrorCode... codes) {
+		return everyErrorHasCode(codes, null);
+	}
+
+	/**
+	 * Fails when an error location is empty or has an empty segment (e.g. <tt>items//name</tt> or
+	 * <tt>/name/</tt>). Errors at the root location (without location) are accepted.
+	 */
+	public static <T> Invariant<T> wellFormedLocations() {
+		return new Invariant<T>() {
+			@Override
+			public String check(T input, ValidationContextRecorder recorder, Throwable thrown) {
+				for (int i = 0; i < recorder.getErrorCount(); i++) {
+					final String location = recorder.getErrorLocation(i);
+					if (location != null && !isWellFormed(location)) {
+						return "error " + describe(recorder, i) + " has a malformed location";
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public String toString() {
+				return "error locations are well-formed";
+			}
+		};
+	}
+	//</editor-fold>
+
+	private static <T> Invariant<T> everyErrorHasCode(IErrorCode[] codes, final String description) {
+		final int[] allowed = new int[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			allowed[i] = codes[i].getCode();
+		}
+		Arrays.sort(allowed);
+
+		return new Invariant<T>() {
+			@Override
+			public String check(T input, ValidationContextRecorder recorder, Throwable thrown) {
+				for (int i = 0; i < recorder.getErrorCount(); i++) {
+					final int code = recorder.getRawErrorCode(i);
+					if (code == ValidationContextRecorder.NO_CODE || Arrays.binarySearch(allowed, code) < 0) {
+						return "error " + describe(recorder, i) + " has an unexpected code";
+					}
+				}
+				return null;
+			}
+
+			@Override
+			public String toString() {
+				return description != null ? description : "every error has a code in " + Arrays.toString(allowed);
+			}
+		};
+	}
+
+	/**
+	 * A property that every run must have.
+	 */
+	public interface Invariant<T> {
+
+		/**
+		 * Checks a run.
+		 *
+		 * @param input the input given to the validator
+		 * @param recorder the errors recorded during the run
+		 * @param thrown the exception thrown by the validator, or null
+		 * @return a description of the violation, or null if the run has the property
+		 */
+		String check(T input, ValidationContextRecorder recorder, Throwable thrown);
+	}
+
+	private final ValidatorRun validatorRun;
+	private final FuzzGenerator<? extends T> generator;
+	private final List<Invariant<? super T>> invariants;
+	private long seed;
+	private long runs;
+	private int maxSize;
+	private int threads;
+	private int maxShrinkSteps;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ValidatorFuzzer(IValidator<T> validator, FuzzGenerator<? extends T> generator) {
+		this.validatorRun = ValidatorRun.of(validator);
+		this.validatorRun.setRunningNestedValidators(true);
+		this.generator = generator;
+		this.invariants = new ArrayList<>();
+		this.seed = Long.getLong(SEED_PROPERTY, new Random().nextLong());
+		this.runs = 1000;
+		this.maxSize = 100;
+		this.threads = Runtime.getRuntime().availableProcessors();
+		this.maxShrinkSteps = 1000;
+	}
+	//</editor-fold>
+
+	/**
+	 * Adds invariants to check. Without invariants, only {@link #neverThrows()} is checked.
+	 */
+	@SafeVarargs
+	public final ValidatorFuzzer<T> checking(Invariant<? super T>... invariants) {
+		for (Invariant<? super T> invariant : invariants) {
+			this.invariants.add(invariant);
+		}
+		return this;
+	}
+
+	public ValidatorFuzzer<T> withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Sets the number of runs, edge cases included.
+	 */
+	public ValidatorFuzzer<T> withRuns(long runs) {
+		this.runs = runs;
+		return this;
+	}
+
+	/**
+	 * Sets the largest size hint given to the generator. Sizes cycle from 0 to this value.
+	 */
+	public ValidatorFuzzer<T> withMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	public ValidatorFuzzer<T> withThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	public ValidatorFuzzer<T> withMaxShrinkSteps(int maxShrinkSteps) {
+		this.maxShrinkSteps = maxShrinkSteps;
+		return this;
+	}
+
+	/**
+	 * Adds a state object to the validation context of every thread, as <tt>addState</tt> would.
+	 */
+	public <S> ValidatorFuzzer<T> withState(S state, Class<? extends S> stateClass) {
+		validatorRun.addState(state, stateClass);
+		return this;
+	}
+
+	/**
+	 * Runs the validator on all inputs, then shrinks the first failing one.
+	 *
+	 * @return the result
+	 */
+	public Result<T> run() {
+
+		final List<? extends T> edgeCases = generator.edgeCases();
+		final List<Invariant<? super T>> checked = invariants.isEmpty() ? Arrays.<Invariant<? super T>>asList(ValidatorFuzzer.<T>neverThrows()) : invariants;
+		final ThreadLocal<Checker> checkers = new ThreadLocal<>();
+		final AtomicLong nextRun = new AtomicLong();
+		final FirstFailure firstFailure = new FirstFailure();
+
+		final ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		try {
+			final Runnable worker = new Runnable() {
+				@Override
+				public void run() {
+					final Checker checker = checker(checkers, checked);
+					while (true) {
+						final long first = nextRun.getAndAdd(CHUNK_SIZE);
+						if (first >= runs || first > firstFailure.run) {
+							return;
+						}
+
+						for (long run = first; run < Math.min(first + CHUNK_SIZE, runs); run++) {
+							final T input = input(edgeCases, run);
+							final Violation violation = checker.check(input);
+							if (violation != null) {
+								firstFailure.offer(run, input, violation);
+								break;
+							}
+						}
+					}
+				}
+			};
+
+			if (executor == null) {
+				worker.run();
+			} else {
+				final List<Future<?>> futures = new ArrayList<>(threads);
+				for (int i = 0; i < threads; i++) {
+					futures.add(executor.submit(worker));
+				}
+				for (Future<?> future : futures) {
+					await(future);
+				}
+			}
+
+			if (firstFailure.violation == null) {
+				return new Result<>(seed, runs, null);
+			}
+
+			// shrink from the violation the worker found, since checking the input again may pass
+			return new Result<>(seed, firstFailure.run + 1, shrink(firstFailure.run, firstFailure.input, firstFailure.violation, checkers, checked, executor));
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Runs the validator on all inputs and fails if an invariant was violated.
+	 *
+	 * @throws AssertionError describing the shrunk failing input and how to reproduce it
+	 */
+	public void assertNoViolation() {
+		final Result<T> result = run();
+		if (result.getFailure() != null) {
+			final AssertionError error = new AssertionError(result.toString());
+			if (result.getFailure().getThrown() != null) {
+				error.initCause(result.getFailure().getThrown());
+			}
+			throw error;
+		}
+	}
+
+	private Failure<T> shrink(long run, T original, Violation violation, final ThreadLocal<Checker> checkers, final List<Invariant<? super T>> checked, ExecutorService executor) {
+
+		T current = original;
+		Violation currentViolation = violation;
+		int steps = 0;
+		while (steps < maxShrinkSteps) {
+
+			final List<? extends T> variants = shrinkVariants(current);
+			if (variants.isEmpty()) {
+				break;
+			}
+
+			// check all variants, in parallel if possible, and keep the first that fails the same way
+			final Violation[] violations = new Violation[variants.size()];
+			if (executor == null) {
+				final Checker checker = checker(checkers, checked);
+				for (int i = 0; i < violations.length; i++) {
+					violations[i] = checker.check(variants.get(i));
+				}
+			} else {
+				final List<Future<Violation>> futures = new ArrayList<>(violations.length);
+				for (final T variant : variants) {
+					futures.add(executor.submit(new Callable<Violation>() {
+						@Override
+						public Violation call() {
+							return checker(checkers, checked).check(variant);
+						}
+					}));
+				}
+				for (int i = 0; i < violations.length; i++) {
+					violations[i] = await(futures.get(i));
+				}
+			}
+
+			int found = -1;
+			for (int i = 0; i < violations.length && found < 0; i++) {
+				if (violations[i] != null && violations[i].invariant == currentViolation.invariant) {
+					found = i;
+				}
+			}
+			if (found < 0) {
+				break;
+			}
+
+			current = variants.get(found);
+			currentViolation = violations[found];
+			steps++;
+		}
+
+		return new Failure<>(run, original, current, steps, String.valueOf(currentViolation.invariant), currentViolation.message, currentViolation.thrown);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<? extends T> shrinkVariants(T input) {
+		// the generator only ever shrinks the inputs it generated
+		return ((FuzzGenerator<T>) generator).shrink(input);
+	}
+
+	private T input(List<? extends T> edgeCases, long run) {
+		if (run < edgeCases.size()) {
+			return edgeCases.get((int) run);
+		}
+		return generator.generate(new Random(mix(seed + run * 0x9E3779B97F4A7C15L)), (int) (run % (maxSize + 1)));
+	}
+
+	private Checker checker(ThreadLocal<Checker> checkers, List<Invariant<? super T>> checked) {
+		Checker checker = checkers.get();
+		if (checker == null) {
+			checker = new Checker(checked);
+			checkers.set(checker);
+		}
+		return checker;
+	}
+
+	/**
+	 * SplitMix64 finalizer, so that the random sources of consecutive runs are unrelated.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static <V> V await(Future<V> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while fuzzing", ie);
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ee.getCause();
+			} else if (ee.getCause() instanceof Error) {
+				throw (Error) ee.getCause();
+			}
+			throw new IllegalStateException(ee.getCause());
+		}
+	}
+
+	private static boolean isWellFormed(String location) {
+		if (location.isEmpty() || location.endsWith("/")) {
+			return false;
+		}
+		return !location.substring(location.startsWith("/") ? 1 : 0).contains("//") && !location.equals("/");
+	}
+
+	private static String describe(ValidationContextRecorder recorder, int index) {
+		return "<code=" + recorder.getErrorCode(index) + ", location=" + recorder.getErrorLocation(index) + ", message=" + recorder.getErrorMessage(index) + ">";
+	}
+
+	/**
+	 * Validates inputs into a recorder of the current thread and checks the invariants.
+	 */
+	private class Checker {
+
+		private final ValidationContextRecorder recorder;
+		private final List<Invariant<? super T>> checked;
+
+		public Checker(List<Invariant<? super T>> checked) {
+			this.checked = checked;
+			this.recorder = validatorRun.newRecorder();
+		}
+
+		/**
+		 * @return the first violated invariant, or null
+		 */
+		public Violation check(T input) {
+
+			Throwable thrown = null;
+			try {
+				validatorRun.validate(input, recorder);
+			} catch (Throwable t) {
+				// errors (assertion, stack overflow, initialization) are violations as well, reported with the seed
+				thrown = t;
+			}
+
+			for (Invariant<? super T> invariant : checked) {
+				final String message = invariant.check(input, recorder, thrown);
+				if (message != null) {
+					return new Violation(invariant, message, thrown);
+				}
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * Failed run with the lowest number found so far, shared by the workers.
+	 */
+	private final class FirstFailure {
+
+		private volatile long run = Long.MAX_VALUE;
+		private T input;
+		private Violation violation;
+
+		public synchronized void offer(long run, T input, Violation violation) {
+			if (run < this.run) {
+				this.input = input;
+				this.violation = violation;
+				this.run = run;
+			}
+		}
+	}
+
+	private static final class Violation {
+
+		private final Object invariant;
+		private final String message;
+		private final Throwable thrown;
+
+		public Violation(Object invariant, String message, Throwable thrown) {
+			this.invariant = invariant;
+			this.message = message;
+			this.thrown = thrown;
+		}
+	}
+
+	/**
+	 * Outcome of a fuzzing session.
+	 */
+	public static final class Result<T> {
+
+		private final long seed;
+		private final long runs;
+		private final Failure<T> failure;
+
+		private Result(long seed, long runs, Failure<T> failure) {
+			this.seed = seed;
+			this.runs = runs;
+			this.failure = failure;
+		}
+
+		public long getSeed() {
+			return seed;
+		}
+
+		/**
+		 * Returns the number of runs up to the first failure, or of all runs if none failed.
+		 */
+		public long getRuns() {
+			return runs;
+		}
+
+		/**
+		 * @return the first failure, or null if all runs had all invariants
+		 */
+		public Failure<T> getFailure() {
+			return failure;
+		}
+
+		@Override
+		public String toString() {
+			if (failure == null) {
+				return runs + " runs passed (seed " + seed + ")";
+			}
+
+			return "Invariant \"" + failure.getInvariant() + "\" violated at run " + failure.getRun() + ": " + failure.getMessage()
+					+ "\n  input: " + failure.getInput()
+					+ "\n  original input: " + failure.getOriginalInput() + " (shrunk in " + failure.getShrinkSteps() + " steps)"
+					+ "\n  reproduce with -D" + SEED_PROPERTY + "=" + seed;
+		}
+	}
+
+	/**
+	 * A run that violated an invariant, with its shrunk input.
+	 */
+	public static final class Failure<T> {
+
+		private final long run;
+		private final T originalInput;
+		private final T input;
+		private final int shrinkSteps;
+		private final String invariant;
+		private final String message;
+		private final Throwable thrown;
+
+		private Failure(long run, T originalInput, T input, int shrinkSteps, String invariant, String message, Throwable thrown) {
+			this.run = run;
+			this.originalInput = originalInput;
+			this.input = input;
+			this.shrinkSteps = shrinkSteps;
+			this.invariant = invariant;
+			this.message = message;
+			this.thrown = thrown;
+		}
+
+		public long getRun() {
+			return run;
+		}
+
+		public T getOriginalInput() {
+			return originalInput;
+		}
+
+		/**
+		 * Returns the shrunk input.
+		 */
+		public T getInput() {
+			return input;
+		}
+
+		public int getShrinkSteps() {
+			return shrinkSteps;
+		}
+
+		public String getInvariant() {
+			return invariant;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		/**
+		 * Returns the exception thrown by the validator on the shrunk input, if any.
+		 */
+		public Throwable getThrown() {
+			return thrown;
+		}
+	}
+}
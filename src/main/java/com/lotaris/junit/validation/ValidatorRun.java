@@ -0,0 +1,134 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Validators run one after the other on an input into the same {@link ValidationContextRecorder},
+ * as a preprocessing chain runs them, with the state objects and the nested validation setting of
+ * the harness running them.
+ */
+final class ValidatorRun {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	static ValidatorRun of(IValidator<?> validator) {
+		return new ValidatorRun(Collections.<Object>singletonList(validator));
+	}
+
+	/**
+	 * Returns a run of the specified validators, in order.
+	 */
+	static ValidatorRun of(List<? extends IValidator<?>> validators) {
+		return new ValidatorRun(new ArrayList<Object>(validators));
+	}
+
+	/**
+	 * Returns a run of the validators of a preprocessing configuration, in order.
+	 */
+	static ValidatorRun of(IPreprocessingConfig config) {
+		return new ValidatorRun(new ArrayList<Object>(config.getValidators()));
+	}
+	//</editor-fold>
+
+	private final List<IValidator<Object>> validators;
+	private final List<State<?>> states;
+	private boolean runNestedValidators;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ValidatorRun(List<Object> validators) {
+		if (validators.isEmpty()) {
+			throw new IllegalArgumentException("At least one validator is required");
+		}
+		this.validators = new ArrayList<>(validators.size());
+		for (Object validator : validators) {
+			this.validators.add(erase((IValidator<?>) validator));
+		}
+		this.states = new ArrayList<>();
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns the validators, which accept any input: the harnesses only give them inputs of the
+	 * type they were declared with.
+	 */
+	List<IValidator<Object>> getValidators() {
+		return validators;
+	}
+
+	void setRunningNestedValidators(boolean runNestedValidators) {
+		this.runNestedValidators = runNestedValidators;
+	}
+
+	/**
+	 * Adds a state object to the validation contexts, as <tt>addState</tt> would.
+	 */
+	<S> void addState(S state, Class<? extends S> stateClass) {
+		states.add(new State<>(state, stateClass));
+	}
+
+	/**
+	 * Returns a new recorder with the state objects, running the nested validators if configured.
+	 */
+	ValidationContextRecorder newRecorder() {
+		final ValidationContextRecorder recorder = new ValidationContextRecorder();
+		if (runNestedValidators) {
+			recorder.runningNestedValidators();
+		}
+		for (State<?> state : states) {
+			state.addTo(recorder);
+		}
+		return recorder;
+	}
+
+	/**
+	 * Adds the state objects to a validation context.
+	 */
+	void addStatesTo(IValidationContext context) {
+		for (State<?> state : states) {
+			state.addTo(context);
+		}
+	}
+
+	/**
+	 * Clears the recorder once, then runs all the validators on the input: later validators see the
+	 * errors of earlier ones.
+	 */
+	void validate(Object input, ValidationContextRecorder recorder) {
+		recorder.clearRecords();
+		final IValidationContext context = recorder.getContext();
+		for (IValidator<Object> validator : validators) {
+			validator.collectErrors(input, context);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static IValidator<Object> erase(IValidator<?> validator) {
+		return (IValidator<Object>) validator;
+	}
+
+	/**
+	 * State object and the class it is registered under.
+	 */
+	private static final class State<S> {
+
+		private final S state;
+		private final Class<? extends S> stateClass;
+
+		public State(S state, Class<? extends S> stateClass) {
+			this.state = state;
+			this.stateClass = stateClass;
+		}
+
+		public void addTo(ValidationContextRecorder recorder) {
+			recorder.withState(state, stateClass);
+		}
+
+		public void addTo(IValidationContext context) {
+			context.addState(state, stateClass);
+		}
+	}
+}
@@ -0,0 +1,341 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs shared validator instances (one validator or all the validators of a preprocessing
+ * configuration) from many threads at once, and checks that every thread gets the same errors as a
+ * single-threaded reference run. Validators are usually shared beans: state kept in fields, caches
+ * that are not thread-safe or lazy initialization races show up as mismatches or exceptions.
+ *
+ * <pre>
+ * StressReport report = ValidatorStressHarness.forValidator(userValidator)
+ *		.withInputs(fixtures)
+ *		.withThreadCounts(1, 8, 1000)
+ *		.run();
+ *
+ * report.assertNoMismatch();
+ * report.assertSpeedupAtLeast(8, 3.0);
+ * </pre>
+ *
+ * <p>Each level of concurrency starts its threads together behind a latch; each thread validates
+ * the inputs round-robin (starting at a different input) into its own
+ * {@link ValidationContextRecorder}, and compares the recorded errors with the reference without
+ * allocating. On Java 21 or later, the threads are virtual threads, so thousands of them are cheap;
+ * on older runtimes, they are multiplexed on a pool of at most {@value #MAX_PLATFORM_THREADS}
+ * platform threads, and the report shows how many threads actually ran. Any throwable of a
+ * validator, including errors, is counted as an exception.</p>
+ */
+public final class ValidatorStressHarness<T> {
+
+	/**
+	 * Largest number of platform threads used when virtual threads are not available.
+	 */
+	public static final int MAX_PLATFORM_THREADS = 256;
+
+	private static final int MAX_EXAMPLES = 10;
+	private static final ThreadFactory VIRTUAL_THREAD_FACTORY = virtualThreadFactory();
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static <T> ValidatorStressHarness<T> forValidator(IValidator<T> validator) {
+		return new ValidatorStressHarness<>(ValidatorRun.of(validator));
+	}
+
+	/**
+	 * Returns a harness running the validators of a preprocessing configuration, in order, into the
+	 * same validation context.
+	 *
+	 * @param config the configuration (e.g. a {@link FakePreprocessingConfig})
+	 * @return the harness
+	 */
+	public static ValidatorStressHarness<Object> forConfig(IPreprocessingConfig config) {
+		return new ValidatorStressHarness<>(ValidatorRun.of(config));
+	}
+	//</editor-fold>
+
+	private final ValidatorRun validatorRun;
+	private final List<T> inputs;
+	private int[] threadCounts;
+	private int validationsPerThread;
+	private boolean platformThreads;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ValidatorStressHarness(ValidatorRun validatorRun) {
+		this.validatorRun = validatorRun;
+		this.inputs = new ArrayList<>();
+		this.threadCounts = new int[]{1, Runtime.getRuntime().availableProcessors(), 1000};
+		this.validationsPerThread = 1000;
+	}
+	//</editor-fold>
+
+	public ValidatorStressHarness<T> withInputs(Iterable<? extends T> inputs) {
+		for (Iterator<? extends T> it = inputs.iterator(); it.hasNext();) {
+			this.inputs.add(it.next());
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the levels of concurrency to run, in order. Include 1 to get the speedup of the other
+	 * levels.
+	 *
+	 * @param threadCounts the numbers of threads
+	 * @return this harness
+	 */
+	public ValidatorStressHarness<T> withThreadCounts(int... threadCounts) {
+		for (int threadCount : threadCounts) {
+			if (threadCount < 1) {
+				throw new IllegalArgumentException("At least one thread is required, got " + threadCount);
+			}
+		}
+		this.threadCounts = threadCounts.clone();
+		return this;
+	}
+
+	public ValidatorStressHarness<T> withValidationsPerThread(int validationsPerThread) {
+		this.validationsPerThread = validationsPerThread;
+		return this;
+	}
+
+	/**
+	 * Makes the validation contexts run the validators passed to the <tt>validateObject*</tt>
+	 * methods (see {@link ValidationContextRecorder#runningNestedValidators()}).
+	 */
+	public ValidatorStressHarness<T> runningNestedValidators() {
+		validatorRun.setRunningNestedValidators(true);
+		return this;
+	}
+
+	/**
+	 * Uses platform threads even if virtual threads are available.
+	 */
+	public ValidatorStressHarness<T> withPlatformThreads() {
+		this.platformThreads = true;
+		return this;
+	}
+
+	/**
+	 * Adds a state object to the validation context of every thread, as <tt>addState</tt> would. The
+	 * object is shared by the threads.
+	 */
+	public <S> ValidatorStressHarness<T> withState(S state, Class<? extends S> stateClass) {
+		validatorRun.addState(state, stateClass);
+		return this;
+	}
+
+	/**
+	 * Indicates whether the threads of this harness are virtual threads.
+	 */
+	public boolean isUsingVirtualThreads() {
+		return !platformThreads && VIRTUAL_THREAD_FACTORY != null;
+	}
+
+	/**
+	 * Computes the reference errors of each input on the current thread, then runs each level of
+	 * concurrency.
+	 *
+	 * @return the report
+	 * @throws IllegalStateException if no inputs were given or if the reference run fails
+	 */
+	public StressReport run() {
+
+		if (inputs.isEmpty()) {
+			throw new IllegalStateException("No inputs: call withInputs first");
+		}
+
+		final Reference[] references = new Reference[inputs.size()];
+		final ValidationContextRecorder recorder = validatorRun.newRecorder();
+		for (int i = 0; i < references.length; i++) {
+			try {
+				validatorRun.validate(inputs.get(i), recorder);
+			} catch (RuntimeException | Error e) {
+				throw new IllegalStateException("Reference validation of input #" + i + " failed: " + inputs.get(i), e);
+			}
+			references[i] = new Reference(recorder);
+		}
+
+		final List<StressReport.Level> levels = new ArrayList<>(threadCounts.length);
+		for (int threadCount : threadCounts) {
+			levels.add(runLevel(threadCount, references));
+		}
+
+		return new StressReport(isUsingVirtualThreads(), levels);
+	}
+
+	private StressReport.Level runLevel(int threadCount, final Reference[] references) {
+
+		final CountDownLatch ready = new CountDownLatch(threadCount);
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(threadCount);
+		final AtomicLong validations = new AtomicLong();
+		final AtomicLong mismatches = new AtomicLong();
+		final AtomicLong exceptions = new AtomicLong();
+		final AtomicInteger exampleCount = new AtomicInteger();
+		final ConcurrentLinkedQueue<String> examples = new ConcurrentLinkedQueue<>();
+
+		final List<Runnable> tasks = new ArrayList<>(threadCount);
+		for (int t = 0; t < threadCount; t++) {
+			final int offset = t;
+			tasks.add(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						final ValidationContextRecorder recorder;
+						try {
+							recorder = validatorRun.newRecorder();
+						} finally {
+							ready.countDown();
+						}
+						start.await();
+
+						long threadMismatches = 0;
+						long threadExceptions = 0;
+						for (int i = 0; i < validationsPerThread; i++) {
+							final int index = (offset + i) % references.length;
+							String problem = null;
+							try {
+								validatorRun.validate(inputs.get(index), recorder);
+								if (!references[index].matches(recorder)) {
+									threadMismatches++;
+									problem = "input #" + index + ": expected " + references[index] + " but got " + new Reference(recorder);
+								}
+							} catch (Throwable t) {
+								// errors (assertion, stack overflow, initialization) count as well
+								threadExceptions++;
+								problem = "input #" + index + ": " + t;
+							}
+
+							if (problem != null && exampleCount.getAndIncrement() < MAX_EXAMPLES) {
+								examples.add(problem);
+							}
+						}
+
+						validations.addAndGet(validationsPerThread);
+						mismatches.addAndGet(threadMismatches);
+						exceptions.addAndGet(threadExceptions);
+					} catch (InterruptedException ie) {
+						Thread.currentThread().interrupt();
+					} finally {
+						done.countDown();
+					}
+				}
+			});
+		}
+
+		final int runningThreads = isUsingVirtualThreads() ? threadCount : Math.min(threadCount, MAX_PLATFORM_THREADS);
+		final ExecutorService pool = isUsingVirtualThreads() ? null : Executors.newFixedThreadPool(runningThreads);
+		try {
+			for (Runnable task : tasks) {
+				if (pool != null) {
+					pool.execute(task);
+				} else {
+					VIRTUAL_THREAD_FACTORY.newThread(task).start();
+				}
+			}
+
+			// multiplexed platform threads cannot all be ready before the start
+			if (pool == null || threadCount <= MAX_PLATFORM_THREADS) {
+				ready.await();
+			}
+
+			final long begin = System.nanoTime();
+			start.countDown();
+			done.await();
+			final long elapsed = System.nanoTime() - begin;
+
+			return new StressReport.Level(threadCount, runningThreads, validations.get(), elapsed, mismatches.get(), exceptions.get(), new ArrayList<>(examples));
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while running " + threadCount + " threads", ie);
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+				try {
+					pool.awaitTermination(1, TimeUnit.MINUTES);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the factory of virtual threads of the runtime (Java 21 or later), looked up reflectively
+	 * since this library targets older versions.
+	 *
+	 * @return the factory, or null if the runtime has no virtual threads
+	 */
+	private static ThreadFactory virtualThreadFactory() {
+		try {
+			final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Errors recorded by the single-threaded run of an input.
+	 */
+	private static final class Reference {
+
+		private final Integer[] codes;
+		private final String[] locationTypes;
+		private final String[] locations;
+		private final String[] messages;
+
+		public Reference(ValidationContextRecorder recorder) {
+			final int count = recorder.getErrorCount();
+			codes = new Integer[count];
+			locationTypes = new String[count];
+			locations = new String[count];
+			messages = new String[count];
+			for (int i = 0; i < count; i++) {
+				codes[i] = recorder.getErrorCode(i);
+				locationTypes[i] = recorder.getErrorLocationType(i);
+				locations[i] = recorder.getErrorLocation(i);
+				messages[i] = recorder.getErrorMessage(i);
+			}
+		}
+
+		public boolean matches(ValidationContextRecorder recorder) {
+			if (recorder.getErrorCount() != codes.length) {
+				return false;
+			}
+
+			for (int i = 0; i < codes.length; i++) {
+				final int code = recorder.getRawErrorCode(i);
+				if ((codes[i] == null ? code != ValidationContextRecorder.NO_CODE : codes[i] != code)
+						|| !Objects.equals(locationTypes[i], recorder.getErrorLocationType(i))
+						|| !Objects.equals(locations[i], recorder.getErrorLocation(i))
+						|| !Objects.equals(messages[i], recorder.getErrorMessage(i))) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder builder = new StringBuilder().append(codes.length).append(" errors");
+			for (int i = 0; i < codes.length; i++) {
+				builder.append(i == 0 ? " (" : ", ").append("<code=").append(codes[i]).append(", location=").append(locations[i]).append(", message=").append(messages[i]).append(">");
+			}
+			return codes.length > 0 ? builder.append(")").toString() : builder.toString();
+		}
+	}
+}
@@ -0,0 +1,422 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.preprocessing.IPreprocessingConfig;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams a corpus of inputs through one validator, or through all the validators of a
+ * preprocessing configuration, and measures each validator: validations per second, latency
+ * percentiles and frequency of the error codes it adds.
+ *
+ * <p>The inputs come from an iterator, a generator or a file of serialized fixtures, and are read
+ * in small batches as the workers need them, so the corpus is never held in memory. Each worker
+ * validates into its own {@link ValidationContextRecorder}, which is cleared in constant time
+ * before each input, so that later validators see the errors of earlier ones as in a
+ * preprocessing chain. Latencies and error codes are recorded in pre-allocated structures, but the
+ * recorder still formats and interns the messages and locations of the errors, and the validators
+ * allocate what they allocate: the measured latencies include that work.</p>
+ *
+ * <pre>
+ * ThroughputReport report = ValidatorThroughputHarness.forValidator(new UserValidator())
+ *		.withGenerator(new InputGenerator&lt;User&gt;() {
+ *			public User generate(long index) {
+ *				return randomUser(index);
+ *			}
+ *		}, 1000000)
+ *		.withThreads(4)
+ *		.run();
+ *
+ * assertTrue(report.getStats(0).getValidationsPerSecond() &gt; 50000);
+ * </pre>
+ */
+public final class ValidatorThroughputHarness<T> {
+
+	private static final int BATCH_SIZE = 64;
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static <T> ValidatorThroughputHarness<T> forValidator(IValidator<T> validator) {
+		return new ValidatorThroughputHarness<>(ValidatorRun.of(validator));
+	}
+
+	/**
+	 * Returns a harness running the validators of a preprocessing configuration, in order.
+	 *
+	 * @param config the configuration (e.g. a {@link FakePreprocessingConfig})
+	 * @return the harness
+	 */
+	public static ValidatorThroughputHarness<Object> forConfig(IPreprocessingConfig config) {
+		return new ValidatorThroughputHarness<>(ValidatorRun.of(config));
+	}
+	//</editor-fold>
+
+	/**
+	 * Generates the input at a given index of the corpus. It may be called by several threads at
+	 * once.
+	 */
+	public interface InputGenerator<T> {
+
+		T generate(long index);
+	}
+
+	private final ValidatorRun validatorRun;
+	private final List<IValidator<Object>> validators;
+	private InputSource source;
+	private int threads;
+	private long warmupInputs;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ValidatorThroughputHarness(ValidatorRun validatorRun) {
+		this.validatorRun = validatorRun;
+		this.validators = validatorRun.getValidators();
+		this.threads = 1;
+	}
+	//</editor-fold>
+
+	public ValidatorThroughputHarness<T> withInputs(Iterable<? extends T> inputs) {
+		return withInputs(inputs.iterator());
+	}
+
+	public ValidatorThroughputHarness<T> withInputs(Iterator<? extends T> inputs) {
+		source = new IteratorSource(inputs);
+		return this;
+	}
+
+	public ValidatorThroughputHarness<T> withGenerator(InputGenerator<? extends T> generator, long count) {
+		source = new GeneratorSource(generator, count);
+		return this;
+	}
+
+	/**
+	 * Reads the inputs from a file of objects written one after the other with an
+	 * {@link java.io.ObjectOutputStream}.
+	 *
+	 * @param file the file of serialized fixtures
+	 * @return this harness
+	 */
+	public ValidatorThroughputHarness<T> withSerializedInputs(File file) {
+		source = new SerializedSource(file);
+		return this;
+	}
+
+	public ValidatorThroughputHarness<T> withThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is required");
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Validates the specified number of inputs first without measuring them.
+	 *
+	 * @param inputs the number of warmup inputs
+	 * @return this harness
+	 */
+	public ValidatorThroughputHarness<T> withWarmup(long inputs) {
+		this.warmupInputs = inputs;
+		return this;
+	}
+
+	/**
+	 * Adds a state object to the validation context of every worker, as <tt>addState</tt> would. The
+	 * object is shared by the workers.
+	 */
+	public <S> ValidatorThroughputHarness<T> withState(S state, Class<? extends S> stateClass) {
+		validatorRun.addState(state, stateClass);
+		return this;
+	}
+
+	/**
+	 * Validates the whole corpus and returns the measurements.
+	 *
+	 * @return the report
+	 * @throws IllegalStateException if no inputs were given or if a validator fails
+	 */
+	public ThroughputReport run() {
+
+		if (source == null) {
+			throw new IllegalStateException("No inputs: call withInputs, withGenerator or withSerializedInputs first");
+		}
+
+		final List<Worker> workers = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++) {
+			workers.add(new Worker());
+		}
+
+		final long start = System.nanoTime();
+		try {
+			if (threads == 1) {
+				workers.get(0).run();
+			} else {
+				runConcurrently(workers);
+			}
+		} finally {
+			source.close();
+		}
+		final long elapsed = System.nanoTime() - start;
+
+		final List<ThroughputReport.ValidatorStats> stats = new ArrayList<>(validators.size());
+		for (int v = 0; v < validators.size(); v++) {
+			final LatencyHistogram latencies = new LatencyHistogram();
+			final ErrorCodeFrequency codes = new ErrorCodeFrequency();
+			long inputsWithErrors = 0;
+			for (Worker worker : workers) {
+				latencies.add(worker.latencies[v]);
+				codes.add(worker.codes[v]);
+				inputsWithErrors += worker.inputsWithErrors[v];
+			}
+			stats.add(new ThroughputReport.ValidatorStats(name(validators.get(v)), latencies, codes.toMap(), inputsWithErrors));
+		}
+
+		long measured = 0;
+		for (Worker worker : workers) {
+			measured += worker.measuredInputs;
+		}
+
+		return new ThroughputReport(threads, measured, elapsed, stats);
+	}
+
+	private void runConcurrently(List<Worker> workers) {
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<?>> futures = new ArrayList<>(threads);
+			for (Worker worker : workers) {
+				futures.add(executor.submit(worker));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while validating the corpus", ie);
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ee.getCause();
+			}
+			throw new IllegalStateException(ee.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static String name(IValidator<?> validator) {
+		final Class<?> type = validator.getClass();
+		return type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+	}
+
+	/**
+	 * Validates batches of inputs until the source is exhausted.
+	 */
+	private class Worker implements Runnable {
+
+		private final ValidationContextRecorder recorder;
+		private final Batch batch;
+		private final LatencyHistogram[] latencies;
+		private final ErrorCodeFrequency[] codes;
+		private final long[] inputsWithErrors;
+		private long measuredInputs;
+
+		public Worker() {
+			recorder = validatorRun.newRecorder();
+
+			batch = new Batch();
+			latencies = new LatencyHistogram[validators.size()];
+			codes = new ErrorCodeFrequency[validators.size()];
+			inputsWithErrors = new long[validators.size()];
+			for (int v = 0; v < validators.size(); v++) {
+				latencies[v] = new LatencyHistogram();
+				codes[v] = new ErrorCodeFrequency();
+			}
+		}
+
+		@Override
+		public void run() {
+			while (source.fill(batch)) {
+				for (int i = 0; i < batch.size; i++) {
+					final long index = batch.firstIndex + i;
+					final boolean measured = index >= warmupInputs;
+					final Object input = batch.inputs[i];
+					batch.inputs[i] = null;
+
+					recorder.clearRecords();
+					for (int v = 0; v < validators.size(); v++) {
+						final IValidator<Object> validator = validators.get(v);
+						final int previousErrorCount = recorder.getErrorCount();
+
+						final long start = System.nanoTime();
+						try {
+							validator.collectErrors(input, recorder.getContext());
+						} catch (RuntimeException re) {
+							throw new IllegalStateException("Validator " + name(validator) + " failed on input #" + index + ": " + input, re);
+						}
+						final long latency = System.nanoTime() - start;
+
+						if (measured) {
+							latencies[v].record(latency);
+							// only the errors added by this validator
+							final int errorCount = recorder.getErrorCount();
+							for (int e = previousErrorCount; e < errorCount; e++) {
+								codes[v].increment(recorder.getRawErrorCode(e));
+							}
+							if (errorCount > previousErrorCount) {
+								inputsWithErrors[v]++;
+							}
+						}
+					}
+
+					if (measured) {
+						measuredInputs++;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Inputs handed to a worker at once, reused for every batch.
+	 */
+	private static final class Batch {
+
+		private final Object[] inputs = new Object[BATCH_SIZE];
+		private int size;
+		private long firstIndex;
+	}
+
+	/**
+	 * Source of the corpus, shared by the workers.
+	 */
+	private abstract static class InputSource {
+
+		/**
+		 * Fills the batch with the next inputs.
+		 *
+		 * @return false if the corpus is exhausted
+		 */
+		public abstract boolean fill(Batch batch);
+
+		public void close() {
+		}
+	}
+
+	private static final class IteratorSource extends InputSource {
+
+		private final Iterator<?> iterator;
+		private long index;
+
+		public IteratorSource(Iterator<?> iterator) {
+			this.iterator = iterator;
+		}
+
+		@Override
+		public synchronized boolean fill(Batch batch) {
+			batch.firstIndex = index;
+			batch.size = 0;
+			while (batch.size < BATCH_SIZE && iterator.hasNext()) {
+				batch.inputs[batch.size++] = iterator.next();
+			}
+			index += batch.size;
+			return batch.size > 0;
+		}
+	}
+
+	private static final class GeneratorSource extends InputSource {
+
+		private final InputGenerator<?> generator;
+		private final long count;
+		private final AtomicLong next;
+
+		public GeneratorSource(InputGenerator<?> generator, long count) {
+			this.generator = generator;
+			this.count = count;
+			this.next = new AtomicLong();
+		}
+
+		@Override
+		public boolean fill(Batch batch) {
+			final long first = next.getAndAdd(BATCH_SIZE);
+			if (first >= count) {
+				return false;
+			}
+
+			batch.firstIndex = first;
+			batch.size = (int) Math.min(BATCH_SIZE, count - first);
+			for (int i = 0; i < batch.size; i++) {
+				batch.inputs[i] = generator.generate(first + i);
+			}
+			return true;
+		}
+	}
+
+	private static final class SerializedSource extends InputSource {
+
+		private final File file;
+		private ObjectInputStream stream;
+		private boolean exhausted;
+		private long index;
+
+		public SerializedSource(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public synchronized boolean fill(Batch batch) {
+
+			batch.firstIndex = index;
+			batch.size = 0;
+			try {
+				if (stream == null && !exhausted) {
+					final InputStream in = new BufferedInputStream(new FileInputStream(file));
+					try {
+						stream = new ObjectInputStream(in);
+					} catch (IOException ioe) {
+						in.close();
+						throw ioe;
+					}
+				}
+
+				while (!exhausted && batch.size < BATCH_SIZE) {
+					try {
+						batch.inputs[batch.size] = stream.readObject();
+						batch.size++;
+					} catch (EOFException eofe) {
+						exhausted = true;
+						close();
+					}
+				}
+			} catch (IOException | ClassNotFoundException e) {
+				throw new IllegalStateException("Could not read input #" + (index + batch.size) + " from " + file, e);
+			}
+
+			index += batch.size;
+			return batch.size > 0;
+		}
+
+		@Override
+		public synchronized void close() {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException ioe) {
+					// nothing left to read
+				}
+				stream = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidator;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of the validators run by an instrumented preprocessing chain, one
+ * {@link TimedValidator} per validator instance.
+ *
+ * <pre>
+ * ValidatorTimings timings = ValidationUtils.timeValidatorsInPreprocessingChain(preprocessingChain);
+ * for (int i = 0; i &lt; 1000; i++) {
+ *	resource.createUser(user);
+ * }
+ * timings.assertPercentileUnder(UserValidator.class, 99, 200, TimeUnit.MICROSECONDS);
+ * </pre>
+ *
+ * @see ValidationUtils#timeValidatorsInPreprocessingChain(com.lotaris.jee.validation.preprocessing.IPreprocessor)
+ */
+public final class ValidatorTimings {
+
+	private final Map<IValidator<?>, TimedValidator<?>> timedValidators;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	ValidatorTimings() {
+		timedValidators = new IdentityHashMap<>();
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns the timed decorator of a validator, creating it the first time.
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized <T> TimedValidator<T> timed(IValidator<T> validator) {
+		if (validator instanceof TimedValidator) {
+			return (TimedValidator<T>) validator;
+		}
+
+		// each validator is mapped to its own decorator, of the same type
+		TimedValidator<T> timed = (TimedValidator<T>) timedValidators.get(validator);
+		if (timed == null) {
+			timed = new TimedValidator<>(validator);
+			timedValidators.put(validator, timed);
+		}
+		return timed;
+	}
+
+	/**
+	 * Returns the timed validators, in no particular order.
+	 */
+	public synchronized List<TimedValidator<?>> getTimedValidators() {
+		return new ArrayList<>(timedValidators.values());
+	}
+
+	/**
+	 * Returns the timed decorator of a validator instance.
+	 *
+	 * @param validator the validator
+	 * @return the timed validator, or null if the validator has not run
+	 */
+	public synchronized TimedValidator<?> get(IValidator<?> validator) {
+		return timedValidators.get(validator);
+	}
+
+	/**
+	 * Returns the timed decorator of the validator of the specified class.
+	 *
+	 * @param validatorClass the class of the validator (validators are often declared with the raw
+	 * type)
+	 * @return the timed validator
+	 * @throws AssertionError if no validator of that class has run, or if several have
+	 */
+	@SuppressWarnings("rawtypes")
+	public synchronized TimedValidator<?> get(Class<? extends IValidator> validatorClass) {
+
+		TimedValidator<?> found = null;
+		for (Map.Entry<IValidator<?>, TimedValidator<?>> entry : timedValidators.entrySet()) {
+			if (validatorClass.isInstance(entry.getKey())) {
+				if (found != null) {
+					throw new AssertionError("Several validators of class " + validatorClass.getName() + " have run; use get(IValidator) instead");
+				}
+				found = entry.getValue();
+			}
+		}
+
+		if (found == null) {
+			throw new AssertionError("No validator of class " + validatorClass.getName() + " has run in the preprocessing chain");
+		}
+
+		return found;
+	}
+
+	/**
+	 * Asserts that the specified percentile of the latencies of a validator is under a budget.
+	 *
+	 * @see TimedValidator#assertPercentileUnder(double, long, java.util.concurrent.TimeUnit)
+	 */
+	@SuppressWarnings("rawtypes")
+	public void assertPercentileUnder(Class<? extends IValidator> validatorClass, double percentile, long budget, TimeUnit unit) {
+		get(validatorClass).assertPercentileUnder(percentile, budget, unit);
+	}
+
+	/**
+	 * Asserts that the specified percentile of the latencies of every validator that has run is
+	 * under a budget.
+	 *
+	 * @throws AssertionError if no validator has run or if one exceeds the budget
+	 */
+	public void assertAllPercentilesUnder(double percentile, long budget, TimeUnit unit) {
+
+		final List<TimedValidator<?>> validators = getTimedValidators();
+		if (validators.isEmpty()) {
+			throw new AssertionError("No validator has run in the preprocessing chain");
+		}
+
+		for (TimedValidator<?> validator : validators) {
+			validator.assertPercentileUnder(percentile, budget, unit);
+		}
+	}
+
+	/**
+	 * Forgets the latencies recorded so far (e.g. after a warmup).
+	 */
+	public void reset() {
+		for (TimedValidator<?> validator : getTimedValidators()) {
+			validator.reset();
+		}
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("validator timings");
+		for (TimedValidator<?> validator : getTimedValidators()) {
+			builder.append(String.format("%n  ")).append(validator.getName()).append(": ").append(validator.getLatencies());
+		}
+		return builder.toString();
+	}
+}
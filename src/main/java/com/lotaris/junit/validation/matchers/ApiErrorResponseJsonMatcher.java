@@ -0,0 +1,296 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParsingException;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+
+/**
+ * Ensures that a raw JSON API error response (an {@link InputStream}, a byte array, a
+ * {@link Reader} or a string) has the expected HTTP status code and errors, without deserializing it
+ * into an <tt>ApiErrorResponse</tt>.
+ *
+ * <p>The body is read with a streaming {@link JsonParser}: a JSON-P implementation (e.g.
+ * <tt>org.glassfish:javax.json</tt>) must be on the test classpath, since <tt>javaee-api</tt> only
+ * contains the API. Each error is checked as soon as it is read: errors meeting an expectation with
+ * a literal message are discarded immediately, so only the errors that still have to be assigned are
+ * kept in memory. Reading stops as soon as the response cannot match anymore: wrong HTTP status code,
+ * more errors than expected, or an error that no expectation accepts.</p>
+ *
+ * <p>An input stream can only be read once (and is closed after reading). The mismatch description
+ * of a stream is therefore the result of the last evaluation of that stream by the current
+ * thread.</p>
+ */
+public class ApiErrorResponseJsonMatcher extends BaseMatcher<Object> {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static ApiErrorResponseJsonMatcher isApiErrorResponseJson(ErrorResponsePlan plan) {
+		return new ApiErrorResponseJsonMatcher(plan);
+	}
+
+	public static ApiErrorResponseJsonMatcher isApiErrorResponseJson(ApiErrorResponseObjectMatcher objectMatcher) {
+		return new ApiErrorResponseJsonMatcher(objectMatcher.compile());
+	}
+	//</editor-fold>
+
+	private static final String HTTP_STATUS_CODE = "httpStatusCode";
+	private static final String ERRORS = "errors";
+	private static final String CODE = "code";
+	private static final String LOCATION_TYPE = "locationType";
+	private static final String LOCATION = "location";
+	private static final String MESSAGE = "message";
+
+	private final ErrorResponsePlan plan;
+	private final ThreadLocal<LastEvaluation> lastStreamEvaluation;
+	private volatile DescriptionLimits descriptionLimits = DescriptionLimits.defaults();
+
+	public ApiErrorResponseJsonMatcher(ErrorResponsePlan plan) {
+		this.plan = plan;
+		this.lastStreamEvaluation = new ThreadLocal<>();
+	}
+
+	/**
+	 * Sets the bounds of the mismatch description.
+	 *
+	 * @see ApiErrorResponseObjectMatcher#withDescriptionLimits(DescriptionLimits)
+	 */
+	public ApiErrorResponseJsonMatcher withDescriptionLimits(DescriptionLimits descriptionLimits) {
+		this.descriptionLimits = descriptionLimits;
+		return this;
+	}
+
+	@Override
+	public boolean matches(Object item) {
+
+		final ErrorResponseMatch result = evaluate(item, true);
+		if (item instanceof InputStream || item instanceof Reader) {
+			lastStreamEvaluation.set(new LastEvaluation(item, result));
+		}
+
+		return result.matches();
+	}
+
+	@Override
+	public void describeTo(Description description) {
+		plan.describeTo(description);
+	}
+
+	@Override
+	public void describeMismatch(Object item, Description description) {
+
+		if (item instanceof InputStream || item instanceof Reader) {
+			final LastEvaluation last = lastStreamEvaluation.get();
+			if (last == null || last.item != item) {
+				description.appendText("stream has already been read");
+			} else {
+				last.result.describeMismatch(description, descriptionLimits);
+			}
+			return;
+		}
+
+		// read the whole body to give a complete description
+		evaluate(item, false).describeMismatch(description, descriptionLimits);
+	}
+
+	/**
+	 * Evaluates a raw JSON error response.
+	 *
+	 * @param item the response body
+	 * @param stopEarly whether to stop reading as soon as the response cannot match
+	 * @return the result of the evaluation
+	 */
+	ErrorResponseMatch evaluate(Object item, boolean stopEarly) {
+
+		final JsonParser parser;
+		if (item == null) {
+			return ErrorResponseMatch.nullResponse(plan);
+		} else if (item instanceof InputStream) {
+			parser = Json.createParser((InputStream) item);
+		} else if (item instanceof byte[]) {
+			parser = Json.createParser(new ByteArrayInputStream((byte[]) item));
+		} else if (item instanceof Reader) {
+			parser = Json.createParser((Reader) item);
+		} else if (item instanceof CharSequence) {
+			parser = Json.createParser(new StringReader(item.toString()));
+		} else {
+			throw new IllegalArgumentException("Cannot read a JSON API error response from " + item.getClass().getName());
+		}
+
+		try {
+			return new Evaluation(stopEarly).read(parser);
+		} finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * State of one evaluation of a raw JSON response.
+	 */
+	private class Evaluation {
+
+		private final boolean stopEarly;
+		private final boolean[] met;
+		private final Map<ErrorKey, Integer> consumed;
+		private final List<ApiErrorResponseObjectMatcher.Error> pending;
+		private final MessagePatterns.Matches messageMatches;
+		private Integer actualHttpStatusCode;
+		private int errorCount;
+		private boolean stopped;
+
+		public Evaluation(boolean stopEarly) {
+			this.stopEarly = stopEarly;
+			this.met = new boolean[plan.getExpectedErrorCount()];
+			this.consumed = new HashMap<>();
+			this.pending = new ArrayList<>();
+			this.messageMatches = plan.newMessageMatches();
+		}
+
+		public ErrorResponseMatch read(JsonParser parser) {
+
+			expect(parser, JsonParser.Event.START_OBJECT);
+
+			while (!stopped && parser.hasNext()) {
+
+				final JsonParser.Event event = parser.next();
+				if (event == JsonParser.Event.END_OBJECT) {
+					break;
+				}
+
+				final String key = parser.getString();
+				final JsonParser.Event value = parser.next();
+				if (HTTP_STATUS_CODE.equals(key) && value == JsonParser.Event.VALUE_NUMBER) {
+					actualHttpStatusCode = parser.getInt();
+					stopped = stopEarly && !httpStatusCodeMatches();
+				} else if (ERRORS.equals(key) && value == JsonParser.Event.START_ARRAY) {
+					readErrors(parser);
+				} else {
+					skip(parser, value);
+				}
+			}
+
+			final ErrorAssignment assignment = ErrorAssignment.complete(plan, met, pending, new boolean[pending.size()], messageMatches);
+			return new ErrorResponseMatch(plan, actualHttpStatusCode, httpStatusCodeMatches(), assignment.getUnmetExpectations(), assignment.getUnexpectedErrors(), stopped ? errorCount : -1);
+		}
+
+		private void readErrors(JsonParser parser) {
+			while (!stopped) {
+				final JsonParser.Event event = parser.next();
+				if (event == JsonParser.Event.END_ARRAY) {
+					return;
+				} else if (event == JsonParser.Event.START_OBJECT) {
+					check(readError(parser));
+				} else {
+					skip(parser, event);
+				}
+			}
+		}
+
+		private ApiErrorResponseObjectMatcher.Error readError(JsonParser parser) {
+
+			Integer code = null;
+			String locationType = null;
+			String location = null;
+			String message = null;
+
+			for (JsonParser.Event event = parser.next(); event != JsonParser.Event.END_OBJECT; event = parser.next()) {
+
+				final String key = parser.getString();
+				final JsonParser.Event value = parser.next();
+				if (value == JsonParser.Event.VALUE_NUMBER && CODE.equals(key)) {
+					code = parser.getInt();
+				} else if (value == JsonParser.Event.VALUE_STRING && LOCATION_TYPE.equals(key)) {
+					locationType = parser.getString();
+				} else if (value == JsonParser.Event.VALUE_STRING && LOCATION.equals(key)) {
+					location = parser.getString();
+				} else if (value == JsonParser.Event.VALUE_STRING && MESSAGE.equals(key)) {
+					message = parser.getString();
+				} else {
+					skip(parser, value);
+				}
+			}
+
+			return new ApiErrorResponseObjectMatcher.Error(code, locationType, location, message);
+		}
+
+		/**
+		 * Meets an expectation with a literal message if possible, otherwise keeps the error for the
+		 * final assignment (or stops if it cannot be assigned).
+		 */
+		private void check(ApiErrorResponseObjectMatcher.Error error) {
+
+			errorCount++;
+
+			if (error.getCode() != null) {
+				final ErrorKey key = new ErrorKey(error.getCode(), error.getLocationType(), error.getLocation(), error.getMessage());
+				final int[] indices = plan.getExactIndices(key);
+				final Integer count = consumed.get(key);
+				final int used = count != null ? count : 0;
+				if (indices != null && used < indices.length) {
+					met[indices[used]] = true;
+					consumed.put(key, used + 1);
+					return;
+				}
+
+				// no expectation with a literal message is left for this error: unless an expectation
+				// without literal message accepts it, it is unexpected
+				stopped = stopEarly && !plan.isAcceptedByFlexibleExpectation(error, messageMatches);
+			}
+
+			pending.add(error);
+			stopped = stopped || stopEarly && errorCount > plan.getExpectedErrorCount();
+		}
+
+		private boolean httpStatusCodeMatches() {
+			final Integer expected = plan.getExpectedHttpStatusCode();
+			return expected == null || expected.equals(actualHttpStatusCode);
+		}
+	}
+
+	private static void expect(JsonParser parser, JsonParser.Event expected) {
+		if (!parser.hasNext() || parser.next() != expected) {
+			throw new JsonParsingException("Expected " + expected + " in API error response", parser.getLocation());
+		}
+	}
+
+	/**
+	 * Skips the value that starts with the specified event (nested objects and arrays included).
+	 */
+	private static void skip(JsonParser parser, JsonParser.Event start) {
+		if (start != JsonParser.Event.START_OBJECT && start != JsonParser.Event.START_ARRAY) {
+			return;
+		}
+
+		int depth = 1;
+		while (depth > 0) {
+			final JsonParser.Event event = parser.next();
+			if (event == JsonParser.Event.START_OBJECT || event == JsonParser.Event.START_ARRAY) {
+				depth++;
+			} else if (event == JsonParser.Event.END_OBJECT || event == JsonParser.Event.END_ARRAY) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Result of the last evaluation of a stream, kept for its mismatch description.
+	 */
+	private static class LastEvaluation {
+
+		private final Object item;
+		private final ErrorResponseMatch result;
+
+		public LastEvaluation(Object item, ErrorResponseMatch result) {
+			this.item = item;
+			this.result = result;
+		}
+	}
+}
@@ -3,8 +3,6 @@ package com.lotaris.junit.validation.matchers;
 import com.lotaris.jee.validation.ApiError;
 import com.lotaris.jee.validation.ApiErrorResponse;
 import com.lotaris.jee.validation.IErrorCode;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.regex.Pattern;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
@@ -24,23 +22,32 @@ public class ApiErrorResponseObjectMatcher extends BaseMatcher<ApiErrorResponse>
 	public static ApiErrorResponseObjectMatcher isApiErrorResponseObject(int expectedHttpStatusCode) {
 		return new ApiErrorResponseObjectMatcher(expectedHttpStatusCode);
 	}
+
+	public static ApiErrorResponseObjectMatcher isApiErrorResponseObject(ErrorResponsePlan plan) {
+		return new ApiErrorResponseObjectMatcher(plan);
+	}
 	//</editor-fold>
-	private Integer expectedHttpStatusCode;
-	private List<ErrorExpectation> expectedErrors;
-	private boolean isNonNullResponse;
-	private Integer actualHttpStatusCode;
-	private boolean httpStatusCodeMatches;
-	private List<Object> invalidErrors;
-	private List<Error> actualErrors;
-	private List<ErrorExpectation> unmetErrorExpectations;
+	private final ErrorResponsePlan.Builder builder;
+	private volatile ErrorResponsePlan plan;
+	private volatile DescriptionLimits descriptionLimits = DescriptionLimits.defaults();
 
 	public ApiErrorResponseObjectMatcher() {
-		expectedErrors = new ArrayList<>();
+		builder = ErrorResponsePlan.builder();
 	}
 
 	public ApiErrorResponseObjectMatcher(int expectedHttpStatusCode) {
-		this();
-		this.expectedHttpStatusCode = expectedHttpStatusCode;
+		builder = ErrorResponsePlan.builder(expectedHttpStatusCode);
+	}
+
+	/**
+	 * Constructs a matcher for an already compiled plan. Such a matcher is immutable and cannot be
+	 * given additional expectations.
+	 *
+	 * @param plan the compiled expectations
+	 */
+	public ApiErrorResponseObjectMatcher(ErrorResponsePlan plan) {
+		this.builder = null;
+		this.plan = plan;
 	}
 
 //	public ApiErrorResponseObjectMatcher(EApiHttpStatusCodes expectedHttpStatusCode) {
@@ -65,7 +72,8 @@ public class ApiErrorResponseObjectMatcher extends BaseMatcher<ApiErrorResponse>
 	}
 
 	public ApiErrorResponseObjectMatcher withError(int code, String locationType, String location, String message) {
-		expectedErrors.add(new ErrorExpectation(code, locationType, location, message));
+		getBuilder().withError(code, locationType, location, message);
+		plan = null;
 		return this;
 	}
 
@@ -74,7 +82,8 @@ public class ApiErrorResponseObjectMatcher extends BaseMatcher<ApiErrorResponse>
 	}
 
 	public ApiErrorResponseObjectMatcher withError(int code, String locationType, String location, Pattern messagePattern) {
-		expectedErrors.add(new ErrorExpectation(code, locationType, location, messagePattern));
+		getBuilder().withError(code, locationType, location, messagePattern);
+		plan = null;
 		return this;
 	}
 
@@ -82,93 +91,82 @@ public class ApiErrorResponseObjectMatcher extends BaseMatcher<ApiErrorResponse>
 		return withError(code.getCode(), locationType, location, messagePattern);
 	}
 
-	@Override
-	public boolean matches(Object item) {
-
-		// reset state
-		isNonNullResponse = true;
-		actualHttpStatusCode = null;
-		httpStatusCodeMatches = true;
-		invalidErrors = new ArrayList<>();
-		actualErrors = new ArrayList<>();
-		unmetErrorExpectations = new ArrayList<>();
-
-		// ensure response is not null
-		if (item == null) {
-			isNonNullResponse = false;
-			return false;
-		}
-
-		final ApiErrorResponse response = (ApiErrorResponse) item;
-
-		// ensure the HTTP status code is the correct one (if set)
-		actualHttpStatusCode = response.getHttpStatusCode();
-		httpStatusCodeMatches = expectedHttpStatusCode == null || expectedHttpStatusCode.equals(actualHttpStatusCode);
+	/**
+	 * Expects an error whose message matches a regular expression. The expression is compiled once
+	 * and shared by all matchers.
+	 */
+	public ApiErrorResponseObjectMatcher withErrorMatching(int code, String locationType, String location, String messageRegex) {
+		getBuilder().withErrorMatching(code, locationType, location, messageRegex);
+		plan = null;
+		return this;
+	}
 
-		for (ApiError error : response.getErrors()) {
-			actualErrors.add(new ApiErrorResponseObjectMatcher.Error(error));
-		}
+	public ApiErrorResponseObjectMatcher withErrorMatching(IErrorCode code, String locationType, String location, String messageRegex) {
+		return withErrorMatching(code.getCode(), locationType, location, messageRegex);
+	}
 
-		// ensure all expected errors are there
-		for (final ApiErrorResponseObjectMatcher.ErrorExpectation expectedError : expectedErrors) {
+	/**
+	 * Expects the errors of a scenario of an {@link ErrorCatalog} of the classpath.
+	 *
+	 * @param catalog the path of the catalog on the classpath, e.g. <tt>users.errors.yml</tt>
+	 * @param scenario the key of the scenario
+	 * @return this matcher
+	 * @see ErrorResponsePlan.Builder#withErrorsFrom(String, String)
+	 */
+	public ApiErrorResponseObjectMatcher withErrorsFrom(String catalog, String scenario) {
+		getBuilder().withErrorsFrom(catalog, scenario);
+		plan = null;
+		return this;
+	}
 
-			boolean found = false;
-			for (final ApiErrorResponseObjectMatcher.Error actualError : actualErrors) {
-				if (expectedError.matches(actualError)) {
-					actualErrors.remove(actualError);
-					found = true;
-					break;
-				}
-			}
+	/**
+	 * Sets the bounds of the mismatch description (by default, long lists of errors are summarized
+	 * and the description is cut after 64k characters).
+	 *
+	 * @param descriptionLimits the bounds, e.g. {@link DescriptionLimits#unbounded()}
+	 * @return this matcher
+	 */
+	public ApiErrorResponseObjectMatcher withDescriptionLimits(DescriptionLimits descriptionLimits) {
+		this.descriptionLimits = descriptionLimits;
+		return this;
+	}
 
-			if (!found) {
-				unmetErrorExpectations.add(expectedError);
-			}
+	/**
+	 * Compiles the expectations of this matcher. Once all expectations have been added, the matcher
+	 * keeps no state between evaluations and can be shared by several threads; the returned plan can
+	 * also be used on its own.
+	 *
+	 * @return the compiled expectations
+	 */
+	public ErrorResponsePlan compile() {
+		ErrorResponsePlan compiled = plan;
+		if (compiled == null) {
+			compiled = builder.build();
+			plan = compiled;
 		}
+		return compiled;
+	}
 
-		return httpStatusCodeMatches && invalidErrors.isEmpty()
-				&& unmetErrorExpectations.isEmpty() && actualErrors.isEmpty();
+	@Override
+	public boolean matches(Object item) {
+		return compile().matches((ApiErrorResponse) item);
 	}
 
 	@Override
 	public void describeTo(Description description) {
-
-		description.appendText("JSON API error response");
-
-		if (expectedHttpStatusCode != null) {
-			description.appendText(" with HTTP status code " + expectedHttpStatusCode);
-		}
-
-		if (!expectedErrors.isEmpty()) {
-			description.appendValueList(" with " + expectedErrors.size() + " errors: ", ", ", "", expectedErrors);
-		}
+		compile().describeTo(description);
 	}
 
 	@Override
 	public void describeMismatch(Object item, Description description) {
+		compile().evaluate((ApiErrorResponse) item).describeMismatch(description, descriptionLimits);
+	}
 
-		if (!isNonNullResponse) {
-			description.appendText("response is null");
-			return;
-		}
-
-		description.appendText("response doesn't match");
-
-		if (!httpStatusCodeMatches) {
-			description.appendText(", has HTTP status code " + actualHttpStatusCode);
-		}
-
-		if (!invalidErrors.isEmpty()) {
-			description.appendValueList(", has " + invalidErrors.size() + " invalid errors (", ", ", ")", invalidErrors);
-		}
-
-		if (!unmetErrorExpectations.isEmpty()) {
-			description.appendValueList(", is missing " + unmetErrorExpectations.size() + " expected errors (", ", ", ")", unmetErrorExpectations);
-		}
-
-		if (!actualErrors.isEmpty()) {
-			description.appendValueList(", has " + actualErrors.size() + " additional unexpected errors (", ", ", ")", actualErrors);
+	private ErrorResponsePlan.Builder getBuilder() {
+		if (builder == null) {
+			throw new IllegalStateException("This matcher was created from a compiled plan and cannot be given additional expectations");
 		}
+		return builder;
 	}
 
 	protected static class Error {
@@ -185,6 +183,13 @@ public class ApiErrorResponseObjectMatcher extends BaseMatcher<ApiErrorResponse>
 			this.message = error.getMessage();
 		}
 
+		Error(Integer code, String locationType, String location, String message) {
+			this.code = code;
+			this.locationType = locationType;
+			this.location = location;
+			this.message = message;
+		}
+
 		public Integer getCode() {
 			return code;
 		}
@@ -220,79 +225,4 @@ public class ApiErrorResponseObjectMatcher extends BaseMatcher<ApiErrorResponse>
 			return builder.toString();
 		}
 	}
-
-	private static class ErrorExpectation {
-
-		private int code;
-		private String locationType;
-		private String location;
-		private String message;
-		private Pattern messagePattern;
-
-		public ErrorExpectation(int code, String locationType, String location, String message) {
-			this.code = code;
-			this.locationType = locationType;
-			this.location = location;
-			this.message = message;
-		}
-
-		public ErrorExpectation(int code, String locationType, String location, Pattern messagePattern) {
-			this.code = code;
-			this.locationType = locationType;
-			this.location = location;
-			this.messagePattern = messagePattern;
-		}
-
-		@Override
-		public String toString() {
-
-			final StringBuilder builder = new StringBuilder();
-			builder.append("code=").append(code);
-
-			if (locationType != null) {
-				builder.append(", locationType=").append(locationType);
-			} else {
-				builder.append(", no locationType");
-			}
-
-			if (location != null) {
-				builder.append(", location=").append(location);
-			} else {
-				builder.append(", no location");
-			}
-
-			if (message != null) {
-				builder.append(", message=").append(message);
-			} else if (messagePattern != null) {
-				builder.append(", message~=").append(messagePattern.toString());
-			} else {
-				builder.append(", non-blank message");
-			}
-
-			return builder.toString();
-		}
-
-		public boolean matches(ApiErrorResponseObjectMatcher.Error error) {
-
-			if (error.getCode() != null && code != error.getCode()) {
-				return false;
-			} 
-			
-			if (locationType != null ? !locationType.equals(error.getLocationType()) : error.getLocationType() != null) {
-				return false;
-			}
-			
-			if (location != null ? !location.equals(error.getLocation()) : error.getLocation() != null) {
-				return false;
-			}
-
-			if (message != null) {
-				return message.equals(error.getMessage());
-			} else if (messagePattern != null) {
-				return error.getMessage() != null && messagePattern.matcher(error.getMessage()).matches();
-			} else {
-				return error.getMessage() != null && !error.getMessage().isEmpty();
-			}
-		}
-	}
 }
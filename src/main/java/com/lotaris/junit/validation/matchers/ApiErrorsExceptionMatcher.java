@@ -23,14 +23,26 @@ public class ApiErrorsExceptionMatcher extends BaseMatcher<ApiErrorsException> {
 //		return new ApiErrorsExceptionMatcher(expectedHttpStatusCode);
 //	}
 	
+	public static ApiErrorsExceptionMatcher isApiErrorsException(ErrorResponsePlan plan) {
+		return new ApiErrorsExceptionMatcher(plan);
+	}
 	//</editor-fold>
-	private boolean hasErrorResponse;
-	private ApiErrorResponseObjectMatcher errorResponseMatcher;
+	private final ApiErrorResponseObjectMatcher errorResponseMatcher;
 
 	public ApiErrorsExceptionMatcher(int expectedHttpStatusCode) {
 		errorResponseMatcher = new ApiErrorResponseObjectMatcher(expectedHttpStatusCode);
 	}
 
+	/**
+	 * Constructs a matcher for an already compiled plan. Such a matcher is immutable and cannot be
+	 * given additional expectations.
+	 *
+	 * @param plan the compiled expectations of the error response
+	 */
+	public ApiErrorsExceptionMatcher(ErrorResponsePlan plan) {
+		errorResponseMatcher = new ApiErrorResponseObjectMatcher(plan);
+	}
+
 //	public ApiErrorsExceptionMatcher(EApiHttpStatusCodes expectedHttpStatusCode) {
 //		errorResponseMatcher = new ApiErrorResponseObjectMatcher(expectedHttpStatusCode);
 //	}
@@ -75,18 +87,55 @@ public class ApiErrorsExceptionMatcher extends BaseMatcher<ApiErrorsException> {
 		return this;
 	}
 
+	public ApiErrorsExceptionMatcher withErrorMatching(int code, String locationType, String location, String messageRegex) {
+		errorResponseMatcher.withErrorMatching(code, locationType, location, messageRegex);
+		return this;
+	}
+
+	public ApiErrorsExceptionMatcher withErrorMatching(IErrorCode code, String locationType, String location, String messageRegex) {
+		errorResponseMatcher.withErrorMatching(code.getCode(), locationType, location, messageRegex);
+		return this;
+	}
+
+	/**
+	 * Expects the errors of a scenario of an error catalog.
+	 *
+	 * @see ApiErrorResponseObjectMatcher#withErrorsFrom(String, String)
+	 */
+	public ApiErrorsExceptionMatcher withErrorsFrom(String catalog, String scenario) {
+		errorResponseMatcher.withErrorsFrom(catalog, scenario);
+		return this;
+	}
+
+	/**
+	 * Sets the bounds of the mismatch description.
+	 *
+	 * @see ApiErrorResponseObjectMatcher#withDescriptionLimits(DescriptionLimits)
+	 */
+	public ApiErrorsExceptionMatcher withDescriptionLimits(DescriptionLimits descriptionLimits) {
+		errorResponseMatcher.withDescriptionLimits(descriptionLimits);
+		return this;
+	}
+
+	/**
+	 * Compiles the expectations of this matcher.
+	 *
+	 * @return the compiled expectations of the error response
+	 * @see ApiErrorResponseObjectMatcher#compile()
+	 */
+	public ErrorResponsePlan compile() {
+		return errorResponseMatcher.compile();
+	}
+
 	@Override
 	public boolean matches(Object item) {
 
-		hasErrorResponse = true;
-
 		if (item == null) {
 			return false;
 		}
 
 		final ApiErrorsException exception = (ApiErrorsException) item;
 		if (exception.getErrorResponse() == null) {
-			hasErrorResponse = false;
 			return false;
 		}
 
@@ -101,7 +150,10 @@ public class ApiErrorsExceptionMatcher extends BaseMatcher<ApiErrorsException> {
 
 	@Override
 	public void describeMismatch(Object item, Description description) {
-		if (!hasErrorResponse) {
+		if (item == null) {
+			description.appendText("exception is null");
+			return;
+		} else if (((ApiErrorsException) item).getErrorResponse() == null) {
 			description.appendText("exception has no error response");
 			return;
 		}
@@ -0,0 +1,277 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+/**
+ * Table of assertions (actual value and matcher) evaluated together in parallel. Every row is
+ * evaluated, and all failures are reported at once in a single {@link AssertionError}.
+ *
+ * <pre>
+ * AssertionTable table = assertionTable();
+ * for (Fixture fixture : fixtures) {
+ *	table.row(fixture.getName(), resource.create(fixture.getRequest()), fixture.getExpectedPlan());
+ * }
+ * table.assertAll();
+ * </pre>
+ *
+ * <p>Rows are evaluated on a fork-join pool (by default one shared by all tables, with as many
+ * threads as processors). Mismatch descriptions are built in parallel too, only for the rows that
+ * fail. A matcher used in several rows is called from several threads: the matchers of this library
+ * are thread-safe once they have all their expectations.</p>
+ */
+public final class AssertionTable {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static AssertionTable assertionTable() {
+		return new AssertionTable();
+	}
+	//</editor-fold>
+
+	private final List<Row<?>> rows;
+	private ForkJoinPool pool;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public AssertionTable() {
+		rows = new ArrayList<>();
+	}
+	//</editor-fold>
+
+	/**
+	 * Adds an assertion to the table.
+	 *
+	 * @param name the name of the assertion in the report (e.g. the name of the fixture)
+	 * @param actual the value to check
+	 * @param matcher the matcher to check it with
+	 * @return this table
+	 */
+	public <T> AssertionTable row(String name, T actual, Matcher<? super T> matcher) {
+		rows.add(new Row<>(name, actual, matcher));
+		return this;
+	}
+
+	public AssertionTable row(String name, ApiErrorResponse response, ErrorResponsePlan plan) {
+		return row(name, response, new ApiErrorResponseObjectMatcher(plan));
+	}
+
+	/**
+	 * Sets the pool evaluating the rows (e.g. to limit the number of threads).
+	 */
+	public AssertionTable withPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	/**
+	 * Evaluates all rows.
+	 *
+	 * @return the report, with a failure for each row that did not match
+	 */
+	public Report evaluate() {
+
+		final Failure[] failures = new Failure[rows.size()];
+		if (!rows.isEmpty()) {
+			final ForkJoinPool evaluationPool = pool != null ? pool : DefaultPool.INSTANCE;
+			final int threshold = Math.max(1, rows.size() / (evaluationPool.getParallelism() * 4));
+			evaluationPool.invoke(new Evaluation(failures, 0, rows.size(), threshold));
+		}
+
+		final List<Failure> failed = new ArrayList<>();
+		for (Failure failure : failures) {
+			if (failure != null) {
+				failed.add(failure);
+			}
+		}
+
+		return new Report(rows.size(), failed);
+	}
+
+	/**
+	 * Evaluates all rows and fails if any of them did not match.
+	 *
+	 * @throws AssertionError describing every failed row
+	 */
+	public void assertAll() {
+		final Report report = evaluate();
+		if (!report.isSuccessful()) {
+			throw new AssertionError(report.toString());
+		}
+	}
+
+	/**
+	 * Evaluates a range of rows, splitting it while it is larger than the threshold.
+	 */
+	private class Evaluation extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Failure[] failures;
+		private final int from;
+		private final int to;
+		private final int threshold;
+
+		public Evaluation(Failure[] failures, int from, int to, int threshold) {
+			this.failures = failures;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > threshold) {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new Evaluation(failures, from, middle, threshold), new Evaluation(failures, middle, to, threshold));
+				return;
+			}
+
+			for (int i = from; i < to; i++) {
+				failures[i] = rows.get(i).evaluate(i);
+			}
+		}
+	}
+
+	static final class Row<T> {
+
+		private final String name;
+		private final T actual;
+		private final Matcher<? super T> matcher;
+
+		public Row(String name, T actual, Matcher<? super T> matcher) {
+			this.name = name;
+			this.actual = actual;
+			this.matcher = matcher;
+		}
+
+		/**
+		 * @return the failure, or null if the value matches
+		 */
+		public Failure evaluate(int index) {
+			try {
+				if (matcher.matches(actual)) {
+					return null;
+				}
+
+				final StringDescription description = new StringDescription();
+				description.appendText("Expected: ").appendDescriptionOf(matcher).appendText("\n     but: ");
+				matcher.describeMismatch(actual, description);
+				return new Failure(index, name, description.toString(), null);
+			} catch (RuntimeException | Error e) {
+				return new Failure(index, name, "Evaluation failed: " + e, e);
+			}
+		}
+	}
+
+	/**
+	 * A row that did not match.
+	 */
+	public static final class Failure {
+
+		private final int index;
+		private final String name;
+		private final String message;
+		private final Throwable cause;
+
+		Failure(int index, String name, String message, Throwable cause) {
+			this.index = index;
+			this.name = name;
+			this.message = message;
+			this.cause = cause;
+		}
+
+		/**
+		 * Returns the position of the row in the table.
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the expected and actual descriptions, in the format of <tt>assertThat</tt>.
+		 */
+		public String getMessage() {
+			return message;
+		}
+
+		/**
+		 * Returns the exception thrown by the matcher, if any.
+		 */
+		public Throwable getCause() {
+			return cause;
+		}
+
+		@Override
+		public String toString() {
+			return "[" + (name != null ? name : "#" + index) + "] " + message;
+		}
+	}
+
+	/**
+	 * Result of the evaluation of a table.
+	 */
+	public static final class Report {
+
+		private final int rowCount;
+		private final List<Failure> failures;
+
+		Report(int rowCount, List<Failure> failures) {
+			this.rowCount = rowCount;
+			this.failures = Collections.unmodifiableList(failures);
+		}
+
+		public int getRowCount() {
+			return rowCount;
+		}
+
+		public int getFailureCount() {
+			return failures.size();
+		}
+
+		/**
+		 * Returns the failed rows, in table order.
+		 */
+		public List<Failure> getFailures() {
+			return failures;
+		}
+
+		public boolean isSuccessful() {
+			return failures.isEmpty();
+		}
+
+		@Override
+		public String toString() {
+			if (failures.isEmpty()) {
+				return "All " + rowCount + " assertions passed";
+			}
+
+			final StringBuilder builder = new StringBuilder();
+			builder.append(failures.size()).append(" of ").append(rowCount).append(" assertions failed:");
+			for (Failure failure : failures) {
+				builder.append("\n\n").append(failure);
+			}
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * Pool shared by the tables without a pool of their own, created on first use.
+	 */
+	private static final class DefaultPool {
+
+		private static final ForkJoinPool INSTANCE = new ForkJoinPool();
+	}
+}
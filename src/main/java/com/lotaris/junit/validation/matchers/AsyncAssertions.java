@@ -0,0 +1,308 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiErrorsException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+/**
+ * Assertions on the outcome of asynchronous operations (futures or completion stages), checked when
+ * the operations complete instead of blocking a thread on each of them, and awaited together.
+ *
+ * <pre>
+ * AsyncAssertions assertions = asyncAssertions();
+ * for (Fixture fixture : fixtures) {
+ *	assertions.assertThat(fixture.getName(), resource.createAsync(fixture.getRequest()), fixture.getExpectedPlan());
+ * }
+ * assertions.assertAll(10, TimeUnit.SECONDS);
+ * </pre>
+ *
+ * <p>When an operation fails, its exception is unwrapped from <tt>ExecutionException</tt>s and
+ * <tt>CompletionException</tt>s and given to the matcher, so that an {@link ApiErrorsExceptionMatcher}
+ * sees the <tt>ApiErrorsException</tt> itself. With an {@link ErrorResponsePlan}, the operation may
+ * either complete with an <tt>ApiErrorResponse</tt> or fail with an <tt>ApiErrorsException</tt>.</p>
+ *
+ * <p>Completion stages (Java 8 or later) are checked from the thread that completes them. Plain
+ * futures cannot notify their completion: they are watched by a single polling thread shared by all
+ * assertions, so thousands of assertions in flight use no thread of their own. Assertions can be
+ * added from several threads.</p>
+ */
+public final class AsyncAssertions {
+
+	private static final Class<?> COMPLETION_STAGE = findClass("java.util.concurrent.CompletionStage");
+	private static final Class<?> BI_CONSUMER = findClass("java.util.function.BiConsumer");
+	private static final Method WHEN_COMPLETE = findWhenComplete();
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static AsyncAssertions asyncAssertions() {
+		return new AsyncAssertions();
+	}
+	//</editor-fold>
+
+	private final List<Assertion> assertions;
+	private int completed;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public AsyncAssertions() {
+		assertions = new ArrayList<>();
+	}
+	//</editor-fold>
+
+	/**
+	 * Checks the outcome of an operation when it completes.
+	 *
+	 * @param name the name of the assertion in the report
+	 * @param completion a {@link Future} or a <tt>CompletionStage</tt>
+	 * @param matcher the matcher of the value of the operation, or of its exception if it fails
+	 * @return this object
+	 * @throws IllegalArgumentException if the completion is neither a future nor a completion stage
+	 */
+	public AsyncAssertions assertThat(String name, Object completion, Matcher<?> matcher) {
+		final Assertion assertion = add(name, matcher, null);
+		attach(completion, assertion);
+		return this;
+	}
+
+	/**
+	 * Checks that an operation completes with an error response, or fails with an
+	 * <tt>ApiErrorsException</tt>, meeting the expectations of a plan.
+	 *
+	 * @param name the name of the assertion in the report
+	 * @param completion a {@link Future} or a <tt>CompletionStage</tt>
+	 * @param plan the expected error response
+	 * @return this object
+	 * @throws IllegalArgumentException if the completion is neither a future nor a completion stage
+	 */
+	public AsyncAssertions assertThat(String name, Object completion, ErrorResponsePlan plan) {
+		final Assertion assertion = add(name, new ApiErrorResponseObjectMatcher(plan), new ApiErrorsExceptionMatcher(plan));
+		attach(completion, assertion);
+		return this;
+	}
+
+	/**
+	 * Returns the number of assertions.
+	 */
+	public synchronized int size() {
+		return assertions.size();
+	}
+
+	/**
+	 * Returns the number of assertions whose operation has not completed yet.
+	 */
+	public synchronized int getPendingCount() {
+		return assertions.size() - completed;
+	}
+
+	/**
+	 * Waits until all operations have completed, or the timeout has elapsed, and reports the
+	 * assertions that failed or whose operation did not complete in time.
+	 *
+	 * @param timeout the maximum time to wait for all operations
+	 * @param unit the unit of the timeout
+	 * @return the report, in the order the assertions were added
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public AssertionTable.Report await(long timeout, TimeUnit unit) throws InterruptedException {
+
+		final List<Assertion> awaited;
+		synchronized (this) {
+			final long deadline = System.nanoTime() + unit.toNanos(timeout);
+			long remaining = unit.toNanos(timeout);
+			while (completed < assertions.size() && remaining > 0) {
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				remaining = deadline - System.nanoTime();
+			}
+			awaited = new ArrayList<>(assertions);
+		}
+
+		final List<AssertionTable.Failure> failures = new ArrayList<>();
+		for (int i = 0; i < awaited.size(); i++) {
+			final AssertionTable.Failure failure = awaited.get(i).getFailure(i, timeout, unit);
+			if (failure != null) {
+				failures.add(failure);
+			}
+		}
+
+		return new AssertionTable.Report(awaited.size(), failures);
+	}
+
+	/**
+	 * Waits for all operations and fails if any assertion failed or any operation did not complete in
+	 * time.
+	 *
+	 * @param timeout the maximum time to wait for all operations
+	 * @param unit the unit of the timeout
+	 * @throws AssertionError describing all failures
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public void assertAll(long timeout, TimeUnit unit) throws InterruptedException {
+		final AssertionTable.Report report = await(timeout, unit);
+		if (!report.isSuccessful()) {
+			throw new AssertionError(report.toString());
+		}
+	}
+
+	private synchronized Assertion add(String name, Matcher<?> matcher, Matcher<?> exceptionMatcher) {
+		final Assertion assertion = new Assertion(name, matcher, exceptionMatcher);
+		assertions.add(assertion);
+		return assertion;
+	}
+
+	private synchronized void completed() {
+		completed++;
+		if (completed == assertions.size()) {
+			notifyAll();
+		}
+	}
+
+	private void attach(Object completion, final Assertion assertion) {
+
+		if (COMPLETION_STAGE != null && COMPLETION_STAGE.isInstance(completion)) {
+			final Object action = Proxy.newProxyInstance(AsyncAssertions.class.getClassLoader(), new Class<?>[]{BI_CONSUMER}, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) {
+					switch (method.getName()) {
+						case "accept":
+							assertion.complete(args[0], (Throwable) args[1]);
+							return null;
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "toString":
+							return "completion of " + assertion;
+						default:
+							throw new UnsupportedOperationException(method.getName());
+					}
+				}
+			});
+
+			try {
+				WHEN_COMPLETE.invoke(completion, action);
+			} catch (ReflectiveOperationException roe) {
+				throw new IllegalStateException("Cannot attach to completion stage " + completion, roe);
+			}
+		} else if (completion instanceof Future) {
+			final Future<?> future = (Future<?>) completion;
+			if (future.isDone()) {
+				complete(future, assertion);
+			} else {
+				FuturePoller.watch(future, assertion);
+			}
+		} else {
+			throw new IllegalArgumentException("Expected a Future or a CompletionStage, got " + completion);
+		}
+	}
+
+	private static void complete(Future<?> future, Assertion assertion) {
+		try {
+			assertion.complete(future.get(), null);
+		} catch (ExecutionException ee) {
+			assertion.complete(null, ee);
+		} catch (RuntimeException | InterruptedException e) {
+			assertion.complete(null, e);
+		}
+	}
+
+	/**
+	 * Unwraps the exception of a failed operation from the exceptions added by futures and completion
+	 * stages.
+	 */
+	private static Throwable unwrap(Throwable failure) {
+		Throwable unwrapped = failure;
+		while (unwrapped.getCause() != null && (unwrapped instanceof ExecutionException || "java.util.concurrent.CompletionException".equals(unwrapped.getClass().getName()))) {
+			unwrapped = unwrapped.getCause();
+		}
+		return unwrapped;
+	}
+
+	private static Class<?> findClass(String name) {
+		try {
+			return Class.forName(name);
+		} catch (ClassNotFoundException cnfe) {
+			return null;
+		}
+	}
+
+	private static Method findWhenComplete() {
+		try {
+			return COMPLETION_STAGE != null ? COMPLETION_STAGE.getMethod("whenComplete", BI_CONSUMER) : null;
+		} catch (NoSuchMethodException nsme) {
+			return null;
+		}
+	}
+
+	/**
+	 * An assertion and the outcome of its operation.
+	 */
+	private final class Assertion implements FuturePoller.Callback {
+
+		private final String name;
+		private final Matcher<?> matcher;
+		private final Matcher<?> exceptionMatcher;
+		private volatile boolean done;
+		private volatile boolean abandoned;
+		private volatile AssertionTable.Failure failure;
+
+		public Assertion(String name, Matcher<?> matcher, Matcher<?> exceptionMatcher) {
+			this.name = name;
+			this.matcher = matcher;
+			this.exceptionMatcher = exceptionMatcher;
+		}
+
+		@Override
+		public void complete(Object value, Throwable exception) {
+
+			if (done) {
+				return;
+			}
+
+			final Throwable unwrapped = exception != null ? unwrap(exception) : null;
+			final Object actual = unwrapped != null ? unwrapped : value;
+			@SuppressWarnings("unchecked")
+			final Matcher<Object> used = (Matcher<Object>) (unwrapped instanceof ApiErrorsException && exceptionMatcher != null ? exceptionMatcher : matcher);
+
+			AssertionTable.Failure result = new AssertionTable.Row<>(name, actual, used).evaluate(-1);
+			if (result != null && result.getCause() instanceof ClassCastException) {
+				// the matcher does not accept this kind of outcome
+				final StringDescription description = new StringDescription();
+				description.appendText("Expected: ").appendDescriptionOf(used).appendText("\n     but: ");
+				description.appendText(unwrapped != null ? "failed with " + unwrapped : "completed with " + value);
+				result = new AssertionTable.Failure(-1, name, description.toString(), unwrapped);
+			}
+
+			failure = result;
+			done = true;
+			completed();
+		}
+
+		@Override
+		public boolean isAwaited() {
+			return !abandoned;
+		}
+
+		/**
+		 * @return the failure of this assertion (at the specified index), or null if it passed
+		 */
+		public AssertionTable.Failure getFailure(int index, long timeout, TimeUnit unit) {
+			if (!done) {
+				abandoned = true;
+				return new AssertionTable.Failure(index, name, "Did not complete within " + timeout + " " + unit.toString().toLowerCase(), null);
+			}
+			final AssertionTable.Failure result = failure;
+			return result != null ? new AssertionTable.Failure(index, name, result.getMessage(), result.getCause()) : null;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
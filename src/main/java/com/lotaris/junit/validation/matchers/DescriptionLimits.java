@@ -0,0 +1,86 @@
+package com.lotaris.junit.validation.matchers;
+
+/**
+ * Bounds of the mismatch description of an error response. Lists of missing or unexpected errors
+ * longer than the number of examples are summarized: counts grouped by code and location type, the
+ * first examples (with the closest actual error of each missing one) and the number of errors left
+ * out. The whole description is cut at a maximum length.
+ *
+ * <p>Limits are immutable; the <tt>with</tt> methods return new limits.</p>
+ */
+public final class DescriptionLimits {
+
+	private static final DescriptionLimits DEFAULTS = new DescriptionLimits(10, 10, 64 * 1024);
+	private static final DescriptionLimits UNBOUNDED = new DescriptionLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	/**
+	 * Returns the default limits: up to 10 errors are listed in full, longer lists are summarized
+	 * with 10 examples and the 10 largest groups, and the description is cut after 64k characters.
+	 */
+	public static DescriptionLimits defaults() {
+		return DEFAULTS;
+	}
+
+	/**
+	 * Returns limits that list every error, however many there are.
+	 */
+	public static DescriptionLimits unbounded() {
+		return UNBOUNDED;
+	}
+	//</editor-fold>
+
+	private final int maxExamples;
+	private final int maxGroups;
+	private final int maxLength;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private DescriptionLimits(int maxExamples, int maxGroups, int maxLength) {
+		this.maxExamples = maxExamples;
+		this.maxGroups = maxGroups;
+		this.maxLength = maxLength;
+	}
+	//</editor-fold>
+
+	/**
+	 * Sets how many errors of a list are described: longer lists are summarized.
+	 */
+	public DescriptionLimits withExamples(int maxExamples) {
+		checkPositive("examples", maxExamples);
+		return new DescriptionLimits(maxExamples, maxGroups, maxLength);
+	}
+
+	/**
+	 * Sets how many groups (code and location type) of a summarized list are counted.
+	 */
+	public DescriptionLimits withGroups(int maxGroups) {
+		checkPositive("groups", maxGroups);
+		return new DescriptionLimits(maxExamples, maxGroups, maxLength);
+	}
+
+	/**
+	 * Sets the number of characters after which the description is cut.
+	 */
+	public DescriptionLimits withMaxLength(int maxLength) {
+		checkPositive("length", maxLength);
+		return new DescriptionLimits(maxExamples, maxGroups, maxLength);
+	}
+
+	public int getMaxExamples() {
+		return maxExamples;
+	}
+
+	public int getMaxGroups() {
+		return maxGroups;
+	}
+
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	private static void checkPositive(String name, int value) {
+		if (value < 1) {
+			throw new IllegalArgumentException("Maximum " + name + " must be positive, got " + value);
+		}
+	}
+}
@@ -0,0 +1,339 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.junit.validation.matchers.ApiErrorResponseObjectMatcher.Error;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns the actual errors of an API error response to error expectations so that as many
+ * expectations as possible are met, each actual error being used at most once.
+ *
+ * <p>Actual errors are bucketed by code, location type and location (and message for expectations
+ * with a literal message). Expectations with a literal message are met directly from their bucket.
+ * The remaining expectations (message pattern or any non-blank message) are assigned with a maximum
+ * bipartite matching (Hopcroft-Karp) restricted to the errors of their bucket, so that a loose
+ * expectation never takes an error that a more specific one needed. Message patterns are
+ * evaluated once per distinct message (see {@link MessagePatterns}).</p>
+ */
+final class ErrorAssignment {
+
+	private static final int INFINITY = Integer.MAX_VALUE;
+	private static final int[] NO_CANDIDATES = new int[0];
+
+	private final List<ErrorExpectation> unmetExpectations;
+	private final List<Error> unexpectedErrors;
+
+	private ErrorAssignment(List<ErrorExpectation> unmetExpectations, List<Error> unexpectedErrors) {
+		this.unmetExpectations = unmetExpectations;
+		this.unexpectedErrors = unexpectedErrors;
+	}
+
+	/**
+	 * Assigns the specified actual errors to the expectations of the specified plan.
+	 *
+	 * @param plan the compiled expectations
+	 * @param errors the actual errors
+	 * @return the assignment, with the expectations that could not be met and the errors that were
+	 * not expected (both in their original order)
+	 */
+	static ErrorAssignment assign(ErrorResponsePlan plan, List<Error> errors) {
+
+		final List<ErrorExpectation> expectations = plan.getExpectations();
+		final int errorCount = errors.size();
+		final boolean[] assigned = new boolean[errorCount];
+
+		// bucket actual errors by code, location type, location and message
+		final Map<ErrorKey, ArrayDeque<Integer>> exactBuckets = new HashMap<>();
+		for (int i = 0; i < errorCount; i++) {
+			final Error error = errors.get(i);
+			if (error.getCode() != null) {
+				final ErrorKey key = new ErrorKey(error.getCode(), error.getLocationType(), error.getLocation(), error.getMessage());
+				ArrayDeque<Integer> bucket = exactBuckets.get(key);
+				if (bucket == null) {
+					bucket = new ArrayDeque<>();
+					exactBuckets.put(key, bucket);
+				}
+				bucket.add(i);
+			}
+		}
+
+		// meet expectations with a literal message directly from their bucket; all errors in a bucket
+		// are interchangeable, so this never prevents a maximum assignment
+		final boolean[] met = new boolean[expectations.size()];
+		for (int i = 0; i < expectations.size(); i++) {
+			final ErrorKey key = plan.getExactKey(i);
+			if (key != null) {
+				final ArrayDeque<Integer> bucket = exactBuckets.get(key);
+				if (bucket != null && !bucket.isEmpty()) {
+					assigned[bucket.poll()] = true;
+					met[i] = true;
+				}
+			}
+		}
+
+		return complete(plan, met, errors, assigned);
+	}
+
+	/**
+	 * Completes an assignment in which some expectations have already been met (typically by a
+	 * bucket lookup): the remaining expectations are assigned to the remaining errors with a maximum
+	 * matching.
+	 *
+	 * @param plan the compiled expectations
+	 * @param met the expectations already met (updated by this method)
+	 * @param errors the actual errors
+	 * @param assigned the errors already assigned (updated by this method)
+	 * @return the assignment
+	 */
+	static ErrorAssignment complete(ErrorResponsePlan plan, boolean[] met, List<Error> errors, boolean[] assigned) {
+		return complete(plan, met, errors, assigned, plan.newMessageMatches());
+	}
+
+	/**
+	 * Completes an assignment, reusing the message pattern results of the current evaluation.
+	 *
+	 * @see #complete(ErrorResponsePlan, boolean[], List, boolean[])
+	 */
+	static ErrorAssignment complete(ErrorResponsePlan plan, boolean[] met, List<Error> errors, boolean[] assigned, MessagePatterns.Matches messageMatches) {
+
+		final List<ErrorExpectation> expectations = plan.getExpectations();
+
+		// expectations with a literal message that were not met by lookup, then the other
+		// expectations, most specific first
+		final List<Integer> flexible = new ArrayList<>();
+		for (int i = 0; i < met.length; i++) {
+			if (!met[i] && plan.getExactKey(i) != null) {
+				flexible.add(i);
+			}
+		}
+		for (int i : plan.getFlexibleOrder()) {
+			if (!met[i]) {
+				flexible.add(i);
+			}
+		}
+
+		if (!flexible.isEmpty()) {
+			assignFlexible(plan, flexible, errors, assigned, met, messageMatches);
+		}
+
+		final List<ErrorExpectation> unmet = new ArrayList<>();
+		for (int i = 0; i < met.length; i++) {
+			if (!met[i]) {
+				unmet.add(expectations.get(i));
+			}
+		}
+
+		final List<Error> unexpected = new ArrayList<>();
+		for (int i = 0; i < errors.size(); i++) {
+			if (!assigned[i]) {
+				unexpected.add(errors.get(i));
+			}
+		}
+
+		return new ErrorAssignment(unmet, unexpected);
+	}
+
+	public List<ErrorExpectation> getUnmetExpectations() {
+		return unmetExpectations;
+	}
+
+	public List<Error> getUnexpectedErrors() {
+		return unexpectedErrors;
+	}
+
+	/**
+	 * Assigns the remaining errors to the expectations that cannot be met by a bucket lookup alone.
+	 * Flexible expectations that are met get their flag set in <tt>met</tt>; assigned errors are
+	 * flagged in <tt>assigned</tt>.
+	 */
+	private static void assignFlexible(ErrorResponsePlan plan, List<Integer> flexible, List<Error> errors, boolean[] assigned, boolean[] met, MessagePatterns.Matches messageMatches) {
+
+		final List<ErrorExpectation> expectations = plan.getExpectations();
+
+		// bucket the remaining errors by code, location type and location; errors without a code can
+		// meet an expectation with any code
+		final Map<ErrorKey, List<Integer>> buckets = new HashMap<>();
+		for (int i = 0; i < errors.size(); i++) {
+			if (!assigned[i]) {
+				final Error error = errors.get(i);
+				final ErrorKey key = new ErrorKey(error.getCode(), error.getLocationType(), error.getLocation(), null);
+				List<Integer> bucket = buckets.get(key);
+				if (bucket == null) {
+					bucket = new ArrayList<>();
+					buckets.put(key, bucket);
+				}
+				bucket.add(i);
+			}
+		}
+
+		// build the candidate errors of each flexible expectation
+		final int n = flexible.size();
+		final int[][] candidates = new int[n][];
+		for (int i = 0; i < n; i++) {
+
+			final int index = flexible.get(i);
+			final ErrorExpectation expectation = expectations.get(index);
+			final List<Integer> coded = buckets.get(new ErrorKey(expectation.getCode(), expectation.getLocationType(), expectation.getLocation(), null));
+			final List<Integer> uncoded = buckets.get(new ErrorKey(null, expectation.getLocationType(), expectation.getLocation(), null));
+
+			final int max = (coded != null ? coded.size() : 0) + (uncoded != null ? uncoded.size() : 0);
+			if (max == 0) {
+				candidates[i] = NO_CANDIDATES;
+				continue;
+			}
+
+			final int[] matching = new int[max];
+			int count = collectCandidates(plan, index, coded, errors, matching, 0, messageMatches);
+			count = collectCandidates(plan, index, uncoded, errors, matching, count, messageMatches);
+			candidates[i] = count == max ? matching : Arrays.copyOf(matching, count);
+		}
+
+		final int[] assignment = maximumMatching(candidates, errors.size());
+		for (int i = 0; i < n; i++) {
+			if (assignment[i] >= 0) {
+				met[flexible.get(i)] = true;
+				assigned[assignment[i]] = true;
+			}
+		}
+	}
+
+	private static int collectCandidates(ErrorResponsePlan plan, int expectation, List<Integer> bucket, List<Error> errors, int[] candidates, int offset, MessagePatterns.Matches messageMatches) {
+		if (bucket == null) {
+			return offset;
+		}
+
+		int count = offset;
+		for (Integer index : bucket) {
+			if (plan.matches(expectation, errors.get(index), messageMatches)) {
+				candidates[count++] = index;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Computes a maximum bipartite matching with the Hopcroft-Karp algorithm, starting from a greedy
+	 * matching. Depth-first searches are iterative so that long augmenting paths in large responses
+	 * cannot overflow the stack.
+	 *
+	 * @param candidates the candidate right vertices of each left vertex
+	 * @param rightCount the number of right vertices
+	 * @return the right vertex matched to each left vertex, or -1 if unmatched
+	 */
+	static int[] maximumMatching(int[][] candidates, int rightCount) {
+
+		final int leftCount = candidates.length;
+		final int[] matchLeft = new int[leftCount];
+		final int[] matchRight = new int[rightCount];
+		Arrays.fill(matchLeft, -1);
+		Arrays.fill(matchRight, -1);
+
+		// greedy initialization, which usually leaves little or nothing for the augmenting phases
+		int unmatched = 0;
+		for (int u = 0; u < leftCount; u++) {
+			for (int v : candidates[u]) {
+				if (matchRight[v] < 0) {
+					matchLeft[u] = v;
+					matchRight[v] = u;
+					break;
+				}
+			}
+			if (matchLeft[u] < 0 && candidates[u].length > 0) {
+				unmatched++;
+			}
+		}
+
+		if (unmatched == 0) {
+			return matchLeft;
+		}
+
+		final int[] distance = new int[leftCount];
+		final int[] queue = new int[leftCount];
+		final int[] next = new int[leftCount];
+		final int[] via = new int[leftCount];
+		final int[] stack = new int[leftCount];
+
+		while (layer(candidates, matchLeft, matchRight, distance, queue)) {
+
+			Arrays.fill(next, 0);
+
+			for (int root = 0; root < leftCount; root++) {
+				if (matchLeft[root] >= 0 || candidates[root].length == 0) {
+					continue;
+				}
+
+				// iterative depth-first search for an augmenting path along the layers
+				int depth = 0;
+				stack[depth++] = root;
+				while (depth > 0) {
+
+					final int u = stack[depth - 1];
+					if (next[u] >= candidates[u].length) {
+						distance[u] = INFINITY;
+						depth--;
+						continue;
+					}
+
+					final int v = candidates[u][next[u]++];
+					final int w = matchRight[v];
+					if (w < 0) {
+
+						// augment along the path on the stack
+						via[u] = v;
+						for (int i = 0; i < depth; i++) {
+							final int left = stack[i];
+							matchLeft[left] = via[left];
+							matchRight[via[left]] = left;
+						}
+						break;
+					} else if (distance[w] != INFINITY && distance[w] == distance[u] + 1) {
+						via[u] = v;
+						stack[depth++] = w;
+					}
+				}
+			}
+		}
+
+		return matchLeft;
+	}
+
+	/**
+	 * Breadth-first layering of the left vertices from the free ones.
+	 *
+	 * @return true if an augmenting path exists
+	 */
+	private static boolean layer(int[][] candidates, int[] matchLeft, int[] matchRight, int[] distance, int[] queue) {
+
+		int head = 0;
+		int tail = 0;
+		for (int u = 0; u < candidates.length; u++) {
+			if (matchLeft[u] < 0 && candidates[u].length > 0) {
+				distance[u] = 0;
+				queue[tail++] = u;
+			} else {
+				distance[u] = INFINITY;
+			}
+		}
+
+		boolean found = false;
+		while (head < tail) {
+			final int u = queue[head++];
+			for (int v : candidates[u]) {
+				final int w = matchRight[v];
+				if (w < 0) {
+					found = true;
+				} else if (distance[w] == INFINITY) {
+					distance[w] = distance[u] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+
+		return found;
+	}
+}
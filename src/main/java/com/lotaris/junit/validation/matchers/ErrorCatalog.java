@@ -0,0 +1,553 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Expected errors of test scenarios, read from a YAML or JSON file on the classpath (e.g. under
+ * <tt>src/test/resources</tt>) instead of long <tt>withError</tt> chains repeated in test classes.
+ *
+ * <pre>
+ * # src/test/resources/users.errors.yml
+ * createUser.missingName:
+ *   httpStatusCode: 422
+ *   errors:
+ *     - code: 1001
+ *       locationType: json
+ *       location: /name
+ *       message: name is required
+ *     - code: 1002
+ *       locationType: json
+ *       location: /email
+ *       messagePattern: email .* is invalid
+ *
+ * assertThat(response, isApiErrorResponseObject(422).withErrorsFrom("users.errors.yml", "createUser.missingName"));
+ * </pre>
+ *
+ * <p>Each error has a <tt>code</tt> and optionally a <tt>locationType</tt>, a <tt>location</tt>, and
+ * either a literal <tt>message</tt>, a <tt>messagePattern</tt> or <tt>anyMessage: true</tt> (without
+ * any of them, a non-blank message is expected). The optional <tt>httpStatusCode</tt> of a scenario
+ * is checked against the status code of the matcher. A JSON catalog (<tt>.json</tt>) has the same
+ * structure, an object of scenarios, and is read with JSON-P (an implementation such as
+ * <tt>org.glassfish:javax.json</tt> must be on the test classpath). YAML catalogs (<tt>.yml</tt> or
+ * <tt>.yaml</tt>) are read in block style, as <tt>rox.yml</tt>, with plain, single-quoted or
+ * double-quoted scalars and comments.</p>
+ *
+ * <p>Catalogs are read in a single streaming pass the first time they are used, and indexed by
+ * scenario key. Each catalog is read once per JVM: all the tests share the same copy.</p>
+ */
+public final class ErrorCatalog {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final ConcurrentMap<String, LazyCatalog> CATALOGS = new ConcurrentHashMap<>();
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	/**
+	 * Returns a catalog of the classpath, reading it the first time.
+	 *
+	 * @param resource the path of the catalog on the classpath, e.g. <tt>users.errors.yml</tt>
+	 * @return the catalog
+	 * @throws IllegalArgumentException if the catalog does not exist or cannot be read
+	 */
+	public static ErrorCatalog get(String resource) {
+		final String path = resource.startsWith("/") ? resource.substring(1) : resource;
+		LazyCatalog catalog = CATALOGS.get(path);
+		if (catalog == null) {
+			final LazyCatalog created = new LazyCatalog(path);
+			catalog = CATALOGS.putIfAbsent(path, created);
+			if (catalog == null) {
+				catalog = created;
+			}
+		}
+		return catalog.get();
+	}
+
+	/**
+	 * Reads a catalog, which is not cached.
+	 *
+	 * @param name the name of the catalog, ending with <tt>.json</tt> for a JSON catalog
+	 * @param reader the content of the catalog, which is closed
+	 * @return the catalog
+	 * @throws IOException if the content cannot be read or is not a valid catalog
+	 */
+	public static ErrorCatalog read(String name, Reader reader) throws IOException {
+		try (Reader source = reader) {
+			final Map<String, Scenario> scenarios = name.endsWith(".json") ? JsonCatalogReader.read(name, source) : readYaml(name, source);
+			return new ErrorCatalog(name, scenarios);
+		}
+	}
+	//</editor-fold>
+
+	private final String name;
+	private final Map<String, Scenario> scenarios;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ErrorCatalog(String name, Map<String, Scenario> scenarios) {
+		this.name = name;
+		this.scenarios = scenarios;
+	}
+	//</editor-fold>
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the keys of the scenarios of this catalog, sorted.
+	 */
+	public Set<String> getScenarioKeys() {
+		return Collections.unmodifiableSet(new TreeSet<>(scenarios.keySet()));
+	}
+
+	public boolean contains(String key) {
+		return scenarios.containsKey(key);
+	}
+
+	/**
+	 * Returns a scenario of this catalog.
+	 *
+	 * @param key the key of the scenario
+	 * @return the scenario
+	 * @throws IllegalArgumentException if the catalog has no such scenario
+	 */
+	public Scenario getScenario(String key) {
+		final Scenario scenario = scenarios.get(key);
+		if (scenario == null) {
+			throw new IllegalArgumentException("Error catalog " + name + " has no scenario " + key + " (scenarios: " + getScenarioKeys() + ")");
+		}
+		return scenario;
+	}
+
+	@Override
+	public String toString() {
+		return "error catalog " + name + " with " + scenarios.size() + " scenarios";
+	}
+
+	/**
+	 * Reads the block style YAML subset of catalogs, one line at a time.
+	 */
+	private static Map<String, Scenario> readYaml(String name, Reader reader) throws IOException {
+
+		final Map<String, Scenario> scenarios = new HashMap<>();
+		final BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+		ScenarioReader scenario = null;
+		boolean inErrors = false;
+		int errorsIndent = -1;
+		int errorIndent = -1;
+		int lineNumber = 0;
+
+		String line;
+		while ((line = lines.readLine()) != null) {
+			lineNumber++;
+
+			final String content = stripComment(line);
+			if (content.trim().isEmpty() || content.startsWith("---")) {
+				continue;
+			}
+
+			String entry = content.trim();
+			try {
+				final int indent = indentOf(content);
+				if (indent == 0) {
+					// a new scenario
+					if (scenario != null) {
+						add(scenarios, scenario.build());
+					}
+					final String[] pair = splitPair(entry);
+					if (pair == null || pair[1] != null) {
+						throw new IllegalArgumentException("expected a scenario key followed by ':'");
+					}
+					scenario = new ScenarioReader(name, pair[0]);
+					inErrors = false;
+					errorIndent = -1;
+				} else if (scenario == null) {
+					throw new IllegalArgumentException("expected a scenario key at the start of the line");
+				} else if (entry.startsWith("-")) {
+					// a new error
+					if (!inErrors || indent < errorsIndent) {
+						throw new IllegalArgumentException("unexpected list item outside of errors");
+					}
+					scenario.startError();
+					entry = entry.substring(1).trim();
+					if (entry.isEmpty()) {
+						errorIndent = indent + 1;
+					} else {
+						// the properties of the error are aligned with the first one
+						errorIndent = content.indexOf(entry.charAt(0), indent + 1);
+						setErrorField(scenario, entry);
+					}
+				} else if (errorIndent >= 0 && indent >= errorIndent) {
+					setErrorField(scenario, entry);
+				} else {
+					final String[] pair = splitPair(entry);
+					if (pair == null) {
+						throw new IllegalArgumentException("expected 'key: value'");
+					}
+					errorIndent = -1;
+					if ("errors".equals(pair[0])) {
+						if (pair[1] != null && !"[]".equals(pair[1])) {
+							throw new IllegalArgumentException("expected errors as a list of items starting with '-'");
+						}
+						inErrors = pair[1] == null;
+						errorsIndent = indent;
+					} else {
+						inErrors = false;
+						scenario.setField(pair[0], pair[1]);
+					}
+				}
+			} catch (IllegalArgumentException iae) {
+				throw new IOException(name + ", line " + lineNumber + ": " + iae.getMessage(), iae);
+			}
+		}
+
+		if (scenario != null) {
+			try {
+				add(scenarios, scenario.build());
+			} catch (IllegalArgumentException iae) {
+				throw new IOException(name + ", line " + lineNumber + ": " + iae.getMessage(), iae);
+			}
+		}
+
+		return scenarios;
+	}
+
+	private static void setErrorField(ScenarioReader scenario, String entry) {
+		final String[] pair = splitPair(entry);
+		if (pair == null) {
+			throw new IllegalArgumentException("expected 'key: value'");
+		}
+		scenario.setErrorField(pair[0], pair[1]);
+	}
+
+	static void add(Map<String, Scenario> scenarios, Scenario scenario) {
+		if (scenarios.put(scenario.getKey(), scenario) != null) {
+			throw new IllegalArgumentException("duplicate scenario " + scenario.getKey());
+		}
+	}
+
+	private static int indentOf(String line) {
+		int indent = 0;
+		while (indent < line.length() && line.charAt(indent) == ' ') {
+			indent++;
+		}
+		if (indent < line.length() && line.charAt(indent) == '\t') {
+			throw new IllegalArgumentException("tabs cannot be used for indentation");
+		}
+		return indent;
+	}
+
+	/**
+	 * Removes the comment of a line: a <tt>#</tt> at the start or after a space, outside of quotes.
+	 */
+	private static String stripComment(String line) {
+		char quote = 0;
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (quote != 0) {
+				if (c == '\\' && quote == '"') {
+					i++;
+				} else if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '#' && (i == 0 || line.charAt(i - 1) == ' ')) {
+				return line.substring(0, i);
+			}
+		}
+		return line;
+	}
+
+	/**
+	 * Splits a <tt>key: value</tt> entry.
+	 *
+	 * @return the unquoted key and value (null if empty), or null if the entry is not a pair
+	 */
+	private static String[] splitPair(String entry) {
+
+		int separator = -1;
+		char quote = 0;
+		for (int i = 0; i < entry.length() && separator < 0; i++) {
+			final char c = entry.charAt(i);
+			if (quote != 0) {
+				if (c == '\\' && quote == '"') {
+					i++;
+				} else if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == ':' && (i + 1 == entry.length() || entry.charAt(i + 1) == ' ')) {
+				separator = i;
+			}
+		}
+
+		if (separator <= 0) {
+			return null;
+		}
+
+		final String value = entry.substring(separator + 1).trim();
+		return new String[]{scalar(entry.substring(0, separator).trim()), value.isEmpty() ? null : scalar(value)};
+	}
+
+	/**
+	 * Returns the value of a plain, single-quoted or double-quoted scalar.
+	 */
+	private static String scalar(String text) {
+
+		if (text.length() >= 2 && text.charAt(0) == '\'' && text.charAt(text.length() - 1) == '\'') {
+			return text.substring(1, text.length() - 1).replace("''", "'");
+		} else if (text.length() < 2 || text.charAt(0) != '"' || text.charAt(text.length() - 1) != '"') {
+			return "~".equals(text) || "null".equals(text) ? null : text;
+		}
+
+		final StringBuilder builder = new StringBuilder(text.length());
+		for (int i = 1; i < text.length() - 1; i++) {
+			final char c = text.charAt(i);
+			if (c != '\\' || i + 1 >= text.length() - 1) {
+				builder.append(c);
+				continue;
+			}
+
+			final char escaped = text.charAt(++i);
+			switch (escaped) {
+				case 'n':
+					builder.append('\n');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 'u':
+					if (i + 4 >= text.length() - 1) {
+						throw new IllegalArgumentException("invalid escape sequence in " + text);
+					}
+					builder.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+					i += 4;
+					break;
+				default:
+					builder.append(escaped);
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Expected errors of a test scenario.
+	 */
+	public static final class Scenario {
+
+		private final String key;
+		private final Integer httpStatusCode;
+		private final int[] codes;
+		private final String[] locationTypes;
+		private final String[] locations;
+		private final String[] messages;
+		private final String[] messagePatterns;
+		private final boolean[] anyMessages;
+
+		//<editor-fold defaultstate="collapsed" desc="Constructors">
+		Scenario(String key, Integer httpStatusCode, int[] codes, String[] locationTypes, String[] locations, String[] messages, String[] messagePatterns, boolean[] anyMessages) {
+			this.key = key;
+			this.httpStatusCode = httpStatusCode;
+			this.codes = codes;
+			this.locationTypes = locationTypes;
+			this.locations = locations;
+			this.messages = messages;
+			this.messagePatterns = messagePatterns;
+			this.anyMessages = anyMessages;
+		}
+		//</editor-fold>
+
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * Returns the expected HTTP status code, or null if the scenario does not specify one.
+		 */
+		public Integer getHttpStatusCode() {
+			return httpStatusCode;
+		}
+
+		public int getErrorCount() {
+			return codes.length;
+		}
+
+		/**
+		 * Adds the expected errors of this scenario to a plan builder.
+		 */
+		void addTo(ErrorResponsePlan.Builder builder) {
+			for (int i = 0; i < codes.length; i++) {
+				if (anyMessages[i]) {
+					builder.withErrorWithAnyMessage(codes[i], locationTypes[i], locations[i]);
+				} else if (messagePatterns[i] != null) {
+					builder.withErrorMatching(codes[i], locationTypes[i], locations[i], messagePatterns[i]);
+				} else {
+					builder.withError(codes[i], locationTypes[i], locations[i], messages[i]);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "scenario " + key + " with " + codes.length + " errors";
+		}
+	}
+
+	/**
+	 * Collects the properties of a scenario as they are read.
+	 */
+	static final class ScenarioReader {
+
+		private final String catalog;
+		private final String key;
+		private Integer httpStatusCode;
+		private final List<String[]> errors;
+		private String[] error;
+
+		public ScenarioReader(String catalog, String key) {
+			this.catalog = catalog;
+			this.key = key;
+			this.errors = new ArrayList<>();
+		}
+
+		public void setField(String field, String value) {
+			if (!"httpStatusCode".equals(field)) {
+				throw new IllegalArgumentException("unknown property " + field + " of scenario " + key + " (expected httpStatusCode or errors)");
+			}
+			httpStatusCode = value != null ? parseInt("httpStatusCode", value) : null;
+		}
+
+		public void startError() {
+			error = new String[6];
+			errors.add(error);
+		}
+
+		public void setErrorField(String field, String value) {
+			final int index;
+			switch (field) {
+				case "code":
+					index = 0;
+					break;
+				case "locationType":
+					index = 1;
+					break;
+				case "location":
+					index = 2;
+					break;
+				case "message":
+					index = 3;
+					break;
+				case "messagePattern":
+					index = 4;
+					break;
+				case "anyMessage":
+					index = 5;
+					break;
+				default:
+					throw new IllegalArgumentException("unknown property " + field + " of an error of scenario " + key);
+			}
+			error[index] = value;
+		}
+
+		public Scenario build() {
+
+			final int count = errors.size();
+			final int[] codes = new int[count];
+			final String[] locationTypes = new String[count];
+			final String[] locations = new String[count];
+			final String[] messages = new String[count];
+			final String[] messagePatterns = new String[count];
+			final boolean[] anyMessages = new boolean[count];
+
+			for (int i = 0; i < count; i++) {
+				final String[] fields = errors.get(i);
+				if (fields[0] == null) {
+					throw new IllegalArgumentException("error #" + (i + 1) + " of scenario " + key + " of " + catalog + " has no code");
+				} else if ((fields[3] != null ? 1 : 0) + (fields[4] != null ? 1 : 0) + (Boolean.parseBoolean(fields[5]) ? 1 : 0) > 1) {
+					throw new IllegalArgumentException("error #" + (i + 1) + " of scenario " + key + " has more than one of message, messagePattern and anyMessage");
+				}
+				codes[i] = parseInt("code", fields[0]);
+				locationTypes[i] = fields[1];
+				locations[i] = fields[2];
+				messages[i] = fields[3];
+				messagePatterns[i] = fields[4];
+				anyMessages[i] = Boolean.parseBoolean(fields[5]);
+			}
+
+			return new Scenario(key, httpStatusCode, codes, locationTypes, locations, messages, messagePatterns, anyMessages);
+		}
+
+		private int parseInt(String field, String value) {
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException nfe) {
+				throw new IllegalArgumentException(field + " of scenario " + key + " is not a number: " + value, nfe);
+			}
+		}
+	}
+
+	/**
+	 * A catalog of the classpath, read on first use.
+	 */
+	private static final class LazyCatalog {
+
+		private final String resource;
+		private volatile ErrorCatalog catalog;
+
+		public LazyCatalog(String resource) {
+			this.resource = resource;
+		}
+
+		public ErrorCatalog get() {
+			ErrorCatalog loaded = catalog;
+			if (loaded == null) {
+				synchronized (this) {
+					loaded = catalog;
+					if (loaded == null) {
+						loaded = load();
+						catalog = loaded;
+					}
+				}
+			}
+			return loaded;
+		}
+
+		private ErrorCatalog load() {
+
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			InputStream in = classLoader != null ? classLoader.getResourceAsStream(resource) : null;
+			if (in == null) {
+				classLoader = ErrorCatalog.class.getClassLoader();
+				in = classLoader != null ? classLoader.getResourceAsStream(resource) : ClassLoader.getSystemResourceAsStream(resource);
+			}
+			if (in == null) {
+				throw new IllegalArgumentException("Error catalog " + resource + " cannot be found on the classpath");
+			}
+
+			try {
+				return read(resource, new InputStreamReader(in, UTF_8));
+			} catch (IOException ioe) {
+				throw new IllegalArgumentException("Error catalog " + resource + " cannot be read: " + ioe.getMessage(), ioe);
+			}
+		}
+	}
+}
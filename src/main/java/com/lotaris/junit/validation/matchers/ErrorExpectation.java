@@ -0,0 +1,138 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.util.regex.Pattern;
+
+/**
+ * Expectation of an error in an API error response: its code, location type and location, and
+ * either a literal message, a message pattern, any non-blank message or any message at all.
+ */
+final class ErrorExpectation {
+
+	private final int code;
+	private final String locationType;
+	private final String location;
+	private final String message;
+	private final Pattern messagePattern;
+	private final boolean anyMessage;
+
+	public ErrorExpectation(int code, String locationType, String location, String message) {
+		this.code = code;
+		this.locationType = locationType;
+		this.location = location;
+		this.message = message;
+		this.messagePattern = null;
+		this.anyMessage = false;
+	}
+
+	public ErrorExpectation(int code, String locationType, String location, Pattern messagePattern) {
+		this.code = code;
+		this.locationType = locationType;
+		this.location = location;
+		this.message = null;
+		this.messagePattern = messagePattern;
+		this.anyMessage = false;
+	}
+
+	private ErrorExpectation(int code, String locationType, String location) {
+		this.code = code;
+		this.locationType = locationType;
+		this.location = location;
+		this.message = null;
+		this.messagePattern = null;
+		this.anyMessage = true;
+	}
+
+	/**
+	 * Returns an expectation accepting any message, including a missing or blank one.
+	 */
+	static ErrorExpectation withAnyMessage(int code, String locationType, String location) {
+		return new ErrorExpectation(code, locationType, location);
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	public String getLocationType() {
+		return locationType;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public Pattern getMessagePattern() {
+		return messagePattern;
+	}
+
+	public boolean isAnyMessage() {
+		return anyMessage;
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder builder = new StringBuilder();
+		builder.append("code=").append(code);
+
+		if (locationType != null) {
+			builder.append(", locationType=").append(locationType);
+		} else {
+			builder.append(", no locationType");
+		}
+
+		if (location != null) {
+			builder.append(", location=").append(location);
+		} else {
+			builder.append(", no location");
+		}
+
+		if (message != null) {
+			builder.append(", message=").append(message);
+		} else if (messagePattern != null) {
+			builder.append(", message~=").append(messagePattern.toString());
+		} else if (anyMessage) {
+			builder.append(", any message");
+		} else {
+			builder.append(", non-blank message");
+		}
+
+		return builder.toString();
+	}
+
+	public boolean matches(ApiErrorResponseObjectMatcher.Error error) {
+		return matchesExceptMessage(error) && matchesMessage(error);
+	}
+
+	/**
+	 * Indicates whether the code, location type and location of an error meet this expectation.
+	 */
+	boolean matchesExceptMessage(ApiErrorResponseObjectMatcher.Error error) {
+
+		if (error.getCode() != null && code != error.getCode()) {
+			return false;
+		} 
+		
+		if (locationType != null ? !locationType.equals(error.getLocationType()) : error.getLocationType() != null) {
+			return false;
+		}
+		
+		return location != null ? location.equals(error.getLocation()) : error.getLocation() == null;
+	}
+
+	private boolean matchesMessage(ApiErrorResponseObjectMatcher.Error error) {
+		if (message != null) {
+			return message.equals(error.getMessage());
+		} else if (messagePattern != null) {
+			return error.getMessage() != null && messagePattern.matcher(error.getMessage()).matches();
+		} else if (anyMessage) {
+			return true;
+		} else {
+			return error.getMessage() != null && !error.getMessage().isEmpty();
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.util.Objects;
+
+/**
+ * Bucket key of an error: code, location type, location and (optionally) message.
+ */
+final class ErrorKey {
+
+	private final Integer code;
+	private final String locationType;
+	private final String location;
+	private final String message;
+	private final int hash;
+
+	public ErrorKey(Integer code, String locationType, String location, String message) {
+		this.code = code;
+		this.locationType = locationType;
+		this.location = location;
+		this.message = message;
+		this.hash = Objects.hash(code, locationType, location, message);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof ErrorKey)) {
+			return false;
+		}
+
+		final ErrorKey other = (ErrorKey) obj;
+		return hash == other.hash && Objects.equals(code, other.code) && Objects.equals(locationType, other.locationType)
+				&& Objects.equals(location, other.location) && Objects.equals(message, other.message);
+	}
+}
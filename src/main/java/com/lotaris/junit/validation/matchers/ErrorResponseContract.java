@@ -0,0 +1,324 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks live API error responses against the expectations used in tests, to see at production
+ * traffic levels when the error codes or locations returned by an endpoint drift from its contract.
+ *
+ * <pre>
+ * private static final ErrorResponseContract MISSING_NAME = ErrorResponseContract.of("createUser.missingName",
+ *		isApiErrorResponseObject(422).withError(1001, "json", "/name"))
+ *		.withSamplingRate(0.01);
+ *
+ * // in the code building the response
+ * MISSING_NAME.check(response);
+ *
+ * // periodically
+ * log.info(MISSING_NAME.getSummary().toString());
+ * </pre>
+ *
+ * <p>A contract is compiled once from a matcher or a plan. Checking a response draws a random
+ * number to decide whether it is sampled, and a sampled response is checked with the allocation-free
+ * {@link ErrorResponsePlan#matches(ApiErrorResponse)}; only violations are evaluated in full, to
+ * count the missing and unexpected errors by code, location type and location. Counters are
+ * lock-free and striped across threads. A contract is meant to be shared by all threads.</p>
+ */
+public final class ErrorResponseContract {
+
+	private static final int DEFAULT_MAX_DRIFT_KEYS = 32;
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	/**
+	 * Returns a contract checking all responses against the expectations of a matcher.
+	 *
+	 * @param name the name of the contract, used in its summary
+	 * @param matcher the matcher, which is compiled
+	 * @return the contract
+	 */
+	public static ErrorResponseContract of(String name, ApiErrorResponseObjectMatcher matcher) {
+		return new ErrorResponseContract(name, matcher.compile(), 1, DEFAULT_MAX_DRIFT_KEYS);
+	}
+
+	/**
+	 * Returns a contract checking all responses against a plan.
+	 *
+	 * @param name the name of the contract, used in its summary
+	 * @param plan the expectations
+	 * @return the contract
+	 */
+	public static ErrorResponseContract of(String name, ErrorResponsePlan plan) {
+		return new ErrorResponseContract(name, plan, 1, DEFAULT_MAX_DRIFT_KEYS);
+	}
+	//</editor-fold>
+
+	private final String name;
+	private final ErrorResponsePlan plan;
+	private final double samplingRate;
+	private final int maxDriftKeys;
+	private final StripedCounter checked;
+	private final StripedCounter sampled;
+	private final StripedCounter violations;
+	private final StripedCounter statusMismatches;
+	private final ConcurrentMap<String, AtomicLong> drift;
+	private final AtomicLong otherDrift;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ErrorResponseContract(String name, ErrorResponsePlan plan, double samplingRate, int maxDriftKeys) {
+		this.name = name;
+		this.plan = plan;
+		this.samplingRate = samplingRate;
+		this.maxDriftKeys = maxDriftKeys;
+		this.checked = new StripedCounter();
+		this.sampled = new StripedCounter();
+		this.violations = new StripedCounter();
+		this.statusMismatches = new StripedCounter();
+		this.drift = new ConcurrentHashMap<>();
+		this.otherDrift = new AtomicLong();
+	}
+	//</editor-fold>
+
+	/**
+	 * Returns a new contract with the same expectations checking only a fraction of the responses.
+	 * The counters of the new contract start at zero.
+	 *
+	 * @param samplingRate the probability that a response is checked, between 0 and 1
+	 * @return the new contract
+	 */
+	public ErrorResponseContract withSamplingRate(double samplingRate) {
+		if (!(samplingRate >= 0 && samplingRate <= 1)) {
+			throw new IllegalArgumentException("Sampling rate must be between 0 and 1, got " + samplingRate);
+		}
+		return new ErrorResponseContract(name, plan, samplingRate, maxDriftKeys);
+	}
+
+	/**
+	 * Returns a new contract with the same expectations counting at most the specified number of
+	 * distinct missing or unexpected errors; others are counted together. The counters of the new
+	 * contract start at zero.
+	 */
+	public ErrorResponseContract withMaxDriftKeys(int maxDriftKeys) {
+		if (maxDriftKeys < 1) {
+			throw new IllegalArgumentException("At least one drift key is required, got " + maxDriftKeys);
+		}
+		return new ErrorResponseContract(name, plan, samplingRate, maxDriftKeys);
+	}
+
+	/**
+	 * Checks a response if it is sampled.
+	 *
+	 * @param response the response (may be null)
+	 * @return false if the response was sampled and violates the contract, true otherwise
+	 */
+	public boolean check(ApiErrorResponse response) {
+
+		checked.increment();
+		if (samplingRate < 1 && (samplingRate <= 0 || ThreadLocalRandom.current().nextDouble() >= samplingRate)) {
+			return true;
+		}
+
+		sampled.increment();
+		if (plan.matches(response)) {
+			return true;
+		}
+
+		violations.increment();
+		recordViolation(plan.evaluate(response));
+		return false;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public ErrorResponsePlan getPlan() {
+		return plan;
+	}
+
+	public double getSamplingRate() {
+		return samplingRate;
+	}
+
+	/**
+	 * Returns a snapshot of the counters of this contract. Counters updated while the snapshot is
+	 * taken may or may not be included.
+	 */
+	public Summary getSummary() {
+
+		final List<Map.Entry<String, Long>> entries = new ArrayList<>(drift.size());
+		for (Map.Entry<String, AtomicLong> entry : drift.entrySet()) {
+			entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().get()));
+		}
+		Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+			@Override
+			public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+				final int byCount = Long.compare(o2.getValue(), o1.getValue());
+				return byCount != 0 ? byCount : o1.getKey().compareTo(o2.getKey());
+			}
+		});
+
+		final Map<String, Long> sortedDrift = new LinkedHashMap<>();
+		for (Map.Entry<String, Long> entry : entries) {
+			sortedDrift.put(entry.getKey(), entry.getValue());
+		}
+
+		return new Summary(name, checked.get(), sampled.get(), violations.get(), statusMismatches.get(), sortedDrift, otherDrift.get());
+	}
+
+	private void recordViolation(ErrorResponseMatch match) {
+
+		if (!match.isNonNullResponse()) {
+			recordDrift("null response");
+			return;
+		}
+
+		if (!match.isHttpStatusCodeMatching()) {
+			statusMismatches.increment();
+		}
+
+		for (ErrorExpectation expectation : match.getUnmetExpectations()) {
+			recordDrift(driftKey("missing", expectation.getCode(), expectation.getLocationType(), expectation.getLocation()));
+		}
+
+		for (ApiErrorResponseObjectMatcher.Error error : match.getUnexpectedErrors()) {
+			recordDrift(driftKey("unexpected", error.getCode(), error.getLocationType(), error.getLocation()));
+		}
+	}
+
+	private void recordDrift(String key) {
+		AtomicLong count = drift.get(key);
+		if (count == null) {
+			if (drift.size() >= maxDriftKeys) {
+				otherDrift.incrementAndGet();
+				return;
+			}
+			final AtomicLong created = new AtomicLong();
+			count = drift.putIfAbsent(key, created);
+			if (count == null) {
+				count = created;
+			}
+		}
+		count.incrementAndGet();
+	}
+
+	private static String driftKey(String kind, Integer code, String locationType, String location) {
+		final StringBuilder builder = new StringBuilder(kind).append(" <code=").append(code);
+		if (locationType != null) {
+			builder.append(", locationType=").append(locationType);
+		}
+		if (location != null) {
+			builder.append(", location=").append(location);
+		}
+		return builder.append(">").toString();
+	}
+
+	/**
+	 * Counters of a contract at a point in time.
+	 */
+	public static final class Summary {
+
+		private final String name;
+		private final long checkedCount;
+		private final long sampledCount;
+		private final long violationCount;
+		private final long statusMismatchCount;
+		private final Map<String, Long> drift;
+		private final long otherDriftCount;
+
+		//<editor-fold defaultstate="collapsed" desc="Constructors">
+		Summary(String name, long checkedCount, long sampledCount, long violationCount, long statusMismatchCount, Map<String, Long> drift, long otherDriftCount) {
+			this.name = name;
+			this.checkedCount = checkedCount;
+			this.sampledCount = sampledCount;
+			this.violationCount = violationCount;
+			this.statusMismatchCount = statusMismatchCount;
+			this.drift = Collections.unmodifiableMap(drift);
+			this.otherDriftCount = otherDriftCount;
+		}
+		//</editor-fold>
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the number of responses given to the contract, sampled or not.
+		 */
+		public long getCheckedCount() {
+			return checkedCount;
+		}
+
+		public long getSampledCount() {
+			return sampledCount;
+		}
+
+		/**
+		 * Returns the number of sampled responses that violated the contract.
+		 */
+		public long getViolationCount() {
+			return violationCount;
+		}
+
+		public long getStatusMismatchCount() {
+			return statusMismatchCount;
+		}
+
+		/**
+		 * Returns the fraction of sampled responses that violated the contract.
+		 */
+		public double getViolationRate() {
+			return sampledCount > 0 ? (double) violationCount / sampledCount : 0;
+		}
+
+		/**
+		 * Returns the number of times each missing or unexpected error (by code, location type and
+		 * location) was seen in a violation, most frequent first.
+		 */
+		public Map<String, Long> getDrift() {
+			return drift;
+		}
+
+		/**
+		 * Returns the number of missing or unexpected errors not counted in {@link #getDrift()}
+		 * because too many distinct errors were seen.
+		 */
+		public long getOtherDriftCount() {
+			return otherDriftCount;
+		}
+
+		@Override
+		public String toString() {
+
+			final StringBuilder builder = new StringBuilder();
+			builder.append(name).append(": ").append(checkedCount).append(" checked, ").append(sampledCount).append(" sampled, ")
+					.append(violationCount).append(" violations (").append(String.format("%.2f%%", getViolationRate() * 100)).append(")");
+
+			if (statusMismatchCount > 0) {
+				builder.append(", ").append(statusMismatchCount).append(" status mismatches");
+			}
+
+			boolean first = true;
+			for (Map.Entry<String, Long> entry : drift.entrySet()) {
+				builder.append(first ? "; drift: " : ", ").append(entry.getKey()).append(" x").append(entry.getValue());
+				first = false;
+			}
+
+			if (otherDriftCount > 0) {
+				builder.append(first ? "; drift: " : ", ").append("other x").append(otherDriftCount);
+			}
+
+			return builder.toString();
+		}
+	}
+}
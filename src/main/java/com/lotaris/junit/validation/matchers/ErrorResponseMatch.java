@@ -0,0 +1,324 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.hamcrest.Description;
+
+/**
+ * Result of the evaluation of an API error response against an {@link ErrorResponsePlan}. Each
+ * evaluation has its own result, which is immutable.
+ */
+public final class ErrorResponseMatch {
+
+	private final ErrorResponsePlan plan;
+	private final boolean nonNullResponse;
+	private final Integer actualHttpStatusCode;
+	private final boolean httpStatusCodeMatches;
+	private final List<ErrorExpectation> unmetExpectations;
+	private final List<ApiErrorResponseObjectMatcher.Error> unexpectedErrors;
+	private final int stoppedAfter;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	ErrorResponseMatch(ErrorResponsePlan plan, Integer actualHttpStatusCode, boolean httpStatusCodeMatches, List<ErrorExpectation> unmetExpectations, List<ApiErrorResponseObjectMatcher.Error> unexpectedErrors) {
+		this(plan, actualHttpStatusCode, httpStatusCodeMatches, unmetExpectations, unexpectedErrors, -1);
+	}
+
+	/**
+	 * Constructs the result of an evaluation that may have stopped before reading the whole response.
+	 *
+	 * @param stoppedAfter the number of errors read before stopping, or -1 if the whole response was
+	 * read
+	 */
+	ErrorResponseMatch(ErrorResponsePlan plan, Integer actualHttpStatusCode, boolean httpStatusCodeMatches, List<ErrorExpectation> unmetExpectations, List<ApiErrorResponseObjectMatcher.Error> unexpectedErrors, int stoppedAfter) {
+		this.plan = plan;
+		this.stoppedAfter = stoppedAfter;
+		this.nonNullResponse = true;
+		this.actualHttpStatusCode = actualHttpStatusCode;
+		this.httpStatusCodeMatches = httpStatusCodeMatches;
+		this.unmetExpectations = Collections.unmodifiableList(unmetExpectations);
+		this.unexpectedErrors = Collections.unmodifiableList(unexpectedErrors);
+	}
+
+	private ErrorResponseMatch(ErrorResponsePlan plan) {
+		this.plan = plan;
+		this.nonNullResponse = false;
+		this.actualHttpStatusCode = null;
+		this.httpStatusCodeMatches = false;
+		this.unmetExpectations = Collections.emptyList();
+		this.unexpectedErrors = Collections.emptyList();
+		this.stoppedAfter = -1;
+	}
+	//</editor-fold>
+
+	static ErrorResponseMatch nullResponse(ErrorResponsePlan plan) {
+		return new ErrorResponseMatch(plan);
+	}
+
+	/**
+	 * Indicates whether the response met all expectations of the plan.
+	 *
+	 * @return true if the response matches
+	 */
+	public boolean matches() {
+		return nonNullResponse && httpStatusCodeMatches && stoppedAfter < 0 && unmetExpectations.isEmpty() && unexpectedErrors.isEmpty();
+	}
+
+	public ErrorResponsePlan getPlan() {
+		return plan;
+	}
+
+	public boolean isNonNullResponse() {
+		return nonNullResponse;
+	}
+
+	public Integer getActualHttpStatusCode() {
+		return actualHttpStatusCode;
+	}
+
+	public boolean isHttpStatusCodeMatching() {
+		return httpStatusCodeMatches;
+	}
+
+	public int getUnmetExpectationCount() {
+		return unmetExpectations.size();
+	}
+
+	public int getUnexpectedErrorCount() {
+		return unexpectedErrors.size();
+	}
+
+	/**
+	 * Indicates whether the evaluation stopped reading the response as soon as it could not match.
+	 * The unmet expectations and unexpected errors then only reflect what was read.
+	 */
+	public boolean isStoppedEarly() {
+		return stoppedAfter >= 0;
+	}
+
+	List<ErrorExpectation> getUnmetExpectations() {
+		return unmetExpectations;
+	}
+
+	List<ApiErrorResponseObjectMatcher.Error> getUnexpectedErrors() {
+		return unexpectedErrors;
+	}
+
+	/**
+	 * Describes why the response does not match, within the {@link DescriptionLimits#defaults()
+	 * default limits}.
+	 *
+	 * @param description the description to append to
+	 */
+	public void describeMismatch(Description description) {
+		describeMismatch(description, DescriptionLimits.defaults());
+	}
+
+	/**
+	 * Describes why the response does not match. Lists of missing or unexpected errors longer than the
+	 * limits are summarized, and the text is written in pieces, never longer than the maximum length
+	 * in total.
+	 *
+	 * @param description the description to append to
+	 * @param limits the bounds of the description
+	 */
+	public void describeMismatch(Description description, DescriptionLimits limits) {
+
+		final BoundedText text = new BoundedText(description, limits.getMaxLength());
+
+		if (!nonNullResponse) {
+			text.append("response is null");
+			return;
+		}
+
+		text.append("response doesn't match");
+
+		if (!httpStatusCodeMatches) {
+			text.append(", has HTTP status code " + actualHttpStatusCode);
+		}
+
+		if (!unmetExpectations.isEmpty()) {
+			text.append(", is missing " + unmetExpectations.size() + " expected errors (");
+			if (unmetExpectations.size() <= limits.getMaxExamples()) {
+				appendMissing(text, unmetExpectations.size());
+			} else {
+				appendGroups(text, unmetExpectations, limits);
+				text.append("; first " + limits.getMaxExamples() + ": ");
+				appendMissing(text, limits.getMaxExamples());
+				text.append(", and " + (unmetExpectations.size() - limits.getMaxExamples()) + " more");
+			}
+			text.append(")");
+		}
+
+		if (!unexpectedErrors.isEmpty()) {
+			text.append(", has " + unexpectedErrors.size() + " additional unexpected errors (");
+			if (unexpectedErrors.size() <= limits.getMaxExamples()) {
+				appendValues(text, unexpectedErrors, unexpectedErrors.size());
+			} else {
+				appendGroups(text, unexpectedErrors, limits);
+				text.append("; first " + limits.getMaxExamples() + ": ");
+				appendValues(text, unexpectedErrors, limits.getMaxExamples());
+				text.append(", and " + (unexpectedErrors.size() - limits.getMaxExamples()) + " more");
+			}
+			text.append(")");
+		}
+
+		if (stoppedAfter >= 0) {
+			text.append(", stopped reading after " + stoppedAfter + " errors");
+		}
+	}
+
+	/**
+	 * Appends the first unmet expectations, each with the unexpected error closest to it.
+	 */
+	private void appendMissing(BoundedText text, int count) {
+		for (int i = 0; i < count && !text.isFull(); i++) {
+			text.append(i > 0 ? ", <" : "<").append(unmetExpectations.get(i).toString()).append(">");
+			appendClosestError(text, unmetExpectations.get(i));
+		}
+	}
+
+	private static void appendValues(BoundedText text, List<?> values, int count) {
+		for (int i = 0; i < count && !text.isFull(); i++) {
+			text.append(i > 0 ? ", <" : "<").append(values.get(i).toString()).append(">");
+		}
+	}
+
+	/**
+	 * Appends the number of errors of each code and location type, largest groups first.
+	 */
+	private static void appendGroups(BoundedText text, List<?> values, DescriptionLimits limits) {
+
+		final Map<ErrorKey, int[]> counts = new LinkedHashMap<>();
+		final Map<ErrorKey, Object> firsts = new HashMap<>();
+		for (Object value : values) {
+			final ErrorKey key;
+			if (value instanceof ErrorExpectation) {
+				key = new ErrorKey(((ErrorExpectation) value).getCode(), ((ErrorExpectation) value).getLocationType(), null, null);
+			} else {
+				key = new ErrorKey(((ApiErrorResponseObjectMatcher.Error) value).getCode(), ((ApiErrorResponseObjectMatcher.Error) value).getLocationType(), null, null);
+			}
+
+			final int[] count = counts.get(key);
+			if (count != null) {
+				count[0]++;
+			} else {
+				counts.put(key, new int[]{1});
+				firsts.put(key, value);
+			}
+		}
+
+		final List<Map.Entry<ErrorKey, int[]>> groups = new ArrayList<>(counts.entrySet());
+		Collections.sort(groups, new Comparator<Map.Entry<ErrorKey, int[]>>() {
+			@Override
+			public int compare(Map.Entry<ErrorKey, int[]> o1, Map.Entry<ErrorKey, int[]> o2) {
+				return Integer.compare(o2.getValue()[0], o1.getValue()[0]);
+			}
+		});
+
+		text.append("by code and location type: ");
+		for (int i = 0; i < groups.size() && i < limits.getMaxGroups(); i++) {
+			final Object first = firsts.get(groups.get(i).getKey());
+			final Integer code;
+			final String locationType;
+			if (first instanceof ErrorExpectation) {
+				code = ((ErrorExpectation) first).getCode();
+				locationType = ((ErrorExpectation) first).getLocationType();
+			} else {
+				code = ((ApiErrorResponseObjectMatcher.Error) first).getCode();
+				locationType = ((ApiErrorResponseObjectMatcher.Error) first).getLocationType();
+			}
+			text.append((i > 0 ? ", " : "") + "code=" + code + (locationType != null ? " " + locationType : "") + " x" + groups.get(i).getValue()[0]);
+		}
+
+		if (groups.size() > limits.getMaxGroups()) {
+			text.append(" and " + (groups.size() - limits.getMaxGroups()) + " other groups");
+		}
+	}
+
+	/**
+	 * Appends the unexpected error closest to a missing expectation (same code first, then same
+	 * location type and location), with the properties in which they differ.
+	 */
+	private void appendClosestError(BoundedText text, ErrorExpectation expectation) {
+
+		ApiErrorResponseObjectMatcher.Error closest = null;
+		int bestScore = 0;
+		for (ApiErrorResponseObjectMatcher.Error error : unexpectedErrors) {
+			final int score = (codeMatches(expectation, error) ? 4 : 0)
+					+ (Objects.equals(expectation.getLocationType(), error.getLocationType()) ? 2 : 0)
+					+ (Objects.equals(expectation.getLocation(), error.getLocation()) ? 2 : 0)
+					+ (expectation.getMessage() != null && expectation.getMessage().equals(error.getMessage()) ? 1 : 0);
+			if (score > bestScore) {
+				bestScore = score;
+				closest = error;
+			}
+		}
+
+		if (closest == null) {
+			return;
+		}
+
+		final StringBuilder differences = new StringBuilder();
+		if (!codeMatches(expectation, closest)) {
+			differences.append(", code");
+		}
+		if (!Objects.equals(expectation.getLocationType(), closest.getLocationType())) {
+			differences.append(", location type");
+		}
+		if (!Objects.equals(expectation.getLocation(), closest.getLocation())) {
+			differences.append(", location");
+		}
+		if (differences.length() == 0) {
+			differences.append(", message");
+		}
+
+		text.append(" (closest actual error <").append(closest.toString()).append("> differs in " + differences.substring(2) + ")");
+	}
+
+	private static boolean codeMatches(ErrorExpectation expectation, ApiErrorResponseObjectMatcher.Error error) {
+		return error.getCode() == null || error.getCode() == expectation.getCode();
+	}
+
+	/**
+	 * Appends text to a description until a maximum length is reached, then a single truncation
+	 * notice.
+	 */
+	private static final class BoundedText {
+
+		private final Description description;
+		private final int maxLength;
+		private int length;
+		private boolean full;
+
+		public BoundedText(Description description, int maxLength) {
+			this.description = description;
+			this.maxLength = maxLength;
+		}
+
+		public BoundedText append(String text) {
+			if (full) {
+				return this;
+			}
+
+			if (text.length() <= maxLength - length) {
+				description.appendText(text);
+				length += text.length();
+			} else {
+				description.appendText(text.substring(0, maxLength - length));
+				description.appendText("... (description cut after " + maxLength + " characters)");
+				full = true;
+			}
+			return this;
+		}
+
+		public boolean isFull() {
+			return full;
+		}
+	}
+}
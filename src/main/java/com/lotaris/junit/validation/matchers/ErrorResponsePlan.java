@@ -0,0 +1,540 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.junit.validation.FlightRecorderEvents;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.regex.Pattern;
+import org.hamcrest.Description;
+
+/**
+ * Compiled, immutable expectations of an API error response: the expected HTTP status code and
+ * errors.
+ *
+ * <p>A plan holds no evaluation state. Each call to {@link #evaluate(ApiErrorResponse)} returns its
+ * own {@link ErrorResponseMatch}, so a plan (and the matchers built on it) can be kept in a
+ * <tt>static final</tt> constant and shared by tests running in parallel.</p>
+ *
+ * <p>{@link #matches(ApiErrorResponse)} checks a response without building that result: errors are
+ * looked up directly in tables of the expectations, with per-thread scratch arrays shared by all
+ * plans, so a matching response is checked without allocating anything per error (except a matcher
+ * per message checked against a pattern). The full assignment is only computed when the quick check
+ * is inconclusive, or by {@link #evaluate(ApiErrorResponse)} to describe a mismatch.</p>
+ *
+ * <pre>
+ * private static final ErrorResponsePlan MISSING_NAME = ErrorResponsePlan.builder(422)
+ *		.withError(1001, "json", "/name")
+ *		.build();
+ *
+ * assertThat(response, isApiErrorResponseObject(MISSING_NAME));
+ * </pre>
+ */
+public final class ErrorResponsePlan {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static Builder builder() {
+		return new Builder(null);
+	}
+
+	public static Builder builder(int expectedHttpStatusCode) {
+		return new Builder(expectedHttpStatusCode);
+	}
+	//</editor-fold>
+
+	// scratch arrays of the quick check, shared by all plans so that they do not keep plans reachable
+	private static final ThreadLocal<Workspace> WORKSPACES = new ThreadLocal<>();
+
+	private final Integer expectedHttpStatusCode;
+	private final List<ErrorExpectation> expectations;
+	private final ErrorKey[] exactKeys;
+	private final int[] flexibleOrder;
+	private final Map<ErrorKey, int[]> exactIndices;
+	private final Map<ErrorKey, int[]> flexibleIndices;
+	private final MessagePatterns messagePatterns;
+	private final int[] patternIds;
+	private final ErrorTable exactTable;
+	private final ErrorTable flexibleTable;
+
+	private ErrorResponsePlan(Integer expectedHttpStatusCode, List<ErrorExpectation> expectations) {
+		this.expectedHttpStatusCode = expectedHttpStatusCode;
+		this.expectations = Collections.unmodifiableList(new ArrayList<>(expectations));
+
+		// expectations with a literal message are looked up by key; the others are pre-sorted so that
+		// message patterns come before expectations accepting any non-blank message, then any message
+		final int n = this.expectations.size();
+		exactKeys = new ErrorKey[n];
+		final List<Integer> patterns = new ArrayList<>();
+		final List<Integer> nonBlank = new ArrayList<>();
+		final List<Integer> any = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			final ErrorExpectation expectation = this.expectations.get(i);
+			if (expectation.getMessage() != null) {
+				exactKeys[i] = new ErrorKey(expectation.getCode(), expectation.getLocationType(), expectation.getLocation(), expectation.getMessage());
+			} else if (expectation.getMessagePattern() != null) {
+				patterns.add(i);
+			} else if (expectation.isAnyMessage()) {
+				any.add(i);
+			} else {
+				nonBlank.add(i);
+			}
+		}
+
+		flexibleOrder = new int[patterns.size() + nonBlank.size() + any.size()];
+		int i = 0;
+		for (Integer index : patterns) {
+			flexibleOrder[i++] = index;
+		}
+		for (Integer index : nonBlank) {
+			flexibleOrder[i++] = index;
+		}
+		for (Integer index : any) {
+			flexibleOrder[i++] = index;
+		}
+
+		// index the expectations by key, for the lookups of errors read one by one
+		final Map<ErrorKey, List<Integer>> exact = new HashMap<>();
+		final Map<ErrorKey, List<Integer>> flexible = new HashMap<>();
+		for (int j = 0; j < n; j++) {
+			final ErrorExpectation expectation = this.expectations.get(j);
+			if (exactKeys[j] != null) {
+				index(exact, exactKeys[j], j);
+			} else {
+				index(flexible, new ErrorKey(expectation.getCode(), expectation.getLocationType(), expectation.getLocation(), null), j);
+			}
+		}
+		exactIndices = toArrays(exact);
+		flexibleIndices = toArrays(flexible);
+
+		// the same indices as open-addressing tables probed with the fields of an error, for the quick
+		// check of matches(ApiErrorResponse)
+		final int[] exactOrder = new int[n - flexibleOrder.length];
+		int e = 0;
+		for (int j = 0; j < n; j++) {
+			if (exactKeys[j] != null) {
+				exactOrder[e++] = j;
+			}
+		}
+		exactTable = new ErrorTable(this.expectations, exactOrder, true);
+		flexibleTable = new ErrorTable(this.expectations, flexibleOrder, false);
+
+		// index the distinct message patterns by literal prefix
+		final List<Pattern> expectationPatterns = new ArrayList<>(n);
+		for (ErrorExpectation expectation : this.expectations) {
+			expectationPatterns.add(expectation.getMessagePattern());
+		}
+		patternIds = new int[n];
+		messagePatterns = new MessagePatterns(expectationPatterns, patternIds);
+	}
+
+	private static void index(Map<ErrorKey, List<Integer>> indices, ErrorKey key, int index) {
+		List<Integer> keyIndices = indices.get(key);
+		if (keyIndices == null) {
+			keyIndices = new ArrayList<>(1);
+			indices.put(key, keyIndices);
+		}
+		keyIndices.add(index);
+	}
+
+	private static Map<ErrorKey, int[]> toArrays(Map<ErrorKey, List<Integer>> indices) {
+		final Map<ErrorKey, int[]> arrays = new HashMap<>();
+		for (Map.Entry<ErrorKey, List<Integer>> entry : indices.entrySet()) {
+			final int[] array = new int[entry.getValue().size()];
+			for (int i = 0; i < array.length; i++) {
+				array[i] = entry.getValue().get(i);
+			}
+			arrays.put(entry.getKey(), array);
+		}
+		return arrays;
+	}
+
+	/**
+	 * Evaluates the specified response against this plan.
+	 *
+	 * @param response the response to check (may be null)
+	 * @return the result of this evaluation
+	 */
+	public ErrorResponseMatch evaluate(ApiErrorResponse response) {
+
+		// ensure response is not null
+		if (response == null) {
+			return ErrorResponseMatch.nullResponse(this);
+		}
+
+		// ensure the HTTP status code is the correct one (if set)
+		final Integer actualHttpStatusCode = response.getHttpStatusCode();
+		final boolean httpStatusCodeMatches = expectedHttpStatusCode == null || expectedHttpStatusCode.equals(actualHttpStatusCode);
+
+		final List<ApiErrorResponseObjectMatcher.Error> actualErrors = new ArrayList<>();
+		for (ApiError error : response.getErrors()) {
+			actualErrors.add(new ApiErrorResponseObjectMatcher.Error(error));
+		}
+
+		// ensure all expected errors are there (and that no additional errors are present)
+		final ErrorAssignment assignment = ErrorAssignment.assign(this, actualErrors);
+
+		return new ErrorResponseMatch(this, actualHttpStatusCode, httpStatusCodeMatches, assignment.getUnmetExpectations(), assignment.getUnexpectedErrors());
+	}
+
+	/**
+	 * Indicates whether the specified response meets the expectations of this plan. Emits an
+	 * <tt>ErrorResponseMatched</tt> event when a flight recording is running (see
+	 * {@link FlightRecorderEvents}).
+	 *
+	 * @param response the response to check (may be null)
+	 * @return true if the response matches
+	 */
+	public boolean matches(ApiErrorResponse response) {
+
+		final Object event = FlightRecorderEvents.beginErrorResponseMatched();
+		if (event == null) {
+			return matchesQuickly(response);
+		}
+
+		final boolean matched = matchesQuickly(response);
+		FlightRecorderEvents.commitErrorResponseMatched(event,
+				expectedHttpStatusCode != null ? expectedHttpStatusCode : -1,
+				response != null ? response.getHttpStatusCode() : -1,
+				expectations.size(),
+				response != null && response.getErrors() != null ? response.getErrors().size() : -1,
+				matched);
+		return matched;
+	}
+
+	private boolean matchesQuickly(ApiErrorResponse response) {
+
+		if (response == null) {
+			return false;
+		} else if (expectedHttpStatusCode != null && !expectedHttpStatusCode.equals(response.getHttpStatusCode())) {
+			return false;
+		}
+
+		// every expectation needs its own error and every error must be expected
+		final List<ApiError> errors = response.getErrors();
+		if (errors.size() != expectations.size()) {
+			return false;
+		}
+
+		Workspace workspace = WORKSPACES.get();
+		if (workspace == null) {
+			workspace = new Workspace();
+			WORKSPACES.set(workspace);
+		}
+		workspace.begin(exactTable.getGroupCount(), expectations.size());
+
+		// assign errors greedily; when that fails, only the full assignment can tell whether another
+		// assignment would succeed
+		if (errors instanceof RandomAccess) {
+			for (int i = 0; i < errors.size(); i++) {
+				if (!assign(workspace, errors.get(i))) {
+					return evaluate(response).matches();
+				}
+			}
+		} else {
+			for (ApiError error : errors) {
+				if (!assign(workspace, error)) {
+					return evaluate(response).matches();
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Assigns an error to an expectation it meets, preferring an expectation with the same literal
+	 * message. Errors with the same key are interchangeable for those, so such an assignment never
+	 * prevents a complete one.
+	 *
+	 * @return true if an expectation was found, false if the full assignment is needed
+	 */
+	private boolean assign(Workspace workspace, ApiError error) {
+
+		// an error without code could meet expectations of any code
+		final Integer code = error.getNumericCode();
+		if (code == null) {
+			return false;
+		}
+
+		final String locationType = error.getLocationTypeAsString();
+		final String location = error.getLocation();
+		final String message = error.getMessage();
+		final int stamp = workspace.stamp;
+
+		final int exact = exactTable.find(code, locationType, location, message);
+		if (exact >= 0) {
+			final int used = workspace.exactStamps[exact] == stamp ? workspace.exactUsed[exact] : 0;
+			if (used < exactTable.getGroup(exact).length) {
+				workspace.exactStamps[exact] = stamp;
+				workspace.exactUsed[exact] = used + 1;
+				return true;
+			}
+		}
+
+		final int flexible = flexibleTable.find(code, locationType, location, null);
+		if (flexible >= 0) {
+			for (int index : flexibleTable.getGroup(flexible)) {
+				if (workspace.metStamps[index] != stamp && messageMatches(index, message)) {
+					workspace.metStamps[index] = stamp;
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private boolean messageMatches(int index, String message) {
+
+		final int patternId = patternIds[index];
+		if (patternId >= 0) {
+			return message != null && messagePatterns.getPattern(patternId).matcher(message).matches();
+		} else if (expectations.get(index).isAnyMessage()) {
+			return true;
+		} else {
+			return message != null && !message.isEmpty();
+		}
+	}
+
+	public Integer getExpectedHttpStatusCode() {
+		return expectedHttpStatusCode;
+	}
+
+	public int getExpectedErrorCount() {
+		return expectations.size();
+	}
+
+	/**
+	 * Describes the expected response.
+	 *
+	 * @param description the description to append to
+	 */
+	public void describeTo(Description description) {
+
+		description.appendText("JSON API error response");
+
+		if (expectedHttpStatusCode != null) {
+			description.appendText(" with HTTP status code " + expectedHttpStatusCode);
+		}
+
+		if (!expectations.isEmpty()) {
+			description.appendValueList(" with " + expectations.size() + " errors: ", ", ", "", expectations);
+		}
+	}
+
+	List<ErrorExpectation> getExpectations() {
+		return expectations;
+	}
+
+	/**
+	 * Returns the lookup key of the expectation at the specified index.
+	 *
+	 * @param index the index of the expectation
+	 * @return the key, or null if the expectation has no literal message
+	 */
+	ErrorKey getExactKey(int index) {
+		return exactKeys[index];
+	}
+
+	/**
+	 * Returns the indices of the expectations with a literal message and the specified key.
+	 *
+	 * @param key the key of an error, with its message
+	 * @return the indices, or null if there are none
+	 */
+	int[] getExactIndices(ErrorKey key) {
+		return exactIndices.get(key);
+	}
+
+	/**
+	 * Indicates whether an error with a code could meet one of the expectations without a literal
+	 * message. (An error with a code that does not have the key of an expectation with a literal
+	 * message can only meet one of those.)
+	 *
+	 * @param error the error (with a code)
+	 * @return true if an expectation without literal message accepts it
+	 */
+	boolean isAcceptedByFlexibleExpectation(ApiErrorResponseObjectMatcher.Error error, MessagePatterns.Matches messageMatches) {
+		final int[] indices = flexibleIndices.get(new ErrorKey(error.getCode(), error.getLocationType(), error.getLocation(), null));
+		if (indices != null) {
+			for (int index : indices) {
+				if (matches(index, error, messageMatches)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Indicates whether an error meets the expectation at the specified index. The message patterns
+	 * are evaluated through the memoized results of the current evaluation.
+	 *
+	 * @param index the index of the expectation
+	 * @param error the error
+	 * @param messageMatches the pattern results of the current evaluation
+	 * @return true if the error meets the expectation
+	 */
+	boolean matches(int index, ApiErrorResponseObjectMatcher.Error error, MessagePatterns.Matches messageMatches) {
+		final ErrorExpectation expectation = expectations.get(index);
+		if (patternIds[index] < 0) {
+			return expectation.matches(error);
+		}
+		return expectation.matchesExceptMessage(error) && error.getMessage() != null && messageMatches.matches(patternIds[index], error.getMessage());
+	}
+
+	/**
+	 * Returns an empty memo of message pattern results, for one evaluation.
+	 */
+	MessagePatterns.Matches newMessageMatches() {
+		return new MessagePatterns.Matches(messagePatterns);
+	}
+
+	/**
+	 * Returns the indices of the expectations without a literal message, most specific first.
+	 */
+	int[] getFlexibleOrder() {
+		return flexibleOrder;
+	}
+
+	/**
+	 * Per-thread scratch state of {@link #matches(ApiErrorResponse)}, shared by all plans and grown to
+	 * the largest one. Flags are stamped with the number of the current check instead of being
+	 * cleared between checks.
+	 */
+	private static final class Workspace {
+
+		private int[] exactUsed = new int[0];
+		private int[] exactStamps = new int[0];
+		private int[] metStamps = new int[0];
+		private int stamp;
+
+		/**
+		 * Starts a check, with room for the specified number of exact groups and expectations.
+		 */
+		public void begin(int exactGroupCount, int expectationCount) {
+			if (exactStamps.length < exactGroupCount) {
+				exactUsed = new int[exactGroupCount];
+				exactStamps = new int[exactGroupCount];
+			}
+			if (metStamps.length < expectationCount) {
+				metStamps = new int[expectationCount];
+			}
+
+			if (++stamp == 0) {
+				Arrays.fill(exactStamps, 0);
+				Arrays.fill(metStamps, 0);
+				stamp = 1;
+			}
+		}
+	}
+
+	/**
+	 * Collects error expectations and compiles them into a plan.
+	 */
+	public static final class Builder {
+
+		private final Integer expectedHttpStatusCode;
+		private final List<ErrorExpectation> expectedErrors;
+
+		//<editor-fold defaultstate="collapsed" desc="Constructors">
+		private Builder(Integer expectedHttpStatusCode) {
+			this.expectedHttpStatusCode = expectedHttpStatusCode;
+			this.expectedErrors = new ArrayList<>();
+		}
+		//</editor-fold>
+
+		public Builder withError(int code) {
+			return withError(code, null, null, (String) null);
+		}
+
+		public Builder withError(IErrorCode code) {
+			return withError(code.getCode(), null, null, (String) null);
+		}
+
+		public Builder withError(int code, String locationType, String location) {
+			return withError(code, locationType, location, (String) null);
+		}
+
+		public Builder withError(IErrorCode code, String locationType, String location) {
+			return withError(code.getCode(), locationType, location, (String) null);
+		}
+
+		public Builder withError(int code, String locationType, String location, String message) {
+			expectedErrors.add(new ErrorExpectation(code, locationType, location, message));
+			return this;
+		}
+
+		public Builder withError(IErrorCode code, String locationType, String location, String message) {
+			return withError(code.getCode(), locationType, location, message);
+		}
+
+		public Builder withError(int code, String locationType, String location, Pattern messagePattern) {
+			expectedErrors.add(new ErrorExpectation(code, locationType, location, messagePattern));
+			return this;
+		}
+
+		public Builder withError(IErrorCode code, String locationType, String location, Pattern messagePattern) {
+			return withError(code.getCode(), locationType, location, messagePattern);
+		}
+
+		/**
+		 * Expects an error whose message matches a regular expression. The expression is compiled
+		 * once and shared by all matchers.
+		 */
+		public Builder withErrorMatching(int code, String locationType, String location, String messageRegex) {
+			return withError(code, locationType, location, MessagePatterns.compile(messageRegex));
+		}
+
+		public Builder withErrorMatching(IErrorCode code, String locationType, String location, String messageRegex) {
+			return withErrorMatching(code.getCode(), locationType, location, messageRegex);
+		}
+
+		/**
+		 * Expects the errors of a scenario of an {@link ErrorCatalog} of the classpath, read the first
+		 * time it is used.
+		 *
+		 * @param catalog the path of the catalog on the classpath, e.g. <tt>users.errors.yml</tt>
+		 * @param scenario the key of the scenario
+		 * @return this builder
+		 * @throws IllegalArgumentException if the catalog or scenario does not exist, or if the
+		 * scenario expects another HTTP status code
+		 */
+		public Builder withErrorsFrom(String catalog, String scenario) {
+
+			final ErrorCatalog.Scenario expected = ErrorCatalog.get(catalog).getScenario(scenario);
+			if (expected.getHttpStatusCode() != null && expectedHttpStatusCode != null && !expected.getHttpStatusCode().equals(expectedHttpStatusCode)) {
+				throw new IllegalArgumentException("Scenario " + scenario + " of error catalog " + catalog + " expects HTTP status code "
+						+ expected.getHttpStatusCode() + ", not " + expectedHttpStatusCode);
+			}
+
+			expected.addTo(this);
+			return this;
+		}
+
+		/**
+		 * Expects an error with any message, including a missing or blank one (used to replay recorded
+		 * responses).
+		 */
+		Builder withErrorWithAnyMessage(int code, String locationType, String location) {
+			expectedErrors.add(ErrorExpectation.withAnyMessage(code, locationType, location));
+			return this;
+		}
+
+		/**
+		 * Compiles the expectations collected so far. The builder can still be used afterwards; it
+		 * does not affect the plans it has already built.
+		 *
+		 * @return an immutable plan
+		 */
+		public ErrorResponsePlan build() {
+			return new ErrorResponsePlan(expectedHttpStatusCode, expectedErrors);
+		}
+	}
+}
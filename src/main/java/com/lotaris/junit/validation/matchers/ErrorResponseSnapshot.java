@@ -0,0 +1,98 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Recorded API error response: its HTTP status code and errors, in their original order.
+ */
+final class ErrorResponseSnapshot {
+
+	private final int httpStatusCode;
+	private final List<ApiErrorResponseObjectMatcher.Error> errors;
+
+	public ErrorResponseSnapshot(int httpStatusCode, List<ApiErrorResponseObjectMatcher.Error> errors) {
+		this.httpStatusCode = httpStatusCode;
+		this.errors = Collections.unmodifiableList(errors);
+	}
+
+	static ErrorResponseSnapshot of(ApiErrorResponse response) {
+		final List<ApiErrorResponseObjectMatcher.Error> errors = new ArrayList<>(response.getErrors().size());
+		for (ApiError error : response.getErrors()) {
+			errors.add(new ApiErrorResponseObjectMatcher.Error(error));
+		}
+		return new ErrorResponseSnapshot(response.getHttpStatusCode(), errors);
+	}
+
+	public int getHttpStatusCode() {
+		return httpStatusCode;
+	}
+
+	public List<ApiErrorResponseObjectMatcher.Error> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Returns the expectations of a response identical to this one. An error recorded without code
+	 * is expected with code 0 (which an error without code matches); an error recorded without
+	 * message is expected with any message.
+	 *
+	 * @return the compiled expectations
+	 */
+	public ErrorResponsePlan toPlan() {
+
+		final ErrorResponsePlan.Builder builder = ErrorResponsePlan.builder(httpStatusCode);
+		for (ApiErrorResponseObjectMatcher.Error error : errors) {
+			final int code = error.getCode() != null ? error.getCode() : 0;
+			if (error.getMessage() != null) {
+				builder.withError(code, error.getLocationType(), error.getLocation(), error.getMessage());
+			} else {
+				builder.withErrorWithAnyMessage(code, error.getLocationType(), error.getLocation());
+			}
+		}
+
+		return builder.build();
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = httpStatusCode;
+		for (ApiErrorResponseObjectMatcher.Error error : errors) {
+			hash = 31 * hash + Objects.hash(error.getCode(), error.getLocationType(), error.getLocation(), error.getMessage());
+		}
+		return hash;
+	}
+
+	/**
+	 * Two snapshots are equal if they have the same HTTP status code and the same errors, in the same
+	 * order.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof ErrorResponseSnapshot)) {
+			return false;
+		}
+
+		final ErrorResponseSnapshot other = (ErrorResponseSnapshot) obj;
+		if (httpStatusCode != other.httpStatusCode || errors.size() != other.errors.size()) {
+			return false;
+		}
+
+		for (int i = 0; i < errors.size(); i++) {
+			final ApiErrorResponseObjectMatcher.Error error = errors.get(i);
+			final ApiErrorResponseObjectMatcher.Error otherError = other.errors.get(i);
+			if (!Objects.equals(error.getCode(), otherError.getCode()) || !Objects.equals(error.getLocationType(), otherError.getLocationType())
+					|| !Objects.equals(error.getLocation(), otherError.getLocation()) || !Objects.equals(error.getMessage(), otherError.getMessage())) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
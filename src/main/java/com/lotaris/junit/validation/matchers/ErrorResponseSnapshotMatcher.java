@@ -0,0 +1,103 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiErrorResponse;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+
+/**
+ * Ensures that an API error response object is identical to the snapshot recorded for a test.
+ *
+ * <p>The first time a test runs, its response is recorded in the {@link ErrorResponseSnapshotStore}
+ * and the assertion passes. Later runs compare the response to the snapshot: same HTTP status code
+ * and same errors, in any order. If the store is updating, a mismatching snapshot is replaced by the
+ * actual response instead.</p>
+ *
+ * <p>The expectations of a snapshot are compiled once and reused until the snapshot changes.</p>
+ */
+public class ErrorResponseSnapshotMatcher extends BaseMatcher<ApiErrorResponse> {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static ErrorResponseSnapshotMatcher matchesSnapshot(ErrorResponseSnapshotStore store, String testId) {
+		return new ErrorResponseSnapshotMatcher(store, testId);
+	}
+	//</editor-fold>
+
+	private final ErrorResponseSnapshotStore store;
+	private final String testId;
+	private CompiledSnapshot compiled;
+
+	public ErrorResponseSnapshotMatcher(ErrorResponseSnapshotStore store, String testId) {
+		this.store = store;
+		this.testId = testId;
+	}
+
+	@Override
+	public boolean matches(Object item) {
+
+		if (item == null) {
+			return false;
+		}
+
+		final ApiErrorResponse response = (ApiErrorResponse) item;
+		final ErrorResponseSnapshot snapshot = store.get(testId);
+		if (snapshot != null && plan(snapshot).matches(response)) {
+			return true;
+		} else if (snapshot == null || store.isUpdating()) {
+			store.record(testId, ErrorResponseSnapshot.of(response));
+			return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public void describeTo(Description description) {
+
+		description.appendText("snapshot ").appendValue(testId).appendText(" of ");
+
+		final ErrorResponseSnapshot snapshot = store.get(testId);
+		if (snapshot != null) {
+			plan(snapshot).describeTo(description);
+		} else {
+			description.appendText("a JSON API error response");
+		}
+	}
+
+	@Override
+	public void describeMismatch(Object item, Description description) {
+
+		final ErrorResponseSnapshot snapshot = store.get(testId);
+		if (item == null) {
+			description.appendText("response is null");
+		} else if (snapshot == null) {
+			description.appendText("no snapshot recorded in " + store.getPath());
+		} else {
+			plan(snapshot).evaluate((ApiErrorResponse) item).describeMismatch(description);
+		}
+	}
+
+	/**
+	 * Returns the expectations of a snapshot, compiling them only if the snapshot differs from the
+	 * last one (snapshots read from the file are decoded again on each lookup).
+	 */
+	private synchronized ErrorResponsePlan plan(ErrorResponseSnapshot snapshot) {
+		if (compiled == null || !compiled.snapshot.equals(snapshot)) {
+			compiled = new CompiledSnapshot(snapshot, snapshot.toPlan());
+		}
+		return compiled.plan;
+	}
+
+	/**
+	 * Snapshot and its compiled expectations.
+	 */
+	private static final class CompiledSnapshot {
+
+		private final ErrorResponseSnapshot snapshot;
+		private final ErrorResponsePlan plan;
+
+		public CompiledSnapshot(ErrorResponseSnapshot snapshot, ErrorResponsePlan plan) {
+			this.snapshot = snapshot;
+			this.plan = plan;
+		}
+	}
+}
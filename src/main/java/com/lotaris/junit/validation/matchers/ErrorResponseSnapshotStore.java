@@ -0,0 +1,548 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * File of recorded API error responses (snapshots), keyed by test id.
+ *
+ * <p>The file is memory-mapped when the store is opened and snapshots are decoded one at a time
+ * when they are looked up, so opening a store with many snapshots costs almost no time or heap.
+ * Snapshots recorded by {@link ErrorResponseSnapshotMatcher} are kept in memory and written to the
+ * file by {@link #save()} or {@link #close()}. A save unmaps the file before replacing it (a mapped
+ * file cannot be replaced on Windows), and the store then reads the saved content from the
+ * heap.</p>
+ *
+ * <pre>
+ * private static ErrorResponseSnapshotStore snapshots;
+ *
+ * &#64;BeforeClass
+ * public static void openSnapshots() throws IOException {
+ *	snapshots = ErrorResponseSnapshotStore.open(new File("src/test/resources/error-responses.snapshots"));
+ * }
+ *
+ * &#64;AfterClass
+ * public static void saveSnapshots() throws IOException {
+ *	snapshots.close();
+ * }
+ *
+ * assertThat(response, matchesSnapshot(snapshots, "UserResource#rejectsBlankName"));
+ * </pre>
+ *
+ * <p>File format (big-endian): a header (magic number, version, string count, entry count, offset
+ * of the string offsets, offset of the index), the offsets of the interned strings, the index (test
+ * id string and record offset of each snapshot, sorted by the UTF-8 bytes of the test id), the
+ * strings (varint length and UTF-8 bytes) and the records (varint HTTP status code, varint error
+ * count, and for each error its varint code and the varint indices of its location type, location
+ * and message, 0 meaning null).</p>
+ *
+ * <p>Set the <tt>junit-validation.snapshots.update</tt> system property to <tt>true</tt> to replace
+ * the snapshots that no longer match instead of failing.</p>
+ */
+public final class ErrorResponseSnapshotStore implements Closeable {
+
+	/**
+	 * System property that makes stores opened with {@link #open(Path)} replace mismatching snapshots.
+	 */
+	public static final String UPDATE_PROPERTY = "junit-validation.snapshots.update";
+
+	private static final int MAGIC = 0x4A565353;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 24;
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static ErrorResponseSnapshotStore open(Path path) throws IOException {
+		return open(path, Boolean.getBoolean(UPDATE_PROPERTY));
+	}
+
+	public static ErrorResponseSnapshotStore open(File file) throws IOException {
+		return open(file.toPath());
+	}
+
+	/**
+	 * Opens a snapshot file. The file does not have to exist yet.
+	 *
+	 * @param path the snapshot file
+	 * @param update whether mismatching snapshots are replaced by the actual response
+	 * @return the store
+	 * @throws IOException if the file cannot be read or is not a snapshot file
+	 */
+	public static ErrorResponseSnapshotStore open(Path path, boolean update) throws IOException {
+		return new ErrorResponseSnapshotStore(path, update);
+	}
+	//</editor-fold>
+
+	private final Path path;
+	private final boolean update;
+	private final ConcurrentMap<String, ErrorResponseSnapshot> recorded;
+	// held to read the mapping, and exclusively to unmap it
+	private final ReadWriteLock mappingLock;
+	private volatile Mapping mapping;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private ErrorResponseSnapshotStore(Path path, boolean update) throws IOException {
+		this.path = path;
+		this.update = update;
+		this.recorded = new ConcurrentHashMap<>();
+		this.mappingLock = new ReentrantReadWriteLock();
+		this.mapping = Mapping.map(path);
+	}
+	//</editor-fold>
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Indicates whether mismatching snapshots are replaced by the actual response instead of failing.
+	 */
+	public boolean isUpdating() {
+		return update;
+	}
+
+	public boolean contains(String testId) {
+		return get(testId) != null;
+	}
+
+	/**
+	 * Returns the number of snapshots, saved or not.
+	 */
+	public int size() {
+		mappingLock.readLock().lock();
+		try {
+			final Mapping current = mapping;
+			int size = current.entryCount;
+			for (String testId : recorded.keySet()) {
+				if (current.find(testId) < 0) {
+					size++;
+				}
+			}
+			return size;
+		} finally {
+			mappingLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Indicates whether snapshots have been recorded since the last save.
+	 */
+	public boolean isModified() {
+		return !recorded.isEmpty();
+	}
+
+	ErrorResponseSnapshot get(String testId) {
+		final ErrorResponseSnapshot snapshot = recorded.get(testId);
+		if (snapshot != null) {
+			return snapshot;
+		}
+
+		mappingLock.readLock().lock();
+		try {
+			return mapping.get(testId);
+		} finally {
+			mappingLock.readLock().unlock();
+		}
+	}
+
+	void record(String testId, ErrorResponseSnapshot snapshot) {
+		recorded.put(testId, snapshot);
+	}
+
+	/**
+	 * Writes the recorded snapshots to the file, along with the snapshots it already contains. The
+	 * file is unmapped, then replaced atomically when the file system allows it.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void save() throws IOException {
+
+		if (recorded.isEmpty()) {
+			return;
+		}
+
+		// only saves replace the mapping, and they are synchronized
+		final Map<String, ErrorResponseSnapshot> saved = new HashMap<>(recorded);
+		final Map<String, ErrorResponseSnapshot> all = new HashMap<>(mapping.readAll());
+		all.putAll(saved);
+		final ByteBuffer content = encode(all);
+
+		final Path target = path.toAbsolutePath();
+		Files.createDirectories(target.getParent());
+		final Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				final ByteBuffer written = content.duplicate();
+				while (written.hasRemaining()) {
+					channel.write(written);
+				}
+				channel.force(true);
+			}
+
+			// read the new content from the heap from now on, and release the file
+			mappingLock.writeLock().lock();
+			try {
+				final Mapping previous = mapping;
+				mapping = Mapping.of(content, target);
+				previous.release();
+			} finally {
+				mappingLock.writeLock().unlock();
+			}
+
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+
+		// snapshots recorded during the save are kept for the next one
+		for (Map.Entry<String, ErrorResponseSnapshot> entry : saved.entrySet()) {
+			recorded.remove(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Saves the recorded snapshots.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		save();
+	}
+
+	@Override
+	public String toString() {
+		return "snapshots " + path;
+	}
+
+	private static ByteBuffer encode(Map<String, ErrorResponseSnapshot> snapshots) throws IOException {
+
+		// sort the test ids by their UTF-8 bytes, the order of the binary search
+		final List<Map.Entry<byte[], ErrorResponseSnapshot>> entries = new ArrayList<>(snapshots.size());
+		for (Map.Entry<String, ErrorResponseSnapshot> entry : snapshots.entrySet()) {
+			entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey().getBytes(UTF_8), entry.getValue()));
+		}
+		Collections.sort(entries, new Comparator<Map.Entry<byte[], ErrorResponseSnapshot>>() {
+			@Override
+			public int compare(Map.Entry<byte[], ErrorResponseSnapshot> o1, Map.Entry<byte[], ErrorResponseSnapshot> o2) {
+				return compareBytes(o1.getKey(), o2.getKey());
+			}
+		});
+
+		final Map<String, Integer> strings = new LinkedHashMap<>();
+		final ByteArrayOutputStream records = new ByteArrayOutputStream();
+		final int[] testIds = new int[entries.size()];
+		final int[] recordOffsets = new int[entries.size()];
+		for (int i = 0; i < entries.size(); i++) {
+			final ErrorResponseSnapshot snapshot = entries.get(i).getValue();
+			testIds[i] = intern(strings, new String(entries.get(i).getKey(), UTF_8));
+			recordOffsets[i] = records.size();
+
+			writeVarint(records, snapshot.getHttpStatusCode());
+			writeVarint(records, snapshot.getErrors().size());
+			for (ApiErrorResponseObjectMatcher.Error error : snapshot.getErrors()) {
+				writeVarint(records, error.getCode() != null ? zigZag(error.getCode()) + 1 : 0);
+				writeVarint(records, optionalString(strings, error.getLocationType()));
+				writeVarint(records, optionalString(strings, error.getLocation()));
+				writeVarint(records, optionalString(strings, error.getMessage()));
+			}
+		}
+
+		final ByteArrayOutputStream stringData = new ByteArrayOutputStream();
+		final int[] stringOffsets = new int[strings.size()];
+		int s = 0;
+		for (String string : strings.keySet()) {
+			final byte[] bytes = string.getBytes(UTF_8);
+			stringOffsets[s++] = stringData.size();
+			writeVarint(stringData, bytes.length);
+			stringData.write(bytes, 0, bytes.length);
+		}
+
+		final long stringOffsetsOffset = HEADER_SIZE;
+		final long indexOffset = stringOffsetsOffset + 4L * stringOffsets.length;
+		final long stringDataOffset = indexOffset + 8L * entries.size();
+		final long recordsOffset = stringDataOffset + stringData.size();
+		final long size = recordsOffset + records.size();
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Too many snapshots for a single file (" + size + " bytes)");
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(stringOffsets.length).putInt(entries.size());
+		buffer.putInt((int) stringOffsetsOffset).putInt((int) indexOffset);
+		for (int offset : stringOffsets) {
+			buffer.putInt((int) stringDataOffset + offset);
+		}
+		for (int i = 0; i < entries.size(); i++) {
+			buffer.putInt(testIds[i]).putInt((int) recordsOffset + recordOffsets[i]);
+		}
+		buffer.put(stringData.toByteArray());
+		buffer.put(records.toByteArray());
+		buffer.flip();
+
+		return buffer;
+	}
+
+	private static int intern(Map<String, Integer> strings, String string) {
+		Integer index = strings.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.put(string, index);
+		}
+		return index;
+	}
+
+	private static long optionalString(Map<String, Integer> strings, String string) {
+		return string != null ? intern(strings, string) + 1L : 0L;
+	}
+
+	private static long zigZag(int value) {
+		return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+	}
+
+	private static int unZigZag(long value) {
+		final int n = (int) value;
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, long value) {
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			out.write((int) ((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		out.write((int) remaining);
+	}
+
+	private static int compareBytes(byte[] a, byte[] b) {
+		final int length = Math.min(a.length, b.length);
+		for (int i = 0; i < length; i++) {
+			final int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	/**
+	 * Read-only view of a snapshot file, mapped or in the heap. Only absolute reads are used on the
+	 * buffer, so a mapping can be read by several threads.
+	 */
+	private static final class Mapping {
+
+		private static final Mapping EMPTY = new Mapping(null, 0, 0, 0);
+
+		private final ByteBuffer buffer;
+		private final int entryCount;
+		private final int stringOffsetsOffset;
+		private final int indexOffset;
+
+		private Mapping(ByteBuffer buffer, int entryCount, int stringOffsetsOffset, int indexOffset) {
+			this.buffer = buffer;
+			this.entryCount = entryCount;
+			this.stringOffsetsOffset = stringOffsetsOffset;
+			this.indexOffset = indexOffset;
+		}
+
+		public static Mapping map(Path path) throws IOException {
+
+			if (!Files.exists(path) || Files.size(path) == 0) {
+				return EMPTY;
+			}
+
+			final ByteBuffer buffer;
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+
+			try {
+				return of(buffer, path);
+			} catch (IOException ioe) {
+				unmap(buffer);
+				throw ioe;
+			}
+		}
+
+		/**
+		 * Returns a view of the content of a snapshot file.
+		 */
+		public static Mapping of(ByteBuffer buffer, Path path) throws IOException {
+
+			if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+				throw new IOException(path + " is not an error response snapshot file");
+			} else if (buffer.getInt(4) != VERSION) {
+				throw new IOException(path + " has unsupported snapshot format version " + buffer.getInt(4));
+			}
+
+			return new Mapping(buffer, buffer.getInt(12), buffer.getInt(16), buffer.getInt(20));
+		}
+
+		/**
+		 * Unmaps the file, if it is mapped. The mapping must not be read anymore.
+		 */
+		public void release() {
+			if (buffer != null) {
+				unmap(buffer);
+			}
+		}
+
+		/**
+		 * Unmaps a mapped buffer now instead of when it is garbage collected, through the JDK internals
+		 * (left to the garbage collector if they are not accessible).
+		 */
+		private static void unmap(ByteBuffer buffer) {
+
+			if (!buffer.isDirect()) {
+				return;
+			}
+
+			try {
+				try {
+					// Java 9 and later
+					final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+					final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+					final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+					theUnsafe.setAccessible(true);
+					invokeCleaner.invoke(theUnsafe.get(null), buffer);
+				} catch (NoSuchMethodException nsme) {
+					// Java 8 and earlier
+					final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+					cleanerMethod.setAccessible(true);
+					final Object cleaner = cleanerMethod.invoke(buffer);
+					if (cleaner != null) {
+						cleaner.getClass().getMethod("clean").invoke(cleaner);
+					}
+				}
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				// unmapped when garbage collected
+			}
+		}
+
+		public ErrorResponseSnapshot get(String testId) {
+			final int entry = find(testId);
+			return entry >= 0 ? readRecord(buffer.getInt(indexOffset + 8 * entry + 4)) : null;
+		}
+
+		/**
+		 * Returns the index entry of a test id, or -1 if the file has no snapshot for it.
+		 */
+		public int find(String testId) {
+
+			final byte[] key = testId.getBytes(UTF_8);
+			int low = 0;
+			int high = entryCount - 1;
+			while (low <= high) {
+				final int mid = (low + high) >>> 1;
+				final int cmp = compareString(buffer.getInt(indexOffset + 8 * mid), key);
+				if (cmp < 0) {
+					low = mid + 1;
+				} else if (cmp > 0) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+
+			return -1;
+		}
+
+		public Map<String, ErrorResponseSnapshot> readAll() {
+			final Map<String, ErrorResponseSnapshot> snapshots = new HashMap<>(entryCount * 2);
+			for (int i = 0; i < entryCount; i++) {
+				snapshots.put(readString(buffer.getInt(indexOffset + 8 * i)), readRecord(buffer.getInt(indexOffset + 8 * i + 4)));
+			}
+			return snapshots;
+		}
+
+		private ErrorResponseSnapshot readRecord(int offset) {
+
+			final int[] position = { offset };
+			final int httpStatusCode = (int) readVarint(position);
+			final int errorCount = (int) readVarint(position);
+
+			final List<ApiErrorResponseObjectMatcher.Error> errors = new ArrayList<>(errorCount);
+			for (int i = 0; i < errorCount; i++) {
+				final long code = readVarint(position);
+				final String locationType = readOptionalString(position);
+				final String location = readOptionalString(position);
+				final String message = readOptionalString(position);
+				errors.add(new ApiErrorResponseObjectMatcher.Error(code != 0 ? unZigZag(code - 1) : null, locationType, location, message));
+			}
+
+			return new ErrorResponseSnapshot(httpStatusCode, errors);
+		}
+
+		private String readOptionalString(int[] position) {
+			final long index = readVarint(position);
+			return index != 0 ? readString((int) index - 1) : null;
+		}
+
+		private String readString(int index) {
+			final int[] position = { buffer.getInt(stringOffsetsOffset + 4 * index) };
+			final byte[] bytes = new byte[(int) readVarint(position)];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(position[0] + i);
+			}
+			return new String(bytes, UTF_8);
+		}
+
+		/**
+		 * Compares a string of the file to UTF-8 bytes without decoding it.
+		 */
+		private int compareString(int index, byte[] key) {
+
+			final int[] position = { buffer.getInt(stringOffsetsOffset + 4 * index) };
+			final int length = (int) readVarint(position);
+			final int common = Math.min(length, key.length);
+			for (int i = 0; i < common; i++) {
+				final int diff = (buffer.get(position[0] + i) & 0xFF) - (key[i] & 0xFF);
+				if (diff != 0) {
+					return diff;
+				}
+			}
+
+			return length - key.length;
+		}
+
+		private long readVarint(int[] position) {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = buffer.get(position[0]++);
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Open-addressing table grouping expectations by code, location type, location and (optionally)
+ * literal message. Lookups take the fields of an actual error directly, so that finding the
+ * expectations an error may meet does not allocate a key.
+ */
+final class ErrorTable {
+
+	private final List<ErrorExpectation> expectations;
+	private final boolean withMessage;
+	private final int[] slots;
+	private final int[][] groups;
+
+	/**
+	 * Groups the specified expectations.
+	 *
+	 * @param expectations all expectations of the plan
+	 * @param indices the indices of the expectations to group, in the order they should be tried
+	 * @param withMessage whether the literal message is part of the key
+	 */
+	ErrorTable(List<ErrorExpectation> expectations, int[] indices, boolean withMessage) {
+		this.expectations = expectations;
+		this.withMessage = withMessage;
+
+		int capacity = 2;
+		while (capacity < indices.length * 2) {
+			capacity <<= 1;
+		}
+		slots = new int[capacity];
+
+		final List<List<Integer>> grouped = new ArrayList<>();
+		for (int index : indices) {
+			final ErrorExpectation expectation = expectations.get(index);
+			final int slot = findSlot(expectation.getCode(), expectation.getLocationType(), expectation.getLocation(), withMessage ? expectation.getMessage() : null, grouped);
+			if (slots[slot] == 0) {
+				grouped.add(new ArrayList<Integer>());
+				slots[slot] = grouped.size();
+			}
+			grouped.get(slots[slot] - 1).add(index);
+		}
+
+		groups = new int[grouped.size()][];
+		for (int g = 0; g < groups.length; g++) {
+			groups[g] = new int[grouped.get(g).size()];
+			for (int i = 0; i < groups[g].length; i++) {
+				groups[g][i] = grouped.get(g).get(i);
+			}
+		}
+	}
+
+	int getGroupCount() {
+		return groups.length;
+	}
+
+	/**
+	 * Returns the group of expectations with the specified key.
+	 *
+	 * @return the group id, or -1 if no expectation has this key
+	 */
+	int find(int code, String locationType, String location, String message) {
+		final int slot = findSlot(code, locationType, location, withMessage ? message : null, null);
+		return slots[slot] - 1;
+	}
+
+	/**
+	 * Returns the indices of the expectations of a group, in the order they should be tried.
+	 */
+	int[] getGroup(int group) {
+		return groups[group];
+	}
+
+	private int findSlot(int code, String locationType, String location, String message, List<List<Integer>> building) {
+		final int mask = slots.length - 1;
+		int h = code * 0x9E3779B9;
+		h = 31 * h + (locationType != null ? locationType.hashCode() : 0);
+		h = 31 * h + (location != null ? location.hashCode() : 0);
+		h = 31 * h + (message != null ? message.hashCode() : 0);
+
+		int slot = (h ^ (h >>> 16)) & mask;
+		while (slots[slot] != 0) {
+			final int first = building != null ? building.get(slots[slot] - 1).get(0) : groups[slots[slot] - 1][0];
+			final ErrorExpectation expectation = expectations.get(first);
+			if (expectation.getCode() == code && Objects.equals(expectation.getLocationType(), locationType) && Objects.equals(expectation.getLocation(), location)
+					&& (!withMessage || Objects.equals(expectation.getMessage(), message))) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+}
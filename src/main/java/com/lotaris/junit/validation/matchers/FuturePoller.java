@@ -0,0 +1,140 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Watches futures that cannot notify their completion (plain {@link Future}s) from a single daemon
+ * thread, so that any number of them can be awaited without blocking one thread per future. The
+ * thread polls the watched futures every {@value #MIN_POLL_INTERVAL_MICROS} microseconds after a
+ * future is added or completes, doubles the interval up to {@value #MAX_POLL_INTERVAL_MICROS}
+ * microseconds while none completes, and sleeps when there are none.
+ */
+final class FuturePoller implements Runnable {
+
+	private static final long MIN_POLL_INTERVAL_MICROS = 200;
+	private static final long MAX_POLL_INTERVAL_MICROS = 5000;
+
+	/**
+	 * Receives the outcome of a future.
+	 */
+	interface Callback {
+
+		/**
+		 * @param value the value of the future, if it completed normally
+		 * @param failure the exception of the future (unwrapped from the {@link ExecutionException}),
+		 * or null if it completed normally
+		 */
+		void complete(Object value, Throwable failure);
+
+		/**
+		 * Indicates whether the outcome is still awaited; futures whose outcome is no longer awaited
+		 * are not watched anymore.
+		 */
+		boolean isAwaited();
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	/**
+	 * Calls a callback when a future is done, from the polling thread.
+	 */
+	static void watch(Future<?> future, Callback callback) {
+		Holder.INSTANCE.added.offer(new Watch(future, callback));
+		LockSupport.unpark(Holder.THREAD);
+	}
+	//</editor-fold>
+
+	private final ConcurrentLinkedQueue<Watch> added;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	private FuturePoller() {
+		added = new ConcurrentLinkedQueue<>();
+	}
+	//</editor-fold>
+
+	@Override
+	public void run() {
+
+		final List<Watch> watched = new ArrayList<>();
+		long interval = MIN_POLL_INTERVAL_MICROS;
+		while (true) {
+			// futures often complete together: poll quickly again after one is added or completes
+			boolean active = false;
+			for (Watch watch = added.poll(); watch != null; watch = added.poll()) {
+				watched.add(watch);
+				active = true;
+			}
+
+			for (Iterator<Watch> it = watched.iterator(); it.hasNext();) {
+				final Watch watch = it.next();
+				if (watch.future.isDone()) {
+					it.remove();
+					notify(watch);
+					active = true;
+				} else if (!watch.callback.isAwaited()) {
+					it.remove();
+				}
+			}
+
+			interval = active ? MIN_POLL_INTERVAL_MICROS : Math.min(interval * 2, MAX_POLL_INTERVAL_MICROS);
+			if (watched.isEmpty() && added.isEmpty()) {
+				LockSupport.park(this);
+			} else {
+				LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(interval));
+			}
+		}
+	}
+
+	private static void notify(Watch watch) {
+
+		Object value = null;
+		Throwable failure = null;
+		try {
+			value = watch.future.get();
+		} catch (ExecutionException ee) {
+			failure = ee.getCause() != null ? ee.getCause() : ee;
+		} catch (CancellationException | InterruptedException e) {
+			failure = e;
+		}
+
+		try {
+			watch.callback.complete(value, failure);
+		} catch (RuntimeException | Error e) {
+			// a failing callback must not stop the polling of the other futures
+		}
+	}
+
+	private static final class Watch {
+
+		private final Future<?> future;
+		private final Callback callback;
+
+		public Watch(Future<?> future, Callback callback) {
+			this.future = future;
+			this.callback = callback;
+		}
+	}
+
+	/**
+	 * Poller and its thread, started on first use.
+	 */
+	private static final class Holder {
+
+		private static final FuturePoller INSTANCE = new FuturePoller();
+		private static final Thread THREAD = start();
+
+		private static Thread start() {
+			final Thread thread = new Thread(INSTANCE, "junit-validation-future-poller");
+			thread.setDaemon(true);
+			thread.start();
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParsingException;
+
+/**
+ * Reads JSON error catalogs with a streaming JSON-P parser. Kept apart from {@link ErrorCatalog} so
+ * that YAML catalogs can be used without a JSON-P implementation.
+ */
+final class JsonCatalogReader {
+
+	static Map<String, ErrorCatalog.Scenario> read(String name, Reader reader) throws IOException {
+
+		final Map<String, ErrorCatalog.Scenario> scenarios = new HashMap<>();
+		try (JsonParser parser = Json.createParser(reader)) {
+			expect(name, parser, JsonParser.Event.START_OBJECT);
+			while (nextKey(name, parser)) {
+				final ErrorCatalog.ScenarioReader scenario = new ErrorCatalog.ScenarioReader(name, parser.getString());
+				expect(name, parser, JsonParser.Event.START_OBJECT);
+				while (nextKey(name, parser)) {
+					final String property = parser.getString();
+					if ("errors".equals(property)) {
+						expect(name, parser, JsonParser.Event.START_ARRAY);
+						while (nextError(name, parser)) {
+							scenario.startError();
+							while (nextKey(name, parser)) {
+								final String field = parser.getString();
+								scenario.setErrorField(field, jsonValue(name, parser));
+							}
+						}
+					} else {
+						scenario.setField(property, jsonValue(name, parser));
+					}
+				}
+
+				ErrorCatalog.add(scenarios, scenario.build());
+			}
+		} catch (JsonParsingException jpe) {
+			throw new IOException(name + ": invalid JSON at line " + jpe.getLocation().getLineNumber(), jpe);
+		} catch (JsonException je) {
+			// e.g. no JSON-P implementation on the classpath (javaee-api only contains the API)
+			throw new IOException(name + ": " + je.getMessage(), je);
+		} catch (IllegalArgumentException iae) {
+			throw new IOException(iae.getMessage(), iae);
+		}
+
+		return scenarios;
+	}
+
+	/**
+	 * Moves to the next key of an object.
+	 *
+	 * @return true if the parser is on a key, false if it is at the end of the object
+	 */
+	private static boolean nextKey(String name, JsonParser parser) throws IOException {
+		final JsonParser.Event event = parser.next();
+		if (event != JsonParser.Event.KEY_NAME && event != JsonParser.Event.END_OBJECT) {
+			throw new IOException(name + ": expected a key, got " + event + " at line " + parser.getLocation().getLineNumber());
+		}
+		return event == JsonParser.Event.KEY_NAME;
+	}
+
+	/**
+	 * Moves to the next error of an array of errors.
+	 *
+	 * @return true if the parser is at the start of an error, false if it is at the end of the array
+	 */
+	private static boolean nextError(String name, JsonParser parser) throws IOException {
+		final JsonParser.Event event = parser.next();
+		if (event != JsonParser.Event.START_OBJECT && event != JsonParser.Event.END_ARRAY) {
+			throw new IOException(name + ": expected an error object, got " + event + " at line " + parser.getLocation().getLineNumber());
+		}
+		return event == JsonParser.Event.START_OBJECT;
+	}
+
+	private static void expect(String name, JsonParser parser, JsonParser.Event expected) throws IOException {
+		final JsonParser.Event event = parser.next();
+		if (event != expected) {
+			throw new IOException(name + ": expected " + expected + ", got " + event + " at line " + parser.getLocation().getLineNumber());
+		}
+	}
+
+	private static String jsonValue(String name, JsonParser parser) throws IOException {
+		final JsonParser.Event event = parser.next();
+		switch (event) {
+			case VALUE_STRING:
+			case VALUE_NUMBER:
+				return parser.getString();
+			case VALUE_TRUE:
+				return "true";
+			case VALUE_FALSE:
+				return "false";
+			case VALUE_NULL:
+				return null;
+			default:
+				throw new IOException(name + ": expected a scalar value, got " + event + " at line " + parser.getLocation().getLineNumber());
+		}
+	}
+
+	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
+	private JsonCatalogReader() {
+	}
+	//</editor-fold>
+}
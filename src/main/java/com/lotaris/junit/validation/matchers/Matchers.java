@@ -16,6 +16,10 @@ public final class Matchers {
 		return new ApiErrorResponseObjectMatcher(expectedHttpStatusCode);
 	}
 
+	public static ApiErrorResponseObjectMatcher isApiErrorResponseObject(ErrorResponsePlan plan) {
+		return new ApiErrorResponseObjectMatcher(plan);
+	}
+
 //	public static ApiErrorResponseObjectMatcher isApiErrorResponseObject(EApiHttpStatusCodes expectedHttpStatusCode) {
 //		return new ApiErrorResponseObjectMatcher(expectedHttpStatusCode);
 //	}
@@ -24,10 +28,50 @@ public final class Matchers {
 		return new ApiErrorsExceptionMatcher(expectedHttpStatusCode);
 	}
 
+	public static ApiErrorsExceptionMatcher isApiErrorsException(ErrorResponsePlan plan) {
+		return new ApiErrorsExceptionMatcher(plan);
+	}
+
 //	public static ApiErrorsExceptionMatcher isApiErrorsException(EApiHttpStatusCodes expectedHttpStatusCode) {
 //		return new ApiErrorsExceptionMatcher(expectedHttpStatusCode);
 //	}
 
+	public static ApiErrorResponseJsonMatcher isApiErrorResponseJson(ErrorResponsePlan plan) {
+		return new ApiErrorResponseJsonMatcher(plan);
+	}
+
+	public static ApiErrorResponseJsonMatcher isApiErrorResponseJson(ApiErrorResponseObjectMatcher objectMatcher) {
+		return ApiErrorResponseJsonMatcher.isApiErrorResponseJson(objectMatcher);
+	}
+
+	public static ErrorResponseSnapshotMatcher matchesSnapshot(ErrorResponseSnapshotStore store, String testId) {
+		return new ErrorResponseSnapshotMatcher(store, testId);
+	}
+
+	public static AssertionTable assertionTable() {
+		return AssertionTable.assertionTable();
+	}
+
+	public static AsyncAssertions asyncAssertions() {
+		return AsyncAssertions.asyncAssertions();
+	}
+
+	public static RecordedErrorsMatcher hasNoRecordedErrors() {
+		return RecordedErrorsMatcher.hasNoRecordedErrors();
+	}
+
+	public static RecordedErrorsMatcher hasRecordedErrors(int expectedCount) {
+		return RecordedErrorsMatcher.hasRecordedErrors(expectedCount);
+	}
+
+	public static RecordedErrorsMatcher hasRecordedError(int code) {
+		return RecordedErrorsMatcher.hasRecordedError(code);
+	}
+
+	public static RecordedErrorsMatcher hasRecordedErrorAt(String location) {
+		return RecordedErrorsMatcher.hasRecordedErrorAt(location);
+	}
+
 	//<editor-fold defaultstate="collapsed" desc="Hidden Constructor">
 	private Matchers() {
 	}
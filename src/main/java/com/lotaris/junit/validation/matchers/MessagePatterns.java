@@ -0,0 +1,316 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * The distinct message patterns of a plan, with a trie of their literal prefixes.
+ *
+ * <p>Message patterns must match the whole message, so a message can only match a pattern if it
+ * starts with the literal prefix of that pattern (e.g. <tt>Item </tt> for
+ * <tt>Item \d+ is invalid</tt>). Walking the trie along a message gives, in a single pass, the
+ * patterns that it can match; only those are run, once per distinct message and pattern, however
+ * many expectations share the pattern.</p>
+ */
+final class MessagePatterns {
+
+	private static final int MAX_CACHED_PATTERNS = 4096;
+	private static final ConcurrentMap<String, Pattern> CACHE = new ConcurrentHashMap<>();
+	private static final int PREFIX_INCOMPATIBLE_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.COMMENTS | Pattern.CANON_EQ;
+
+	private final Pattern[] patterns;
+
+	// trie of literal prefixes: sorted child characters and child nodes of each node, and the
+	// patterns whose prefix ends at each node
+	private final char[][] childChars;
+	private final int[][] childNodes;
+	private final int[][] nodePatterns;
+
+	/**
+	 * Returns the compiled pattern of a regular expression, from a cache shared by all matchers.
+	 *
+	 * @param regex the regular expression
+	 * @return the compiled pattern
+	 */
+	static Pattern compile(String regex) {
+		Pattern pattern = CACHE.get(regex);
+		if (pattern == null) {
+			pattern = Pattern.compile(regex);
+			if (CACHE.size() >= MAX_CACHED_PATTERNS) {
+				CACHE.clear();
+			}
+			final Pattern cached = CACHE.putIfAbsent(regex, pattern);
+			pattern = cached != null ? cached : pattern;
+		}
+		return pattern;
+	}
+
+	/**
+	 * Indexes the specified patterns. Patterns with the same expression and flags get the same id.
+	 *
+	 * @param expectationPatterns the pattern of each expectation (null if it has none)
+	 * @param patternIds filled with the pattern id of each expectation (-1 if it has none)
+	 */
+	MessagePatterns(List<Pattern> expectationPatterns, int[] patternIds) {
+
+		final Map<String, Integer> ids = new HashMap<>();
+		final List<Pattern> distinct = new ArrayList<>();
+		for (int i = 0; i < expectationPatterns.size(); i++) {
+			final Pattern pattern = expectationPatterns.get(i);
+			if (pattern == null) {
+				patternIds[i] = -1;
+				continue;
+			}
+
+			final String key = pattern.flags() + "/" + pattern.pattern();
+			Integer id = ids.get(key);
+			if (id == null) {
+				id = distinct.size();
+				ids.put(key, id);
+				distinct.add(pattern);
+			}
+			patternIds[i] = id;
+		}
+		patterns = distinct.toArray(new Pattern[distinct.size()]);
+
+		// build the trie with sorted children, then flatten it into arrays
+		final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+		final List<List<Integer>> ending = new ArrayList<>();
+		children.add(new TreeMap<Character, Integer>());
+		ending.add(new ArrayList<Integer>());
+		for (int id = 0; id < patterns.length; id++) {
+			final String prefix = literalPrefix(patterns[id]);
+			int node = 0;
+			for (int c = 0; c < prefix.length(); c++) {
+				Integer child = children.get(node).get(prefix.charAt(c));
+				if (child == null) {
+					child = children.size();
+					children.get(node).put(prefix.charAt(c), child);
+					children.add(new TreeMap<Character, Integer>());
+					ending.add(new ArrayList<Integer>());
+				}
+				node = child;
+			}
+			ending.get(node).add(id);
+		}
+
+		childChars = new char[children.size()][];
+		childNodes = new int[children.size()][];
+		nodePatterns = new int[children.size()][];
+		for (int node = 0; node < children.size(); node++) {
+			final TreeMap<Character, Integer> nodeChildren = children.get(node);
+			childChars[node] = new char[nodeChildren.size()];
+			childNodes[node] = new int[nodeChildren.size()];
+			int c = 0;
+			for (Map.Entry<Character, Integer> entry : nodeChildren.entrySet()) {
+				childChars[node][c] = entry.getKey();
+				childNodes[node][c++] = entry.getValue();
+			}
+
+			nodePatterns[node] = new int[ending.get(node).size()];
+			for (int p = 0; p < nodePatterns[node].length; p++) {
+				nodePatterns[node][p] = ending.get(node).get(p);
+			}
+		}
+	}
+
+	int size() {
+		return patterns.length;
+	}
+
+	Pattern getPattern(int id) {
+		return patterns[id];
+	}
+
+	/**
+	 * Returns the patterns matched by a message: the candidates are found by walking the trie once
+	 * along the message, then only their expressions are run.
+	 *
+	 * @param message the message
+	 * @return the ids of the matching patterns
+	 */
+	BitSet match(String message) {
+
+		final BitSet matching = new BitSet(patterns.length);
+		int node = 0;
+		int position = 0;
+		while (node >= 0) {
+			for (int id : nodePatterns[node]) {
+				if (patterns[id].matcher(message).matches()) {
+					matching.set(id);
+				}
+			}
+
+			if (position == message.length()) {
+				break;
+			}
+			node = child(node, message.charAt(position++));
+		}
+
+		return matching;
+	}
+
+	private int child(int node, char c) {
+		final char[] chars = childChars[node];
+		int low = 0;
+		int high = chars.length - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			if (chars[mid] < c) {
+				low = mid + 1;
+			} else if (chars[mid] > c) {
+				high = mid - 1;
+			} else {
+				return childNodes[node][mid];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the literal text that every message matched by the pattern starts with. The prefix may
+	 * be shorter than possible, but never longer: it stops at the first construct that is not a
+	 * plain character, and is empty if the expression has a top-level alternative or uses flags that
+	 * change how characters compare.
+	 */
+	static String literalPrefix(Pattern pattern) {
+
+		if ((pattern.flags() & Pattern.LITERAL) != 0) {
+			return (pattern.flags() & PREFIX_INCOMPATIBLE_FLAGS) == 0 ? pattern.pattern() : "";
+		} else if ((pattern.flags() & PREFIX_INCOMPATIBLE_FLAGS) != 0 || hasTopLevelAlternative(pattern.pattern())) {
+			return "";
+		}
+
+		final String regex = pattern.pattern();
+		final StringBuilder prefix = new StringBuilder();
+		int i = regex.startsWith("^") ? 1 : 0;
+		while (i < regex.length()) {
+
+			final char c = regex.charAt(i);
+			final int literalEnd;
+			final char literal;
+			if (c == '\\') {
+				if (i + 1 >= regex.length()) {
+					break;
+				}
+				final char escaped = regex.charAt(i + 1);
+				if (escaped == 'Q') {
+					// quoted text is literal, but a quantifier after it applies to its last character
+					final int end = regex.indexOf("\\E", i + 2);
+					final String quoted = regex.substring(i + 2, end >= 0 ? end : regex.length());
+					final int next = end >= 0 ? end + 2 : regex.length();
+					if (isQuantifier(regex, next)) {
+						int length = Math.max(quoted.length() - 1, 0);
+						if (length > 0 && Character.isHighSurrogate(quoted.charAt(length - 1))) {
+							length--;
+						}
+						prefix.append(quoted, 0, length);
+						break;
+					}
+					prefix.append(quoted);
+					i = next;
+					continue;
+				} else if (Character.isLetterOrDigit(escaped)) {
+					break;
+				}
+				literal = escaped;
+				literalEnd = i + 2;
+			} else if (Character.isSurrogate(c)) {
+				// a quantifier would apply to the whole code point
+				break;
+			} else if ("[](){}.*+?^$|".indexOf(c) >= 0) {
+				break;
+			} else {
+				literal = c;
+				literalEnd = i + 1;
+			}
+
+			// an optional or repeated character ends the prefix (it is kept if it occurs at least once)
+			if (isQuantifier(regex, literalEnd)) {
+				if (regex.charAt(literalEnd) == '+') {
+					prefix.append(literal);
+				}
+				break;
+			}
+
+			prefix.append(literal);
+			i = literalEnd;
+		}
+
+		return prefix.toString();
+	}
+
+	private static boolean isQuantifier(String regex, int index) {
+		return index < regex.length() && "*+?{".indexOf(regex.charAt(index)) >= 0;
+	}
+
+	/**
+	 * Indicates whether an expression has an alternative outside of any group (e.g. <tt>a|b</tt>, but
+	 * not <tt>(a|b)c</tt>, <tt>[|]</tt> or <tt>\Q|\E</tt>).
+	 */
+	static boolean hasTopLevelAlternative(String regex) {
+
+		int depth = 0;
+		boolean inClass = false;
+		for (int i = 0; i < regex.length(); i++) {
+			final char c = regex.charAt(i);
+			if (c == '\\') {
+				if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+					final int end = regex.indexOf("\\E", i + 2);
+					if (end < 0) {
+						return false;
+					}
+					i = end + 1;
+				} else {
+					i++;
+				}
+			} else if (inClass) {
+				inClass = c != ']';
+			} else if (c == '[') {
+				inClass = true;
+				if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+					i++;
+				}
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (c == '|' && depth == 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Memoized pattern results for the messages of one evaluation. Each distinct message is scanned
+	 * once.
+	 */
+	static final class Matches {
+
+		private final MessagePatterns patterns;
+		private final Map<String, BitSet> results;
+
+		Matches(MessagePatterns patterns) {
+			this.patterns = patterns;
+			this.results = new HashMap<>();
+		}
+
+		boolean matches(int patternId, String message) {
+			BitSet matching = results.get(message);
+			if (matching == null) {
+				matching = patterns.match(message);
+				results.put(message, matching);
+			}
+			return matching.get(patternId);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.junit.validation.ValidationContextRecorder;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+
+/**
+ * Ensures that the errors recorded by a {@link ValidationContextRecorder} (or added to its recorded
+ * context) have the expected count, code or location. The checks use the recorder's counters and do
+ * not scan the recorded errors.
+ */
+public class RecordedErrorsMatcher extends BaseMatcher<Object> {
+
+	//<editor-fold defaultstate="collapsed" desc="Static Imports">
+	public static RecordedErrorsMatcher hasNoRecordedErrors() {
+		return new RecordedErrorsMatcher(0, null, null);
+	}
+
+	public static RecordedErrorsMatcher hasRecordedErrors(int expectedCount) {
+		return new RecordedErrorsMatcher(expectedCount, null, null);
+	}
+
+	public static RecordedErrorsMatcher hasRecordedError(int code) {
+		return new RecordedErrorsMatcher(null, code, null);
+	}
+
+	public static RecordedErrorsMatcher hasRecordedErrorAt(String location) {
+		return new RecordedErrorsMatcher(null, null, location);
+	}
+	//</editor-fold>
+	private final Integer expectedCount;
+	private final Integer code;
+	private final String location;
+
+	private RecordedErrorsMatcher(Integer expectedCount, Integer code, String location) {
+		this.expectedCount = expectedCount;
+		this.code = code;
+		this.location = location;
+	}
+
+	@Override
+	public boolean matches(Object item) {
+
+		final ValidationContextRecorder recorder = recorderOf(item);
+		if (recorder == null) {
+			return false;
+		}
+
+		final int count = count(recorder);
+		return expectedCount != null ? count == expectedCount : count > 0;
+	}
+
+	@Override
+	public void describeTo(Description description) {
+
+		description.appendText("recorded validation context with ");
+		description.appendText(expectedCount != null ? expectedCount.toString() : "at least one");
+		description.appendText(expectedCount == null || expectedCount == 1 ? " error" : " errors");
+
+		if (code != null) {
+			description.appendText(" with code " + code);
+		}
+
+		if (location != null) {
+			description.appendText(" at location " + location);
+		}
+	}
+
+	@Override
+	public void describeMismatch(Object item, Description description) {
+
+		final ValidationContextRecorder recorder = recorderOf(item);
+		if (recorder == null) {
+			description.appendText("was not recorded by a validation context recorder: ").appendValue(item);
+			return;
+		}
+
+		description.appendText("has " + count(recorder) + " such errors in ").appendText(recorder.toString());
+	}
+
+	private int count(ValidationContextRecorder recorder) {
+		if (code != null) {
+			return recorder.getErrorCount(code);
+		} else if (location != null) {
+			return recorder.getErrorCountAt(location);
+		} else {
+			return recorder.getErrorCount();
+		}
+	}
+
+	private static ValidationContextRecorder recorderOf(Object item) {
+		if (item instanceof ValidationContextRecorder) {
+			return (ValidationContextRecorder) item;
+		} else if (item instanceof IValidationContext) {
+			return ValidationContextRecorder.of((IValidationContext) item);
+		}
+		return null;
+	}
+}
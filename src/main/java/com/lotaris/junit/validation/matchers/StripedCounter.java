@@ -0,0 +1,47 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counter incremented by many threads. Each thread increments one of several cells, each
+ * on its own cache line, so that threads rarely contend on the same cell; reading the count sums
+ * the cells.
+ */
+final class StripedCounter {
+
+	// longs between two cells, so that each cell has its own cache line
+	private static final int PADDING = 16;
+	private static final int STRIPES = stripes();
+
+	private final AtomicLongArray cells;
+
+	//<editor-fold defaultstate="collapsed" desc="Constructors">
+	public StripedCounter() {
+		cells = new AtomicLongArray(STRIPES * PADDING);
+	}
+	//</editor-fold>
+
+	public void increment() {
+		cells.incrementAndGet(cell());
+	}
+
+	public long get() {
+		long sum = 0;
+		for (int i = 0; i < STRIPES; i++) {
+			sum += cells.get(i * PADDING);
+		}
+		return sum;
+	}
+
+	private static int cell() {
+		final long id = Thread.currentThread().getId();
+		return ((int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & (STRIPES - 1)) * PADDING;
+	}
+
+	/**
+	 * Returns the number of cells: the smallest power of two at least twice the number of processors.
+	 */
+	private static int stripes() {
+		return Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors() * 2 - 1, 1)) << 1;
+	}
+}
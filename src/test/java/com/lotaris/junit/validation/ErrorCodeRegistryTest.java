@@ -0,0 +1,32 @@
+package com.lotaris.junit.validation;
+
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+//</editor-fold>
+
+public class ErrorCodeRegistryTest {
+
+	@Test
+	public void errorCodesAreCanonical() {
+		assertSame(ErrorCodeRegistry.errorCode(1001, 422), ErrorCodeRegistry.errorCode(1001, 422));
+		assertNotEquals(ErrorCodeRegistry.errorCode(1001, 422), ErrorCodeRegistry.errorCode(1001, 400));
+	}
+
+	@Test
+	public void errorLocationTypesAreCanonical() {
+		assertSame(ErrorCodeRegistry.errorLocationType("json"), ErrorCodeRegistry.errorLocationType("json"));
+		assertEquals("json", ValidationUtils.errorLocationType("json").getLocationType());
+	}
+
+	@Test
+	public void nullErrorLocationTypeHasNullValue() {
+		assertNull(ValidationUtils.errorLocationType(null).getLocationType());
+		assertSame(ErrorCodeRegistry.errorLocationType(null), ErrorCodeRegistry.errorLocationType(null));
+		assertNotEquals(ErrorCodeRegistry.errorLocationType(null), ErrorCodeRegistry.errorLocationType("null"));
+	}
+}
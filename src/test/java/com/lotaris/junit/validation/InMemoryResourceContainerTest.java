@@ -0,0 +1,63 @@
+package com.lotaris.junit.validation;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+//</editor-fold>
+
+public class InMemoryResourceContainerTest {
+
+	@Test
+	public void exceptionMapperHandlesSubclassesOfItsException() {
+		final InMemoryResourceContainer container = new InMemoryResourceContainer()
+				.deploy(new FailingResource())
+				.withExceptionMapper(RuntimeException.class, new StatusMapper(409));
+
+		final ResourceResponse response = container.handle(ResourceRequest.get("/failing"));
+
+		assertEquals(409, response.getStatus());
+		assertEquals("java.lang.IllegalStateException: Conflict", response.getEntity());
+	}
+
+	@Test
+	public void unmappedExceptionGivesServerError() {
+		final InMemoryResourceContainer container = new InMemoryResourceContainer()
+				.deploy(new FailingResource())
+				.withExceptionMapper(IllegalArgumentException.class, new StatusMapper(400));
+
+		assertEquals(500, container.handle(ResourceRequest.get("/failing")).getStatus());
+	}
+
+	@Path("/failing")
+	public static class FailingResource {
+
+		@GET
+		public String fail() {
+			throw new IllegalStateException("Conflict");
+		}
+	}
+
+	private static class StatusMapper implements ExceptionMapper<RuntimeException> {
+
+		private final int status;
+
+		public StatusMapper(int status) {
+			this.status = status;
+		}
+
+		@Override
+		public Response toResponse(RuntimeException exception) {
+			final Response response = mock(Response.class);
+			when(response.getStatus()).thenReturn(status);
+			when(response.getEntity()).thenReturn((Object) exception.toString());
+			return response;
+		}
+	}
+}
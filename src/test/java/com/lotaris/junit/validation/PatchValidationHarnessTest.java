@@ -0,0 +1,45 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static com.lotaris.junit.validation.ValidationUtils.errorCode;
+import static org.junit.Assert.assertEquals;
+//</editor-fold>
+
+public class PatchValidationHarnessTest {
+
+	@Test
+	public void patchStatesAreOnlyGivenToPatchValidation() {
+		final PatchCostReport report = PatchValidationHarness.<String>forValidators(new RequiresPatchState())
+				.withObject("name")
+				.withState("shared", String.class)
+				.withPatchState(Boolean.TRUE, Boolean.class)
+				.withWarmupRuns(0)
+				.withRuns(10)
+				.run();
+
+		assertEquals(1, report.getFull().getErrors(), 0);
+		assertEquals(0, report.getPatch().getErrors(), 0);
+		assertEquals(1, report.getFull().getValidatorInvocations(), 0);
+		assertEquals(1, report.getPatch().getValidatorInvocations(), 0);
+	}
+
+	/**
+	 * Adds an error unless the patch state is there; the shared state must always be there.
+	 */
+	private static class RequiresPatchState implements IValidator<String> {
+
+		@Override
+		public void collectErrors(String object, IValidationContext context) {
+			if (!"shared".equals(context.getState(String.class))) {
+				throw new IllegalStateException("Missing shared state");
+			}
+			if (context.getState(Boolean.class) == null) {
+				context.addErrorAtCurrentLocation(errorCode(1001), "No patch state");
+			}
+		}
+	}
+}
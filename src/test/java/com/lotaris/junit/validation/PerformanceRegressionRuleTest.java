@@ -0,0 +1,55 @@
+package com.lotaris.junit.validation;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+//</editor-fold>
+
+public class PerformanceRegressionRuleTest {
+
+	@Test
+	public void failureToSaveBaselinesDoesNotHideTestFailure() throws IOException {
+		// the parent of the baseline file is a file, so the baselines cannot be written
+		final File parent = File.createTempFile("baselines", ".tmp");
+		parent.deleteOnExit();
+		final PerformanceRegressionRule rule = new PerformanceRegressionRule()
+				.withBaselineFile(new File(parent, "performance-baselines.properties"))
+				.withWarmupIterations(0)
+				.withIterations(10);
+
+		final AssertionError testFailure = new AssertionError("test failed");
+		final Statement statement = rule.apply(new Statement() {
+			@Override
+			public void evaluate() {
+				rule.measure(new Runnable() {
+					@Override
+					public void run() {
+					}
+				});
+				throw testFailure;
+			}
+		}, Description.createTestDescription(PerformanceRegressionRuleTest.class, "failingTest"));
+
+		try {
+			statement.evaluate();
+			fail("The test failure should have been thrown");
+		} catch (Throwable t) {
+			assertSame(testFailure, t);
+			assertEquals(1, t.getSuppressed().length);
+			assertTrue(t.getSuppressed()[0] instanceof IllegalStateException);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeWarmupIterations() {
+		new PerformanceRegressionRule().withWarmupIterations(-1);
+	}
+}
@@ -0,0 +1,117 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.SingleObjectOrList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static com.lotaris.junit.validation.ValidationUtils.errorCode;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+//</editor-fold>
+
+public class ScalingAnalysisTest {
+
+	@Test
+	public void quadraticValidatorReachedThroughValidateObjectOrListDoesNotScaleLinearly() {
+
+		final ScalingReport report = ScalingAnalysis.forValidator(new OrderValidator())
+				.withSizes(250, 500, 1000, 2000, 4000)
+				.withMinimumMeasure(5, 50, TimeUnit.MILLISECONDS)
+				.run(new ScalingAnalysis.InputGenerator<Order>() {
+					@Override
+					public Order generate(int size) {
+						return new Order(size);
+					}
+				});
+
+		assertFalse("Expected a quadratic growth, got\n" + report, report.scalesAtMost(Complexity.LINEAR));
+		assertTrue("Expected a quadratic growth, got\n" + report, report.getExponent() > 1.5);
+
+		AssertionError failure = null;
+		try {
+			report.assertScalesLinearly();
+		} catch (AssertionError ae) {
+			failure = ae;
+		}
+		assertNotNull("A quadratic nested validator must not scale linearly", failure);
+		assertTrue(failure.getMessage(), failure.getMessage().contains("scale at most as " + Complexity.LINEAR));
+	}
+
+	@Test
+	public void nestedValidatorsReachedThroughValidateObjectOrListAreNotMeasuredWithoutNestedValidators() {
+
+		final ScalingReport report = ScalingAnalysis.forValidator(new OrderValidator())
+				.withSizes(250, 500, 1000, 2000, 4000)
+				.withMinimumMeasure(5, 20, TimeUnit.MILLISECONDS)
+				.withoutNestedValidators()
+				.run(new ScalingAnalysis.InputGenerator<Order>() {
+					@Override
+					public Order generate(int size) {
+						return new Order(size);
+					}
+				});
+
+		assertTrue("Expected no growth, got\n" + report, report.getExponent() < 1.5);
+	}
+
+	/**
+	 * Order whose lines are given as a single object or a list.
+	 */
+	private static class Order {
+
+		private final List<String> lines;
+		private final SingleObjectOrList<String> linesOrLine;
+
+		@SuppressWarnings("unchecked")
+		public Order(int size) {
+			lines = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				lines.add("line-" + i);
+			}
+			linesOrLine = mock(SingleObjectOrList.class);
+			when(linesOrLine.isList()).thenReturn(true);
+			when(linesOrLine.getList()).thenReturn(lines);
+		}
+	}
+
+	private static class OrderValidator implements IValidator<Order> {
+
+		@Override
+		public void collectErrors(final Order order, IValidationContext context) {
+			context.validateObjectOrList(order.linesOrLine, "/lines", new LineValidator(order.lines));
+		}
+	}
+
+	/**
+	 * Checks that a line is unique by scanning all the lines: quadratic over the order.
+	 */
+	private static class LineValidator implements IValidator<String> {
+
+		private final List<String> lines;
+
+		public LineValidator(List<String> lines) {
+			this.lines = lines;
+		}
+
+		@Override
+		public void collectErrors(String line, IValidationContext context) {
+			int count = 0;
+			for (String other : lines) {
+				if (other.equals(line)) {
+					count++;
+				}
+			}
+			if (count > 1) {
+				context.addErrorAtCurrentLocation(errorCode(1001), "Line %s is duplicated", line);
+			}
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import com.lotaris.jee.validation.SingleObjectOrList;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static com.lotaris.junit.validation.ValidationUtils.errorCode;
+import static com.lotaris.junit.validation.ValidationUtils.errorLocationType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+//</editor-fold>
+
+public class ValidationContextRecorderTest {
+
+	private static final IValidator<String> NOT_EMPTY = new IValidator<String>() {
+		@Override
+		public void collectErrors(String object, IValidationContext context) {
+			if (object.isEmpty()) {
+				context.addErrorAtCurrentLocation(errorCode(1001), "Value is empty");
+			}
+		}
+	};
+
+	@Test
+	public void validateObjectRunsNestedValidatorAtNestedLocation() {
+		final ValidationContextRecorder recorder = new ValidationContextRecorder().runningNestedValidators();
+
+		recorder.getContext().validateObject("", "/name", NOT_EMPTY);
+
+		assertEquals(1, recorder.getValidateObjectCount());
+		assertEquals(1, recorder.getErrorCount());
+		assertEquals("/name", recorder.getErrorLocation(0));
+	}
+
+	@Test
+	public void validateObjectsRunsNestedValidatorOnEachElement() {
+		final ValidationContextRecorder recorder = new ValidationContextRecorder().runningNestedValidators();
+
+		recorder.getContext().validateObjects(Arrays.asList("a", "", ""), "/names", NOT_EMPTY);
+
+		assertEquals(1, recorder.getValidateObjectsCount());
+		assertEquals(2, recorder.getErrorCount());
+		assertEquals("/names/1", recorder.getErrorLocation(0));
+		assertEquals("/names/2", recorder.getErrorLocation(1));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void validateObjectOrListRunsNestedValidatorOnEachElementOfList() {
+		final ValidationContextRecorder recorder = new ValidationContextRecorder().runningNestedValidators();
+		final SingleObjectOrList<String> list = mock(SingleObjectOrList.class);
+		when(list.isList()).thenReturn(true);
+		when(list.getList()).thenReturn(Arrays.asList("", "b", ""));
+
+		recorder.getContext().validateObjectOrList(list, "/names", NOT_EMPTY);
+
+		assertEquals(1, recorder.getValidateObjectOrListCount());
+		assertEquals(2, recorder.getErrorCount());
+		assertEquals("/names/0", recorder.getErrorLocation(0));
+		assertEquals("/names/2", recorder.getErrorLocation(1));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void validateObjectOrListRunsNestedValidatorOnSingleObject() {
+		final ValidationContextRecorder recorder = new ValidationContextRecorder().runningNestedValidators();
+		final SingleObjectOrList<String> single = mock(SingleObjectOrList.class);
+		when(single.isList()).thenReturn(false);
+		when(single.getSingleObject()).thenReturn("");
+
+		recorder.getContext().validateObjectOrList(single, "/name", NOT_EMPTY);
+
+		assertEquals(1, recorder.getValidateObjectOrListCount());
+		assertEquals(1, recorder.getErrorCount());
+		assertEquals("/name", recorder.getErrorLocation(0));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void nestedValidatorsAreOnlyRecordedByDefault() {
+		final ValidationContextRecorder recorder = new ValidationContextRecorder();
+		final SingleObjectOrList<String> list = mock(SingleObjectOrList.class);
+		when(list.isList()).thenReturn(true);
+		when(list.getList()).thenReturn(Arrays.asList(""));
+
+		recorder.getContext().validateObject("", "/name", NOT_EMPTY);
+		recorder.getContext().validateObjects(Arrays.asList(""), "/names", NOT_EMPTY);
+		recorder.getContext().validateObjectOrList(list, "/names", NOT_EMPTY);
+
+		assertEquals(3, recorder.getValidatorUseCount());
+		assertEquals(0, recorder.getErrorCount());
+	}
+
+	@Test
+	public void nestedErrorsUseAllValidateMethodsAlike() {
+		final List<String> names = Arrays.asList("", "");
+		final ValidationContextRecorder objects = new ValidationContextRecorder().runningNestedValidators();
+		final ValidationContextRecorder objectOrList = new ValidationContextRecorder().runningNestedValidators();
+		@SuppressWarnings("unchecked")
+		final SingleObjectOrList<String> list = mock(SingleObjectOrList.class);
+		when(list.isList()).thenReturn(true);
+		when(list.getList()).thenReturn(names);
+
+		objects.getContext().validateObjects(names, "/names", NOT_EMPTY);
+		objectOrList.getContext().validateObjectOrList(list, "/names", NOT_EMPTY);
+
+		assertEquals(objects.getErrorCount(), objectOrList.getErrorCount());
+		for (int i = 0; i < objects.getErrorCount(); i++) {
+			assertEquals(objects.getErrorLocation(i), objectOrList.getErrorLocation(i));
+			assertEquals(objects.getErrorCode(i), objectOrList.getErrorCode(i));
+		}
+	}
+
+	@Test
+	public void restoreDefaultsForgetsInternedStringsAndLocations() {
+		final ValidationContextRecorder recorder = new ValidationContextRecorder();
+		recorder.getContext().addError("/name", errorLocationType("json"), errorCode(1001), "Name %s is invalid", "a");
+
+		recorder.restoreDefaults();
+
+		assertEquals(0, recorder.getInternedCount());
+		assertEquals(0, recorder.getErrorCountAt("/name"));
+		recorder.getContext().addError("/name", errorLocationType("json"), errorCode(1001), "Name %s is invalid", "b");
+		assertEquals(1, recorder.getErrorCountAt("/name"));
+		assertEquals("/name", recorder.getErrorLocation(0));
+		assertEquals("Name b is invalid", recorder.getErrorMessage(0));
+	}
+
+	@Test
+	public void internedStringsAndLocationsAreBoundedAcrossResets() {
+		final ValidationContextRecorder recorder = new ValidationContextRecorder();
+		for (int i = 0; i < ValidationContextRecorder.MAX_INTERNED * 4; i++) {
+			recorder.clearRecords();
+			recorder.getContext().addError("/items/" + i, errorLocationType("json"), errorCode(1001), "Item %d is invalid", i);
+			assertTrue(recorder.getInternedCount() <= 2 * (ValidationContextRecorder.MAX_INTERNED + 2));
+		}
+		assertEquals("/items/" + (ValidationContextRecorder.MAX_INTERNED * 4 - 1), recorder.getErrorLocation(0));
+	}
+
+	@Test
+	public void unknownMethodsReturnZeroValueOfAnyPrimitiveType() throws Throwable {
+		// methods a later version of the validation context could add
+		final InvocationHandler handler = Proxy.getInvocationHandler(new ValidationContextRecorder().getContext());
+
+		assertEquals('\0', handler.invoke(null, CharSequence.class.getMethod("charAt", int.class), new Object[]{0}));
+		assertEquals((byte) 0, handler.invoke(null, Number.class.getMethod("byteValue"), null));
+		assertEquals((short) 0, handler.invoke(null, Number.class.getMethod("shortValue"), null));
+		assertEquals(0f, handler.invoke(null, Number.class.getMethod("floatValue"), null));
+		assertEquals(0d, handler.invoke(null, Number.class.getMethod("doubleValue"), null));
+		assertEquals(0L, handler.invoke(null, Number.class.getMethod("longValue"), null));
+	}
+}
@@ -0,0 +1,117 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IErrorCode;
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static com.lotaris.junit.validation.ValidationUtils.errorCode;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+//</editor-fold>
+
+public class ValidatorFuzzerTest {
+
+	@Test
+	public void failureThatDoesNotHappenAgainIsReportedWithItsSeed() {
+		final ValidatorFuzzer.Result<String> result = ValidatorFuzzer.fuzz(new FailsOnceValidator(), FuzzGenerator.strings())
+				.withSeed(42)
+				.withRuns(100)
+				.withThreads(1)
+				.run();
+
+		assertNotNull(result.getFailure());
+		assertEquals(0, result.getFailure().getRun());
+		assertEquals(0, result.getFailure().getShrinkSteps());
+		assertTrue(result.getFailure().getThrown() instanceof AssertionError);
+		assertEquals(42, result.getSeed());
+	}
+
+	@Test
+	public void errorsThrownByValidatorAreViolations() {
+		final ValidatorFuzzer.Result<String> result = ValidatorFuzzer.fuzz(new IValidator<String>() {
+			@Override
+			public void collectErrors(String object, IValidationContext context) {
+				if (object != null && object.length() > 3) {
+					throw new AssertionError("Too long: " + object);
+				}
+			}
+		}, FuzzGenerator.strings()).withSeed(42).withThreads(2).run();
+
+		assertNotNull(result.getFailure());
+		assertTrue(result.getFailure().getThrown() instanceof AssertionError);
+		assertEquals(4, result.getFailure().getInput().length());
+	}
+
+	@Test
+	public void validatorThatNeverThrowsPasses() {
+		final ValidatorFuzzer.Result<String> result = ValidatorFuzzer.fuzz(new IValidator<String>() {
+			@Override
+			public void collectErrors(String object, IValidationContext context) {
+			}
+		}, FuzzGenerator.strings()).withRuns(100).run();
+
+		assertNull(result.getFailure());
+		assertEquals(100, result.getRuns());
+	}
+
+	@Test
+	public void errorCodesAreCheckedAgainstTheCodesOfAnEnum() {
+		final IValidator<String> validator = new IValidator<String>() {
+			@Override
+			public void collectErrors(String object, IValidationContext context) {
+				context.addErrorAtCurrentLocation(errorCode(object.isEmpty() ? 1001 : 9999), "Value %s is invalid", object);
+			}
+		};
+
+		final ValidatorFuzzer.Result<String> result = ValidatorFuzzer.fuzz(validator, FuzzGenerator.strings())
+				.checking(ValidatorFuzzer.<String, ApiErrorCode>everyErrorHasCodeOf(ApiErrorCode.class))
+				.withSeed(42)
+				.withThreads(1)
+				.run();
+
+		assertNotNull(result.getFailure());
+		assertEquals("every error has a code of ApiErrorCode", result.getFailure().getInvariant());
+		assertEquals(1, result.getFailure().getInput().length());
+	}
+
+	private enum ApiErrorCode implements IErrorCode {
+
+		EMPTY(1001), TOO_LONG(1002);
+
+		private final int code;
+
+		private ApiErrorCode(int code) {
+			this.code = code;
+		}
+
+		@Override
+		public int getCode() {
+			return code;
+		}
+
+		@Override
+		public int getDefaultHttpStatusCode() {
+			return 422;
+		}
+	}
+
+	/**
+	 * Fails on its first validation only, as a validator depending on lazily initialized state might.
+	 */
+	private static class FailsOnceValidator implements IValidator<String> {
+
+		private final AtomicBoolean failed = new AtomicBoolean();
+
+		@Override
+		public void collectErrors(String object, IValidationContext context) {
+			if (failed.compareAndSet(false, true)) {
+				throw new AssertionError("Not initialized");
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static com.lotaris.junit.validation.ValidationUtils.errorCode;
+import static org.junit.Assert.assertEquals;
+//</editor-fold>
+
+public class ValidatorThroughputHarnessTest {
+
+	@Test
+	public void laterValidatorsOfConfigSeeErrorsOfEarlierOnes() {
+		final FakePreprocessingConfig config = new FakePreprocessingConfig(new ValidationContextRecorder().getContext())
+				.validateWith(new NotEmptyValidator(), new OnlyIfValidValidator());
+
+		final ThroughputReport report = ValidatorThroughputHarness.forConfig(config)
+				.withInputs(Arrays.<Object>asList("", "a", "", "b"))
+				.run();
+
+		assertEquals(4, report.getInputs());
+		assertEquals(2, report.getStats(0).getInputsWithErrors());
+		assertEquals(Collections.singletonMap(1001, 2L), report.getStats(0).getErrorCodeFrequency());
+		assertEquals(2, report.getStats(1).getInputsWithErrors());
+		assertEquals(Collections.singletonMap(1002, 2L), report.getStats(1).getErrorCodeFrequency());
+	}
+
+	private static class NotEmptyValidator implements IValidator<String> {
+
+		@Override
+		public void collectErrors(String object, IValidationContext context) {
+			if (object.isEmpty()) {
+				context.addErrorAtCurrentLocation(errorCode(1001), "Value is empty");
+			}
+		}
+	}
+
+	/**
+	 * Adds an error only to inputs that the previous validators accepted.
+	 */
+	private static class OnlyIfValidValidator implements IValidator<String> {
+
+		@Override
+		public void collectErrors(String object, IValidationContext context) {
+			if (!context.hasErrors()) {
+				context.addErrorAtCurrentLocation(errorCode(1002), "Value %s is not allowed", object);
+			}
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.lotaris.junit.validation;
+
+import com.lotaris.jee.validation.IValidationContext;
+import com.lotaris.jee.validation.IValidator;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+//</editor-fold>
+
+public class ValidatorTimingsTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void findsValidatorsDeclaredWithTheRawType() {
+		final ValidatorTimings timings = new ValidatorTimings();
+		final RawValidator validator = new RawValidator();
+		final IValidationContext context = new ValidationContextRecorder().getContext();
+
+		final TimedValidator<Object> timed = timings.timed(validator);
+		timed.collectErrors("a", context);
+		timed.collectErrors("b", context);
+
+		assertSame(timed, timings.get(RawValidator.class));
+		assertEquals(2, timings.get(RawValidator.class).getRunCount());
+		timings.assertPercentileUnder(RawValidator.class, 50, 1, TimeUnit.MINUTES);
+	}
+
+	@Test(expected = AssertionError.class)
+	public void failsIfNoValidatorOfClassHasRun() {
+		new ValidatorTimings().get(RawValidator.class);
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static class RawValidator implements IValidator {
+
+		@Override
+		public void collectErrors(Object object, IValidationContext context) {
+		}
+	}
+}
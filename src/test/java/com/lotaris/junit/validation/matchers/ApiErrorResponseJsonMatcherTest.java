@@ -0,0 +1,110 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.hamcrest.Description;
+import org.hamcrest.StringDescription;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+//</editor-fold>
+
+public class ApiErrorResponseJsonMatcherTest {
+
+	private static final String BODY = "{\"httpStatusCode\": 422, \"errors\": ["
+			+ "{\"code\": 1001, \"locationType\": \"json\", \"location\": \"/name\", \"message\": \"Name is invalid\"},"
+			+ "{\"code\": 1002, \"locationType\": \"json\", \"location\": \"/age\", \"message\": \"Age is invalid\", \"extra\": {\"a\": [1, 2]}}"
+			+ "]}";
+
+	@Test
+	public void matchesStringBytesStreamAndReader() {
+		final ApiErrorResponseJsonMatcher matcher = matcher();
+
+		assertTrue(matcher.matches(BODY));
+		assertTrue(matcher.matches(BODY.getBytes(StandardCharsets.UTF_8)));
+		assertTrue(matcher.matches(stream(BODY)));
+		assertTrue(matcher.matches(new StringReader(BODY)));
+	}
+
+	@Test
+	public void doesNotMatchMissingError() {
+		final String body = "{\"httpStatusCode\": 422, \"errors\": ["
+				+ "{\"code\": 1001, \"locationType\": \"json\", \"location\": \"/name\", \"message\": \"Name is invalid\"}]}";
+
+		assertFalse(matcher().matches(body));
+		assertTrue(describeMismatch(matcher(), body).contains("is missing 1 expected errors"));
+	}
+
+	@Test
+	public void stopsReadingOnWrongHttpStatusCode() {
+		// the body is malformed after the status code: reading it to the end would fail
+		final String body = "{\"httpStatusCode\": 400, \"errors\": [ not json";
+
+		final ErrorResponseMatch result = matcher().evaluate(body, true);
+
+		assertFalse(result.matches());
+		assertTrue(result.isStoppedEarly());
+		assertEquals(Integer.valueOf(400), result.getActualHttpStatusCode());
+	}
+
+	@Test
+	public void stopsReadingOnErrorThatNoExpectationAccepts() {
+		final String body = "{\"httpStatusCode\": 422, \"errors\": ["
+				+ "{\"code\": 9999, \"locationType\": \"json\", \"location\": \"/other\", \"message\": \"Unexpected\"}, not json";
+
+		final ErrorResponseMatch result = matcher().evaluate(body, true);
+
+		assertFalse(result.matches());
+		assertTrue(result.isStoppedEarly());
+		assertEquals(1, result.getUnexpectedErrorCount());
+	}
+
+	@Test
+	public void readsWholeBodyWithoutEarlyStop() {
+		final String body = "{\"httpStatusCode\": 400, \"errors\": []}";
+
+		final ErrorResponseMatch result = matcher().evaluate(body, false);
+
+		assertFalse(result.isStoppedEarly());
+		assertEquals(2, result.getUnmetExpectationCount());
+	}
+
+	@Test
+	public void describesLastEvaluationOfStream() {
+		final ApiErrorResponseJsonMatcher matcher = matcher();
+		final InputStream stream = stream("{\"httpStatusCode\": 400, \"errors\": []}");
+
+		assertFalse(matcher.matches(stream));
+		assertTrue(describeMismatch(matcher, stream).contains("has HTTP status code 400"));
+	}
+
+	@Test
+	public void cannotDescribeStreamThatWasNotEvaluated() {
+		final ApiErrorResponseJsonMatcher matcher = matcher();
+		assertFalse(matcher.matches(stream("{\"httpStatusCode\": 400, \"errors\": []}")));
+
+		assertEquals("stream has already been read", describeMismatch(matcher, stream(BODY)));
+		assertEquals("stream has already been read", describeMismatch(matcher, new StringReader(BODY)));
+	}
+
+	private static ApiErrorResponseJsonMatcher matcher() {
+		return ApiErrorResponseJsonMatcher.isApiErrorResponseJson(new ApiErrorResponseObjectMatcher(422)
+				.withError(1002, "json", "/age")
+				.withError(1001, "json", "/name", "Name is invalid"));
+	}
+
+	private static InputStream stream(String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String describeMismatch(ApiErrorResponseJsonMatcher matcher, Object item) {
+		final Description description = new StringDescription();
+		matcher.describeMismatch(item, description);
+		return description.toString();
+	}
+}
@@ -0,0 +1,93 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+//</editor-fold>
+
+public class ApiErrorResponseObjectMatcherTest {
+
+	@Test
+	public void actualErrorWithoutCodeMatchesAnyExpectedCode() {
+		final ApiErrorResponse response = response(error(null, "json", "/name", "Name is invalid"));
+
+		assertTrue(new ApiErrorResponseObjectMatcher(422).withError(1001, "json", "/name").matches(response));
+		assertTrue(new ApiErrorResponseObjectMatcher(422).withError(2002, "json", "/name").matches(response));
+	}
+
+	@Test
+	public void actualErrorWithCodeOnlyMatchesThatCode() {
+		final ApiErrorResponse response = response(error(1001, "json", "/name", "Name is invalid"));
+
+		assertTrue(new ApiErrorResponseObjectMatcher(422).withError(1001, "json", "/name").matches(response));
+		assertFalse(new ApiErrorResponseObjectMatcher(422).withError(2002, "json", "/name").matches(response));
+	}
+
+	@Test
+	public void nullExpectedLocationTypeAndLocationRequireNullActualValues() {
+		assertTrue(new ApiErrorResponseObjectMatcher(422).withError(1001).matches(response(error(1001, null, null, "Invalid"))));
+		assertFalse(new ApiErrorResponseObjectMatcher(422).withError(1001).matches(response(error(1001, "json", null, "Invalid"))));
+		assertFalse(new ApiErrorResponseObjectMatcher(422).withError(1001).matches(response(error(1001, null, "/name", "Invalid"))));
+		assertFalse(new ApiErrorResponseObjectMatcher(422).withError(1001, "json", "/name").matches(response(error(1001, null, null, "Invalid"))));
+	}
+
+	@Test
+	public void expectationWithoutMessageRequiresNonBlankMessage() {
+		final ApiErrorResponseObjectMatcher matcher = new ApiErrorResponseObjectMatcher(422).withError(1001, "json", "/name");
+
+		assertTrue(matcher.matches(response(error(1001, "json", "/name", "Name is invalid"))));
+		assertFalse(matcher.matches(response(error(1001, "json", "/name", null))));
+		assertFalse(matcher.matches(response(error(1001, "json", "/name", ""))));
+	}
+
+	@Test
+	public void looseExpectationDoesNotTakeErrorNeededBySpecificExpectation() {
+		final ApiErrorResponse response = response(
+				error(1001, "json", "/name", "Name is too long"),
+				error(1001, "json", "/name", "Name is invalid"));
+
+		// the loose expectations come first and could take the error with the literal message
+		assertTrue(new ApiErrorResponseObjectMatcher(422)
+				.withError(1001, "json", "/name")
+				.withError(1001, "json", "/name", "Name is too long")
+				.matches(response));
+		assertTrue(new ApiErrorResponseObjectMatcher(422)
+				.withError(1001, "json", "/name", Pattern.compile("Name is .*"))
+				.withError(1001, "json", "/name", Pattern.compile("Name is too .*"))
+				.matches(response));
+	}
+
+	@Test
+	public void eachErrorMeetsOneExpectationOnly() {
+		final ApiErrorResponse response = response(error(1001, "json", "/name", "Name is invalid"));
+
+		assertFalse(new ApiErrorResponseObjectMatcher(422)
+				.withError(1001, "json", "/name")
+				.withError(1001, "json", "/name")
+				.matches(response));
+	}
+
+	private static ApiErrorResponse response(ApiError... errors) {
+		final ApiErrorResponse response = mock(ApiErrorResponse.class);
+		when(response.getHttpStatusCode()).thenReturn(422);
+		when(response.getErrors()).thenReturn(Arrays.asList(errors));
+		return response;
+	}
+
+	private static ApiError error(Integer code, String locationType, String location, String message) {
+		final ApiError error = mock(ApiError.class);
+		when(error.getNumericCode()).thenReturn(code);
+		when(error.getLocationTypeAsString()).thenReturn(locationType);
+		when(error.getLocation()).thenReturn(location);
+		when(error.getMessage()).thenReturn(message);
+		return error;
+	}
+}
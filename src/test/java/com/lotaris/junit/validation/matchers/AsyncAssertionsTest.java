@@ -0,0 +1,229 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import com.lotaris.jee.validation.ApiErrorsException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+//</editor-fold>
+
+public class AsyncAssertionsTest {
+
+	private static final ErrorResponsePlan PLAN = ErrorResponsePlan.builder(422).withError(1001, "json", "/name", "Name is invalid").build();
+
+	@Test
+	public void completionStagesAreCheckedWhenTheyComplete() throws Exception {
+		final CompletableFutures futures = CompletableFutures.get();
+		final Object matching = futures.create();
+		final Object mismatching = futures.create();
+
+		final AsyncAssertions assertions = AsyncAssertions.asyncAssertions()
+				.assertThat("matching", matching, PLAN)
+				.assertThat("mismatching", mismatching, PLAN);
+		assertEquals(2, assertions.getPendingCount());
+
+		futures.complete(matching, response(error(1001, "json", "/name", "Name is invalid")));
+		futures.complete(mismatching, response(error(1002, "json", "/age", "Age is invalid")));
+
+		final AssertionTable.Report report = assertions.await(5, TimeUnit.SECONDS);
+		assertEquals(0, assertions.getPendingCount());
+		assertEquals(2, report.getRowCount());
+		assertEquals(1, report.getFailureCount());
+		assertEquals("mismatching", report.getFailures().get(0).getName());
+		assertEquals(1, report.getFailures().get(0).getIndex());
+	}
+
+	@Test
+	public void futuresAreCheckedWhenTheyComplete() throws Exception {
+		final ApiErrorResponse response = response(error(1001, "json", "/name", "Name is invalid"));
+		final FutureTask<ApiErrorResponse> done = task(response);
+		done.run();
+		final FutureTask<ApiErrorResponse> later = task(response);
+
+		final AsyncAssertions assertions = AsyncAssertions.asyncAssertions()
+				.assertThat("done", done, PLAN)
+				.assertThat("later", later, sameInstance(response));
+		assertEquals(1, assertions.getPendingCount());
+
+		new Thread(later).start();
+
+		final AssertionTable.Report report = assertions.await(5, TimeUnit.SECONDS);
+		assertTrue(report.toString(), report.isSuccessful());
+		assertEquals(0, assertions.getPendingCount());
+	}
+
+	@Test
+	public void futureFailuresAreUnwrappedFromExecutionExceptions() throws Exception {
+		final ApiErrorsException exception = exception(response(error(1001, "json", "/name", "Name is invalid")));
+		final FutureTask<ApiErrorResponse> done = failingTask(exception);
+		done.run();
+		final FutureTask<ApiErrorResponse> planned = failingTask(exception);
+		final FutureTask<ApiErrorResponse> matched = failingTask(exception);
+
+		final AsyncAssertions assertions = AsyncAssertions.asyncAssertions()
+				.assertThat("done", done, PLAN)
+				.assertThat("planned", planned, PLAN)
+				.assertThat("matched", matched, instanceOf(ApiErrorsException.class));
+		new Thread(planned).start();
+		new Thread(matched).start();
+
+		final AssertionTable.Report report = assertions.await(5, TimeUnit.SECONDS);
+		assertTrue(report.toString(), report.isSuccessful());
+	}
+
+	@Test
+	public void completionStageFailuresAreUnwrappedFromCompletionExceptions() throws Exception {
+		final CompletableFutures futures = CompletableFutures.get();
+		final Object matching = futures.create();
+		final Object mismatching = futures.create();
+
+		final AsyncAssertions assertions = AsyncAssertions.asyncAssertions()
+				.assertThat("matching", matching, PLAN)
+				.assertThat("mismatching", mismatching, PLAN);
+
+		futures.completeExceptionally(matching, futures.completionException(exception(response(error(1001, "json", "/name", "Name is invalid")))));
+		futures.completeExceptionally(mismatching, futures.completionException(new IllegalStateException("Not an API error")));
+
+		final AssertionTable.Report report = assertions.await(5, TimeUnit.SECONDS);
+		assertEquals(1, report.getFailureCount());
+		final AssertionTable.Failure failure = report.getFailures().get(0);
+		assertEquals("mismatching", failure.getName());
+		assertTrue(failure.getMessage(), failure.getMessage().contains("but: failed with java.lang.IllegalStateException: Not an API error"));
+		assertTrue(failure.getCause() instanceof IllegalStateException);
+	}
+
+	@Test
+	public void operationsNotCompletedInTimeAreReported() throws Exception {
+		final FutureTask<ApiErrorResponse> done = task(response(error(1001, "json", "/name", "Name is invalid")));
+		done.run();
+		final FutureTask<ApiErrorResponse> never = task(response());
+
+		final AsyncAssertions assertions = AsyncAssertions.asyncAssertions()
+				.assertThat("done", done, PLAN)
+				.assertThat("never", never, PLAN);
+
+		final AssertionTable.Report report = assertions.await(50, TimeUnit.MILLISECONDS);
+		assertEquals(1, assertions.getPendingCount());
+		assertEquals(1, report.getFailureCount());
+		final AssertionTable.Failure failure = report.getFailures().get(0);
+		assertEquals("never", failure.getName());
+		assertEquals(1, failure.getIndex());
+		assertEquals("Did not complete within 50 milliseconds", failure.getMessage());
+		assertNull(failure.getCause());
+
+		try {
+			assertions.assertAll(10, TimeUnit.MILLISECONDS);
+			fail("An operation that did not complete should fail the assertions");
+		} catch (AssertionError ae) {
+			assertEquals("1 of 2 assertions failed:\n\n[never] Did not complete within 10 milliseconds", ae.getMessage());
+		}
+	}
+
+	@Test
+	public void otherCompletionsAreRejected() {
+		try {
+			AsyncAssertions.asyncAssertions().assertThat("value", "not a future", PLAN);
+			fail("A value that is neither a future nor a completion stage should be rejected");
+		} catch (IllegalArgumentException iae) {
+			assertFalse(iae.getMessage().isEmpty());
+		}
+	}
+
+	private static FutureTask<ApiErrorResponse> task(final ApiErrorResponse response) {
+		return new FutureTask<>(new Callable<ApiErrorResponse>() {
+			@Override
+			public ApiErrorResponse call() {
+				return response;
+			}
+		});
+	}
+
+	private static FutureTask<ApiErrorResponse> failingTask(final Exception exception) {
+		return new FutureTask<>(new Callable<ApiErrorResponse>() {
+			@Override
+			public ApiErrorResponse call() throws Exception {
+				throw exception;
+			}
+		});
+	}
+
+	private static ApiErrorsException exception(ApiErrorResponse response) {
+		final ApiErrorsException exception = mock(ApiErrorsException.class);
+		when(exception.getErrorResponse()).thenReturn(response);
+		return exception;
+	}
+
+	private static ApiErrorResponse response(ApiError... errors) {
+		final List<ApiError> list = new ArrayList<>(Arrays.asList(errors));
+		final ApiErrorResponse response = mock(ApiErrorResponse.class);
+		when(response.getHttpStatusCode()).thenReturn(422);
+		when(response.getErrors()).thenReturn(list);
+		return response;
+	}
+
+	private static ApiError error(Integer code, String locationType, String location, String message) {
+		final ApiError error = mock(ApiError.class);
+		when(error.getNumericCode()).thenReturn(code);
+		when(error.getLocationTypeAsString()).thenReturn(locationType);
+		when(error.getLocation()).thenReturn(location);
+		when(error.getMessage()).thenReturn(message);
+		return error;
+	}
+
+	/**
+	 * Completable futures (Java 8 or later), used through reflection like in {@link AsyncAssertions}.
+	 * The tests using them are skipped on older runtimes.
+	 */
+	private static final class CompletableFutures {
+
+		private final Class<?> type;
+		private final Class<?> completionException;
+
+		private CompletableFutures(Class<?> type, Class<?> completionException) {
+			this.type = type;
+			this.completionException = completionException;
+		}
+
+		public static CompletableFutures get() {
+			try {
+				return new CompletableFutures(Class.forName("java.util.concurrent.CompletableFuture"), Class.forName("java.util.concurrent.CompletionException"));
+			} catch (ClassNotFoundException cnfe) {
+				assumeTrue(false);
+				return null;
+			}
+		}
+
+		public Object create() throws ReflectiveOperationException {
+			return type.newInstance();
+		}
+
+		public void complete(Object future, Object value) throws ReflectiveOperationException {
+			type.getMethod("complete", Object.class).invoke(future, value);
+		}
+
+		public void completeExceptionally(Object future, Throwable exception) throws ReflectiveOperationException {
+			type.getMethod("completeExceptionally", Throwable.class).invoke(future, exception);
+		}
+
+		public Throwable completionException(Throwable cause) throws ReflectiveOperationException {
+			return (Throwable) completionException.getConstructor(Throwable.class).newInstance(cause);
+		}
+	}
+}
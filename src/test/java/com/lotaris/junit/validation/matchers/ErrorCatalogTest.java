@@ -0,0 +1,201 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+//</editor-fold>
+
+public class ErrorCatalogTest {
+
+	@Test
+	public void readsYamlCatalog() {
+		final ErrorCatalog catalog = ErrorCatalog.get("users.errors.yml");
+
+		assertEquals(new TreeSet<>(Arrays.asList("createUser.invalidItems", "createUser.missingName", "deleteUser.ok")), catalog.getScenarioKeys());
+
+		final ErrorCatalog.Scenario missingName = catalog.getScenario("createUser.missingName");
+		assertEquals(Integer.valueOf(422), missingName.getHttpStatusCode());
+		final List<ErrorExpectation> missingNameErrors = expectations(missingName);
+		assertEquals(2, missingNameErrors.size());
+		assertExpectation(missingNameErrors.get(0), 1001, "json", "/name", "name is required");
+		assertEquals(1002, missingNameErrors.get(1).getCode());
+		assertEquals("/email", missingNameErrors.get(1).getLocation());
+		assertEquals("email .* is invalid", missingNameErrors.get(1).getMessagePattern().pattern());
+
+		final ErrorCatalog.Scenario invalidItems = catalog.getScenario("createUser.invalidItems");
+		assertEquals(Integer.valueOf(422), invalidItems.getHttpStatusCode());
+		final List<ErrorExpectation> invalidItemsErrors = expectations(invalidItems);
+		assertEquals(3, invalidItemsErrors.size());
+		assertExpectation(invalidItemsErrors.get(0), 1003, "json", "/items/0", "item \"a\"\tis invalid: \u00e9");
+		assertExpectation(invalidItemsErrors.get(1), 1003, "json", "/items/1", "it's # not a comment");
+		assertEquals(1004, invalidItemsErrors.get(2).getCode());
+		assertNull(invalidItemsErrors.get(2).getLocationType());
+		assertTrue(invalidItemsErrors.get(2).isAnyMessage());
+
+		final ErrorCatalog.Scenario ok = catalog.getScenario("deleteUser.ok");
+		assertEquals(Integer.valueOf(204), ok.getHttpStatusCode());
+		assertEquals(0, ok.getErrorCount());
+	}
+
+	@Test
+	public void jsonCatalogIsReadLikeYamlCatalog() {
+		final ErrorCatalog yaml = ErrorCatalog.get("users.errors.yml");
+		final ErrorCatalog json = ErrorCatalog.get("/users.errors.json");
+
+		assertEquals(yaml.getScenarioKeys(), json.getScenarioKeys());
+		for (String key : yaml.getScenarioKeys()) {
+			assertEquals(key, yaml.getScenario(key).getHttpStatusCode(), json.getScenario(key).getHttpStatusCode());
+			assertEquals(key, expectations(yaml.getScenario(key)).toString(), expectations(json.getScenario(key)).toString());
+		}
+	}
+
+	@Test
+	public void catalogsAreReadOnce() {
+		assertTrue(ErrorCatalog.get("users.errors.yml") == ErrorCatalog.get("/users.errors.yml"));
+	}
+
+	@Test
+	public void readsYamlScalars() throws IOException {
+		final ErrorCatalog catalog = yaml(
+				"'quoted: key':",
+				"  httpStatusCode: ~",
+				"  errors:",
+				"    - code: 1",
+				"      location: \"\\u0041\\\\b\\n\"",
+				"      message: plain 'text' # comment",
+				"    - code: 2",
+				"      location: null",
+				"      message: 'single \"quotes\"'");
+
+		final ErrorCatalog.Scenario scenario = catalog.getScenario("quoted: key");
+		assertNull(scenario.getHttpStatusCode());
+		final List<ErrorExpectation> errors = expectations(scenario);
+		assertExpectation(errors.get(0), 1, null, "A\\b\n", "plain 'text'");
+		assertExpectation(errors.get(1), 2, null, null, "single \"quotes\"");
+	}
+
+	@Test
+	public void rejectsMalformedYamlCatalogs() {
+		assertYamlFails("line 1: expected a scenario key followed by ':'", "scenario");
+		assertYamlFails("line 1: expected a scenario key followed by ':'", "scenario: value");
+		assertYamlFails("line 1: expected a scenario key at the start of the line", "  httpStatusCode: 422");
+		assertYamlFails("line 2: unexpected list item outside of errors", "scenario:", "  - code: 1");
+		assertYamlFails("line 2: expected 'key: value'", "scenario:", "  httpStatusCode");
+		assertYamlFails("line 3: expected 'key: value'", "scenario:", "  errors:", "    - code");
+		assertYamlFails("line 2: expected errors as a list of items starting with '-'", "scenario:", "  errors: 1001");
+		assertYamlFails("line 2: unknown property status of scenario scenario (expected httpStatusCode or errors)", "scenario:", "  status: 422");
+		assertYamlFails("line 3: unknown property text of an error of scenario scenario", "scenario:", "  errors:", "    - text: Invalid");
+		assertYamlFails("line 2: httpStatusCode of scenario scenario is not a number: OK", "scenario:", "  httpStatusCode: OK");
+		assertYamlFails("line 4: code of scenario scenario is not a number: x", "scenario:", "  errors:", "    - code: x", "other:");
+		assertYamlFails("line 4: error #1 of scenario scenario of test.errors.yml has no code", "scenario:", "  errors:", "    - location: /name", "      message: Invalid");
+		assertYamlFails("line 5: error #1 of scenario scenario has more than one of message, messagePattern and anyMessage",
+				"scenario:", "  errors:", "    - code: 1", "      message: Invalid", "      anyMessage: true");
+		assertYamlFails("line 3: duplicate scenario scenario", "scenario:", "  httpStatusCode: 422", "scenario:");
+		assertYamlFails("line 2: tabs cannot be used for indentation", "scenario:", "\thttpStatusCode: 422");
+		assertYamlFails("line 4: invalid escape sequence in \"\\u41\"", "scenario:", "  errors:", "    - code: 1", "      message: \"\\u41\"");
+	}
+
+	@Test
+	public void rejectsMalformedJsonCatalogs() {
+		assertJsonFails("test.errors.json: expected START_OBJECT, got START_ARRAY at line 1", "[]");
+		assertJsonFails("test.errors.json: expected START_OBJECT, got VALUE_NUMBER at line 1", "{\"scenario\": 1}");
+		assertJsonFails("test.errors.json: expected START_ARRAY, got VALUE_STRING at line 1", "{\"scenario\": {\"errors\": \"none\"}}");
+		assertJsonFails("test.errors.json: expected an error object, got VALUE_NUMBER at line 1", "{\"scenario\": {\"errors\": [1]}}");
+		assertJsonFails("test.errors.json: expected a scalar value, got START_OBJECT at line 1", "{\"scenario\": {\"httpStatusCode\": {}}}");
+		assertJsonFails("unknown property status of scenario scenario (expected httpStatusCode or errors)", "{\"scenario\": {\"status\": 422}}");
+		assertJsonFails("error #1 of scenario scenario of test.errors.json has no code", "{\"scenario\": {\"errors\": [{\"message\": \"Invalid\"}]}}");
+		assertJsonFails("duplicate scenario scenario", "{\"scenario\": {}, \"scenario\": {}}");
+		assertJsonFails("test.errors.json: invalid JSON at line 1", "{\"scenario\": {");
+	}
+
+	@Test
+	public void unknownCatalogsAndScenariosAreRejected() {
+		try {
+			ErrorCatalog.get("missing.errors.yml");
+			fail("A missing catalog should be rejected");
+		} catch (IllegalArgumentException iae) {
+			assertEquals("Error catalog missing.errors.yml cannot be found on the classpath", iae.getMessage());
+		}
+
+		try {
+			ErrorCatalog.get("users.errors.yml").getScenario("createUser.unknown");
+			fail("An unknown scenario should be rejected");
+		} catch (IllegalArgumentException iae) {
+			assertEquals("Error catalog users.errors.yml has no scenario createUser.unknown (scenarios: [createUser.invalidItems, createUser.missingName, deleteUser.ok])", iae.getMessage());
+		}
+	}
+
+	@Test
+	public void scenarioHttpStatusCodeMustMatchTheMatcher() {
+		new ApiErrorResponseObjectMatcher(422).withErrorsFrom("users.errors.yml", "createUser.missingName");
+		new ApiErrorResponseObjectMatcher().withErrorsFrom("users.errors.yml", "createUser.missingName");
+
+		try {
+			new ApiErrorResponseObjectMatcher(400).withErrorsFrom("users.errors.yml", "createUser.missingName");
+			fail("A scenario expecting another HTTP status code should be rejected");
+		} catch (IllegalArgumentException iae) {
+			assertEquals("Scenario createUser.missingName of error catalog users.errors.yml expects HTTP status code 422, not 400", iae.getMessage());
+		}
+	}
+
+	@Test
+	public void scenarioWithoutHttpStatusCodeAcceptsAnyMatcher() throws IOException {
+		final ErrorCatalog catalog = yaml("scenario:", "  errors:", "    - code: 1001");
+		final ErrorResponsePlan.Builder builder = ErrorResponsePlan.builder(400);
+		catalog.getScenario("scenario").addTo(builder);
+
+		final ErrorResponsePlan plan = builder.build();
+		assertEquals(Integer.valueOf(400), plan.getExpectedHttpStatusCode());
+		assertEquals(1, plan.getExpectedErrorCount());
+		assertFalse(plan.getExpectations().get(0).isAnyMessage());
+	}
+
+	private static ErrorCatalog yaml(String... lines) throws IOException {
+		final StringBuilder builder = new StringBuilder();
+		for (String line : lines) {
+			builder.append(line).append('\n');
+		}
+		return ErrorCatalog.read("test.errors.yml", new StringReader(builder.toString()));
+	}
+
+	private static void assertYamlFails(String expectedMessage, String... lines) {
+		try {
+			yaml(lines);
+			fail("The catalog should be rejected with: " + expectedMessage);
+		} catch (IOException ioe) {
+			assertEquals("test.errors.yml, " + expectedMessage, ioe.getMessage());
+		}
+	}
+
+	private static void assertJsonFails(String expectedMessage, String json) {
+		try {
+			ErrorCatalog.read("test.errors.json", new StringReader(json));
+			fail("The catalog should be rejected with: " + expectedMessage);
+		} catch (IOException ioe) {
+			assertEquals(expectedMessage, ioe.getMessage());
+		}
+	}
+
+	private static List<ErrorExpectation> expectations(ErrorCatalog.Scenario scenario) {
+		final ErrorResponsePlan.Builder builder = ErrorResponsePlan.builder();
+		scenario.addTo(builder);
+		return builder.build().getExpectations();
+	}
+
+	private static void assertExpectation(ErrorExpectation expectation, int code, String locationType, String location, String message) {
+		assertEquals(code, expectation.getCode());
+		assertEquals(locationType, expectation.getLocationType());
+		assertEquals(location, expectation.getLocation());
+		assertEquals(message, expectation.getMessage());
+	}
+}
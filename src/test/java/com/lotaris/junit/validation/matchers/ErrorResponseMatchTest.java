@@ -0,0 +1,110 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.hamcrest.StringDescription;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+//</editor-fold>
+
+public class ErrorResponseMatchTest {
+
+	@Test
+	public void descriptionOfHugeResponseIsSummarized() {
+		final ErrorResponsePlan plan = ErrorResponsePlan.builder(422).withError(1001, "json", "/name", "Name is invalid").build();
+		final List<ApiErrorResponseObjectMatcher.Error> unexpected = new ArrayList<>(50000);
+		for (int i = 0; i < 50000; i++) {
+			unexpected.add(new ApiErrorResponseObjectMatcher.Error(2000 + i % 3, "json", "/items/" + i, "Item " + i + " is invalid"));
+		}
+		final ErrorResponseMatch result = new ErrorResponseMatch(plan, 422, true, plan.getExpectations(), unexpected);
+
+		final String description = describe(result, DescriptionLimits.defaults());
+
+		assertFalse(result.matches());
+		assertTrue(description, description.length() < 4096);
+		assertTrue(description, description.contains("has 50000 additional unexpected errors (by code and location type: "));
+		assertTrue(description, description.contains("code=2000 json x16667"));
+		assertTrue(description, description.contains("; first 10: "));
+		assertTrue(description, description.contains("and 49990 more"));
+		assertFalse(description, description.contains("/items/10,"));
+	}
+
+	@Test
+	public void descriptionIsCutAtMaximumLength() {
+		final ErrorResponsePlan plan = ErrorResponsePlan.builder(422).build();
+		final List<ApiErrorResponseObjectMatcher.Error> unexpected = new ArrayList<>(50000);
+		for (int i = 0; i < 50000; i++) {
+			unexpected.add(new ApiErrorResponseObjectMatcher.Error(2000, "json", "/items/" + i, "Item " + i + " is invalid"));
+		}
+		final ErrorResponseMatch result = new ErrorResponseMatch(plan, 422, true, Collections.<ErrorExpectation>emptyList(), unexpected);
+
+		final String description = describe(result, DescriptionLimits.unbounded().withMaxLength(1000));
+
+		assertTrue(description, description.length() < 1100);
+		assertTrue(description, description.endsWith("... (description cut after 1000 characters)"));
+	}
+
+	@Test
+	public void missingErrorsAreListedWithTheirClosestActualError() {
+		final ErrorResponsePlan plan = ErrorResponsePlan.builder(422)
+				.withError(1001, "json", "/name", "Name is invalid")
+				.withError(1002, "json", "/age", "Age is invalid")
+				.build();
+		final ApiErrorResponse response = response(
+				error(1001, "json", "/nam", "Name is invalid"),
+				error(1002, "json", "/age", "Age is negative"));
+
+		final String description = describe(plan.evaluate(response), DescriptionLimits.defaults());
+
+		assertTrue(description, description.contains("is missing 2 expected errors"));
+		assertTrue(description, description.contains("(closest actual error <code=1001, locationType=json, location=/nam, message=Name is invalid> differs in location)"));
+		assertTrue(description, description.contains("(closest actual error <code=1002, locationType=json, location=/age, message=Age is negative> differs in message)"));
+	}
+
+	@Test
+	public void summarizedMissingErrorsAreListedWithTheirClosestActualError() {
+		final ErrorResponsePlan plan = ErrorResponsePlan.builder(422)
+				.withError(1001, "json", "/name", "Name is invalid")
+				.withError(1002, "json", "/age", "Age is invalid")
+				.withError(1003, "json", "/email", "Email is invalid")
+				.build();
+		final ApiErrorResponse response = response(error(1001, "json", "/nam", "Name is invalid"));
+
+		final String description = describe(plan.evaluate(response), DescriptionLimits.defaults().withExamples(1));
+
+		assertTrue(description, description.contains("; first 1: "));
+		assertTrue(description, description.contains("differs in location)"));
+		assertTrue(description, description.contains("and 2 more"));
+	}
+
+	private static String describe(ErrorResponseMatch result, DescriptionLimits limits) {
+		final StringDescription description = new StringDescription();
+		result.describeMismatch(description, limits);
+		return description.toString();
+	}
+
+	private static ApiErrorResponse response(ApiError... errors) {
+		final ApiErrorResponse response = mock(ApiErrorResponse.class);
+		when(response.getHttpStatusCode()).thenReturn(422);
+		when(response.getErrors()).thenReturn(Arrays.asList(errors));
+		return response;
+	}
+
+	private static ApiError error(Integer code, String locationType, String location, String message) {
+		final ApiError error = mock(ApiError.class);
+		when(error.getNumericCode()).thenReturn(code);
+		when(error.getLocationTypeAsString()).thenReturn(locationType);
+		when(error.getLocation()).thenReturn(location);
+		when(error.getMessage()).thenReturn(message);
+		return error;
+	}
+}
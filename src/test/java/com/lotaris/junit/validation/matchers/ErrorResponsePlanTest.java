@@ -0,0 +1,165 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+//</editor-fold>
+
+public class ErrorResponsePlanTest {
+
+	private static final ErrorResponsePlan PLAN = ErrorResponsePlan.builder(422)
+			.withError(1001, "json", "/name", "Name is invalid")
+			.withError(1001, "json", "/name", "Name is invalid")
+			.withErrorMatching(1002, "json", "/items", "Item \\d+ is invalid")
+			.withError(1002, "json", "/items")
+			.withError(1003, "json", "/age")
+			.build();
+
+	@Test
+	public void quickCheckAgreesWithEvaluation() {
+		final List<ApiErrorResponse> responses = Arrays.asList(
+				// matching, in any order
+				response(422,
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1002, "json", "/items", "Item 3 is invalid"),
+						error(1002, "json", "/items", "Whatever"),
+						error(1003, "json", "/age", "Age is invalid")),
+				response(422,
+						error(1003, "json", "/age", "Age is invalid"),
+						error(1002, "json", "/items", "Item 3 is invalid"),
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1002, "json", "/items", "Whatever"),
+						error(1001, "json", "/name", "Name is invalid")),
+				// matching only if the pattern expectation is left to the second error: the greedy
+				// assignment fails and the full one succeeds
+				response(422,
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1002, "json", "/items", "Item 3 is invalid"),
+						error(1002, "json", "/items", "Item 4 is invalid"),
+						error(1003, "json", "/age", "Age is invalid")),
+				// wrong status code
+				response(400,
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1002, "json", "/items", "Item 3 is invalid"),
+						error(1002, "json", "/items", "Whatever"),
+						error(1003, "json", "/age", "Age is invalid")),
+				// the literal message is expected twice only
+				response(422,
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1002, "json", "/items", "Whatever"),
+						error(1003, "json", "/age", "Age is invalid")),
+				// blank message where a message is required
+				response(422,
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1002, "json", "/items", "Item 3 is invalid"),
+						error(1002, "json", "/items", ""),
+						error(1003, "json", "/age", "Age is invalid")),
+				// error without code
+				response(422,
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1002, "json", "/items", "Item 3 is invalid"),
+						error(null, "json", "/items", "Whatever"),
+						error(1003, "json", "/age", "Age is invalid")),
+				// missing and additional errors
+				response(422,
+						error(1001, "json", "/name", "Name is invalid"),
+						error(1002, "json", "/items", "Item 3 is invalid")),
+				response(422));
+
+		for (int i = 0; i < responses.size(); i++) {
+			final ApiErrorResponse response = responses.get(i);
+			assertEquals("response " + i, PLAN.evaluate(response).matches(), PLAN.matches(response));
+		}
+
+		assertTrue(PLAN.matches(responses.get(0)));
+		assertTrue(PLAN.matches(responses.get(2)));
+		assertFalse(PLAN.matches(responses.get(4)));
+	}
+
+	@Test
+	public void quickCheckAgreesWithEvaluationForListsWithoutRandomAccess() {
+		final List<ApiError> errors = new LinkedList<>(Arrays.asList(
+				error(1003, "json", "/age", "Age is invalid"),
+				error(1002, "json", "/items", "Item 3 is invalid"),
+				error(1001, "json", "/name", "Name is invalid"),
+				error(1002, "json", "/items", "Whatever"),
+				error(1001, "json", "/name", "Name is invalid")));
+		final ApiErrorResponse response = mock(ApiErrorResponse.class);
+		when(response.getHttpStatusCode()).thenReturn(422);
+		when(response.getErrors()).thenReturn(errors);
+
+		assertTrue(PLAN.matches(response));
+		assertTrue(PLAN.evaluate(response).matches());
+	}
+
+	@Test
+	public void plansOfDifferentSizesShareTheScratchArraysOfTheThread() {
+		final ErrorResponsePlan small = ErrorResponsePlan.builder(422).withError(1001, "json", "/name", "Name is invalid").build();
+		final ApiErrorResponse smallResponse = response(422, error(1001, "json", "/name", "Name is invalid"));
+		final ApiErrorResponse largeResponse = response(422,
+				error(1001, "json", "/name", "Name is invalid"),
+				error(1001, "json", "/name", "Name is invalid"),
+				error(1002, "json", "/items", "Item 3 is invalid"),
+				error(1002, "json", "/items", "Whatever"),
+				error(1003, "json", "/age", "Age is invalid"));
+
+		for (int i = 0; i < 3; i++) {
+			assertTrue(small.matches(smallResponse));
+			assertTrue(PLAN.matches(largeResponse));
+			assertFalse(small.matches(largeResponse));
+			assertFalse(PLAN.matches(smallResponse));
+		}
+	}
+
+	@Test
+	public void checkedPlansCanBeGarbageCollected() {
+		final ApiErrorResponse response = response(422, error(1001, "json", "/name", "Name is invalid"));
+
+		ErrorResponsePlan plan = ErrorResponsePlan.builder(422).withErrorMatching(1001, "json", "/name", "Name .*").build();
+		assertTrue(plan.matches(response));
+		final WeakReference<ErrorResponsePlan> reference = new WeakReference<>(plan);
+		plan = null;
+
+		for (int i = 0; i < 10 && reference.get() != null; i++) {
+			System.gc();
+		}
+		assertNull("the plan is still reachable after a quick check", reference.get());
+	}
+
+	private static ApiErrorResponse response(int httpStatusCode, ApiError... errors) {
+		final List<ApiError> list = new ArrayList<>(Arrays.asList(errors));
+		final ApiErrorResponse response = mock(ApiErrorResponse.class);
+		when(response.getHttpStatusCode()).thenReturn(httpStatusCode);
+		when(response.getErrors()).thenReturn(list);
+		return response;
+	}
+
+	private static ApiError error(Integer code, String locationType, String location, String message) {
+		final ApiError error = mock(ApiError.class);
+		when(error.getNumericCode()).thenReturn(code);
+		when(error.getLocationTypeAsString()).thenReturn(locationType);
+		when(error.getLocation()).thenReturn(location);
+		when(error.getMessage()).thenReturn(message);
+		return error;
+	}
+}
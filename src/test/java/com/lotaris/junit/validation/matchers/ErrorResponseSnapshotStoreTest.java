@@ -0,0 +1,135 @@
+package com.lotaris.junit.validation.matchers;
+
+import com.lotaris.jee.validation.ApiError;
+import com.lotaris.jee.validation.ApiErrorResponse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static com.lotaris.junit.validation.matchers.ErrorResponseSnapshotMatcher.matchesSnapshot;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+//</editor-fold>
+
+public class ErrorResponseSnapshotStoreTest {
+
+	private Path directory;
+	private Path file;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("snapshots");
+		file = directory.resolve("error-responses.snapshots");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		Files.deleteIfExists(file);
+		Files.deleteIfExists(directory);
+	}
+
+	@Test
+	public void savedSnapshotsAreReadBackIdentical() throws IOException {
+		final ErrorResponseSnapshot nameSnapshot = snapshot(422,
+				error(1001, "json", "/name", "Name is invalid"),
+				error(1001, "json", "/name", "Name is invalid"),
+				error(-3, null, null, null));
+		final ErrorResponseSnapshot unicodeSnapshot = snapshot(400,
+				error(null, "query", "q", "Param\u00e8tre \u00abq\u00bb invalide \u2713"));
+		final ErrorResponseSnapshot emptySnapshot = snapshot(500);
+
+		final ErrorResponseSnapshotStore store = ErrorResponseSnapshotStore.open(file, false);
+		store.record("UserResource#rejectsName", nameSnapshot);
+		store.record("SearchResource#rejectsQuery", unicodeSnapshot);
+		store.record("HealthResource#fails", emptySnapshot);
+		store.save();
+		assertFalse(store.isModified());
+
+		final ErrorResponseSnapshotStore reopened = ErrorResponseSnapshotStore.open(file, false);
+		assertEquals(3, reopened.size());
+		assertEquals(nameSnapshot, reopened.get("UserResource#rejectsName"));
+		assertEquals(unicodeSnapshot, reopened.get("SearchResource#rejectsQuery"));
+		assertEquals(emptySnapshot, reopened.get("HealthResource#fails"));
+		assertNull(reopened.get("UserResource#unknown"));
+	}
+
+	@Test
+	public void savingReplacesTheMappedFile() throws IOException {
+		final ErrorResponseSnapshot first = snapshot(422, error(1001, "json", "/name", "Name is invalid"));
+		final ErrorResponseSnapshot second = snapshot(404, error(2001, null, null, "Not found"));
+
+		final ErrorResponseSnapshotStore store = ErrorResponseSnapshotStore.open(file, false);
+		store.record("first", first);
+		store.close();
+
+		// the reopened store maps the file, which is then replaced by the second save
+		final ErrorResponseSnapshotStore reopened = ErrorResponseSnapshotStore.open(file, false);
+		reopened.record("second", second);
+		reopened.save();
+		assertEquals(first, reopened.get("first"));
+		assertEquals(second, reopened.get("second"));
+
+		final ErrorResponseSnapshotStore last = ErrorResponseSnapshotStore.open(file, false);
+		assertEquals(2, last.size());
+		assertEquals(first, last.get("first"));
+		assertEquals(second, last.get("second"));
+	}
+
+	@Test
+	public void matcherRecordsThenComparesSnapshot() throws IOException {
+		final ErrorResponseSnapshotStore store = ErrorResponseSnapshotStore.open(file, false);
+		final ApiErrorResponse response = response(422, apiError(1001, "json", "/name", "Name is invalid"));
+
+		assertTrue(matchesSnapshot(store, "UserResource#rejectsName").matches(response));
+		store.save();
+
+		final ErrorResponseSnapshotStore reopened = ErrorResponseSnapshotStore.open(file, false);
+		final ErrorResponseSnapshotMatcher matcher = matchesSnapshot(reopened, "UserResource#rejectsName");
+		assertTrue(matcher.matches(response));
+		assertTrue(matcher.matches(response));
+		assertFalse(matcher.matches(response(422, apiError(1002, "json", "/age", "Age is invalid"))));
+		assertFalse(reopened.isModified());
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsFilesThatAreNotSnapshotFiles() throws IOException {
+		Files.write(file, "not a snapshot file, but long enough".getBytes("UTF-8"));
+		ErrorResponseSnapshotStore.open(file, false);
+	}
+
+	private static ErrorResponseSnapshot snapshot(int httpStatusCode, ApiErrorResponseObjectMatcher.Error... errors) {
+		return new ErrorResponseSnapshot(httpStatusCode, new ArrayList<>(Arrays.asList(errors)));
+	}
+
+	private static ApiErrorResponseObjectMatcher.Error error(Integer code, String locationType, String location, String message) {
+		return new ApiErrorResponseObjectMatcher.Error(code, locationType, location, message);
+	}
+
+	private static ApiErrorResponse response(int httpStatusCode, ApiError... errors) {
+		final List<ApiError> list = Arrays.asList(errors);
+		final ApiErrorResponse response = mock(ApiErrorResponse.class);
+		when(response.getHttpStatusCode()).thenReturn(httpStatusCode);
+		when(response.getErrors()).thenReturn(list);
+		return response;
+	}
+
+	private static ApiError apiError(int code, String locationType, String location, String message) {
+		final ApiError error = mock(ApiError.class);
+		when(error.getNumericCode()).thenReturn(code);
+		when(error.getLocationTypeAsString()).thenReturn(locationType);
+		when(error.getLocation()).thenReturn(location);
+		when(error.getMessage()).thenReturn(message);
+		return error;
+	}
+}
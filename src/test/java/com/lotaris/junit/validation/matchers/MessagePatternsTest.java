@@ -0,0 +1,91 @@
+package com.lotaris.junit.validation.matchers;
+
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+//<editor-fold defaultstate="collapsed" desc="Static Imports">
+import static com.lotaris.junit.validation.matchers.MessagePatterns.hasTopLevelAlternative;
+import static com.lotaris.junit.validation.matchers.MessagePatterns.literalPrefix;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+//</editor-fold>
+
+public class MessagePatternsTest {
+
+	@Test
+	public void literalPrefixStopsAtFirstConstruct() {
+		assertEquals("Item ", prefix("Item \\d+ is invalid"));
+		assertEquals("Item ", prefix("^Item \\d+"));
+		assertEquals("a.b", prefix("a\\.b[cd]"));
+		assertEquals("Name is invalid", prefix("Name is invalid"));
+	}
+
+	@Test
+	public void literalPrefixExcludesOptionalCharacter() {
+		assertEquals("ab", prefix("abc?"));
+		assertEquals("ab", prefix("abc*"));
+	}
+
+	@Test
+	public void literalPrefixKeepsCharacterRepeatedAtLeastOnce() {
+		assertEquals("abc", prefix("abc+"));
+	}
+
+	@Test
+	public void literalPrefixExcludesCharacterWithCountedQuantifier() {
+		// b{0} never occurs: "ac" matches
+		assertEquals("a", prefix("ab{0}c"));
+		assertTrue(Pattern.matches("ab{0}c", "ac"));
+	}
+
+	@Test
+	public void literalPrefixIncludesQuotedText() {
+		assertEquals("a.b(c", prefix("\\Qa.b(c\\E\\d"));
+		assertEquals("a.b", prefix("\\Qa.b"));
+	}
+
+	@Test
+	public void literalPrefixExcludesLastQuotedCharacterWhenQuantified() {
+		// the quantifier applies to the last quoted character only
+		assertEquals("a.", prefix("\\Qa.b\\E?c"));
+		assertTrue(Pattern.matches("\\Qa.b\\E?c", "a.c"));
+	}
+
+	@Test
+	public void literalPrefixIsEmptyWithCaseInsensitiveFlag() {
+		assertEquals("", prefix("(?i)abc"));
+		assertEquals("", literalPrefix(Pattern.compile("abc", Pattern.CASE_INSENSITIVE)));
+		assertEquals("", literalPrefix(Pattern.compile("abc", Pattern.LITERAL | Pattern.CASE_INSENSITIVE)));
+		assertEquals("a.c", literalPrefix(Pattern.compile("a.c", Pattern.LITERAL)));
+	}
+
+	@Test
+	public void literalPrefixIsEmptyWithTopLevelAlternative() {
+		assertEquals("", prefix("a|b"));
+		assertEquals("ab", prefix("ab(c|d)"));
+	}
+
+	@Test
+	public void detectsTopLevelAlternatives() {
+		assertTrue(hasTopLevelAlternative("a|b"));
+		assertTrue(hasTopLevelAlternative("(a)|b"));
+		assertTrue(hasTopLevelAlternative("[a]|b"));
+		assertTrue(hasTopLevelAlternative("\\Qa\\E|b"));
+	}
+
+	@Test
+	public void ignoresNestedEscapedQuotedAndClassAlternatives() {
+		assertFalse(hasTopLevelAlternative("abc"));
+		assertFalse(hasTopLevelAlternative("(a|b)c"));
+		assertFalse(hasTopLevelAlternative("a(?:b|(c|d))e"));
+		assertFalse(hasTopLevelAlternative("a\\|b"));
+		assertFalse(hasTopLevelAlternative("a[|]b"));
+		assertFalse(hasTopLevelAlternative("a[]|]b"));
+		assertFalse(hasTopLevelAlternative("\\Qa|b\\E"));
+	}
+
+	private static String prefix(String regex) {
+		return literalPrefix(Pattern.compile(regex));
+	}
+}